@@ -42,9 +42,10 @@ export default function HomeScreen() {
     queryFn: magazalarApi.getAll,
   });
 
-  const { data: urunler = [] } = useQuery({
-    queryKey: ['urunler'],
-    queryFn: urunlerApi.getAll,
+  // Yalnızca toplam sayı gerekiyor; tek ürünlük sayfa yeterli
+  const { data: urunSayfasi } = useQuery({
+    queryKey: ['urunler-toplam'],
+    queryFn: () => urunlerApi.getSayfa({ limit: 1 }),
   });
 
   const isLoading = kategoriLoading || magazaLoading;
@@ -103,7 +104,7 @@ export default function HomeScreen() {
               <LinearGradient colors={['#f093fb', '#f5576c']} className="p-5 rounded-3xl h-32 justify-between">
                 <Shirt size={24} color="white" />
                 <View>
-                  <Text className="text-white text-3xl font-bold">{urunler.length}</Text>
+                  <Text className="text-white text-3xl font-bold">{urunSayfasi?.toplam ?? 0}</Text>
                   <Text className="text-white/80 text-sm font-medium">Toplam Ürün</Text>
                 </View>
               </LinearGradient>
@@ -1,5 +1,9 @@
 import apiClient from './apiClient';
 
+// Sipariş/ödeme tekrar denemelerinde sunucunun ilk yanıtı dönmesi için istek anahtarı
+export const yeniIdempotencyKey = () =>
+    `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}${Math.random().toString(36).slice(2)}`;
+
 // =============== AUTH API ===============
 export const authApi = {
     login: async (kullaniciAdi: string, sifre: string) => {
@@ -33,16 +37,45 @@ export const authApi = {
 
 // =============== PRODUCTS API ===============
 export const urunlerApi = {
+    // İlk sayfa (liste ekranları için)
     getAll: async () => {
         const response = await apiClient.get('/api/urunler');
         return response.data;
     },
 
+    // İmleçli sayfalama (sonsuz kaydırma): dönen sonrakiImlec bir sonraki çağrıya verilir
+    getSayfa: async (sayfa: {
+        magazaId?: number;
+        kategoriId?: number;
+        altKategoriId?: number;
+        siralama?: 'yeni' | 'fiyat-artan' | 'fiyat-azalan';
+        imlec?: string;
+        limit?: number;
+    } = {}) => {
+        const { magazaId, ...filtre } = sayfa;
+        const params = new URLSearchParams();
+        Object.entries(filtre).forEach(([key, value]) => {
+            if (value !== undefined && value !== null && value !== '') params.append(key, value.toString());
+        });
+
+        const url = magazaId ? `/api/urunler/magaza/${magazaId}/sayfa` : '/api/urunler/sayfa';
+        const response = await apiClient.get(`${url}?${params}`);
+        return response.data;
+    },
+
     getById: async (id: number) => {
         const response = await apiClient.get(`/api/urunler/${id}`);
         return response.data;
     },
 
+    // Birden fazla ürün tek istekte (istek sırasıyla, en fazla 100)
+    getBatch: async (ids: number[]) => {
+        const params = new URLSearchParams();
+        params.append('ids', ids.join(','));
+        const response = await apiClient.get(`/api/urunler/batch?${params}`);
+        return response.data;
+    },
+
     getByMagaza: async (magazaId: number, kategoriId?: number, altKategoriId?: number) => {
         const params = new URLSearchParams();
         if (kategoriId) params.append('kategoriId', kategoriId.toString());
@@ -53,8 +86,35 @@ export const urunlerApi = {
     },
 
     // Ürün arama
-    ara: async (query: string) => {
-        const response = await apiClient.get(`/api/urunler/ara?q=${encodeURIComponent(query)}`);
+    ara: async (query: string, offset: number = 0, limit: number = 20) => {
+        const response = await apiClient.get(`/api/urunler/ara?q=${encodeURIComponent(query)}&offset=${offset}&limit=${limit}`);
+        return response.data;
+    },
+
+    // Facet'li filtreleme (sonuçlar + her filtre için ürün sayıları)
+    filtrele: async (filtre: {
+        magazaId?: number;
+        kategoriId?: number;
+        altKategoriId?: number;
+        sezon?: string;
+        renk?: string;
+        minFiyat?: number;
+        maxFiyat?: number;
+        offset?: number;
+        limit?: number;
+    }) => {
+        const params = new URLSearchParams();
+        Object.entries(filtre).forEach(([key, value]) => {
+            if (value !== undefined && value !== null && value !== '') params.append(key, value.toString());
+        });
+
+        const response = await apiClient.get(`/api/urunler/filtre?${params}`);
+        return response.data;
+    },
+
+    // Arama kutusu için otomatik tamamlama (ürün, mağaza, kategori adları)
+    oneri: async (q: string, limit: number = 8) => {
+        const response = await apiClient.get(`/api/urunler/oneri?q=${encodeURIComponent(q)}&limit=${limit}`);
         return response.data;
     },
 };
@@ -83,6 +143,12 @@ export const magazalarApi = {
         const response = await apiClient.get(`/api/magazalar/${id}`);
         return response.data;
     },
+
+    // Mağaza adıyla arama (yalnızca aktif mağazalar)
+    ara: async (query: string) => {
+        const response = await apiClient.get(`/api/magazalar?q=${encodeURIComponent(query)}`);
+        return response.data;
+    },
 };
 
 // =============== CART API ===============
@@ -112,8 +178,17 @@ export const sepetApi = {
         return response.data;
     },
 
-    checkout: async (teslimatAdresi?: string) => {
-        const response = await apiClient.post('/api/sepet/siparis-ver', { teslimatAdresi });
+    // Aynı sipariş denemesinin tekrarlarında aynı idempotencyKey gönderilmeli
+    checkout: async (teslimatAdresi?: string, idempotencyKey: string = yeniIdempotencyKey()) => {
+        const response = await apiClient.post('/api/sepet/siparis-ver', { teslimatAdresi }, {
+            headers: { 'Idempotency-Key': idempotencyKey }
+        });
+        return response.data;
+    },
+
+    // Flash satışta sipariş sıraya alınırsa (202) bilet durumunu sorgula
+    getSiparisBileti: async (biletId: string) => {
+        const response = await apiClient.get(`/api/sepet/siparis-bileti/${encodeURIComponent(biletId)}`);
         return response.data;
     },
 };
@@ -185,6 +260,20 @@ export const adminApi = {
         return response.data;
     },
 
+    getOnbellekIstatistikleri: async () => {
+        const response = await apiClient.get('/api/admin/onbellek');
+        return response.data;
+    },
+
+    getAramaAnalitigi: async (limit: number = 20, gun?: number) => {
+        const params = new URLSearchParams();
+        params.append('limit', limit.toString());
+        if (gun) params.append('gun', gun.toString());
+
+        const response = await apiClient.get(`/api/admin/arama-analitigi?${params}`);
+        return response.data;
+    },
+
     getKullanicilar: async () => {
         const response = await apiClient.get('/api/admin/kullanicilar');
         return response.data;
@@ -288,11 +377,12 @@ export const adminApi = {
         return response.data;
     },
 
-    updateSiparisIcerik: async (id: number, data: { detayIds: number[]; adetler: number[]; silinecekIds: number[] }) => {
+    updateSiparisIcerik: async (id: number, data: { detayIds: number[]; adetler: number[]; silinecekIds: number[]; versiyon?: number }) => {
         const params = new URLSearchParams();
         data.detayIds.forEach(detayId => params.append('detayIds', detayId.toString()));
         data.adetler.forEach(adet => params.append('adetler', adet.toString()));
         data.silinecekIds.forEach(silId => params.append('silinecekIds', silId.toString()));
+        if (data.versiyon !== undefined) params.append('versiyon', data.versiyon.toString());
         const response = await apiClient.post(`/api/admin/siparis/${id}/icerik-guncelle`, params.toString(), {
             headers: {
                 'Content-Type': 'application/x-www-form-urlencoded'
@@ -375,12 +465,18 @@ export const magazaSahibiApi = {
         return response.data;
     },
 
+    // Seçilen siparişleri tek istekte yeni duruma taşı; sonuçlar sipariş başına döner
+    updateSiparisDurumlari: async (siparisIds: number[], durum: string) => {
+        const response = await apiClient.put('/api/magaza-sahibi/siparisler/durum', { siparisIds, durum });
+        return response.data;
+    },
+
     getSiparis: async (siparisId: number) => {
         const response = await apiClient.get(`/api/magaza-sahibi/siparis/${siparisId}`);
         return response.data;
     },
 
-    updateSiparisIcerik: async (siparisId: number, data: { detayIds: number[], adetler: number[], silinecekIds: number[] }) => {
+    updateSiparisIcerik: async (siparisId: number, data: { detayIds: number[], adetler: number[], silinecekIds: number[], versiyon?: number }) => {
         const response = await apiClient.put(`/api/magaza-sahibi/siparis/${siparisId}/icerik`, data);
         return response.data;
     },
@@ -396,6 +492,23 @@ export const magazaSahibiApi = {
         const response = await apiClient.delete(`/api/magaza-sahibi/magaza/${magazaId}`);
         return response.data;
     },
+
+    // Eşiğin altındaki stoklar ve uyarı akışının başlangıç sırası
+    getDusukStoklar: async (magazaId: number) => {
+        const response = await apiClient.get(`/api/magaza-sahibi/magaza/${magazaId}/dusuk-stoklar`);
+        return response.data;
+    },
+
+    updateDusukStokEsigi: async (magazaId: number, esik: number) => {
+        const response = await apiClient.put(`/api/magaza-sahibi/magaza/${magazaId}/dusuk-stok-esigi`, { esik });
+        return response.data;
+    },
+
+    // Verilen sıradan sonraki düşük stok uyarıları
+    getStokUyarilari: async (magazaId: number, sonra: number = 0) => {
+        const response = await apiClient.get(`/api/magaza-sahibi/magaza/${magazaId}/stok-uyarilari?sonra=${sonra}`);
+        return response.data;
+    },
 };
 
 // =============== MESAJLAR API ===============
@@ -461,7 +574,8 @@ export const odemeApi = {
         kartNo: string,
         sonKullanma: string,
         cvv: string,
-        kartSahibi: string
+        kartSahibi: string,
+        idempotencyKey: string = yeniIdempotencyKey()
     ): Promise<{
         success: boolean;
         message: string;
@@ -475,6 +589,8 @@ export const odemeApi = {
             sonKullanma,
             cvv,
             kartSahibi
+        }, {
+            headers: { 'Idempotency-Key': idempotencyKey }
         });
         return response.data;
     },
@@ -0,0 +1,230 @@
+package com.magazaapp.catalog;
+
+import com.magazaapp.dto.StokDTO;
+import com.magazaapp.dto.UrunKartiDTO;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Aktif kataloğun değişmez, sürümlü bellek içi görüntüsü (ürün kartları + beden stokları).
+ *
+ * Görüntü yayınlandıktan sonra hiç değişmez; okuyucular kilitsiz okur. Değişiklikler
+ * {@link Duzenleyici} ile yeni bir görüntü olarak üretilir (copy-on-write). Kartlar ve stoklar
+ * id'ye göre {@value #PARCA_SAYISI} parçaya bölündüğü için tek ürünlük bir değişiklik tüm
+ * kataloğu değil yalnızca ilgili parçayı kopyalar; değişmeyen parçalar eski görüntüyle paylaşılır.
+ */
+public final class KatalogGoruntusu {
+
+    static final int PARCA_SAYISI = 64;
+
+    static final KatalogGoruntusu BOS = new KatalogGoruntusu(0, 0, bosParcalar(), bosParcalar(), Map.of(), 0);
+
+    private final long surum;
+    private final long kartSurumu;
+    private final Map<Long, UrunKartiDTO>[] kartlar;
+    private final Map<Long, List<StokDTO>>[] stoklar;
+    private final Map<Long, long[]> magazaUrunleri;
+    private final int urunSayisi;
+
+    private KatalogGoruntusu(long surum, long kartSurumu, Map<Long, UrunKartiDTO>[] kartlar,
+            Map<Long, List<StokDTO>>[] stoklar, Map<Long, long[]> magazaUrunleri, int urunSayisi) {
+        this.surum = surum;
+        this.kartSurumu = kartSurumu;
+        this.kartlar = kartlar;
+        this.stoklar = stoklar;
+        this.magazaUrunleri = magazaUrunleri;
+        this.urunSayisi = urunSayisi;
+    }
+
+    // =============== OKUMA ===============
+
+    /**
+     * Her yayında bir artar; önbellek anahtarı / tutarlılık kontrolü için
+     */
+    public long surum() {
+        return surum;
+    }
+
+    /**
+     * Yalnızca ürün kartları değiştiğinde artar (stok değişiklikleri artırmaz);
+     * kartlardan türetilen yapılar ({@link KatalogSutunlari}) bununla geçersizlenir
+     */
+    public long kartSurumu() {
+        return kartSurumu;
+    }
+
+    public int urunSayisi() {
+        return urunSayisi;
+    }
+
+    public Optional<UrunKartiDTO> urun(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(kartlar[parca(id)].get(id));
+    }
+
+    public List<StokDTO> stoklar(Long urunId) {
+        if (urunId == null) {
+            return List.of();
+        }
+        return stoklar[parca(urunId)].getOrDefault(urunId, List.of());
+    }
+
+    /**
+     * Verilen sırayla ürün kartları; katalogda olmayan (pasif/silinmiş) id'ler atlanır
+     */
+    public List<UrunKartiDTO> urunler(Collection<Long> idler) {
+        List<UrunKartiDTO> sonuc = new ArrayList<>(idler.size());
+        for (Long id : idler) {
+            UrunKartiDTO kart = id != null ? kartlar[parca(id)].get(id) : null;
+            if (kart != null) {
+                sonuc.add(kart);
+            }
+        }
+        return sonuc;
+    }
+
+    /**
+     * Mağazanın aktif ürünleri (id sırasıyla)
+     */
+    public List<UrunKartiDTO> magazaUrunleri(Long magazaId) {
+        long[] idler = magazaUrunleri.get(magazaId);
+        if (idler == null) {
+            return List.of();
+        }
+        List<UrunKartiDTO> sonuc = new ArrayList<>(idler.length);
+        for (long id : idler) {
+            sonuc.add(kartlar[parca(id)].get(id));
+        }
+        return sonuc;
+    }
+
+    /**
+     * Tüm ürün kartları (sıra belirsiz)
+     */
+    void kartlariGez(Consumer<UrunKartiDTO> islem) {
+        for (Map<Long, UrunKartiDTO> parca : kartlar) {
+            parca.values().forEach(islem);
+        }
+    }
+
+    /**
+     * Sıfırdan kurulum için boş görüntü; sürümler geri sarılmaz, böylece eski sürüme göre
+     * türetilmiş yapılar yeni kurulumla karışmaz
+     */
+    KatalogGoruntusu bosalt() {
+        return new KatalogGoruntusu(surum, kartSurumu + 1, bosParcalar(), bosParcalar(), Map.of(), 0);
+    }
+
+    Duzenleyici duzenle() {
+        return new Duzenleyici(this);
+    }
+
+    // =============== DÜZENLEME (COPY-ON-WRITE) ===============
+
+    /**
+     * Tek yazar tarafından kullanılır. Bir parça ilk dokunulduğunda kopyalanır;
+     * aynı düzenleyiciyle yapılan sonraki değişiklikler kopya üzerinde ilerler.
+     */
+    static final class Duzenleyici {
+
+        private final KatalogGoruntusu kaynak;
+        private final Map<Long, UrunKartiDTO>[] kartlar;
+        private final Map<Long, List<StokDTO>>[] stoklar;
+        private final boolean[] kartParcasiKopya = new boolean[PARCA_SAYISI];
+        private final boolean[] stokParcasiKopya = new boolean[PARCA_SAYISI];
+        private final Map<Long, TreeSet<Long>> degisenMagazalar = new HashMap<>();
+        private int urunSayisi;
+        private boolean kartDegisti;
+
+        private Duzenleyici(KatalogGoruntusu kaynak) {
+            this.kaynak = kaynak;
+            this.kartlar = kaynak.kartlar.clone();
+            this.stoklar = kaynak.stoklar.clone();
+            this.urunSayisi = kaynak.urunSayisi;
+        }
+
+        void kartKoy(UrunKartiDTO kart) {
+            kartDegisti = true;
+            UrunKartiDTO eski = yazilabilirKartParcasi(kart.id()).put(kart.id(), kart);
+            if (eski == null) {
+                urunSayisi++;
+            } else if (!Objects.equals(eski.magazaId(), kart.magazaId())) {
+                magazaListesi(eski.magazaId()).remove(kart.id());
+            }
+            magazaListesi(kart.magazaId()).add(kart.id());
+        }
+
+        void kartSil(Long urunId) {
+            UrunKartiDTO eski = yazilabilirKartParcasi(urunId).remove(urunId);
+            if (eski != null) {
+                kartDegisti = true;
+                urunSayisi--;
+                magazaListesi(eski.magazaId()).remove(urunId);
+            }
+        }
+
+        void stokKoy(Long urunId, List<StokDTO> urunStoklari) {
+            int p = parca(urunId);
+            if (!stokParcasiKopya[p]) {
+                stoklar[p] = new HashMap<>(stoklar[p]);
+                stokParcasiKopya[p] = true;
+            }
+            if (urunStoklari.isEmpty()) {
+                stoklar[p].remove(urunId);
+            } else {
+                stoklar[p].put(urunId, List.copyOf(urunStoklari));
+            }
+        }
+
+        KatalogGoruntusu yayinla() {
+            Map<Long, long[]> magazalar = kaynak.magazaUrunleri;
+            if (!degisenMagazalar.isEmpty()) {
+                magazalar = new HashMap<>(kaynak.magazaUrunleri);
+                for (Map.Entry<Long, TreeSet<Long>> giris : degisenMagazalar.entrySet()) {
+                    if (giris.getValue().isEmpty()) {
+                        magazalar.remove(giris.getKey());
+                    } else {
+                        magazalar.put(giris.getKey(), giris.getValue().stream().mapToLong(Long::longValue).toArray());
+                    }
+                }
+            }
+            return new KatalogGoruntusu(kaynak.surum + 1, kartDegisti ? kaynak.kartSurumu + 1 : kaynak.kartSurumu,
+                    kartlar, stoklar, magazalar, urunSayisi);
+        }
+
+        private Map<Long, UrunKartiDTO> yazilabilirKartParcasi(Long urunId) {
+            int p = parca(urunId);
+            if (!kartParcasiKopya[p]) {
+                kartlar[p] = new HashMap<>(kartlar[p]);
+                kartParcasiKopya[p] = true;
+            }
+            return kartlar[p];
+        }
+
+        private TreeSet<Long> magazaListesi(Long magazaId) {
+            return degisenMagazalar.computeIfAbsent(magazaId, id -> {
+                TreeSet<Long> liste = new TreeSet<>();
+                long[] mevcut = kaynak.magazaUrunleri.get(id);
+                if (mevcut != null) {
+                    for (long urunId : mevcut) {
+                        liste.add(urunId);
+                    }
+                }
+                return liste;
+            });
+        }
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private static int parca(long id) {
+        return (int) (id & (PARCA_SAYISI - 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Map<Long, V>[] bosParcalar() {
+        Map<Long, V>[] parcalar = new Map[PARCA_SAYISI];
+        Arrays.fill(parcalar, Map.of());
+        return parcalar;
+    }
+}
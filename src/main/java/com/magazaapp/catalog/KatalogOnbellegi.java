@@ -0,0 +1,257 @@
+package com.magazaapp.catalog;
+
+import com.magazaapp.dto.StokDTO;
+import com.magazaapp.dto.UrunKartiDTO;
+import com.magazaapp.repository.UrunStokRepository;
+import com.magazaapp.search.UrunAramaIndeksi;
+import com.magazaapp.search.UrunDokumani;
+import com.magazaapp.search.UrunIndeksDinleyicisi;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Katalog okumalarının (ürün kartı, stok, mağaza ürünleri) veritabanına gitmeden
+ * karşılandığı bellek içi okuma modeli.
+ *
+ * Güncel {@link KatalogGoruntusu} volatile bir referansta tutulur: okuyucular kilit almadan
+ * o anki görüntüyü alır ve tutarlı bir sürüm üzerinde çalışır. Yazmalar tek yazar kilidi
+ * altında yeni görüntü üretip referansı değiştirir.
+ *
+ * Ürün kartları {@link UrunAramaIndeksi} üzerinden (commit sonrası) beslenir. Stok değişiklikleri
+ * {@link UrunStokDinleyicisi} ile yakalanır; bir transaction'da değişen ürünlerin stokları
+ * commit sonrasında tek sorguda yeniden okunur.
+ */
+@Component
+public class KatalogOnbellegi implements UrunIndeksDinleyicisi {
+
+    private final UrunStokRepository urunStokRepository;
+
+    private final Object yazmaKilidi = new Object();
+    private volatile KatalogGoruntusu guncel = KatalogGoruntusu.BOS;
+    private volatile boolean hazir;
+    private KatalogGoruntusu.Duzenleyici topluKurulum;
+
+    /**
+     * Stok okumaları kilit dışında yapılır; her okuma başlamadan bir sıra numarası alır ve bir ürün
+     * için yalnızca son uygulanandan (ve son kurulum okumasından) yeni okumalar uygulanır. Böylece
+     * önce başlayıp geç biten bir okuma, sonra commit olan bir değişikliğin okumasını ezemez.
+     */
+    private final AtomicLong okumaSirasi = new AtomicLong();
+    private final Map<Long, Long> uygulananSira = new HashMap<>();
+    private long kurulumSirasi;
+    private Map<Long, List<StokDTO>> kurulumStoklari;
+
+    private final Object sutunKilidi = new Object();
+    private volatile KatalogSutunlari sutunlar;
+
+    public KatalogOnbellegi(UrunStokRepository urunStokRepository) {
+        this.urunStokRepository = urunStokRepository;
+    }
+
+    /**
+     * O anki katalog görüntüsü; dönen nesne değişmez, istenildiği kadar tutulabilir
+     */
+    public KatalogGoruntusu goruntu() {
+        return guncel;
+    }
+
+    /**
+     * İlk kurulum tamamlandı mı; öncesinde görüntü boştur ve okumalar veritabanına gitmelidir
+     */
+    public boolean hazir() {
+        return hazir;
+    }
+
+    /**
+     * Güncel görüntünün sütunsal kopyası. Kartlar değiştikten sonraki ilk çağrıda yeniden
+     * oluşturulur (stok değişiklikleri sütunları etkilemez); aynı anda gelen çağrılar tek kurulumu bekler.
+     */
+    public KatalogSutunlari sutunlar() {
+        KatalogGoruntusu goruntu = guncel;
+        KatalogSutunlari mevcut = sutunlar;
+        if (mevcut != null && mevcut.kartSurumu() == goruntu.kartSurumu()) {
+            return mevcut;
+        }
+        synchronized (sutunKilidi) {
+            goruntu = guncel;
+            mevcut = sutunlar;
+            if (mevcut == null || mevcut.kartSurumu() != goruntu.kartSurumu()) {
+                mevcut = KatalogSutunlari.olustur(goruntu);
+                sutunlar = mevcut;
+            }
+            return mevcut;
+        }
+    }
+
+    // =============== ÜRÜN DEĞİŞİKLİKLERİ (arama indeksinden) ===============
+
+    @Override
+    public void dokumanEklendi(UrunDokumani dokuman) {
+        UrunKartiDTO kart = kart(dokuman);
+        synchronized (yazmaKilidi) {
+            if (topluKurulum != null) {
+                topluKurulum.kartKoy(kart);
+                return;
+            }
+            KatalogGoruntusu.Duzenleyici duzenleyici = guncel.duzenle();
+            duzenleyici.kartKoy(kart);
+            guncel = duzenleyici.yayinla();
+        }
+    }
+
+    @Override
+    public void dokumanSilindi(UrunDokumani dokuman) {
+        synchronized (yazmaKilidi) {
+            if (topluKurulum != null) {
+                topluKurulum.kartSil(dokuman.id());
+                return;
+            }
+            KatalogGoruntusu.Duzenleyici duzenleyici = guncel.duzenle();
+            duzenleyici.kartSil(dokuman.id());
+            guncel = duzenleyici.yayinla();
+        }
+    }
+
+    /**
+     * Toplu değişiklik tek düzenleyicide uygulanır ve görüntü bir kez yayınlanır
+     */
+    @Override
+    public void dokumanlarDegisti(List<UrunDokumani> eskiler, List<UrunDokumani> yeniler) {
+        List<UrunKartiDTO> kartlar = yeniler.stream().map(KatalogOnbellegi::kart).toList();
+        synchronized (yazmaKilidi) {
+            KatalogGoruntusu.Duzenleyici duzenleyici = topluKurulum != null ? topluKurulum : guncel.duzenle();
+            eskiler.forEach(eski -> duzenleyici.kartSil(eski.id()));
+            kartlar.forEach(duzenleyici::kartKoy);
+            if (topluKurulum == null) {
+                guncel = duzenleyici.yayinla();
+            }
+        }
+    }
+
+    /**
+     * Sıfırdan kurulum için tüm stoklar tek sorguda, arama indeksinin kilidi alınmadan okunur
+     */
+    @Override
+    public void kurulumaHazirlan() {
+        long sira = okumaSirasi.incrementAndGet();
+        Map<Long, List<StokDTO>> tumStoklar = urunStokRepository.findTumStoklar().stream()
+                .collect(Collectors.groupingBy(StokDTO::urunId));
+        synchronized (yazmaKilidi) {
+            kurulumStoklari = tumStoklar;
+            kurulumSirasi = sira;
+        }
+    }
+
+    /**
+     * Sıfırdan kurulum: hazırlıkta okunan stoklar konur, kartlar ardından gelen dokumanEklendi
+     * çağrılarıyla eklenir ve görüntü indeksKuruldu'da tek seferde yayınlanır. Hazırlıktan sonra
+     * başlayıp uygulanmış stok okumaları güncel görüntüden korunur.
+     */
+    @Override
+    public void indeksTemizlendi() {
+        synchronized (yazmaKilidi) {
+            topluKurulum = guncel.bosalt().duzenle();
+            if (kurulumStoklari != null) {
+                kurulumStoklari.forEach(topluKurulum::stokKoy);
+            }
+            for (Map.Entry<Long, Long> giris : uygulananSira.entrySet()) {
+                if (giris.getValue() > kurulumSirasi) {
+                    topluKurulum.stokKoy(giris.getKey(), guncel.stoklar(giris.getKey()));
+                }
+            }
+            uygulananSira.values().removeIf(sira -> sira <= kurulumSirasi);
+            kurulumStoklari = null;
+        }
+    }
+
+    @Override
+    public void indeksKuruldu() {
+        synchronized (yazmaKilidi) {
+            if (topluKurulum == null) {
+                return;
+            }
+            guncel = topluKurulum.yayinla();
+            topluKurulum = null;
+            hazir = true;
+        }
+        System.out.println(">>> Katalog görüntüsü yayınlandı: " + guncel.urunSayisi() + " ürün");
+    }
+
+    // =============== STOK DEĞİŞİKLİKLERİ ===============
+
+    /**
+     * Ürünün stoğu değişti; transaction varsa commit sonrasında (transaction başına tek sorguyla)
+     * yeniden okunur. İlk kurulumdan önceki değişiklikler (DataSeeder) kurulumda zaten okunur.
+     */
+    public void stokDegisti(Long urunId) {
+        if (urunId == null || !hazir) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stoklariYenile(List.of(urunId));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Long> bekleyenler = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (bekleyenler == null) {
+            Set<Long> yeniBekleyenler = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, yeniBekleyenler);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stoklariYenile(yeniBekleyenler);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(KatalogOnbellegi.this);
+                }
+            });
+            bekleyenler = yeniBekleyenler;
+        }
+        bekleyenler.add(urunId);
+    }
+
+    /**
+     * Sorgu yazar kilidi dışında çalışır; sonuç kilit altında, sıra numarası daha yeni olan ürünlere uygulanır
+     */
+    private void stoklariYenile(Collection<Long> urunIdleri) {
+        if (urunIdleri.isEmpty()) {
+            return;
+        }
+        long sira = okumaSirasi.incrementAndGet();
+        Map<Long, List<StokDTO>> okunan = urunStokRepository.findStoklarByUrunIdIn(urunIdleri).stream()
+                .collect(Collectors.groupingBy(StokDTO::urunId));
+        synchronized (yazmaKilidi) {
+            if (sira <= kurulumSirasi) {
+                return;
+            }
+            KatalogGoruntusu.Duzenleyici duzenleyici = topluKurulum != null ? topluKurulum : guncel.duzenle();
+            boolean degisti = false;
+            for (Long urunId : urunIdleri) {
+                if (sira > uygulananSira.getOrDefault(urunId, 0L)) {
+                    duzenleyici.stokKoy(urunId, okunan.getOrDefault(urunId, List.of()));
+                    uygulananSira.put(urunId, sira);
+                    degisti = true;
+                }
+            }
+            if (degisti && topluKurulum == null) {
+                guncel = duzenleyici.yayinla();
+            }
+        }
+    }
+
+    private static UrunKartiDTO kart(UrunDokumani dokuman) {
+        // İndekste yalnızca aktif ürünler bulunur
+        return new UrunKartiDTO(dokuman.id(), dokuman.ad(), dokuman.aciklama(), dokuman.fiyat(),
+                dokuman.resimUrl(), dokuman.renk(), true, dokuman.magazaId(), dokuman.magazaAd(),
+                dokuman.kategoriId(), dokuman.kategoriAd(), dokuman.altKategoriId(), dokuman.altKategoriAd(),
+                dokuman.sezon(), dokuman.olusturmaTarihi());
+    }
+}
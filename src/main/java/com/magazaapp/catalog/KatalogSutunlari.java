@@ -0,0 +1,339 @@
+package com.magazaapp.catalog;
+
+import com.magazaapp.dto.UrunImleci;
+import com.magazaapp.dto.UrunKartiDTO;
+import com.magazaapp.dto.UrunSiralama;
+import com.magazaapp.search.MetinAnalizci;
+import com.magazaapp.search.UrunFiltresi;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Katalog görüntüsünün sütun yönelimli, değişmez kopyası: filtreleme ve sıralama
+ * nesne oluşturmadan ilkel diziler üzerinde yapılır.
+ *
+ * Satırlar id'ye göre artan sıradadır. Fiyat kuruş (int), oluşturma tarihi epoch saniyesi (long),
+ * mağaza/kategori/alt kategori/renk sözlük sıra numarası (short), sezon enum sırası (byte) olarak tutulur.
+ * Sıralama, (değer, satır) çifti tek bir long anahtara paketlenerek yapılır; satırlar id sırasında
+ * olduğu için eşit değerlerde id sırası korunur. Sayfa için yalnızca ilk limit+1 anahtar seçilir
+ * (quickselect), tamamı sıralanmaz.
+ */
+public final class KatalogSutunlari {
+
+    /** Paketlenmiş anahtarda satır için ayrılan bit sayısı (en fazla 16M satır) */
+    private static final int SATIR_BITI = 24;
+    private static final long SATIR_MASKESI = (1L << SATIR_BITI) - 1;
+    private static final short YOK = -1;
+    private static final byte SEZON_YOK = -1;
+    private static final BigDecimal INT_UST = BigDecimal.valueOf(Integer.MAX_VALUE);
+    private static final BigDecimal INT_ALT = BigDecimal.valueOf(Integer.MIN_VALUE);
+
+    private final long kartSurumu;
+    private final int satirSayisi;
+    private final long[] idler;
+    private final int[] fiyatKurus;
+    private final long[] olusturma;
+    private final short[] magaza;
+    private final short[] kategori;
+    private final short[] altKategori;
+    private final short[] renk;
+    private final byte[] sezon;
+    private final UrunKartiDTO[] kartlar;
+
+    private final Map<Long, Short> magazaSirasi;
+    private final Map<Long, Short> kategoriSirasi;
+    private final Map<Long, Short> altKategoriSirasi;
+    private final Map<String, Short> renkSirasi;
+
+    private KatalogSutunlari(KatalogGoruntusu goruntu) {
+        List<UrunKartiDTO> tumu = new ArrayList<>(goruntu.urunSayisi());
+        goruntu.kartlariGez(tumu::add);
+        tumu.sort(Comparator.comparing(UrunKartiDTO::id));
+        if (tumu.size() > SATIR_MASKESI) {
+            throw new IllegalStateException("Sütun kataloğu için çok fazla ürün: " + tumu.size());
+        }
+
+        this.kartSurumu = goruntu.kartSurumu();
+        this.satirSayisi = tumu.size();
+        this.idler = new long[satirSayisi];
+        this.fiyatKurus = new int[satirSayisi];
+        this.olusturma = new long[satirSayisi];
+        this.magaza = new short[satirSayisi];
+        this.kategori = new short[satirSayisi];
+        this.altKategori = new short[satirSayisi];
+        this.renk = new short[satirSayisi];
+        this.sezon = new byte[satirSayisi];
+        this.kartlar = tumu.toArray(new UrunKartiDTO[0]);
+
+        Map<Long, Short> magazalar = new HashMap<>();
+        Map<Long, Short> kategoriler = new HashMap<>();
+        Map<Long, Short> altKategoriler = new HashMap<>();
+        Map<String, Short> renkler = new HashMap<>();
+        for (int i = 0; i < satirSayisi; i++) {
+            UrunKartiDTO kart = kartlar[i];
+            idler[i] = kart.id();
+            fiyatKurus[i] = kurus(kart.fiyat());
+            olusturma[i] = saniye(kart.olusturmaTarihi());
+            magaza[i] = sira(magazalar, kart.magazaId());
+            kategori[i] = sira(kategoriler, kart.kategoriId());
+            altKategori[i] = sira(altKategoriler, kart.altKategoriId());
+            renk[i] = sira(renkler, renkAnahtari(kart.renk()));
+            sezon[i] = kart.sezon() != null ? (byte) kart.sezon().ordinal() : SEZON_YOK;
+        }
+        this.magazaSirasi = Map.copyOf(magazalar);
+        this.kategoriSirasi = Map.copyOf(kategoriler);
+        this.altKategoriSirasi = Map.copyOf(altKategoriler);
+        this.renkSirasi = Map.copyOf(renkler);
+    }
+
+    static KatalogSutunlari olustur(KatalogGoruntusu goruntu) {
+        return new KatalogSutunlari(goruntu);
+    }
+
+    long kartSurumu() {
+        return kartSurumu;
+    }
+
+    public int satirSayisi() {
+        return satirSayisi;
+    }
+
+    // =============== SAYFA ===============
+
+    /**
+     * Filtreye uyan ürünlerden imleçten sonraki en fazla limit+1 tanesi, sıralı.
+     * Fazladan gelen satır bir sonraki sayfanın varlığını gösterir.
+     */
+    public List<UrunKartiDTO> sayfa(UrunFiltresi filtre, UrunSiralama siralama, UrunImleci imlec, int limit) {
+        Kosul kosul = kosul(filtre);
+        if (kosul == null || limit <= 0) {
+            return List.of();
+        }
+        boolean azalan = siralama != UrunSiralama.FIYAT_ARTAN;
+        long esik = imlec != null ? esik(siralama, imlec, azalan) : Long.MIN_VALUE;
+
+        long[] anahtarlar = new long[Math.min(satirSayisi, 1024)];
+        int adet = 0;
+        for (int i = 0; i < satirSayisi; i++) {
+            if (!kosul.uyar(this, i)) {
+                continue;
+            }
+            // Azalan sıralamada anahtar eksiye çevrilir; böylece her durumda küçükten büyüğe seçilir
+            long anahtar = paketle(siralamaDegeri(siralama, i), i);
+            if (azalan) {
+                anahtar = -anahtar;
+            }
+            if (anahtar <= esik) {
+                continue;
+            }
+            if (adet == anahtarlar.length) {
+                anahtarlar = Arrays.copyOf(anahtarlar, adet * 2);
+            }
+            anahtarlar[adet++] = anahtar;
+        }
+
+        int k = Math.min(adet, limit + 1);
+        if (k < adet) {
+            enKucukleriSec(anahtarlar, adet, k);
+        }
+        Arrays.sort(anahtarlar, 0, k);
+
+        List<UrunKartiDTO> sonuc = new ArrayList<>(k);
+        for (int j = 0; j < k; j++) {
+            long anahtar = azalan ? -anahtarlar[j] : anahtarlar[j];
+            sonuc.add(kartlar[(int) (anahtar & SATIR_MASKESI)]);
+        }
+        return sonuc;
+    }
+
+    /**
+     * Verilen id'leri sıralamaya göre yeniden dizer; katalogda olmayan id'ler atlanır
+     */
+    public List<Long> sirala(List<Long> urunIdleri, UrunSiralama siralama) {
+        boolean azalan = siralama != UrunSiralama.FIYAT_ARTAN;
+        long[] anahtarlar = new long[urunIdleri.size()];
+        int adet = 0;
+        for (Long id : urunIdleri) {
+            int satir = id != null ? Arrays.binarySearch(idler, id) : -1;
+            if (satir < 0) {
+                continue;
+            }
+            long anahtar = paketle(siralamaDegeri(siralama, satir), satir);
+            anahtarlar[adet++] = azalan ? -anahtar : anahtar;
+        }
+        Arrays.sort(anahtarlar, 0, adet);
+
+        List<Long> sonuc = new ArrayList<>(adet);
+        for (int j = 0; j < adet; j++) {
+            long anahtar = azalan ? -anahtarlar[j] : anahtarlar[j];
+            sonuc.add(idler[(int) (anahtar & SATIR_MASKESI)]);
+        }
+        return sonuc;
+    }
+
+    // =============== FİLTRE ===============
+
+    /**
+     * Filtre değerlerinin sözlük sıra numaraları; sözlükte olmayan bir değer istenmişse null (sonuç boş)
+     */
+    private Kosul kosul(UrunFiltresi filtre) {
+        if (filtre == null) {
+            return new Kosul(YOK, YOK, YOK, YOK, SEZON_YOK, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        }
+        short m = YOK, k = YOK, ak = YOK, r = YOK;
+        if (filtre.magazaId() != null) {
+            Short s = magazaSirasi.get(filtre.magazaId());
+            if (s == null) {
+                return null;
+            }
+            m = s;
+        }
+        if (filtre.kategoriId() != null) {
+            Short s = kategoriSirasi.get(filtre.kategoriId());
+            if (s == null) {
+                return null;
+            }
+            k = s;
+        }
+        if (filtre.altKategoriId() != null) {
+            Short s = altKategoriSirasi.get(filtre.altKategoriId());
+            if (s == null) {
+                return null;
+            }
+            ak = s;
+        }
+        if (filtre.renk() != null && !filtre.renk().isBlank()) {
+            Short s = renkSirasi.get(renkAnahtari(filtre.renk()));
+            if (s == null) {
+                return null;
+            }
+            r = s;
+        }
+        byte sz = filtre.sezon() != null ? (byte) filtre.sezon().ordinal() : SEZON_YOK;
+        int min = filtre.minFiyat() != null ? kurus(filtre.minFiyat()) : Integer.MIN_VALUE;
+        int max = filtre.maxFiyat() != null ? kurus(filtre.maxFiyat()) : Integer.MAX_VALUE;
+        return new Kosul(m, k, ak, r, sz, min, max);
+    }
+
+    private record Kosul(short magaza, short kategori, short altKategori, short renk, byte sezon,
+            int minKurus, int maxKurus) {
+
+        boolean uyar(KatalogSutunlari s, int i) {
+            return (magaza == YOK || s.magaza[i] == magaza)
+                    && (kategori == YOK || s.kategori[i] == kategori)
+                    && (altKategori == YOK || s.altKategori[i] == altKategori)
+                    && (renk == YOK || s.renk[i] == renk)
+                    && (sezon == SEZON_YOK || s.sezon[i] == sezon)
+                    && s.fiyatKurus[i] >= minKurus
+                    && s.fiyatKurus[i] <= maxKurus;
+        }
+    }
+
+    // =============== SIRALAMA ANAHTARI ===============
+
+    private long siralamaDegeri(UrunSiralama siralama, int satir) {
+        return siralama == UrunSiralama.YENI ? olusturma[satir] : fiyatKurus[satir];
+    }
+
+    private static long paketle(long deger, int satir) {
+        return (deger << SATIR_BITI) | satir;
+    }
+
+    /**
+     * İmlecin gösterdiği (değer, id) noktası; anahtarı bundan büyük olanlar sonraki sayfadadır.
+     * İmleçteki ürün artık katalogda yoksa, id'nin sıralı dizideki yerleşme noktası kullanılır.
+     */
+    private long esik(UrunSiralama siralama, UrunImleci imlec, boolean azalan) {
+        long deger = siralama == UrunSiralama.YENI ? saniye(imlec.tarih()) : kurus(imlec.fiyat());
+        int satir = Arrays.binarySearch(idler, imlec.id());
+        if (satir >= 0) {
+            long anahtar = paketle(deger, satir);
+            return azalan ? -anahtar : anahtar;
+        }
+        // Yerleşme noktasındaki satır imleçten sonra gelir (artanda dahil, azalanda hariç)
+        long anahtar = paketle(deger, -satir - 1);
+        return azalan ? -anahtar : anahtar - 1;
+    }
+
+    /**
+     * anahtarlar[0..adet) içinde en küçük k tanesini başa toplar (Hoare bölmeli quickselect)
+     */
+    private static void enKucukleriSec(long[] a, int adet, int k) {
+        int sol = 0;
+        int sag = adet - 1;
+        while (sol < sag) {
+            long pivot = a[(sol + sag) >>> 1];
+            int i = sol;
+            int j = sag;
+            while (i <= j) {
+                while (a[i] < pivot) {
+                    i++;
+                }
+                while (a[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k - 1 <= j) {
+                sag = j;
+            } else if (k - 1 >= i) {
+                sol = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private static <K> short sira(Map<K, Short> sozluk, K deger) {
+        if (deger == null) {
+            return YOK;
+        }
+        Short mevcut = sozluk.get(deger);
+        if (mevcut != null) {
+            return mevcut;
+        }
+        if (sozluk.size() >= Short.MAX_VALUE) {
+            throw new IllegalStateException("Sütun sözlüğü dolu: " + sozluk.size() + " farklı değer");
+        }
+        short yeni = (short) sozluk.size();
+        sozluk.put(deger, yeni);
+        return yeni;
+    }
+
+    private static String renkAnahtari(String renk) {
+        return renk == null || renk.isBlank() ? null : MetinAnalizci.normalizeEt(renk).trim();
+    }
+
+    /**
+     * Kuruş; int sınırını (~21 milyon TL) aşan fiyatlar sınırda doyurulur
+     */
+    private static int kurus(BigDecimal fiyat) {
+        if (fiyat == null) {
+            return 0;
+        }
+        BigDecimal kurus = fiyat.movePointRight(2).setScale(0, RoundingMode.HALF_UP);
+        if (kurus.compareTo(INT_UST) >= 0) {
+            return Integer.MAX_VALUE;
+        }
+        if (kurus.compareTo(INT_ALT) <= 0) {
+            return Integer.MIN_VALUE;
+        }
+        return kurus.intValue();
+    }
+
+    private static long saniye(LocalDateTime tarih) {
+        return tarih == null ? 0 : tarih.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,35 @@
+package com.magazaapp.catalog;
+
+import com.magazaapp.model.UrunStok;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * UrunStok JPA entity listener'ı: stok satırı eklendiğinde, güncellendiğinde veya silindiğinde
+ * katalog görüntüsüne haber verir. Böylece stok yazan her yer (sipariş, sahip paneli, admin)
+ * ayrıca bağlanmak zorunda kalmaz. JPQL toplu UPDATE/DELETE'ler listener'ı tetiklemez;
+ * onları çalıştıran kod {@link KatalogOnbellegi#stokDegisti(Long)} çağırmalıdır.
+ *
+ * Hibernate, Spring'in bean container'ı üzerinden oluşturur; katalog bean'i döngüsel bağımlılık
+ * olmaması için ilk olayda çözülür.
+ */
+public class UrunStokDinleyicisi {
+
+    private final ObjectProvider<KatalogOnbellegi> katalogOnbellegi;
+
+    public UrunStokDinleyicisi(ObjectProvider<KatalogOnbellegi> katalogOnbellegi) {
+        this.katalogOnbellegi = katalogOnbellegi;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void stokDegisti(UrunStok stok) {
+        // Lazy proxy'de getId() ilişkiyi yüklemez
+        if (stok.getUrun() != null) {
+            katalogOnbellegi.ifAvailable(katalog -> katalog.stokDegisti(stok.getUrun().getId()));
+        }
+    }
+}
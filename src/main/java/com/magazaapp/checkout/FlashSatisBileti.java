@@ -0,0 +1,106 @@
+package com.magazaapp.checkout;
+
+import com.magazaapp.service.SiparisService.SiparisResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Flash satış kuyruğuna alınan bir sipariş isteği. Çağıran sonucu {@link #bekle(Duration)} ile
+ * bekleyebilir ya da bilet id'siyle sonradan sorgulayabilir.
+ */
+public final class FlashSatisBileti {
+
+    public enum Durum {
+        SIRADA, TAMAMLANDI, REDDEDILDI
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long kullaniciId;
+    private final Long urunId;
+    private final String teslimatAdresi;
+    // Kuyruğun ürününden beden başına istenen adet (kabul kontrolü için)
+    private final Map<Long, Integer> talep;
+    private final LocalDateTime olusturma = LocalDateTime.now();
+    private final CompletableFuture<SiparisResult> sonuc = new CompletableFuture<>();
+    private volatile LocalDateTime bitis;
+
+    FlashSatisBileti(Long kullaniciId, Long urunId, String teslimatAdresi, Map<Long, Integer> talep) {
+        this.kullaniciId = kullaniciId;
+        this.urunId = urunId;
+        this.teslimatAdresi = teslimatAdresi;
+        this.talep = Map.copyOf(talep);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getKullaniciId() {
+        return kullaniciId;
+    }
+
+    public Long getUrunId() {
+        return urunId;
+    }
+
+    public LocalDateTime getOlusturma() {
+        return olusturma;
+    }
+
+    String getTeslimatAdresi() {
+        return teslimatAdresi;
+    }
+
+    Map<Long, Integer> getTalep() {
+        return talep;
+    }
+
+    public Durum getDurum() {
+        SiparisResult r = sonuc.getNow(null);
+        if (r == null) {
+            return Durum.SIRADA;
+        }
+        return r.isSuccess() ? Durum.TAMAMLANDI : Durum.REDDEDILDI;
+    }
+
+    /**
+     * Sonuç hazırsa hemen döner
+     */
+    public Optional<SiparisResult> getSonuc() {
+        return Optional.ofNullable(sonuc.getNow(null));
+    }
+
+    /**
+     * Sonucu en fazla verilen süre kadar bekle; süre dolarsa bilet hâlâ sıradadır
+     */
+    public Optional<SiparisResult> bekle(Duration sure) {
+        try {
+            return Optional.of(sonuc.get(sure.toMillis(), TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            return Optional.of(SiparisResult.hata("Sipariş oluşturulurken hata: " + e.getCause().getMessage()));
+        }
+    }
+
+    boolean bittiMi(LocalDateTime oncesi) {
+        return bitis != null && bitis.isBefore(oncesi);
+    }
+
+    void tamamla(SiparisResult r) {
+        if (sonuc.complete(r)) {
+            bitis = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.magazaapp.checkout;
+
+import com.magazaapp.dto.StokDTO;
+import com.magazaapp.model.Kullanici;
+import com.magazaapp.model.Sepet;
+import com.magazaapp.repository.KullaniciRepository;
+import com.magazaapp.repository.SepetRepository;
+import com.magazaapp.repository.UrunStokRepository;
+import com.magazaapp.service.SiparisService;
+import com.magazaapp.service.SiparisService.SiparisResult;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kampanya (flash satış) ürünleri için sipariş kabul kuyruğu.
+ *
+ * Flash satışa alınan her ürünün sınırlı bir kuyruğu ve tek bir tüketici thread'i vardır. Sepetinde
+ * bu ürünlerden biri olan sipariş istekleri doğrudan transaction açmak yerine kuyruğa bilet olarak
+ * girer; tüketici biletleri geliş sırasıyla küçük partiler hâlinde işler. Böylece aynı stok satırı
+ * için yüzlerce transaction kilit beklemek yerine tek yazıcı sırayla ilerler ve bir partinin
+ * siparişleri tek commit'le kaydolur.
+ *
+ * Tüketici her partide ürünün güncel stoğunu okur, stoğu yetmeyen biletleri veritabanına hiç gitmeden
+ * reddeder ve son bilinen stoğu kabul kontrolü için yayınlar: stok bittikten sonra gelen istekler
+ * kuyruğa girmeden anında reddedilir, kuyruk doluysa istek yoğunluk hatasıyla geri çevrilir.
+ *
+ * Partideki bir sipariş başarısız olursa (ör. sepetteki başka bir ürünün stoğu yetmedi) parti geri
+ * alınır ve biletler tek tek, kendi transaction'larında yeniden işlenir. Sepetinde birden fazla
+ * flash ürün olan istek en küçük id'li ürünün kuyruğuna girer; diğer ürünlerin stoğu yine koşullu
+ * düşümle korunur.
+ */
+@Component
+public class FlashSatisKuyrugu {
+
+    private final SiparisService siparisService;
+    private final SepetRepository sepetRepository;
+    private final UrunStokRepository urunStokRepository;
+    private final KullaniciRepository kullaniciRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int kapasite;
+    private final int partiBoyutu;
+    private final Duration biletSaklama;
+    private final Duration beklemeSuresi;
+    private final String baslangicUrunleri;
+
+    private final Map<Long, Kuyruk> kuyruklar = new ConcurrentHashMap<>();
+    private final Map<String, FlashSatisBileti> biletler = new ConcurrentHashMap<>();
+
+    public FlashSatisKuyrugu(SiparisService siparisService, SepetRepository sepetRepository,
+            UrunStokRepository urunStokRepository, KullaniciRepository kullaniciRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${flash-satis.kuyruk-kapasitesi:1000}") int kapasite,
+            @Value("${flash-satis.parti:20}") int partiBoyutu,
+            @Value("${flash-satis.bilet-saklama-dk:10}") long biletSaklamaDakika,
+            @Value("${flash-satis.bekleme-ms:3000}") long beklemeMs,
+            @Value("${flash-satis.urunler:}") String baslangicUrunleri) {
+        this.siparisService = siparisService;
+        this.sepetRepository = sepetRepository;
+        this.urunStokRepository = urunStokRepository;
+        this.kullaniciRepository = kullaniciRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.kapasite = kapasite;
+        this.partiBoyutu = partiBoyutu;
+        this.biletSaklama = Duration.ofMinutes(biletSaklamaDakika);
+        this.beklemeSuresi = Duration.ofMillis(beklemeMs);
+        this.baslangicUrunleri = baslangicUrunleri;
+    }
+
+    // =============== FLASH SATIŞ ÜRÜNLERİ ===============
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void baslangicUrunleriniEkle() {
+        for (String id : baslangicUrunleri.split(",")) {
+            if (!id.isBlank()) {
+                ekle(Long.valueOf(id.trim()));
+            }
+        }
+    }
+
+    /**
+     * Ürünü flash satışa al: kuyruğu ve tüketici thread'i başlar
+     */
+    public void ekle(Long urunId) {
+        kuyruklar.computeIfAbsent(urunId, id -> {
+            Kuyruk kuyruk = new Kuyruk(id);
+            kuyruk.stokuYenile();
+            kuyruk.tuketici.start();
+            System.out.println(">>> Flash satış kuyruğu açıldı: ürün " + id);
+            return kuyruk;
+        });
+    }
+
+    /**
+     * Ürünü flash satıştan çıkar: yeni bilet alınmaz, sıradakiler işlendikten sonra tüketici durur
+     */
+    public void cikar(Long urunId) {
+        Kuyruk kuyruk = kuyruklar.remove(urunId);
+        if (kuyruk != null) {
+            kuyruk.calisiyor = false;
+            System.out.println(">>> Flash satış kuyruğu kapatılıyor: ürün " + urunId);
+        }
+    }
+
+    public Set<Long> urunler() {
+        return new TreeSet<>(kuyruklar.keySet());
+    }
+
+    public record KuyrukDurumu(Long urunId, int bekleyen, int kapasite, boolean tukendi, Map<Long, Integer> stok) {
+    }
+
+    public List<KuyrukDurumu> durum() {
+        return new TreeMap<>(kuyruklar).values().stream()
+                .map(k -> new KuyrukDurumu(k.urunId, k.biletler.size(), kapasite, k.tukendi,
+                        new TreeMap<>(k.kalanStok)))
+                .toList();
+    }
+
+    // =============== BİLET ===============
+
+    /**
+     * Sepette flash satıştaki bir ürün varsa isteği kuyruğa al ve bileti dön; yoksa boş döner ve
+     * çağıran normal sipariş akışına devam eder. Stok tükenmişse veya kuyruk doluysa bilet
+     * reddedilmiş olarak döner.
+     */
+    public Optional<FlashSatisBileti> sirayaAl(Kullanici kullanici, String teslimatAdresi) {
+        if (kuyruklar.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Sepet> sepet = sepetRepository.findByKullaniciId(kullanici.getId());
+        Kuyruk kuyruk = sepet.stream()
+                .map(item -> kuyruklar.get(item.getUrun().getId()))
+                .filter(Objects::nonNull)
+                .min(Comparator.comparing(k -> k.urunId))
+                .orElse(null);
+        if (kuyruk == null) {
+            return Optional.empty();
+        }
+
+        Map<Long, Integer> talep = new HashMap<>();
+        for (Sepet item : sepet) {
+            if (item.getUrun().getId().equals(kuyruk.urunId)) {
+                talep.merge(item.getBeden().getId(), item.getAdet(), Integer::sum);
+            }
+        }
+        FlashSatisBileti bilet = new FlashSatisBileti(kullanici.getId(), kuyruk.urunId, teslimatAdresi, talep);
+
+        if (!kuyruk.karsilanabilir(talep)) {
+            bilet.tamamla(SiparisResult.hata("Kampanya ürünü tükendi"));
+        } else if (!kuyruk.calisiyor || !kuyruk.biletler.offer(bilet)) {
+            bilet.tamamla(SiparisResult.hata("Kampanya yoğunluğu nedeniyle sıra dolu, lütfen biraz sonra tekrar deneyin"));
+        } else {
+            biletler.put(bilet.getId(), bilet);
+        }
+        return Optional.of(bilet);
+    }
+
+    public Optional<FlashSatisBileti> bilet(String biletId) {
+        return Optional.ofNullable(biletler.get(biletId));
+    }
+
+    /**
+     * İstek thread'inin sonucu bekleyeceği süre; dolarsa çağırana bilet id'si dönülür
+     */
+    public Duration beklemeSuresi() {
+        return beklemeSuresi;
+    }
+
+    /**
+     * Sonuçlanmış biletleri saklama süresi dolunca unut
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void eskiBiletleriTemizle() {
+        LocalDateTime sinir = LocalDateTime.now().minus(biletSaklama);
+        biletler.values().removeIf(bilet -> bilet.bittiMi(sinir));
+    }
+
+    @PreDestroy
+    public void kapat() throws InterruptedException {
+        List<Kuyruk> acik = new ArrayList<>(kuyruklar.values());
+        kuyruklar.clear();
+        for (Kuyruk kuyruk : acik) {
+            kuyruk.calisiyor = false;
+            kuyruk.tuketici.interrupt();
+            kuyruk.tuketici.join(5000);
+            List<FlashSatisBileti> kalanlar = new ArrayList<>();
+            kuyruk.biletler.drainTo(kalanlar);
+            kalanlar.forEach(bilet -> bilet.tamamla(SiparisResult.hata("Sunucu kapanıyor, sipariş alınamadı")));
+        }
+    }
+
+    // =============== TEK YAZICI TÜKETİCİ ===============
+
+    private final class Kuyruk {
+
+        final Long urunId;
+        final BlockingQueue<FlashSatisBileti> biletler = new ArrayBlockingQueue<>(kapasite);
+        final Thread tuketici;
+        volatile boolean calisiyor = true;
+        // Son partiden sonra okunan beden -> stok; kabul kontrolü okur, yalnızca tüketici yazar
+        final Map<Long, Integer> kalanStok = new ConcurrentHashMap<>();
+        volatile boolean tukendi;
+
+        Kuyruk(Long urunId) {
+            this.urunId = urunId;
+            this.tuketici = new Thread(this::calis, "flash-satis-" + urunId);
+            this.tuketici.setDaemon(true);
+        }
+
+        boolean karsilanabilir(Map<Long, Integer> talep) {
+            if (tukendi) {
+                return false;
+            }
+            for (Map.Entry<Long, Integer> giris : talep.entrySet()) {
+                if (kalanStok.getOrDefault(giris.getKey(), 0) < giris.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void stokuYenile() {
+            Map<Long, Integer> guncel = new HashMap<>();
+            for (StokDTO stok : urunStokRepository.findStoklarByUrunIdIn(Set.of(urunId))) {
+                guncel.put(stok.bedenId(), stok.adet());
+            }
+            kalanStok.keySet().retainAll(guncel.keySet());
+            kalanStok.putAll(guncel);
+            tukendi = guncel.values().stream().allMatch(adet -> adet <= 0);
+        }
+
+        void calis() {
+            while (calisiyor || !biletler.isEmpty()) {
+                List<FlashSatisBileti> parti = new ArrayList<>(partiBoyutu);
+                try {
+                    FlashSatisBileti ilk = biletler.poll(1, TimeUnit.SECONDS);
+                    if (ilk == null) {
+                        continue;
+                    }
+                    parti.add(ilk);
+                    biletler.drainTo(parti, partiBoyutu - 1);
+                    isle(parti);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    System.err.println(">>> Flash satış partisi işlenemedi (ürün " + urunId + "): " + e.getMessage());
+                    parti.forEach(bilet -> bilet.tamamla(SiparisResult.hata("Sipariş oluşturulurken hata: " + e.getMessage())));
+                }
+            }
+        }
+
+        /**
+         * Stoğa sığan biletleri tek transaction'da siparişe çevir; sığmayanları hemen reddet
+         */
+        void isle(List<FlashSatisBileti> parti) {
+            stokuYenile();
+            Map<Long, Integer> kalan = new HashMap<>(kalanStok);
+            List<FlashSatisBileti> kabul = new ArrayList<>(parti.size());
+            for (FlashSatisBileti bilet : parti) {
+                boolean sigar = bilet.getTalep().entrySet().stream()
+                        .allMatch(g -> kalan.getOrDefault(g.getKey(), 0) >= g.getValue());
+                if (sigar) {
+                    bilet.getTalep().forEach((bedenId, adet) -> kalan.merge(bedenId, -adet, Integer::sum));
+                    kabul.add(bilet);
+                } else {
+                    bilet.tamamla(SiparisResult.hata("Kampanya ürünü tükendi"));
+                }
+            }
+
+            if (!kabul.isEmpty()) {
+                List<SiparisResult> sonuclar = null;
+                try {
+                    sonuclar = transactionTemplate.execute(durum -> {
+                        List<SiparisResult> liste = new ArrayList<>(kabul.size());
+                        for (FlashSatisBileti bilet : kabul) {
+                            SiparisResult sonuc = siparisOlustur(bilet);
+                            if (!sonuc.isSuccess()) {
+                                // Tüm partiyi geri al; biletler aşağıda tek tek işlenir
+                                throw new PartiBozuldu();
+                            }
+                            liste.add(sonuc);
+                        }
+                        return liste;
+                    });
+                } catch (RuntimeException e) {
+                    if (!(e instanceof PartiBozuldu)) {
+                        System.err.println(">>> Flash satış partisi geri alındı (ürün " + urunId + "): " + e.getMessage());
+                    }
+                }
+
+                if (sonuclar != null) {
+                    for (int i = 0; i < kabul.size(); i++) {
+                        kabul.get(i).tamamla(sonuclar.get(i));
+                    }
+                } else {
+                    for (FlashSatisBileti bilet : kabul) {
+                        try {
+                            bilet.tamamla(siparisOlustur(bilet));
+                        } catch (RuntimeException e) {
+                            bilet.tamamla(SiparisResult.hata("Sipariş oluşturulurken hata: " + e.getMessage()));
+                        }
+                    }
+                }
+            }
+            stokuYenile();
+        }
+
+        private SiparisResult siparisOlustur(FlashSatisBileti bilet) {
+            Kullanici kullanici = kullaniciRepository.findById(bilet.getKullaniciId())
+                    .orElseThrow(() -> new RuntimeException("Kullanıcı bulunamadı"));
+            return siparisService.siparisOlustur(kullanici, null, bilet.getTeslimatAdresi());
+        }
+    }
+
+    private static final class PartiBozuldu extends RuntimeException {
+        PartiBozuldu() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.magazaapp.checkout;
+
+import com.magazaapp.model.Kullanici;
+import com.magazaapp.model.Magaza;
+import com.magazaapp.model.Sepet;
+import com.magazaapp.model.SiparisDetay;
+import com.magazaapp.model.SiparisDurum;
+import com.magazaapp.model.SiparisFisi;
+import com.magazaapp.outbox.OlayKutusu;
+import com.magazaapp.repository.SepetRepository;
+import com.magazaapp.service.SiparisService.SiparisResult;
+import com.magazaapp.stock.StokDusumSonucu;
+import com.magazaapp.stock.StokMotoru;
+import com.magazaapp.stock.StokRezervasyonlari;
+import com.magazaapp.stock.StokSatiri;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Sepetten sipariş oluşturmanın tek yolu; web, REST, ödeme ve flash satış akışları
+ * {@link com.magazaapp.service.SiparisService#siparisOlustur} üzerinden buraya gelir.
+ *
+ * Sepet büyüklüğünden bağımsız sabit sayıda round-trip:
+ * 1. sepet ürün, mağaza ve bedenle birlikte tek sorguda okunur,
+ * 2. stok {@link StokMotoru} (veya ödeme rezervasyonu) ile tek batch'te koşullu düşülür,
+ * 3. sipariş fişi tek INSERT, tüm detaylar tek JDBC batch'i olarak yazılır,
+ * 4. sepet tek DELETE ile boşaltılır,
+ * 5. {@link SiparisOlusturuldu} olayı aynı transaction'da giden olay kutusuna yazılır.
+ *
+ * Siparişe bağlı yan işler (popülerlik sayaçları, bildirimler vb.) burada değil, olayın
+ * {@link com.magazaapp.outbox.OlayAbonesi} abonelerinde istek thread'inin dışında yapılır.
+ *
+ * Fiş ve detaylar JPA yerine JDBC ile yazıldığından kalıcılık bağlamına girmez; çağıran siparişi
+ * gerekiyorsa id'siyle yeniden okur. Id'ler entity'lerin kendi havuzlu (pooled) üreticisinden
+ * alınır, böylece JPA ile eklenen satırlarla çakışmaz. Çağıranın transaction'ına katılır; stok yetmezse
+ * hata sonucu döner ve transaction'ı geri almak çağıranın işidir (bkz. SiparisService.siparisOlustur).
+ */
+@Component
+public class SiparisHatti {
+
+    private static final String FIS_SQL = "INSERT INTO siparis_fisi (id, kullanici_id, magaza_id, toplam_tutar, "
+            + "teslimat_adresi, durum, siparis_tarihi, guncelleme_tarihi, versiyon) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String DETAY_SQL = "INSERT INTO siparis_detay (id, siparis_fisi_id, urun_id, beden_id, adet, "
+            + "birim_fiyat, toplam_fiyat) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final SepetRepository sepetRepository;
+    private final StokMotoru stokMotoru;
+    private final StokRezervasyonlari stokRezervasyonlari;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final OlayKutusu olayKutusu;
+
+    public SiparisHatti(SepetRepository sepetRepository, StokMotoru stokMotoru,
+            StokRezervasyonlari stokRezervasyonlari, JdbcTemplate jdbcTemplate, EntityManager entityManager,
+            OlayKutusu olayKutusu) {
+        this.sepetRepository = sepetRepository;
+        this.stokMotoru = stokMotoru;
+        this.stokRezervasyonlari = stokRezervasyonlari;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.olayKutusu = olayKutusu;
+    }
+
+    /**
+     * Kullanıcının sepetini siparişe çevir. Ödeme token'ı verilirse ödeme başlatılırken ayrılan stok
+     * kullanılır; teslimat adresi verilmezse kullanıcının kayıtlı adresi yazılır.
+     */
+    public SiparisResult calistir(Kullanici kullanici, String odemeToken, String teslimatAdresi) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Sipariş bir transaction içinde oluşturulmalıdır");
+        }
+
+        // 1. Sepet (ürün, mağaza, beden dahil)
+        List<Sepet> sepetListesi = sepetRepository.findSiparisIcinByKullaniciId(kullanici.getId());
+        if (sepetListesi.isEmpty()) {
+            return SiparisResult.hata("Sepetiniz boş!");
+        }
+
+        // Tüm ürünler aynı mağazadan olmalı
+        Magaza magaza = sepetListesi.get(0).getUrun().getMagaza();
+        for (Sepet sepetItem : sepetListesi) {
+            if (!sepetItem.getUrun().getMagaza().getId().equals(magaza.getId())) {
+                return SiparisResult.hata(
+                        "Sipariş oluşturulamadı: Sepetinizde farklı mağazalardan ürünler var. " +
+                                "Lütfen tek mağazadan sipariş verin.");
+            }
+        }
+
+        // 2. Stok - tüm satırlar tek batch'te koşullu UPDATE ile; biri bile yetmezse hiçbir şey kaydolmaz
+        List<StokSatiri> stokSatirlari = sepetListesi.stream()
+                .map(item -> new StokSatiri(item.getUrun().getId(), item.getBeden().getId(), item.getAdet()))
+                .toList();
+        StokDusumSonucu stokSonucu = odemeToken != null
+                ? stokRezervasyonlari.donustur(odemeToken, stokSatirlari)
+                : stokMotoru.dus(stokSatirlari);
+        if (!stokSonucu.basarili()) {
+            return SiparisResult.yetersizStok(yetersizStokMesaji(stokSonucu, sepetListesi), stokSonucu.eksikler());
+        }
+
+        BigDecimal toplamTutar = sepetListesi.stream()
+                .map(item -> item.getUrun().getFiyat().multiply(BigDecimal.valueOf(item.getAdet())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        // 3. Fiş ve detaylar
+        String adres = teslimatAdresi != null ? teslimatAdresi
+                : (kullanici.getAdres() != null ? kullanici.getAdres() : "Adres yok");
+        Long siparisId = yeniId(SiparisFisi.class);
+        fisEkle(siparisId, kullanici.getId(), magaza.getId(), toplamTutar, adres);
+        Map<Sepet, Long> detayIdleri = new IdentityHashMap<>();
+        sepetListesi.forEach(item -> detayIdleri.put(item, yeniId(SiparisDetay.class)));
+        jdbcTemplate.batchUpdate(DETAY_SQL, sepetListesi, sepetListesi.size(), (ps, item) -> {
+            BigDecimal birimFiyat = item.getUrun().getFiyat();
+            ps.setLong(1, detayIdleri.get(item));
+            ps.setLong(2, siparisId);
+            ps.setLong(3, item.getUrun().getId());
+            ps.setLong(4, item.getBeden().getId());
+            ps.setInt(5, item.getAdet());
+            ps.setBigDecimal(6, birimFiyat);
+            ps.setBigDecimal(7, birimFiyat.multiply(BigDecimal.valueOf(item.getAdet())));
+        });
+
+        // 4. Sepeti boşalt
+        sepetRepository.deleteByKullaniciId(kullanici.getId());
+
+        // 5. Olay
+        olayKutusu.ekle(SiparisOlusturuldu.TUR, SiparisOlusturuldu.KUME, siparisId, new SiparisOlusturuldu(
+                siparisId, kullanici.getId(), magaza.getId(), toplamTutar, sepetListesi.stream()
+                        .map(item -> new SiparisOlusturuldu.Satir(item.getUrun().getId(), item.getBeden().getId(),
+                                item.getAdet(), item.getUrun().getFiyat()))
+                        .toList()));
+
+        return SiparisResult.basarili(
+                "Siparişiniz başarıyla oluşturuldu! Sipariş No: #" + siparisId, siparisId, toplamTutar);
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private void fisEkle(Long siparisId, Long kullaniciId, Long magazaId, BigDecimal toplamTutar,
+            String teslimatAdresi) {
+        Timestamp simdi = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(FIS_SQL, siparisId, kullaniciId, magazaId, toplamTutar, teslimatAdresi,
+                SiparisDurum.BEKLEMEDE.name(), simdi, simdi);
+    }
+
+    /**
+     * Entity'nin id üreticisinden sıradaki id; havuzlu üretici blok bitmedikçe veritabanına gitmez
+     */
+    private Long yeniId(Class<?> entity) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        IdentifierGenerator uretici = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(entity).getGenerator();
+        return ((Number) uretici.generate(session, null)).longValue();
+    }
+
+    /**
+     * Stoğu yetmeyen her satır için: "'Ürün' (Beden) ürününden X adet kaldı, sepetinizde Y adet var."
+     */
+    private static String yetersizStokMesaji(StokDusumSonucu sonuc, List<Sepet> sepetListesi) {
+        Map<Long, String> urunAdlari = new HashMap<>();
+        Map<Long, String> bedenAdlari = new HashMap<>();
+        Map<List<Long>, Integer> sepettekiler = new HashMap<>();
+        for (Sepet item : sepetListesi) {
+            urunAdlari.put(item.getUrun().getId(), item.getUrun().getAd());
+            bedenAdlari.put(item.getBeden().getId(), item.getBeden().getAd());
+            sepettekiler.merge(List.of(item.getUrun().getId(), item.getBeden().getId()), item.getAdet(), Integer::sum);
+        }
+        return "Yetersiz stok! " + sonuc.eksikler().stream()
+                .map(eksik -> "'" + urunAdlari.get(eksik.urunId()) + "' (" + bedenAdlari.get(eksik.bedenId())
+                        + ") ürününden " + (eksik.mevcut() != null ? eksik.mevcut() : 0) + " adet kaldı, sepetinizde "
+                        + sepettekiler.get(List.of(eksik.urunId(), eksik.bedenId())) + " adet var.")
+                .collect(Collectors.joining(" "));
+    }
+}
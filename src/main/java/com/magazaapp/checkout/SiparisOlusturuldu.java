@@ -0,0 +1,17 @@
+package com.magazaapp.checkout;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Sipariş oluşturulduğunda giden olay kutusuna yazılan olayın gövdesi
+ */
+public record SiparisOlusturuldu(Long siparisId, Long kullaniciId, Long magazaId, BigDecimal toplamTutar,
+        List<Satir> satirlar) {
+
+    public static final String TUR = "SIPARIS_OLUSTURULDU";
+    public static final String KUME = "SIPARIS";
+
+    public record Satir(Long urunId, Long bedenId, int adet, BigDecimal birimFiyat) {
+    }
+}
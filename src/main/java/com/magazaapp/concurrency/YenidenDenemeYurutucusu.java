@@ -0,0 +1,150 @@
+package com.magazaapp.concurrency;
+
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.StaleStateException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * İyimser kilit çakışmalarında işlemi baştan yeniden çalıştıran yürütücü.
+ *
+ * Versiyonlu entity'ler (UrunStok, SiparisFisi) uzun süre tutulan satır kilitleri yerine commit
+ * anında versiyon karşılaştırmasıyla korunur; çakışan taraf hata alır. Bu sınıf o hatayı yakalayıp
+ * işlemi taze verilerle tekrar dener: bekleme her denemede ikiye katlanır, üst sınırla kısılır ve
+ * yarısı rastgele seçilir (jitter), böylece çakışan istekler aynı anda yeniden çarpışmaz. Deneme
+ * hakkı bitince son hata çağırana iletilir.
+ *
+ * Her deneme kendi transaction'ında çalışmalıdır: verilen iş @Transactional bir servis metodunu
+ * çağırmalı ve yürütücü transaction dışından çağrılmalıdır. Çakışma yaşamış bir transaction'ın
+ * kalıcılık bağlamı yeniden kullanılamayacağı için, zaten açık bir transaction içinden çağrılırsa
+ * iş bir kez çalıştırılır ve yeniden deneme dış transaction'ın sahibine kalır.
+ *
+ * İşlem adı başına çağrı, çakışma, yeniden deneme ve tükenen deneme sayaçları tutulur.
+ */
+@Component
+public class YenidenDenemeYurutucusu {
+
+    private final int maksDeneme;
+    private final long baslangicMs;
+    private final long ustSinirMs;
+
+    private final Map<String, Sayaclar> sayaclar = new ConcurrentHashMap<>();
+
+    public YenidenDenemeYurutucusu(@Value("${yeniden-deneme.maks-deneme:5}") int maksDeneme,
+            @Value("${yeniden-deneme.baslangic-ms:20}") long baslangicMs,
+            @Value("${yeniden-deneme.ust-sinir-ms:500}") long ustSinirMs) {
+        if (maksDeneme < 1) {
+            throw new IllegalArgumentException("yeniden-deneme.maks-deneme en az 1 olmalı");
+        }
+        this.maksDeneme = maksDeneme;
+        this.baslangicMs = baslangicMs;
+        this.ustSinirMs = ustSinirMs;
+    }
+
+    /**
+     * İşi çalıştır; iyimser kilit çakışmasında bekleyip yeniden dene
+     */
+    public <T> T calistir(String islem, Supplier<T> is) {
+        Sayaclar sayac = sayaclar.computeIfAbsent(islem, ad -> new Sayaclar());
+        sayac.cagri.increment();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return is.get();
+        }
+
+        for (int deneme = 1; ; deneme++) {
+            try {
+                T sonuc = is.get();
+                sayac.basarili.increment();
+                return sonuc;
+            } catch (RuntimeException e) {
+                if (!cakismaMi(e)) {
+                    throw e;
+                }
+                sayac.cakisma.increment();
+                if (deneme >= maksDeneme) {
+                    sayac.tukenen.increment();
+                    System.err.println(">>> " + islem + ": " + deneme + " denemede iyimser kilit çakışması çözülemedi");
+                    throw e;
+                }
+                sayac.yenidenDeneme.increment();
+                bekle(deneme, sayac, e);
+            }
+        }
+    }
+
+    public void calistir(String islem, Runnable is) {
+        calistir(islem, () -> {
+            is.run();
+            return null;
+        });
+    }
+
+    /**
+     * Hata (veya sebeplerinden biri) iyimser kilit çakışması mı
+     */
+    public static boolean cakismaMi(Throwable hata) {
+        for (Throwable t = hata; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockingFailureException || t instanceof OptimisticLockException
+                    || t instanceof StaleStateException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    // =============== METRİKLER ===============
+
+    public record Istatistik(String islem, long cagri, long basarili, long cakisma, long yenidenDeneme,
+            long tukenen, long toplamBeklemeMs) {
+    }
+
+    /**
+     * İşlem adı sırasıyla sayaçlar
+     */
+    public List<Istatistik> istatistikler() {
+        return new TreeMap<>(sayaclar).entrySet().stream()
+                .map(giris -> {
+                    Sayaclar s = giris.getValue();
+                    return new Istatistik(giris.getKey(), s.cagri.sum(), s.basarili.sum(), s.cakisma.sum(),
+                            s.yenidenDeneme.sum(), s.tukenen.sum(), s.beklemeMs.sum());
+                })
+                .toList();
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    /**
+     * Üstel bekleme: tavan = min(üst sınır, başlangıç * 2^(deneme-1)); bekleme tavanın yarısı + rastgele yarısı
+     */
+    private void bekle(int deneme, Sayaclar sayac, RuntimeException hata) {
+        long tavan = Math.min(ustSinirMs, baslangicMs << Math.min(deneme - 1, 20));
+        long sure = tavan / 2 + ThreadLocalRandom.current().nextLong(tavan / 2 + 1);
+        sayac.beklemeMs.add(sure);
+        try {
+            Thread.sleep(sure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw hata;
+        }
+    }
+
+    private static final class Sayaclar {
+        final LongAdder cagri = new LongAdder();
+        final LongAdder basarili = new LongAdder();
+        final LongAdder cakisma = new LongAdder();
+        final LongAdder yenidenDeneme = new LongAdder();
+        final LongAdder tukenen = new LongAdder();
+        final LongAdder beklemeMs = new LongAdder();
+    }
+}
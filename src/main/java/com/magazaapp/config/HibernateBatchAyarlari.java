@@ -0,0 +1,23 @@
+package com.magazaapp.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Hibernate JDBC batching varsayılanları. Havuzlu id'li entity'lerin insert'leri ve versiyonlu
+ * update'leri flush'ta tablo sırasına dizilip toplu gönderilir. application.properties'te
+ * verilen değerler önceliklidir.
+ */
+@Configuration
+public class HibernateBatchAyarlari implements HibernatePropertiesCustomizer {
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.putIfAbsent("hibernate.jdbc.batch_size", "50");
+        hibernateProperties.putIfAbsent("hibernate.order_inserts", "true");
+        hibernateProperties.putIfAbsent("hibernate.order_updates", "true");
+        hibernateProperties.putIfAbsent("hibernate.jdbc.batch_versioned_data", "true");
+    }
+}
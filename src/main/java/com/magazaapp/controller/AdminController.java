@@ -1,5 +1,6 @@
 package com.magazaapp.controller;
 
+import com.magazaapp.concurrency.YenidenDenemeYurutucusu;
 import com.magazaapp.model.*;
 import com.magazaapp.service.*;
 import org.springframework.stereotype.Controller;
@@ -25,11 +26,12 @@ public class AdminController {
     private final MesajService mesajService;
     private final KategoriService kategoriService;
     private final BedenService bedenService;
+    private final YenidenDenemeYurutucusu yenidenDeneme;
 
     public AdminController(KullaniciService kullaniciService, MagazaService magazaService,
             UrunService urunService, SiparisService siparisService,
             MesajService mesajService, KategoriService kategoriService,
-            BedenService bedenService) {
+            BedenService bedenService, YenidenDenemeYurutucusu yenidenDeneme) {
         this.kullaniciService = kullaniciService;
         this.magazaService = magazaService;
         this.urunService = urunService;
@@ -37,6 +39,7 @@ public class AdminController {
         this.mesajService = mesajService;
         this.kategoriService = kategoriService;
         this.bedenService = bedenService;
+        this.yenidenDeneme = yenidenDeneme;
     }
 
     // ============ DASHBOARD ============
@@ -44,7 +47,7 @@ public class AdminController {
     public String dashboard(Model model) {
         // Service'ler üzerinden istatistikleri al
         long toplamKullanici = kullaniciService.getTumKullanicilar().size();
-        long toplamMagaza = magazaService.getTumMagazalar().size();
+        long toplamMagaza = magazaService.magazaSayisi();
         long toplamUrun = urunService.getAktifUrunler().size();
 
         List<SiparisFisi> tumSiparisler = siparisService.getTumSiparisler();
@@ -246,7 +249,7 @@ public class AdminController {
             RedirectAttributes redirectAttributes) {
         try {
             SiparisDurum durum = SiparisDurum.valueOf(yeniDurum);
-            siparisService.siparisDurumGuncelle(id, durum);
+            yenidenDeneme.calistir("siparis-durum", () -> siparisService.siparisDurumGuncelle(id, durum));
             redirectAttributes.addFlashAttribute("basari",
                     "Sipariş #" + id + " durumu '" + durum + "' olarak güncellendi.");
         } catch (Exception e) {
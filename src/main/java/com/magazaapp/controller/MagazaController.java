@@ -1,5 +1,8 @@
 package com.magazaapp.controller;
 
+import com.magazaapp.dto.MagazaKartiDTO;
+import com.magazaapp.dto.UrunSayfasi;
+import com.magazaapp.dto.UrunSiralama;
 import com.magazaapp.model.Kategori;
 import com.magazaapp.model.Magaza;
 import com.magazaapp.model.Urun;
@@ -30,7 +33,7 @@ public class MagazaController {
     // ============ MAĞAZA LİSTESİ (KATEGORİYE GÖRE FİLTRELİ) ============
     @GetMapping
     public String magazaListesi(@RequestParam(required = false) Long kategoriId, Model model) {
-        List<Magaza> magazalar = magazaService.getTumMagazalar();
+        List<MagazaKartiDTO> magazalar = magazaService.getAktifMagazalar();
         List<Kategori> kategoriler = kategoriService.getTumKategoriler();
 
         if (kategoriId != null) {
@@ -52,28 +55,34 @@ public class MagazaController {
     public String magazaDetay(@PathVariable Long id,
             @RequestParam(required = false) Long kategoriId,
             @RequestParam(required = false) String siralama,
+            @RequestParam(required = false) String imlec,
+            @RequestParam(defaultValue = "24") int limit,
             Model model) {
         Magaza magaza = magazaService.getMagazaById(id);
 
-        List<Urun> urunler;
-        if (kategoriId != null) {
-            urunler = urunService.getUrunlerByMagazaAndKategori(id, kategoriId);
-        } else {
-            urunler = magazaService.getMagazaninUrunleri(id);
-        }
-
-        // Fiyat sıralaması
-        if (siralama != null) {
-            urunler = urunService.siralaUrunler(urunler, siralama);
+        // Sıralama veritabanında yapılır, sayfalar imleçle (son ürünün fiyat/tarih + id) ilerler
+        UrunSiralama urunSiralama = UrunSiralama.kodundan(siralama);
+        int sayfaBoyutu = Math.max(1, Math.min(limit, 100));
+        UrunSayfasi sayfa;
+        try {
+            sayfa = urunService.urunSayfasi(id, kategoriId, null, urunSiralama, imlec, sayfaBoyutu);
+        } catch (IllegalArgumentException e) {
+            // Bozuk/eski imleç: ilk sayfadan başla
+            imlec = null;
+            sayfa = urunService.urunSayfasi(id, kategoriId, null, urunSiralama, null, sayfaBoyutu);
         }
 
         List<Kategori> kategoriler = kategoriService.getTumKategoriler();
 
         model.addAttribute("magaza", magaza);
-        model.addAttribute("urunler", urunler);
+        model.addAttribute("urunler", sayfa.urunler());
+        model.addAttribute("sonrakiImlec", sayfa.sonrakiImlec());
+        model.addAttribute("ilkSayfa", imlec == null || imlec.isBlank());
+        model.addAttribute("toplamUrun", urunService.aktifUrunSayisi(id, kategoriId, null));
         model.addAttribute("kategoriler", kategoriler);
         model.addAttribute("kategoriId", kategoriId);
         model.addAttribute("siralama", siralama);
+        model.addAttribute("limit", sayfaBoyutu);
 
         return "magaza-detay";
     }
@@ -1,5 +1,6 @@
 package com.magazaapp.controller;
 
+import com.magazaapp.concurrency.YenidenDenemeYurutucusu;
 import com.magazaapp.model.*;
 import com.magazaapp.service.*;
 import org.springframework.security.core.Authentication;
@@ -9,7 +10,10 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/sahip")
@@ -22,11 +26,12 @@ public class MagazaSahibiController {
         private final KategoriService kategoriService;
         private final BedenService bedenService;
         private final AltKategoriService altKategoriService;
+        private final YenidenDenemeYurutucusu yenidenDeneme;
 
         public MagazaSahibiController(MagazaService magazaService, KullaniciService kullaniciService,
                         UrunService urunService, SiparisService siparisService,
                         KategoriService kategoriService, BedenService bedenService,
-                        AltKategoriService altKategoriService) {
+                        AltKategoriService altKategoriService, YenidenDenemeYurutucusu yenidenDeneme) {
                 this.magazaService = magazaService;
                 this.kullaniciService = kullaniciService;
                 this.urunService = urunService;
@@ -34,6 +39,7 @@ public class MagazaSahibiController {
                 this.kategoriService = kategoriService;
                 this.bedenService = bedenService;
                 this.altKategoriService = altKategoriService;
+                this.yenidenDeneme = yenidenDeneme;
         }
 
         // ============ PANEL ANA SAYFA ============
@@ -257,6 +263,11 @@ public class MagazaSahibiController {
                 List<AltKategori> altKategoriler = altKategoriService.getTumAltKategoriler();
                 List<Beden> bedenler = bedenService.getTumBedenler();
                 List<UrunStok> mevcutStoklar = urunService.getUrunStoklari(urunId);
+                // Kaydederken stok, sahibin gördüğü versiyondan beri değişmediyse yazılır
+                Map<Long, Long> stokVersiyonlari = mevcutStoklar.stream()
+                                .collect(Collectors.toMap(s -> s.getBeden().getId(), UrunStok::getVersiyon));
+                Map<Long, Integer> stokAdetleri = mevcutStoklar.stream()
+                                .collect(Collectors.toMap(s -> s.getBeden().getId(), UrunStok::getAdet));
 
                 model.addAttribute("kullanici", sahip);
                 model.addAttribute("magaza", magaza);
@@ -265,6 +276,8 @@ public class MagazaSahibiController {
                 model.addAttribute("altKategoriler", altKategoriler);
                 model.addAttribute("bedenler", bedenler);
                 model.addAttribute("mevcutStoklar", mevcutStoklar);
+                model.addAttribute("stokVersiyonlari", stokVersiyonlari);
+                model.addAttribute("stokAdetleri", stokAdetleri);
 
                 return "sahip/urun-duzenle";
         }
@@ -281,6 +294,8 @@ public class MagazaSahibiController {
                         @RequestParam Long altKategoriId,
                         @RequestParam(required = false) List<Long> bedenIds,
                         @RequestParam(required = false) List<Integer> stoklar,
+                        @RequestParam(required = false) List<Integer> eskiStoklar,
+                        @RequestParam(required = false) List<Long> stokVersiyonlari,
                         Authentication auth,
                         RedirectAttributes redirectAttributes) {
                 try {
@@ -306,16 +321,36 @@ public class MagazaSahibiController {
 
                         urunService.saveUrun(urun);
 
-                        // Stokları güncelle
+                        // Stokları güncelle: yalnızca sahibin değiştirdiği bedenler, gördüğü versiyona koşullu
+                        List<Long> degisenBedenler = new ArrayList<>();
                         if (bedenIds != null && stoklar != null) {
                                 for (int i = 0; i < bedenIds.size(); i++) {
-                                        if (i < stoklar.size()) {
-                                                urunService.updateStok(urunId, bedenIds.get(i), stoklar.get(i));
+                                        if (i < stoklar.size() && stoklar.get(i) != null) {
+                                                Integer eskiAdet = eskiStoklar != null && i < eskiStoklar.size()
+                                                                ? eskiStoklar.get(i) : null;
+                                                if (stoklar.get(i).equals(eskiAdet)) {
+                                                        continue;
+                                                }
+                                                Long versiyon = stokVersiyonlari != null && i < stokVersiyonlari.size()
+                                                                ? stokVersiyonlari.get(i) : null;
+                                                if (!urunService.updateStok(urunId, bedenIds.get(i), stoklar.get(i),
+                                                                versiyon)) {
+                                                        degisenBedenler.add(bedenIds.get(i));
+                                                }
                                         }
                                 }
                         }
 
-                        redirectAttributes.addFlashAttribute("basari", "Ürün güncellendi!");
+                        if (!degisenBedenler.isEmpty()) {
+                                String bedenAdlari = degisenBedenler.stream()
+                                                .map(bedenId -> bedenService.getBedenById(bedenId).getAd())
+                                                .collect(Collectors.joining(", "));
+                                redirectAttributes.addFlashAttribute("hata", "Ürün güncellendi, ancak " + bedenAdlari
+                                                + " bedenlerinin stoğu siz düzenlerken değişti (satış olmuş olabilir); "
+                                                + "güncel stoğu görüp tekrar kaydedin.");
+                        } else {
+                                redirectAttributes.addFlashAttribute("basari", "Ürün güncellendi!");
+                        }
                 } catch (Exception e) {
                         redirectAttributes.addFlashAttribute("hata", "Güncelleme hatası: " + e.getMessage());
                 }
@@ -459,7 +494,8 @@ public class MagazaSahibiController {
                         }
 
                         SiparisDurum yeniDurum = SiparisDurum.valueOf(durum);
-                        siparisService.siparisDurumGuncelle(id, yeniDurum);
+                        yenidenDeneme.calistir("siparis-durum",
+                                        () -> siparisService.siparisDurumGuncelle(id, yeniDurum));
 
                         redirectAttributes.addFlashAttribute("basari", "Sipariş durumu güncellendi.");
                         return "redirect:/sahip/magaza/" + siparis.getMagaza().getId() + "/siparisler";
@@ -469,6 +505,37 @@ public class MagazaSahibiController {
                 }
         }
 
+        // ============ TOPLU SİPARİŞ DURUMU ============
+        @PostMapping("/magaza/{id}/siparisler/toplu-durum")
+        public String topluSiparisDurumu(@PathVariable Long id,
+                        @RequestParam(required = false) List<Long> siparisIds,
+                        @RequestParam String durum,
+                        Authentication auth,
+                        RedirectAttributes redirectAttributes) {
+                try {
+                        if (siparisIds == null || siparisIds.isEmpty()) {
+                                redirectAttributes.addFlashAttribute("hata", "En az bir sipariş seçin.");
+                                return "redirect:/sahip/magaza/" + id + "/siparisler";
+                        }
+                        Kullanici sahip = kullaniciService.getByUsername(auth.getName());
+
+                        List<SiparisService.TopluDurumSonucu> sonuclar = siparisService.topluDurumGuncelle(
+                                        sahip.getId(), siparisIds, SiparisDurum.valueOf(durum));
+                        List<String> hatalar = sonuclar.stream().filter(sonuc -> !sonuc.basarili())
+                                        .map(sonuc -> "#" + sonuc.siparisId() + ": " + sonuc.mesaj())
+                                        .toList();
+
+                        redirectAttributes.addFlashAttribute("basari", (sonuclar.size() - hatalar.size())
+                                        + " sipariş güncellendi.");
+                        if (!hatalar.isEmpty()) {
+                                redirectAttributes.addFlashAttribute("hata", String.join(" ", hatalar));
+                        }
+                } catch (Exception e) {
+                        redirectAttributes.addFlashAttribute("hata", "Güncelleme hatası: " + e.getMessage());
+                }
+                return "redirect:/sahip/magaza/" + id + "/siparisler";
+        }
+
         // ============ SİPARİŞ DETAY ============
         @GetMapping("/siparis/{id}")
         public String siparisDetay(@PathVariable Long id, Authentication auth, Model model) {
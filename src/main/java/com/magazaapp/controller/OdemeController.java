@@ -77,7 +77,7 @@ public class OdemeController {
             if (sonuc.isBasarili()) {
                 // Sipariş oluştur
                 Kullanici kullanici = kullaniciService.getByUsername(auth.getName());
-                SiparisFisi siparis = siparisService.sepettenSiparisOlustur(kullanici.getId());
+                SiparisFisi siparis = siparisService.sepettenSiparisOlustur(kullanici.getId(), token);
 
                 // Ödeme ile siparişi ilişkilendir
                 Odeme odeme = sonuc.getOdeme();
@@ -1,5 +1,7 @@
 package com.magazaapp.controller;
 
+import com.magazaapp.checkout.FlashSatisBileti;
+import com.magazaapp.checkout.FlashSatisKuyrugu;
 import com.magazaapp.model.*;
 import com.magazaapp.service.*;
 import org.springframework.security.core.Authentication;
@@ -10,6 +12,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 @Controller
 public class SepetController {
@@ -17,13 +20,16 @@ public class SepetController {
     private final SepetService sepetService;
     private final KullaniciService kullaniciService;
     private final SiparisService siparisService;
+    private final FlashSatisKuyrugu flashSatisKuyrugu;
 
     public SepetController(SepetService sepetService,
             KullaniciService kullaniciService,
-            SiparisService siparisService) {
+            SiparisService siparisService,
+            FlashSatisKuyrugu flashSatisKuyrugu) {
         this.sepetService = sepetService;
         this.kullaniciService = kullaniciService;
         this.siparisService = siparisService;
+        this.flashSatisKuyrugu = flashSatisKuyrugu;
     }
 
     // ============ SEPET GÖSTER ============
@@ -82,6 +88,24 @@ public class SepetController {
         try {
             Kullanici kullanici = kullaniciService.getByUsername(auth.getName());
 
+            // Kampanya ürünü içeren sepetler flash satış kuyruğundan geçer
+            Optional<FlashSatisBileti> bilet = flashSatisKuyrugu.sirayaAl(kullanici, null);
+            if (bilet.isPresent()) {
+                Optional<SiparisService.SiparisResult> sonuc = bilet.get().bekle(flashSatisKuyrugu.beklemeSuresi());
+                if (sonuc.isEmpty()) {
+                    redirectAttributes.addFlashAttribute("basari",
+                            "Siparişiniz sıraya alındı, kısa süre içinde işlenecek. Bilet No: " + bilet.get().getId());
+                    return "redirect:/siparislerim";
+                }
+                if (!sonuc.get().isSuccess()) {
+                    redirectAttributes.addFlashAttribute("hata", sonuc.get().getMesaj());
+                    return "redirect:/sepet";
+                }
+                redirectAttributes.addFlashAttribute("basari",
+                        "Siparişiniz başarıyla oluşturuldu! Sipariş No: #" + sonuc.get().getSiparisId());
+                return "redirect:/siparislerim";
+            }
+
             // Service katmanında tüm sipariş logic'i (stok kontrolü, sipariş oluşturma,
             // sepet temizleme)
             SiparisFisi siparis = siparisService.sepettenSiparisOlustur(kullanici.getId());
@@ -1,6 +1,9 @@
 package com.magazaapp.controller;
 
 import com.magazaapp.model.*;
+import com.magazaapp.search.AramaSonucu;
+import com.magazaapp.search.FacetSonucu;
+import com.magazaapp.search.UrunFiltresi;
 import com.magazaapp.service.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -8,6 +11,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Controller
@@ -32,12 +36,19 @@ public class UrunController {
 
     // ============ ÜRÜN ARAMA ============
     @GetMapping("/ara")
-    public String ara(@RequestParam(required = false) String q, Model model) {
+    public String ara(@RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "24") int limit,
+            Model model) {
         if (q != null && !q.trim().isEmpty()) {
-            List<Urun> sonuclar = urunService.araUrun(q);
-            model.addAttribute("sonuclar", sonuclar);
-            model.addAttribute("toplamSonuc", sonuclar.size());
+            int sayfaBoyutu = Math.max(1, Math.min(limit, 100));
+            int baslangic = Math.max(offset, 0);
+            AramaSonucu aramaSonucu = urunService.araUrun(q, baslangic, sayfaBoyutu);
+            model.addAttribute("sonuclar", urunService.getUrunKartlari(aramaSonucu.urunIdleri()));
+            model.addAttribute("toplamSonuc", aramaSonucu.toplam());
             model.addAttribute("aramaKelimesi", q);
+            model.addAttribute("offset", baslangic);
+            model.addAttribute("limit", sayfaBoyutu);
         }
         return "ara";
     }
@@ -109,19 +120,24 @@ public class UrunController {
     public String urunler(@RequestParam(required = false) Long magazaId,
             @RequestParam(required = false) Long kategoriId,
             @RequestParam(required = false) Long altKategoriId,
+            @RequestParam(required = false) Sezon sezon,
+            @RequestParam(required = false) String renk,
+            @RequestParam(required = false) BigDecimal minFiyat,
+            @RequestParam(required = false) BigDecimal maxFiyat,
             @RequestParam(required = false) String siralama,
             Model model) {
 
-        List<Urun> urunler = urunService.getUrunlerByFiltre(magazaId, kategoriId, altKategoriId);
-
-        // Sıralama
-        if (siralama != null) {
-            urunler = urunService.siralaUrunler(urunler, siralama);
-        }
+        UrunFiltresi filtre = new UrunFiltresi(magazaId, kategoriId, altKategoriId, sezon, renk, minFiyat, maxFiyat);
+        FacetSonucu facetSonucu = urunService.facetliFiltrele(filtre, 0, Integer.MAX_VALUE);
+        // Sıralama (id'ler üzerinde, ürünler yüklenmeden)
+        List<Long> urunIdleri = urunService.siralaUrunIdleri(facetSonucu.urunIdleri(), siralama);
+        List<Urun> urunler = urunService.getUrunlerByIdler(urunIdleri);
 
         List<Kategori> kategoriler = kategoriService.getTumKategoriler();
 
         model.addAttribute("urunler", urunler);
+        model.addAttribute("toplamSonuc", facetSonucu.toplam());
+        model.addAttribute("facetler", facetSonucu.facetler());
         model.addAttribute("kategoriler", kategoriler);
         model.addAttribute("siralama", siralama);
 
@@ -1,8 +1,18 @@
 package com.magazaapp.controller.api;
 
+import com.magazaapp.checkout.FlashSatisKuyrugu;
+import com.magazaapp.concurrency.YenidenDenemeYurutucusu;
 import com.magazaapp.model.*;
+import com.magazaapp.outbox.OlayAktarici;
 import com.magazaapp.repository.*;
+import com.magazaapp.search.AramaAnalitigi;
+import com.magazaapp.search.SorguOnbellegi;
+import com.magazaapp.search.UrunAramaIndeksi;
+import com.magazaapp.service.SiparisService;
+import com.magazaapp.stock.SicakStokDefteri;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -40,6 +50,33 @@ public class AdminRestController {
     @Autowired
     private BedenRepository bedenRepository;
 
+    @Autowired
+    private UrunAramaIndeksi urunAramaIndeksi;
+
+    @Autowired
+    private SorguOnbellegi sorguOnbellegi;
+
+    @Autowired
+    private AramaAnalitigi aramaAnalitigi;
+
+    @Autowired
+    private AramaIstatistigiRepository aramaIstatistigiRepository;
+
+    @Autowired
+    private SicakStokDefteri sicakStokDefteri;
+
+    @Autowired
+    private SiparisService siparisService;
+
+    @Autowired
+    private YenidenDenemeYurutucusu yenidenDeneme;
+
+    @Autowired
+    private FlashSatisKuyrugu flashSatisKuyrugu;
+
+    @Autowired
+    private OlayAktarici olayAktarici;
+
     @Autowired
     private org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
 
@@ -87,6 +124,202 @@ public class AdminRestController {
         }
     }
 
+    // =============== ARAMA ANALİTİĞİ ===============
+    @GetMapping("/arama-analitigi")
+    public ResponseEntity<?> aramaAnalitigi(@RequestHeader("Authorization") String token,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) Integer gun) {
+        try {
+            Kullanici admin = getAdminFromToken(token);
+            if (admin == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin yetkisi gerekli"));
+            }
+
+            int n = Math.max(1, Math.min(limit, 100));
+            Map<String, Object> response = new HashMap<>();
+            response.put("toplamArama", aramaAnalitigi.toplamArama());
+            response.put("toplamSonucsuz", aramaAnalitigi.toplamSonucsuz());
+            response.put("enCokArananlar", aramaAnalitigi.enCokArananlar(n));
+            response.put("enCokSonucsuzKalanlar", aramaAnalitigi.enCokSonucsuzKalanlar(n));
+            response.put("sonSonucsuzAramalar", aramaAnalitigi.sonSonucsuzAramalar(n));
+
+            // Kayıtlı dönemlerden (uygulama yeniden başlasa da korunan) geçmiş
+            if (gun != null && gun > 0) {
+                LocalDateTime baslangic = LocalDateTime.now().minusDays(gun);
+                Pageable ilkN = PageRequest.of(0, n);
+                response.put("gecmisEnCokArananlar", aramaIstatistigiRepository.enCokArananlar(baslangic, ilkN).stream()
+                        .map(satir -> Map.of("sorgu", satir[0], "aramaSayisi", satir[1], "sifirSonucSayisi", satir[2]))
+                        .collect(Collectors.toList()));
+                response.put("gecmisEnCokSonucsuzKalanlar", aramaIstatistigiRepository
+                        .enCokSonucsuzKalanlar(baslangic, ilkN).stream()
+                        .map(satir -> Map.of("sorgu", satir[0], "sifirSonucSayisi", satir[1]))
+                        .collect(Collectors.toList()));
+            }
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Arama analitiği getirilirken hata: " + e.getMessage()));
+        }
+    }
+
+    // =============== SORGU ÖNBELLEĞİ İSTATİSTİKLERİ ===============
+    @GetMapping("/onbellek")
+    public ResponseEntity<?> onbellekIstatistikleri(@RequestHeader("Authorization") String token) {
+        try {
+            Kullanici admin = getAdminFromToken(token);
+            if (admin == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin yetkisi gerekli"));
+            }
+
+            SorguOnbellegi.Istatistik istatistik = sorguOnbellegi.istatistik();
+            Map<String, Object> response = new HashMap<>();
+            response.put("isabet", istatistik.isabet());
+            response.put("iskalama", istatistik.iskalama());
+            response.put("isabetOrani", istatistik.isabetOrani());
+            response.put("tahliye", istatistik.tahliye());
+            response.put("suresiDolan", istatistik.suresiDolan());
+            response.put("gecersizlestirme", istatistik.gecersizlestirme());
+            response.put("kayitSayisi", istatistik.kayitSayisi());
+            response.put("toplamAgirlik", istatistik.toplamAgirlik());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Önbellek istatistikleri getirilirken hata: " + e.getMessage()));
+        }
+    }
+
+    // =============== SICAK STOK DEFTERİ ===============
+    @GetMapping("/stok-defteri")
+    public ResponseEntity<?> stokDefteri(@RequestHeader("Authorization") String token) {
+        try {
+            Kullanici admin = getAdminFromToken(token);
+            if (admin == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin yetkisi gerekli"));
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("etkin", sicakStokDefteri.etkinMi());
+            response.put("urunler", new TreeSet<>(sicakStokDefteri.sicakUrunler()));
+            response.put("sayaclar", sicakStokDefteri.durum());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Stok defteri getirilirken hata: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/stok-defteri/{urunId}")
+    public ResponseEntity<?> stokDefterineEkle(@RequestHeader("Authorization") String token,
+            @PathVariable Long urunId) {
+        try {
+            Kullanici admin = getAdminFromToken(token);
+            if (admin == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin yetkisi gerekli"));
+            }
+
+            sicakStokDefteri.ekle(urunId);
+            return ResponseEntity.ok(Map.of("message", "Ürün stok defterine alındı"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Stok defterine eklenirken hata: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/stok-defteri/{urunId}")
+    public ResponseEntity<?> stokDefterindenCikar(@RequestHeader("Authorization") String token,
+            @PathVariable Long urunId) {
+        try {
+            Kullanici admin = getAdminFromToken(token);
+            if (admin == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin yetkisi gerekli"));
+            }
+
+            sicakStokDefteri.cikar(urunId);
+            return ResponseEntity.ok(Map.of("message", "Ürün stok defterinden çıkarıldı"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Stok defterinden çıkarılırken hata: " + e.getMessage()));
+        }
+    }
+
+    // =============== YENİDEN DENEME İSTATİSTİKLERİ ===============
+    @GetMapping("/yeniden-deneme")
+    public ResponseEntity<?> yenidenDenemeIstatistikleri(@RequestHeader("Authorization") String token) {
+        try {
+            Kullanici admin = getAdminFromToken(token);
+            if (admin == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin yetkisi gerekli"));
+            }
+
+            return ResponseEntity.ok(Map.of("islemler", yenidenDeneme.istatistikler()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "İstatistikler getirilirken hata: " + e.getMessage()));
+        }
+    }
+
+    // =============== FLASH SATIŞ KUYRUKLARI ===============
+    @GetMapping("/flash-satis")
+    public ResponseEntity<?> flashSatis(@RequestHeader("Authorization") String token) {
+        try {
+            Kullanici admin = getAdminFromToken(token);
+            if (admin == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin yetkisi gerekli"));
+            }
+
+            return ResponseEntity.ok(Map.of("kuyruklar", flashSatisKuyrugu.durum()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Flash satış kuyrukları getirilirken hata: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/flash-satis/{urunId}")
+    public ResponseEntity<?> flashSatisaEkle(@RequestHeader("Authorization") String token,
+            @PathVariable Long urunId) {
+        try {
+            Kullanici admin = getAdminFromToken(token);
+            if (admin == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin yetkisi gerekli"));
+            }
+            if (!urunRepository.existsById(urunId)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Ürün bulunamadı"));
+            }
+
+            flashSatisKuyrugu.ekle(urunId);
+            return ResponseEntity.ok(Map.of("message", "Ürün flash satışa alındı"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Flash satışa eklenirken hata: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/flash-satis/{urunId}")
+    public ResponseEntity<?> flashSatistanCikar(@RequestHeader("Authorization") String token,
+            @PathVariable Long urunId) {
+        try {
+            Kullanici admin = getAdminFromToken(token);
+            if (admin == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin yetkisi gerekli"));
+            }
+
+            flashSatisKuyrugu.cikar(urunId);
+            return ResponseEntity.ok(Map.of("message", "Ürün flash satıştan çıkarıldı"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Flash satıştan çıkarılırken hata: " + e.getMessage()));
+        }
+    }
+
+    // =============== GİDEN OLAY KUTUSU ===============
+    @GetMapping("/olay-kutusu")
+    public ResponseEntity<?> olayKutusu(@RequestHeader("Authorization") String token) {
+        try {
+            Kullanici admin = getAdminFromToken(token);
+            if (admin == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Admin yetkisi gerekli"));
+            }
+
+            return ResponseEntity.ok(olayAktarici.durum());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Olay kutusu durumu getirilirken hata: " + e.getMessage()));
+        }
+    }
+
     // =============== KULLANICI LİSTESİ ===============
     @GetMapping("/kullanicilar")
     public ResponseEntity<?> kullaniciListesi(@RequestHeader("Authorization") String token) {
@@ -379,6 +612,8 @@ public class AdminRestController {
                 magaza.setLogoUrl(request.get("logoUrl"));
 
             magazaRepository.save(magaza);
+            if (request.containsKey("ad"))
+                urunAramaIndeksi.magazaAdiDegisti(magaza.getId(), magaza.getAd());
 
             return ResponseEntity.ok(Map.of(
                     "message", "Mağaza güncellendi",
@@ -477,6 +712,8 @@ public class AdminRestController {
                 }
             }
 
+            urunAramaIndeksi.indeksle(urun);
+
             // Basit response
             Map<String, Object> map = new HashMap<>();
             map.put("id", urun.getId());
@@ -506,6 +743,7 @@ public class AdminRestController {
 
             urun.setAktif(!urun.getAktif());
             urunRepository.save(urun);
+            urunAramaIndeksi.indeksle(urun);
 
             return ResponseEntity.ok(Map.of(
                     "message", urun.getAktif() ? "Ürün aktifleştirildi" : "Ürün pasifleştirildi"));
@@ -528,6 +766,7 @@ public class AdminRestController {
                     .orElseThrow(() -> new RuntimeException("Ürün bulunamadı"));
 
             urunRepository.delete(urun);
+            urunAramaIndeksi.kaldir(id);
 
             return ResponseEntity.ok(Map.of("message", "Ürün silindi"));
         } catch (Exception e) {
@@ -579,13 +818,12 @@ public class AdminRestController {
                 return ResponseEntity.status(403).body(Map.of("error", "Admin yetkisi gerekli"));
             }
 
-            SiparisFisi siparis = siparisFisiRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Sipariş bulunamadı"));
-
             String yeniDurum = request.get("durum");
             SiparisDurum durum = SiparisDurum.valueOf(yeniDurum);
-            siparis.setDurum(durum);
-            siparisFisiRepository.save(siparis);
+            yenidenDeneme.calistir("siparis-durum", () -> siparisService.siparisDurumGuncelle(id, durum));
+
+            SiparisFisi siparis = siparisFisiRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Sipariş bulunamadı"));
 
             return ResponseEntity.ok(Map.of(
                     "message", "Sipariş durumu güncellendi",
@@ -698,6 +936,7 @@ public class AdminRestController {
             response.put("toplamTutar", siparis.getToplamTutar());
             response.put("teslimatAdresi", siparis.getTeslimatAdresi());
             response.put("siparisTarihi", siparis.getSiparisTarihi());
+            response.put("versiyon", siparis.getVersiyon());
             response.put("kullaniciAd", siparis.getKullanici().getAd() + " " + siparis.getKullanici().getSoyad());
             response.put("magazaAd", siparis.getMagaza().getAd());
 
@@ -726,79 +965,29 @@ public class AdminRestController {
             @PathVariable Long id,
             @RequestParam List<Long> detayIds,
             @RequestParam List<Integer> adetler,
-            @RequestParam(required = false) List<Long> silinecekIds) {
+            @RequestParam(required = false) List<Long> silinecekIds,
+            @RequestParam(required = false) Long versiyon) {
         try {
             Kullanici admin = getAdminFromToken(token);
             if (admin == null) {
                 return ResponseEntity.status(403).body(Map.of("error", "Admin yetkisi gerekli"));
             }
 
-            SiparisFisi siparis = siparisFisiRepository.findById(id)
-                    .orElseThrow(() -> new RuntimeException("Sipariş bulunamadı"));
-
-            // Silme işlemleri
-            if (silinecekIds != null && !silinecekIds.isEmpty()) {
-                for (Long detayId : silinecekIds) {
-                    SiparisDetay detay = siparisDetayRepository.findById(detayId).orElse(null);
-                    if (detay != null) {
-                        // Stok iade
-                        UrunStok stok = urunStokRepository.findByUrunIdAndBedenId(
-                                detay.getUrun().getId(), detay.getBeden() != null ? detay.getBeden().getId() : null)
-                                .orElse(null);
-                        if (stok != null) {
-                            stok.setAdet(stok.getAdet() + detay.getAdet());
-                            urunStokRepository.save(stok);
-                        }
-                        siparisDetayRepository.delete(detay);
-                    }
-                }
-            }
-
-            // Adet güncelleme
-            java.math.BigDecimal yeniToplam = java.math.BigDecimal.ZERO;
-            for (int i = 0; i < detayIds.size(); i++) {
-                Long detayId = detayIds.get(i);
-                Integer yeniAdet = adetler.get(i);
-
-                SiparisDetay detay = siparisDetayRepository.findById(detayId).orElse(null);
-                if (detay != null) {
-                    int eskiAdet = detay.getAdet();
-                    int fark = eskiAdet - yeniAdet;
-
-                    // Stok ayarla
-                    if (fark != 0) {
-                        UrunStok stok = urunStokRepository.findByUrunIdAndBedenId(
-                                detay.getUrun().getId(), detay.getBeden() != null ? detay.getBeden().getId() : null)
-                                .orElse(null);
-                        if (stok != null) {
-                            stok.setAdet(stok.getAdet() + fark);
-                            urunStokRepository.save(stok);
-                        }
-                    }
-
-                    detay.setAdet(yeniAdet);
-                    detay.setToplamFiyat(detay.getBirimFiyat().multiply(java.math.BigDecimal.valueOf(yeniAdet)));
-                    siparisDetayRepository.save(detay);
-
-                    yeniToplam = yeniToplam.add(detay.getToplamFiyat());
-                }
+            SiparisService.SiparisResult sonuc = yenidenDeneme.calistir("siparis-icerik",
+                    () -> siparisService.icerikGuncelle(id, detayIds, adetler, silinecekIds, versiyon));
+            if (sonuc.isCakisma()) {
+                return ResponseEntity.status(409).body(Map.of("error", sonuc.getMesaj()));
             }
-
-            // Kalan detayları kontrol et
-            List<SiparisDetay> kalanDetaylar = siparisDetayRepository.findBySiparisFisiId(id);
-            if (kalanDetaylar.isEmpty()) {
-                siparis.setDurum(SiparisDurum.IPTAL);
+            if (!sonuc.isSuccess()) {
+                return ResponseEntity.badRequest().body(Map.of("error", sonuc.getMesaj()));
             }
 
-            // Toplam tutarı yeniden hesapla
-            java.math.BigDecimal hesaplananToplam = kalanDetaylar.stream()
-                    .map(SiparisDetay::getToplamFiyat)
-                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-            siparis.setToplamTutar(hesaplananToplam);
-            siparisFisiRepository.save(siparis);
-
-            return ResponseEntity.ok(Map.of("message", "Sipariş içeriği güncellendi"));
+            return ResponseEntity.ok(Map.of("message", sonuc.getMesaj()));
         } catch (Exception e) {
+            if (YenidenDenemeYurutucusu.cakismaMi(e)) {
+                return ResponseEntity.status(409).body(Map.of("error",
+                        "Sipariş şu anda başka bir işlemle güncelleniyor, lütfen tekrar deneyin"));
+            }
             return ResponseEntity.badRequest().body(Map.of("error", "Güncelleme hatası: " + e.getMessage()));
         }
     }
@@ -883,6 +1072,7 @@ public class AdminRestController {
             // ürün bilgileri)
 
             urunRepository.save(urun);
+            urunAramaIndeksi.indeksle(urun);
 
             return ResponseEntity.ok(Map.of("message", "Ürün başarıyla güncellendi"));
         } catch (Exception e) {
@@ -897,6 +1087,7 @@ public class AdminRestController {
         map.put("durum", s.getDurum().toString());
         map.put("teslimatAdresi", s.getTeslimatAdresi());
         map.put("siparisTarihi", s.getSiparisTarihi());
+        map.put("versiyon", s.getVersiyon());
         map.put("kullaniciId", s.getKullanici().getId());
         map.put("kullaniciAd", s.getKullanici().getAd() + " " + s.getKullanici().getSoyad());
         map.put("magazaId", s.getMagaza().getId());
@@ -1,18 +1,19 @@
 package com.magazaapp.controller.api;
 
+import com.magazaapp.dto.FavoriKartiDTO;
 import com.magazaapp.model.Favori;
 import com.magazaapp.model.Kullanici;
 import com.magazaapp.model.Urun;
 import com.magazaapp.repository.FavoriRepository;
 import com.magazaapp.repository.KullaniciRepository;
 import com.magazaapp.repository.UrunRepository;
+import com.magazaapp.search.UrunOneriIndeksi;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/favoriler")
@@ -28,6 +29,9 @@ public class FavoriRestController {
     @Autowired
     private UrunRepository urunRepository;
 
+    @Autowired
+    private UrunOneriIndeksi urunOneriIndeksi;
+
     // =============== TÜM FAVORİLERİ GETİR ===============
     @GetMapping
     public ResponseEntity<?> getFavoriler(@RequestHeader("Authorization") String token) {
@@ -37,26 +41,8 @@ public class FavoriRestController {
                 return ResponseEntity.status(401).body(Map.of("error", "Geçersiz token"));
             }
 
-            List<Favori> favoriler = favoriRepository.findByKullaniciOrderByEklenmeTarihiDesc(kullanici);
-
-            List<Map<String, Object>> response = favoriler.stream()
-                    .map(favori -> {
-                        Map<String, Object> map = new HashMap<>();
-                        Urun urun = favori.getUrun();
-                        map.put("id", favori.getId());
-                        map.put("urunId", urun.getId());
-                        map.put("urunAd", urun.getAd());
-                        map.put("fiyat", urun.getFiyat());
-                        map.put("resimUrl", urun.getResimUrl());
-                        map.put("magazaAd", urun.getMagaza() != null ? urun.getMagaza().getAd() : "");
-                        map.put("kategoriAd",
-                                urun.getAltKategori() != null && urun.getAltKategori().getKategori() != null
-                                        ? urun.getAltKategori().getKategori().getAd()
-                                        : "");
-                        map.put("eklenmeTarihi", favori.getEklenmeTarihi().toString());
-                        return map;
-                    })
-                    .collect(Collectors.toList());
+            // Favori + ürün + mağaza + kategori tek select (satır başına ilişki yüklemesi yok)
+            List<FavoriKartiDTO> response = favoriRepository.findKartlarByKullanici(kullanici);
 
             return ResponseEntity.ok(Map.of(
                     "favoriler", response,
@@ -111,6 +97,7 @@ public class FavoriRestController {
             // Yeni favori oluştur
             Favori favori = new Favori(kullanici, urun);
             favoriRepository.save(favori);
+            urunOneriIndeksi.favoriDegisti(urunId, true);
 
             return ResponseEntity.ok(Map.of(
                     "message", "Ürün favorilere eklendi",
@@ -137,7 +124,9 @@ public class FavoriRestController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Ürün bulunamadı"));
             }
 
-            favoriRepository.deleteByKullaniciAndUrun(kullanici, urunOpt.get());
+            if (favoriRepository.deleteByKullaniciAndUrun(kullanici, urunOpt.get()) > 0) {
+                urunOneriIndeksi.favoriDegisti(urunId, false);
+            }
 
             return ResponseEntity.ok(Map.of("message", "Ürün favorilerden kaldırıldı"));
         } catch (Exception e) {
@@ -168,6 +157,7 @@ public class FavoriRestController {
             if (mevcutFavori.isPresent()) {
                 // Favoriden kaldır
                 favoriRepository.delete(mevcutFavori.get());
+                urunOneriIndeksi.favoriDegisti(urunId, false);
                 return ResponseEntity.ok(Map.of(
                         "message", "Favorilerden kaldırıldı",
                         "isFavorite", false));
@@ -175,6 +165,7 @@ public class FavoriRestController {
                 // Favoriye ekle
                 Favori favori = new Favori(kullanici, urun);
                 favoriRepository.save(favori);
+                urunOneriIndeksi.favoriDegisti(urunId, true);
                 return ResponseEntity.ok(Map.of(
                         "message", "Favorilere eklendi",
                         "isFavorite", true,
@@ -1,7 +1,9 @@
 package com.magazaapp.controller.api;
 
+import com.magazaapp.dto.MagazaKartiDTO;
 import com.magazaapp.model.Magaza;
 import com.magazaapp.repository.MagazaRepository;
+import com.magazaapp.service.MagazaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,11 +21,17 @@ public class MagazaRestController {
     @Autowired
     private MagazaRepository magazaRepository;
 
+    @Autowired
+    private MagazaService magazaService;
+
     // =============== TÜM MAĞAZALARI GETİR ===============
+    // ?q= verilirse aktif mağazalar ada göre aranır (önek ve yazım hatası toleranslı)
     @GetMapping
-    public ResponseEntity<?> tumMagazalar() {
+    public ResponseEntity<?> tumMagazalar(@RequestParam(required = false) String q) {
         try {
-            List<Magaza> magazalar = magazaRepository.findByAktifTrue();
+            List<MagazaKartiDTO> magazalar = q != null && !q.isBlank()
+                    ? magazaService.magazaAra(q, true)
+                    : magazaService.getAktifMagazalar();
 
             List<Map<String, Object>> response = magazalar.stream()
                     .map(this::createMagazaResponse)
@@ -59,4 +67,16 @@ public class MagazaRestController {
         map.put("olusturmaTarihi", magaza.getOlusturmaTarihi());
         return map;
     }
+
+    private Map<String, Object> createMagazaResponse(MagazaKartiDTO magaza) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", magaza.id());
+        map.put("ad", magaza.ad());
+        map.put("aciklama", magaza.aciklama());
+        map.put("logoUrl", magaza.logoUrl());
+        map.put("aktif", magaza.aktif());
+        map.put("sahipId", magaza.sahipId());
+        map.put("olusturmaTarihi", magaza.olusturmaTarihi());
+        return map;
+    }
 }
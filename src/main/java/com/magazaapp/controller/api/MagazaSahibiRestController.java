@@ -1,11 +1,21 @@
 package com.magazaapp.controller.api;
 
+import com.magazaapp.concurrency.YenidenDenemeYurutucusu;
+import com.magazaapp.dto.MagazaKartiDTO;
+import com.magazaapp.dto.StokDTO;
+import com.magazaapp.dto.UrunDetayDTO;
+import com.magazaapp.dto.UrunKartiDTO;
 import com.magazaapp.model.*;
 import com.magazaapp.repository.*;
+import com.magazaapp.search.UrunAramaIndeksi;
+import com.magazaapp.service.MagazaService;
+import com.magazaapp.service.SiparisService;
+import com.magazaapp.stock.DusukStokUyarilari;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -16,6 +26,9 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class MagazaSahibiRestController {
 
+    // Toplu durum güncellemesinde tek istekteki sipariş sınırı
+    private static final int MAKS_TOPLU_SIPARIS = 1000;
+
     @Autowired
     private KullaniciRepository kullaniciRepository;
 
@@ -43,6 +56,21 @@ public class MagazaSahibiRestController {
     @Autowired
     private SiparisDetayRepository siparisDetayRepository;
 
+    @Autowired
+    private UrunAramaIndeksi urunAramaIndeksi;
+
+    @Autowired
+    private MagazaService magazaService;
+
+    @Autowired
+    private SiparisService siparisService;
+
+    @Autowired
+    private YenidenDenemeYurutucusu yenidenDeneme;
+
+    @Autowired
+    private DusukStokUyarilari dusukStokUyarilari;
+
     // =============== PANEL ÖZETİ ===============
     @GetMapping("/panel")
     public ResponseEntity<?> panel(@RequestHeader("Authorization") String token) {
@@ -52,22 +80,20 @@ public class MagazaSahibiRestController {
                 return ResponseEntity.status(403).body(Map.of("error", "Mağaza sahibi yetkisi gerekli"));
             }
 
-            List<Magaza> magazalar = magazaRepository.findAll().stream()
-                    .filter(m -> m.getSahip().getId().equals(sahip.getId()))
-                    .collect(Collectors.toList());
+            List<MagazaKartiDTO> magazalar = magazaService.getMagazaKartlariBySahip(sahip.getId());
 
             List<Map<String, Object>> magazaOzetleri = magazalar.stream()
                     .map(magaza -> {
                         Map<String, Object> ozet = new HashMap<>();
-                        ozet.put("id", magaza.getId());
-                        ozet.put("ad", magaza.getAd());
-                        ozet.put("logoUrl", magaza.getLogoUrl());
-                        ozet.put("aktif", magaza.getAktif());
+                        ozet.put("id", magaza.id());
+                        ozet.put("ad", magaza.ad());
+                        ozet.put("logoUrl", magaza.logoUrl());
+                        ozet.put("aktif", magaza.aktif());
 
-                        long urunSayisi = urunRepository.findByMagazaId(magaza.getId()).size();
+                        long urunSayisi = urunRepository.countByMagazaId(magaza.id());
                         ozet.put("urunSayisi", urunSayisi);
 
-                        List<SiparisFisi> siparisler = siparisFisiRepository.findByMagazaId(magaza.getId());
+                        List<SiparisFisi> siparisler = siparisFisiRepository.findByMagazaId(magaza.id());
                         ozet.put("siparisSayisi", siparisler.size());
 
                         long bekleyenSiparis = siparisler.stream()
@@ -153,6 +179,7 @@ public class MagazaSahibiRestController {
 
             // Ürünleri sil
             urunRepository.deleteAll(urunler);
+            urunler.forEach(urun -> urunAramaIndeksi.kaldir(urun.getId()));
 
             // Mağazayı sil
             magazaRepository.delete(magaza);
@@ -182,10 +209,16 @@ public class MagazaSahibiRestController {
                 return ResponseEntity.status(403).body(Map.of("error", "Bu mağaza size ait değil"));
             }
 
-            List<Urun> urunler = urunRepository.findByMagazaId(magazaId);
+            // Kartlar tek JOIN'li select, tüm ürünlerin stokları tek select
+            List<UrunKartiDTO> kartlar = urunRepository.findKartlarByMagazaId(magazaId);
+            Map<Long, List<StokDTO>> stoklar = kartlar.isEmpty()
+                    ? Map.of()
+                    : urunStokRepository.findStoklarByUrunIdIn(kartlar.stream().map(UrunKartiDTO::id).toList())
+                            .stream()
+                            .collect(Collectors.groupingBy(StokDTO::urunId));
 
-            List<Map<String, Object>> response = urunler.stream()
-                    .map(this::createUrunResponse)
+            List<UrunDetayDTO> response = kartlar.stream()
+                    .map(kart -> UrunDetayDTO.of(kart, stoklar.getOrDefault(kart.id(), List.of())))
                     .collect(Collectors.toList());
 
             return ResponseEntity.ok(response);
@@ -194,6 +227,112 @@ public class MagazaSahibiRestController {
         }
     }
 
+    // =============== DÜŞÜK STOK ===============
+    @GetMapping("/magaza/{magazaId}/dusuk-stoklar")
+    public ResponseEntity<?> dusukStoklar(@RequestHeader("Authorization") String token,
+            @PathVariable Long magazaId) {
+        try {
+            Kullanici sahip = getSahibiFromToken(token);
+            if (sahip == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Mağaza sahibi yetkisi gerekli"));
+            }
+
+            Magaza magaza = magazaRepository.findById(magazaId)
+                    .orElseThrow(() -> new RuntimeException("Mağaza bulunamadı"));
+
+            if (!magaza.getSahip().getId().equals(sahip.getId())) {
+                return ResponseEntity.status(403).body(Map.of("error", "Bu mağaza size ait değil"));
+            }
+
+            // sonSira önce okunur: listeden sonra düşen uyarılar /stok-uyarilari?sonra=... ile kaçmaz
+            long sonSira = dusukStokUyarilari.sonSira();
+            return ResponseEntity.ok(Map.of(
+                    "esik", magaza.getDusukStokEsigi(),
+                    "stoklar", urunStokRepository.findDusukStoklarByMagazaId(magazaId),
+                    "sonSira", sonSira));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Düşük stoklar getirilirken hata: " + e.getMessage()));
+        }
+    }
+
+    @PutMapping("/magaza/{magazaId}/dusuk-stok-esigi")
+    @Transactional
+    public ResponseEntity<?> dusukStokEsigiGuncelle(@RequestHeader("Authorization") String token,
+            @PathVariable Long magazaId, @RequestBody Map<String, Integer> request) {
+        try {
+            Kullanici sahip = getSahibiFromToken(token);
+            if (sahip == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Mağaza sahibi yetkisi gerekli"));
+            }
+
+            Magaza magaza = magazaRepository.findById(magazaId)
+                    .orElseThrow(() -> new RuntimeException("Mağaza bulunamadı"));
+
+            if (!magaza.getSahip().getId().equals(sahip.getId())) {
+                return ResponseEntity.status(403).body(Map.of("error", "Bu mağaza size ait değil"));
+            }
+
+            Integer esik = request.get("esik");
+            if (esik == null || esik < 0) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Geçerli bir eşik değeri giriniz"));
+            }
+
+            magaza.setDusukStokEsigi(esik);
+            magazaRepository.save(magaza);
+            dusukStokUyarilari.esikDegisti(magazaId);
+
+            return ResponseEntity.ok(Map.of("message", "Düşük stok eşiği güncellendi", "esik", esik));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Eşik güncellenirken hata: " + e.getMessage()));
+        }
+    }
+
+    // =============== DÜŞÜK STOK UYARILARI ===============
+    @GetMapping("/magaza/{magazaId}/stok-uyarilari")
+    public ResponseEntity<?> stokUyarilari(@RequestHeader("Authorization") String token,
+            @PathVariable Long magazaId, @RequestParam(defaultValue = "0") long sonra) {
+        try {
+            Kullanici sahip = getSahibiFromToken(token);
+            if (sahip == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Mağaza sahibi yetkisi gerekli"));
+            }
+
+            Magaza magaza = magazaRepository.findById(magazaId)
+                    .orElseThrow(() -> new RuntimeException("Mağaza bulunamadı"));
+
+            if (!magaza.getSahip().getId().equals(sahip.getId())) {
+                return ResponseEntity.status(403).body(Map.of("error", "Bu mağaza size ait değil"));
+            }
+
+            long sonSira = dusukStokUyarilari.sonSira();
+            return ResponseEntity.ok(Map.of(
+                    "uyarilar", dusukStokUyarilari.uyarilar(magazaId, sonra),
+                    "sonSira", sonSira));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Stok uyarıları getirilirken hata: " + e.getMessage()));
+        }
+    }
+
+    // Uyarılar yayınlandıkça "dusuk-stok" olayı olarak gelir
+    @GetMapping(value = "/magaza/{magazaId}/stok-uyarilari/akis", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> stokUyariAkisi(@RequestHeader("Authorization") String token,
+            @PathVariable Long magazaId) {
+        Kullanici sahip = getSahibiFromToken(token);
+        if (sahip == null) {
+            return ResponseEntity.status(403).build();
+        }
+
+        Magaza magaza = magazaRepository.findById(magazaId).orElse(null);
+        if (magaza == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!magaza.getSahip().getId().equals(sahip.getId())) {
+            return ResponseEntity.status(403).build();
+        }
+
+        return ResponseEntity.ok(dusukStokUyarilari.abone(magazaId));
+    }
+
     // =============== ÜRÜN EKLE ===============
     @PostMapping("/magaza/{magazaId}/urun")
     @Transactional
@@ -251,6 +390,8 @@ public class MagazaSahibiRestController {
                 }
             }
 
+            urunAramaIndeksi.indeksle(urun);
+
             return ResponseEntity.ok(Map.of(
                     "message", "Ürün eklendi",
                     "urun", createUrunResponse(urun)));
@@ -296,6 +437,7 @@ public class MagazaSahibiRestController {
             }
 
             urunRepository.save(urun);
+            urunAramaIndeksi.indeksle(urun);
 
             // Stokları güncelle
             if (request.getStoklar() != null) {
@@ -340,6 +482,7 @@ public class MagazaSahibiRestController {
 
             urun.setAktif(!urun.getAktif());
             urunRepository.save(urun);
+            urunAramaIndeksi.indeksle(urun);
 
             return ResponseEntity.ok(Map.of(
                     "message", urun.getAktif() ? "Ürün aktifleştirildi" : "Ürün pasifleştirildi",
@@ -369,6 +512,7 @@ public class MagazaSahibiRestController {
 
             urunStokRepository.deleteByUrunId(urunId);
             urunRepository.delete(urun);
+            urunAramaIndeksi.kaldir(urunId);
 
             return ResponseEntity.ok(Map.of("message", "Ürün silindi"));
         } catch (Exception e) {
@@ -427,9 +571,10 @@ public class MagazaSahibiRestController {
 
             String yeniDurum = request.get("durum");
             SiparisDurum durum = SiparisDurum.valueOf(yeniDurum);
-            siparis.setDurum(durum);
-            siparisFisiRepository.save(siparis);
+            yenidenDeneme.calistir("siparis-durum", () -> siparisService.siparisDurumGuncelle(siparisId, durum));
 
+            siparis = siparisFisiRepository.findById(siparisId)
+                    .orElseThrow(() -> new RuntimeException("Sipariş bulunamadı"));
             return ResponseEntity.ok(Map.of(
                     "message", "Sipariş durumu güncellendi",
                     "siparis", createSiparisResponse(siparis)));
@@ -438,6 +583,38 @@ public class MagazaSahibiRestController {
         }
     }
 
+    // =============== TOPLU SİPARİŞ DURUMU GÜNCELLE ===============
+    @PutMapping("/siparisler/durum")
+    public ResponseEntity<?> topluSiparisDurumuGuncelle(@RequestHeader("Authorization") String token,
+            @RequestBody TopluDurumRequest request) {
+        try {
+            Kullanici sahip = getSahibiFromToken(token);
+            if (sahip == null) {
+                return ResponseEntity.status(403).body(Map.of("error", "Mağaza sahibi yetkisi gerekli"));
+            }
+            if (request.getSiparisIds() == null || request.getSiparisIds().isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "En az bir sipariş seçilmeli"));
+            }
+            if (request.getSiparisIds().size() > MAKS_TOPLU_SIPARIS) {
+                return ResponseEntity.badRequest().body(Map.of("error",
+                        "Tek seferde en fazla " + MAKS_TOPLU_SIPARIS + " sipariş güncellenebilir"));
+            }
+
+            SiparisDurum durum = SiparisDurum.valueOf(request.getDurum());
+            List<SiparisService.TopluDurumSonucu> sonuclar = siparisService.topluDurumGuncelle(sahip.getId(),
+                    request.getSiparisIds(), durum);
+            long basarili = sonuclar.stream().filter(SiparisService.TopluDurumSonucu::basarili).count();
+            return ResponseEntity.ok(Map.of(
+                    "message", basarili + " sipariş " + durum + " durumunda, " + (sonuclar.size() - basarili)
+                            + " sipariş güncellenemedi",
+                    "basarili", basarili,
+                    "basarisiz", sonuclar.size() - basarili,
+                    "sonuclar", sonuclar));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Durumlar güncellenirken hata: " + e.getMessage()));
+        }
+    }
+
     // =============== KATEGORİLER VE BEDENLER (Form için) ===============
     @GetMapping("/form-data")
     public ResponseEntity<?> formData(@RequestHeader("Authorization") String token) {
@@ -505,31 +682,9 @@ public class MagazaSahibiRestController {
         return null;
     }
 
-    private Map<String, Object> createUrunResponse(Urun urun) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", urun.getId());
-        map.put("ad", urun.getAd());
-        map.put("aciklama", urun.getAciklama());
-        map.put("fiyat", urun.getFiyat());
-        map.put("renk", urun.getRenk());
-        map.put("resimUrl", urun.getResimUrl());
-        map.put("aktif", urun.getAktif());
-        map.put("altKategoriId", urun.getAltKategori().getId());
-        map.put("altKategoriAd", urun.getAltKategori().getAd());
-        map.put("kategoriAd", urun.getAltKategori().getKategori().getAd());
-
-        List<UrunStok> stoklar = urunStokRepository.findByUrunId(urun.getId());
-        List<Map<String, Object>> stokListesi = stoklar.stream()
-                .map(s -> {
-                    Map<String, Object> stokMap = new HashMap<>();
-                    stokMap.put("bedenId", s.getBeden().getId());
-                    stokMap.put("bedenAd", s.getBeden().getAd());
-                    stokMap.put("adet", s.getAdet());
-                    return stokMap;
-                }).collect(Collectors.toList());
-        map.put("stoklar", stokListesi);
-
-        return map;
+    private UrunDetayDTO createUrunResponse(Urun urun) {
+        return UrunDetayDTO.of(UrunKartiDTO.from(urun),
+                urunStokRepository.findStoklarByUrunIdIn(List.of(urun.getId())));
     }
 
     private Map<String, Object> createSiparisResponse(SiparisFisi s) {
@@ -539,6 +694,7 @@ public class MagazaSahibiRestController {
         map.put("durum", s.getDurum().toString());
         map.put("teslimatAdresi", s.getTeslimatAdresi());
         map.put("siparisTarihi", s.getSiparisTarihi());
+        map.put("versiyon", s.getVersiyon());
         map.put("kullaniciAd", s.getKullanici().getAd() + " " + s.getKullanici().getSoyad());
         map.put("kullaniciTelefon", s.getKullanici().getTelefon());
 
@@ -651,6 +807,8 @@ public class MagazaSahibiRestController {
         private List<Long> detayIds;
         private List<Integer> adetler;
         private List<Long> silinecekIds;
+        // Düzenlenen görünümün versiyonu; verilirse arada değişmiş sipariş üzerine yazılmaz
+        private Long versiyon;
 
         public List<Long> getDetayIds() {
             return detayIds;
@@ -675,6 +833,35 @@ public class MagazaSahibiRestController {
         public void setSilinecekIds(List<Long> silinecekIds) {
             this.silinecekIds = silinecekIds;
         }
+
+        public Long getVersiyon() {
+            return versiyon;
+        }
+
+        public void setVersiyon(Long versiyon) {
+            this.versiyon = versiyon;
+        }
+    }
+
+    static class TopluDurumRequest {
+        private List<Long> siparisIds;
+        private String durum;
+
+        public List<Long> getSiparisIds() {
+            return siparisIds;
+        }
+
+        public void setSiparisIds(List<Long> siparisIds) {
+            this.siparisIds = siparisIds;
+        }
+
+        public String getDurum() {
+            return durum;
+        }
+
+        public void setDurum(String durum) {
+            this.durum = durum;
+        }
     }
 
     // =============== SİPARİŞ DETAY GETİR ===============
@@ -702,7 +889,6 @@ public class MagazaSahibiRestController {
 
     // =============== SİPARİŞ İÇERİK GÜNCELLE ===============
     @PutMapping("/siparis/{siparisId}/icerik")
-    @Transactional
     public ResponseEntity<?> siparisIcerikGuncelle(@RequestHeader("Authorization") String token,
             @PathVariable Long siparisId,
             @RequestBody SiparisIcerikGuncelleRequest request) {
@@ -719,85 +905,28 @@ public class MagazaSahibiRestController {
                 return ResponseEntity.status(403).body(Map.of("error", "Bu sipariş size ait bir mağazada değil"));
             }
 
-            List<Long> detayIds = request.getDetayIds();
-            List<Integer> adetler = request.getAdetler();
-            List<Long> silinecekIds = request.getSilinecekIds();
-
-            if (detayIds == null || adetler == null || detayIds.size() != adetler.size()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Detay ID'leri ve adetler eşleşmiyor"));
+            // Her deneme kendi transaction'ında; eşzamanlı düzenlemeyle çakışırsa taze verilerle tekrar
+            SiparisService.SiparisResult sonuc = yenidenDeneme.calistir("siparis-icerik",
+                    () -> siparisService.icerikGuncelle(siparisId, request.getDetayIds(), request.getAdetler(),
+                            request.getSilinecekIds(), request.getVersiyon()));
+            if (sonuc.isCakisma()) {
+                return ResponseEntity.status(409).body(Map.of("error", sonuc.getMesaj()));
             }
-
-            for (int i = 0; i < detayIds.size(); i++) {
-                Long detayId = detayIds.get(i);
-                Integer yeniAdet = adetler.get(i);
-
-                if (yeniAdet < 1) {
-                    return ResponseEntity.badRequest().body(Map.of("error", "Adet 1'den küçük olamaz!"));
-                }
-
-                SiparisDetay detay = siparisDetayRepository.findById(detayId)
-                        .orElseThrow(() -> new RuntimeException("Detay bulunamadı"));
-
-                // Detay siparişe ait mi kontrol et
-                if (!detay.getSiparisFisi().getId().equals(siparisId)) {
-                    continue;
-                }
-
-                // Silinecek mi?
-                if (silinecekIds != null && silinecekIds.contains(detayId)) {
-                    // Stok iade
-                    UrunStok stok = urunStokRepository
-                            .findByUrunIdAndBedenId(detay.getUrun().getId(), detay.getBeden().getId())
-                            .orElse(new UrunStok(detay.getUrun(), detay.getBeden(), 0));
-                    stok.setAdet(stok.getAdet() + detay.getAdet());
-                    urunStokRepository.save(stok);
-
-                    siparisDetayRepository.delete(detay);
-                } else {
-                    // Adet değişti mi?
-                    if (!detay.getAdet().equals(yeniAdet)) {
-                        int fark = detay.getAdet() - yeniAdet; // pozitif = iade, negatif = düş
-
-                        UrunStok stok = urunStokRepository
-                                .findByUrunIdAndBedenId(detay.getUrun().getId(), detay.getBeden().getId())
-                                .orElse(new UrunStok(detay.getUrun(), detay.getBeden(), 0));
-
-                        if (stok.getAdet() + fark < 0) {
-                            return ResponseEntity.badRequest()
-                                    .body(Map.of("error", "Yetersiz stok! Ürün: " + detay.getUrun().getAd()));
-                        }
-
-                        stok.setAdet(stok.getAdet() + fark);
-                        urunStokRepository.save(stok);
-
-                        detay.setAdet(yeniAdet);
-                        detay.setToplamFiyat(detay.getBirimFiyat().multiply(BigDecimal.valueOf(yeniAdet)));
-                        siparisDetayRepository.save(detay);
-                    }
-                }
-            }
-
-            // Toplam tutarı güncelle
-            // EntityManager flush gerekebilir, save sonrası tekrar çekelim
-            siparisDetayRepository.flush();
-
-            List<SiparisDetay> guncelDetaylar = siparisDetayRepository.findBySiparisFisiId(siparisId);
-            if (guncelDetaylar.isEmpty()) {
-                siparis.setToplamTutar(BigDecimal.ZERO);
-                siparis.setDurum(SiparisDurum.IPTAL);
-            } else {
-                BigDecimal yeniToplam = guncelDetaylar.stream()
-                        .map(SiparisDetay::getToplamFiyat)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-                siparis.setToplamTutar(yeniToplam);
+            if (!sonuc.isSuccess()) {
+                return ResponseEntity.badRequest().body(Map.of("error", sonuc.getMesaj()));
             }
-            siparisFisiRepository.save(siparis);
 
+            siparis = siparisFisiRepository.findById(siparisId)
+                    .orElseThrow(() -> new RuntimeException("Sipariş bulunamadı"));
             return ResponseEntity.ok(Map.of(
-                    "message", "Sipariş içeriği güncellendi",
+                    "message", sonuc.getMesaj(),
                     "siparis", createSiparisResponse(siparis)));
 
         } catch (Exception e) {
+            if (YenidenDenemeYurutucusu.cakismaMi(e)) {
+                return ResponseEntity.status(409).body(Map.of("error",
+                        "Sipariş şu anda başka bir işlemle güncelleniyor, lütfen tekrar deneyin"));
+            }
             e.printStackTrace();
             return ResponseEntity.badRequest().body(Map.of("error", "Güncelleme hatası: " + e.getMessage()));
         }
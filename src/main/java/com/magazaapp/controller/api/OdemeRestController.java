@@ -1,5 +1,6 @@
 package com.magazaapp.controller.api;
 
+import com.magazaapp.idempotency.IdempotencyKorumasi;
 import com.magazaapp.model.*;
 import com.magazaapp.service.*;
 import org.springframework.http.ResponseEntity;
@@ -20,12 +21,14 @@ public class OdemeRestController {
     private final MockOdemeService mockOdemeService;
     private final KullaniciService kullaniciService;
     private final SiparisService siparisService;
+    private final IdempotencyKorumasi idempotencyKorumasi;
 
     public OdemeRestController(MockOdemeService mockOdemeService, KullaniciService kullaniciService,
-            SiparisService siparisService) {
+            SiparisService siparisService, IdempotencyKorumasi idempotencyKorumasi) {
         this.mockOdemeService = mockOdemeService;
         this.kullaniciService = kullaniciService;
         this.siparisService = siparisService;
+        this.idempotencyKorumasi = idempotencyKorumasi;
     }
 
     /**
@@ -72,6 +75,7 @@ public class OdemeRestController {
             response.put("token", sonuc.getToken());
             response.put("odemeId", sonuc.getOdemeId());
             response.put("tutar", sonuc.getTutar());
+            response.put("rezervasyonBitis", sonuc.getRezervasyonBitis());
             response.put("mock", true); // Mock olduğunu belirt
 
             return ResponseEntity.ok(response);
@@ -85,12 +89,26 @@ public class OdemeRestController {
     /**
      * Ödeme tamamla - Kart bilgileri ile
      * POST /api/odeme/tamamla
+     * Idempotency-Key başlığıyla tekrarlanan istekler ilk yanıtı alır; anahtarlar çağıran kullanıcıya
+     * göre ayrılır, kimliksiz istek korumaya hiç girmeden reddedilir
      */
     @PostMapping("/tamamla")
     public ResponseEntity<?> odemeTamamla(
             @RequestBody OdemeTamamlaRequest request,
             @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestHeader(value = IdempotencyKorumasi.BASLIK, required = false) String idempotencyKey,
             Authentication auth) {
+        String kimlik = auth != null && auth.getName() != null ? auth.getName() : simpleTokenKimligi(authHeader);
+        if (kimlik == null) {
+            return ResponseEntity.status(401).body(Map.of(
+                    "success", false,
+                    "error", "Giriş yapmanız gerekiyor"));
+        }
+        return idempotencyKorumasi.calistir(idempotencyKey, "odeme-tamamla|" + kimlik, request,
+                () -> odemeTamamlaIsle(request, authHeader, auth));
+    }
+
+    private ResponseEntity<?> odemeTamamlaIsle(OdemeTamamlaRequest request, String authHeader, Authentication auth) {
         try {
             MockOdemeService.OdemeSonuc sonuc = mockOdemeService.odemeTamamla(
                     request.getToken(),
@@ -127,7 +145,7 @@ public class OdemeRestController {
                             "error", "Giriş yapmanız gerekiyor"));
                 }
 
-                SiparisFisi siparis = siparisService.sepettenSiparisOlustur(kullanici.getId());
+                SiparisFisi siparis = siparisService.sepettenSiparisOlustur(kullanici.getId(), request.getToken());
 
                 Odeme odeme = sonuc.getOdeme();
                 odeme.setSiparisFisi(siparis);
@@ -175,6 +193,24 @@ public class OdemeRestController {
         }
     }
 
+    /**
+     * Mobil app simple-token başlığındaki kullanıcı id'si; başlık yoksa veya çözülemezse null
+     */
+    private static String simpleTokenKimligi(String authHeader) {
+        if (authHeader == null) {
+            return null;
+        }
+        String token = authHeader.replace("Bearer ", "").trim();
+        if (!token.startsWith("simple-token-")) {
+            return null;
+        }
+        try {
+            return "kullanici-" + Long.parseLong(token.substring("simple-token-".length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     // ================= REQUEST CLASS =================
 
     public static class OdemeTamamlaRequest {
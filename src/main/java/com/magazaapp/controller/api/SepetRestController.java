@@ -1,7 +1,11 @@
 package com.magazaapp.controller.api;
 
+import com.magazaapp.checkout.FlashSatisBileti;
+import com.magazaapp.checkout.FlashSatisKuyrugu;
+import com.magazaapp.idempotency.IdempotencyKorumasi;
 import com.magazaapp.model.*;
 import com.magazaapp.repository.*;
+import com.magazaapp.service.SiparisService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,10 +36,13 @@ public class SepetRestController {
     private UrunStokRepository urunStokRepository;
 
     @Autowired
-    private SiparisFisiRepository siparisFisiRepository;
+    private SiparisService siparisService;
 
     @Autowired
-    private SiparisDetayRepository siparisDetayRepository;
+    private FlashSatisKuyrugu flashSatisKuyrugu;
+
+    @Autowired
+    private IdempotencyKorumasi idempotencyKorumasi;
 
     // =============== SEPETİ GETİR ===============
     @GetMapping
@@ -209,92 +216,84 @@ public class SepetRestController {
 
     // =============== SİPARİŞ VER ===============
     @PostMapping("/siparis-ver")
-    @Transactional
     public ResponseEntity<?> siparisVer(@RequestHeader("Authorization") String token,
+            @RequestHeader(value = IdempotencyKorumasi.BASLIK, required = false) String idempotencyKey,
             @RequestBody(required = false) SiparisVerRequest request) {
+        // Aynı anahtarla tekrar deneyen istemci ilk siparişin yanıtını alır, ikinci sipariş oluşmaz
+        return idempotencyKorumasi.calistir(idempotencyKey, "siparis-ver|" + token, request,
+                () -> siparisVerIsle(token, request));
+    }
+
+    private ResponseEntity<?> siparisVerIsle(String token, SiparisVerRequest request) {
         try {
             Kullanici kullanici = getKullaniciFromToken(token);
             if (kullanici == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Geçersiz token"));
             }
 
-            List<Sepet> sepetListesi = sepetRepository.findByKullaniciId(kullanici.getId());
+            String teslimatAdresi = request != null ? request.getTeslimatAdresi() : null;
 
-            if (sepetListesi.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Sepetiniz boş"));
+            // Kampanya ürünü içeren sepetler flash satış kuyruğundan geçer; transaction açılmadan beklenir
+            Optional<FlashSatisBileti> bilet = flashSatisKuyrugu.sirayaAl(kullanici, teslimatAdresi);
+            if (bilet.isPresent()) {
+                return bilet.get().bekle(flashSatisKuyrugu.beklemeSuresi())
+                        .map(this::siparisSonucuResponse)
+                        .orElseGet(() -> ResponseEntity.status(202).body(createBiletResponse(bilet.get())));
             }
 
-            // Mağaza kontrolü
-            Magaza magaza = sepetListesi.get(0).getUrun().getMagaza();
-            for (Sepet sepetItem : sepetListesi) {
-                if (!sepetItem.getUrun().getMagaza().getId().equals(magaza.getId())) {
-                    return ResponseEntity.badRequest().body(Map.of("error",
-                            "Sepetinizde farklı mağazalardan ürünler var. Tek mağazadan sipariş verin."));
-                }
-            }
+            return siparisSonucuResponse(siparisService.siparisOlustur(kullanici, null, teslimatAdresi));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Sipariş oluşturulurken hata: " + e.getMessage()));
+        }
+    }
 
-            // Stok kontrolü
-            for (Sepet sepetItem : sepetListesi) {
-                UrunStok stok = urunStokRepository.findByUrunIdAndBedenId(
-                        sepetItem.getUrun().getId(), sepetItem.getBeden().getId())
-                        .orElseThrow(() -> new RuntimeException("Stok bulunamadı"));
-
-                if (stok.getAdet() < sepetItem.getAdet()) {
-                    return ResponseEntity.badRequest().body(Map.of("error",
-                            "Yetersiz stok: " + sepetItem.getUrun().getAd() + " - Mevcut: " + stok.getAdet()));
-                }
-            }
+    // =============== SİPARİŞ BİLETİ (flash satış) ===============
+    @GetMapping("/siparis-bileti/{biletId}")
+    public ResponseEntity<?> siparisBileti(@RequestHeader("Authorization") String token,
+            @PathVariable String biletId) {
+        Kullanici kullanici = getKullaniciFromToken(token);
+        if (kullanici == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Geçersiz token"));
+        }
 
-            // Toplam hesapla
-            BigDecimal toplamTutar = sepetListesi.stream()
-                    .map(item -> item.getUrun().getFiyat().multiply(BigDecimal.valueOf(item.getAdet())))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Optional<FlashSatisBileti> bilet = flashSatisKuyrugu.bilet(biletId)
+                .filter(b -> b.getKullaniciId().equals(kullanici.getId()));
+        if (bilet.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Bilet bulunamadı"));
+        }
+        return ResponseEntity.ok(createBiletResponse(bilet.get()));
+    }
 
-            // Teslimat adresi
-            String teslimatAdresi = (request != null && request.getTeslimatAdresi() != null)
-                    ? request.getTeslimatAdresi()
-                    : (kullanici.getAdres() != null ? kullanici.getAdres() : "Adres yok");
-
-            // Sipariş oluştur
-            SiparisFisi siparisFisi = new SiparisFisi();
-            siparisFisi.setKullanici(kullanici);
-            siparisFisi.setMagaza(magaza);
-            siparisFisi.setToplamTutar(toplamTutar);
-            siparisFisi.setTeslimatAdresi(teslimatAdresi);
-            siparisFisi.setDurum(SiparisDurum.BEKLEMEDE);
-            siparisFisi = siparisFisiRepository.save(siparisFisi);
-
-            // Detayları oluştur ve stok düş
-            for (Sepet sepetItem : sepetListesi) {
-                SiparisDetay detay = new SiparisDetay();
-                detay.setSiparisFisi(siparisFisi);
-                detay.setUrun(sepetItem.getUrun());
-                detay.setBeden(sepetItem.getBeden());
-                detay.setAdet(sepetItem.getAdet());
-                detay.setBirimFiyat(sepetItem.getUrun().getFiyat());
-                detay.setToplamFiyat(sepetItem.getUrun().getFiyat().multiply(BigDecimal.valueOf(sepetItem.getAdet())));
-                siparisDetayRepository.save(detay);
-
-                // Stok düş
-                UrunStok stok = urunStokRepository.findByUrunIdAndBedenId(
-                        sepetItem.getUrun().getId(), sepetItem.getBeden().getId()).get();
-                stok.setAdet(stok.getAdet() - sepetItem.getAdet());
-                urunStokRepository.save(stok);
+    // =============== HELPER METHODS ===============
+    private ResponseEntity<?> siparisSonucuResponse(SiparisService.SiparisResult sonuc) {
+        if (!sonuc.isSuccess()) {
+            Map<String, Object> hata = new HashMap<>();
+            hata.put("error", sonuc.getMesaj());
+            if (!sonuc.getEksikler().isEmpty()) {
+                hata.put("eksikler", sonuc.getEksikler());
             }
-
-            // Sepeti temizle
-            sepetRepository.deleteByKullaniciId(kullanici.getId());
-
-            return ResponseEntity.ok(Map.of(
-                    "message", "Sipariş başarıyla oluşturuldu",
-                    "siparisId", siparisFisi.getId(),
-                    "toplamTutar", toplamTutar));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Sipariş oluşturulurken hata: " + e.getMessage()));
+            return ResponseEntity.badRequest().body(hata);
         }
+        return ResponseEntity.ok(Map.of(
+                "message", "Sipariş başarıyla oluşturuldu",
+                "siparisId", sonuc.getSiparisId(),
+                "toplamTutar", sonuc.getToplamTutar()));
+    }
+
+    private Map<String, Object> createBiletResponse(FlashSatisBileti bilet) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("biletId", bilet.getId());
+        map.put("durum", bilet.getDurum().toString());
+        bilet.getSonuc().ifPresentOrElse(sonuc -> {
+            map.put("message", sonuc.getMesaj());
+            if (sonuc.isSuccess()) {
+                map.put("siparisId", sonuc.getSiparisId());
+                map.put("toplamTutar", sonuc.getToplamTutar());
+            }
+        }, () -> map.put("message", "Siparişiniz sırada, kısa süre içinde işlenecek"));
+        return map;
     }
 
-    // =============== HELPER METHODS ===============
     private Kullanici getKullaniciFromToken(String token) {
         if (token == null || !token.startsWith("Bearer ")) {
             return null;
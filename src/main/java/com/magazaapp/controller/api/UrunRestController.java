@@ -1,43 +1,95 @@
 package com.magazaapp.controller.api;
 
-import com.magazaapp.model.Urun;
-import com.magazaapp.model.UrunStok;
+import com.magazaapp.catalog.KatalogGoruntusu;
+import com.magazaapp.catalog.KatalogOnbellegi;
+import com.magazaapp.dto.UrunDetayDTO;
+import com.magazaapp.dto.UrunKartiDTO;
+import com.magazaapp.dto.UrunSayfasi;
+import com.magazaapp.dto.UrunSiralama;
+import com.magazaapp.model.Sezon;
 import com.magazaapp.repository.UrunRepository;
 import com.magazaapp.repository.UrunStokRepository;
+import com.magazaapp.search.AramaSonucu;
+import com.magazaapp.search.FacetSonucu;
+import com.magazaapp.search.Oneri;
+import com.magazaapp.search.UrunFiltresi;
+import com.magazaapp.search.UrunOneriIndeksi;
+import com.magazaapp.service.UrunService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/urunler")
 @CrossOrigin(origins = "*")
 public class UrunRestController {
 
+    private static final int TOPLU_DETAY_MAKS_ID = 100;
+
     @Autowired
     private UrunRepository urunRepository;
 
     @Autowired
     private UrunStokRepository urunStokRepository;
 
+    @Autowired
+    private UrunService urunService;
+
+    @Autowired
+    private KatalogOnbellegi katalogOnbellegi;
+
+    @Autowired
+    private UrunOneriIndeksi urunOneriIndeksi;
+
     // =============== MAĞAZANIN ÜRÜNLERİ ===============
     @GetMapping("/magaza/{magazaId}")
     public ResponseEntity<?> magazaUrunleri(
             @PathVariable Long magazaId,
             @RequestParam(required = false) Long kategoriId,
-            @RequestParam(required = false) Long altKategoriId) {
+            @RequestParam(required = false) Long altKategoriId,
+            @RequestParam(required = false) String siralama,
+            @RequestParam(required = false) String imlec,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<Urun> urunler = urunRepository.findByFiltre(magazaId, kategoriId, altKategoriId);
+            // Eski istemciler için dizi olarak döner; imleç ve toplam /magaza/{magazaId}/sayfa'da
+            return ResponseEntity.ok(
+                    urunSayfasi(magazaId, kategoriId, altKategoriId, siralama, imlec, limit).urunler());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Ürünler getirilirken hata: " + e.getMessage()));
+        }
+    }
 
-            List<Map<String, Object>> response = urunler.stream()
-                    .map(this::createUrunResponse)
-                    .collect(Collectors.toList());
+    @GetMapping("/magaza/{magazaId}/sayfa")
+    public ResponseEntity<?> magazaUrunSayfasi(
+            @PathVariable Long magazaId,
+            @RequestParam(required = false) Long kategoriId,
+            @RequestParam(required = false) Long altKategoriId,
+            @RequestParam(required = false) String siralama,
+            @RequestParam(required = false) String imlec,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(urunSayfasiResponse(magazaId, kategoriId, altKategoriId, siralama, imlec, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Ürünler getirilirken hata: " + e.getMessage()));
+        }
+    }
 
-            return ResponseEntity.ok(response);
+    // =============== TOPLU ÜRÜN DETAYI ===============
+    // Favoriler, sepet satırları ve AI [[URUN:ID]] linkleri için tek istekte: ?ids=3,1,2 (istek sırasıyla)
+    @GetMapping("/batch")
+    public ResponseEntity<?> topluUrunDetay(@RequestParam List<Long> ids) {
+        try {
+            if (ids.size() > TOPLU_DETAY_MAKS_ID) {
+                return ResponseEntity.badRequest().body(Map.of("error",
+                        "En fazla " + TOPLU_DETAY_MAKS_ID + " ürün birlikte istenebilir"));
+            }
+            return ResponseEntity.ok(urunService.getUrunDetaylari(ids));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Ürünler getirilirken hata: " + e.getMessage()));
         }
@@ -47,27 +99,17 @@ public class UrunRestController {
     @GetMapping("/{id}")
     public ResponseEntity<?> urunDetay(@PathVariable Long id) {
         try {
-            return urunRepository.findById(id)
-                    .map(urun -> {
-                        Map<String, Object> response = createUrunResponse(urun);
-
-                        // Stok bilgilerini ekle
-                        List<UrunStok> stoklar = urunStokRepository.findByUrunId(id);
-                        List<Map<String, Object>> stokListesi = stoklar.stream()
-                                .map(stok -> {
-                                    Map<String, Object> stokMap = new HashMap<>();
-                                    stokMap.put("bedenId", stok.getBeden().getId());
-                                    stokMap.put("bedenAd", stok.getBeden().getAd());
-                                    stokMap.put("adet", stok.getAdet());
-                                    stokMap.put("stokta", stok.getAdet() > 0);
-                                    return stokMap;
-                                })
-                                .collect(Collectors.toList());
-
-                        response.put("stoklar", stokListesi);
-
-                        return ResponseEntity.ok(response);
-                    })
+            // Aktif ürünler bellek içi katalog görüntüsünden (veritabanına gitmeden)
+            KatalogGoruntusu katalog = katalogOnbellegi.goruntu();
+            Optional<UrunKartiDTO> aktifKart = katalog.urun(id);
+            if (aktifKart.isPresent()) {
+                return ResponseEntity.ok(UrunDetayDTO.of(aktifKart.get(), katalog.stoklar(id)));
+            }
+
+            // Pasif ürünler: kart tek JOIN'li select, bedenleriyle stoklar tek select
+            return urunRepository.findKartById(id)
+                    .<ResponseEntity<?>>map(kart -> ResponseEntity.ok(
+                            UrunDetayDTO.of(kart, urunStokRepository.findStoklarByUrunIdIn(List.of(id)))))
                     .orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Ürün getirilirken hata: " + e.getMessage()));
@@ -76,15 +118,29 @@ public class UrunRestController {
 
     // =============== TÜM AKTİF ÜRÜNLER ===============
     @GetMapping
-    public ResponseEntity<?> tumUrunler() {
+    public ResponseEntity<?> tumUrunler(
+            @RequestParam(required = false) Long kategoriId,
+            @RequestParam(required = false) Long altKategoriId,
+            @RequestParam(required = false) String siralama,
+            @RequestParam(required = false) String imlec,
+            @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<Urun> urunler = urunRepository.findByAktifTrue();
-
-            List<Map<String, Object>> response = urunler.stream()
-                    .map(this::createUrunResponse)
-                    .collect(Collectors.toList());
+            // Eski istemciler için dizi olarak döner; imleç ve toplam /sayfa'da
+            return ResponseEntity.ok(urunSayfasi(null, kategoriId, altKategoriId, siralama, imlec, limit).urunler());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Ürünler getirilirken hata: " + e.getMessage()));
+        }
+    }
 
-            return ResponseEntity.ok(response);
+    @GetMapping("/sayfa")
+    public ResponseEntity<?> tumUrunSayfasi(
+            @RequestParam(required = false) Long kategoriId,
+            @RequestParam(required = false) Long altKategoriId,
+            @RequestParam(required = false) String siralama,
+            @RequestParam(required = false) String imlec,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(urunSayfasiResponse(null, kategoriId, altKategoriId, siralama, imlec, limit));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Ürünler getirilirken hata: " + e.getMessage()));
         }
@@ -92,67 +148,109 @@ public class UrunRestController {
 
     // =============== ÜRÜN ARAMA ===============
     @GetMapping("/ara")
-    public ResponseEntity<?> aramaYap(@RequestParam String q) {
+    public ResponseEntity<?> aramaYap(@RequestParam String q,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
         try {
             if (q == null || q.trim().length() < 2) {
                 return ResponseEntity.badRequest().body(Map.of("error", "Arama terimi en az 2 karakter olmalıdır"));
             }
 
-            String aramaKelimesi = q.trim().toLowerCase();
-            List<Urun> tumUrunler = urunRepository.findByAktifTrue();
-
-            // Ürün adı, açıklama, mağaza adı veya kategori ile eşleştir
-            List<Map<String, Object>> sonuclar = tumUrunler.stream()
-                    .filter(urun -> {
-                        String ad = urun.getAd() != null ? urun.getAd().toLowerCase() : "";
-                        String aciklama = urun.getAciklama() != null ? urun.getAciklama().toLowerCase() : "";
-                        String magazaAd = urun.getMagaza() != null && urun.getMagaza().getAd() != null
-                                ? urun.getMagaza().getAd().toLowerCase()
-                                : "";
-                        String kategori = urun.getAltKategori() != null && urun.getAltKategori().getKategori() != null
-                                ? urun.getAltKategori().getKategori().getAd().toLowerCase()
-                                : "";
-                        String altKategori = urun.getAltKategori() != null
-                                ? urun.getAltKategori().getAd().toLowerCase()
-                                : "";
-                        String renk = urun.getRenk() != null ? urun.getRenk().toLowerCase() : "";
-
-                        return ad.contains(aramaKelimesi) ||
-                                aciklama.contains(aramaKelimesi) ||
-                                magazaAd.contains(aramaKelimesi) ||
-                                kategori.contains(aramaKelimesi) ||
-                                altKategori.contains(aramaKelimesi) ||
-                                renk.contains(aramaKelimesi);
-                    })
-                    .map(this::createUrunResponse)
-                    .collect(Collectors.toList());
+            // Ürün adı, açıklama, mağaza adı veya kategori ile eşleştir (bellek içi indeksten, alaka sırasıyla)
+            int sayfaBoyutu = Math.min(limit, 100);
+            AramaSonucu sonuc = urunService.araUrun(q, offset, sayfaBoyutu);
+            List<UrunKartiDTO> sonuclar = urunKartlari(sonuc.urunIdleri());
 
             return ResponseEntity.ok(Map.of(
                     "sonuclar", sonuclar,
-                    "toplam", sonuclar.size(),
+                    "toplam", sonuc.toplam(),
+                    "offset", offset,
+                    "limit", sayfaBoyutu,
                     "aramaKelimesi", q));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Arama yapılırken hata: " + e.getMessage()));
         }
     }
 
+    // =============== OTOMATİK TAMAMLAMA ===============
+    @GetMapping("/oneri")
+    public ResponseEntity<?> oneriler(@RequestParam String q, @RequestParam(defaultValue = "8") int limit) {
+        try {
+            // Tek karakterde de çalışır; sonuçlar bellek içi prefix ağacından gelir
+            List<Oneri> oneriler = urunOneriIndeksi.oner(q, limit);
+            return ResponseEntity.ok(Map.of(
+                    "oneriler", oneriler,
+                    "sorgu", q));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Öneriler getirilirken hata: " + e.getMessage()));
+        }
+    }
+
+    // =============== FACET'Lİ FİLTRELEME ===============
+    @GetMapping("/filtre")
+    public ResponseEntity<?> facetliFiltrele(
+            @RequestParam(required = false) Long magazaId,
+            @RequestParam(required = false) Long kategoriId,
+            @RequestParam(required = false) Long altKategoriId,
+            @RequestParam(required = false) Sezon sezon,
+            @RequestParam(required = false) String renk,
+            @RequestParam(required = false) BigDecimal minFiyat,
+            @RequestParam(required = false) BigDecimal maxFiyat,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            UrunFiltresi filtre = new UrunFiltresi(magazaId, kategoriId, altKategoriId, sezon, renk,
+                    minFiyat, maxFiyat);
+            FacetSonucu sonuc = urunService.facetliFiltrele(filtre, offset, Math.min(limit, 200));
+
+            List<UrunKartiDTO> urunler = urunKartlari(sonuc.urunIdleri());
+
+            return ResponseEntity.ok(Map.of(
+                    "sonuclar", urunler,
+                    "toplam", sonuc.toplam(),
+                    "facetler", sonuc.facetler()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Filtreleme yapılırken hata: " + e.getMessage()));
+        }
+    }
+
     // =============== HELPER METHODS ===============
-    private Map<String, Object> createUrunResponse(Urun urun) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("id", urun.getId());
-        map.put("ad", urun.getAd());
-        map.put("aciklama", urun.getAciklama());
-        map.put("fiyat", urun.getFiyat());
-        map.put("resimUrl", urun.getResimUrl());
-        map.put("renk", urun.getRenk());
-        map.put("aktif", urun.getAktif());
-        map.put("magazaId", urun.getMagaza().getId());
-        map.put("magazaAd", urun.getMagaza().getAd());
-        map.put("kategoriId", urun.getAltKategori().getKategori().getId());
-        map.put("altKategoriId", urun.getAltKategori().getId());
-        map.put("altKategoriAd", urun.getAltKategori().getAd());
-        map.put("kategoriAd", urun.getAltKategori().getKategori().getAd());
-        map.put("sezon", urun.getAltKategori().getSezon().toString());
-        return map;
+
+    /**
+     * İmleçli sayfa: sonraki sayfa için dönen sonrakiImlec aynı sıralamayla geri gönderilir
+     */
+    private Map<String, Object> urunSayfasiResponse(Long magazaId, Long kategoriId, Long altKategoriId,
+            String siralama, String imlec, int limit) {
+        UrunSayfasi sayfa = urunSayfasi(magazaId, kategoriId, altKategoriId, siralama, imlec, limit);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("urunler", sayfa.urunler());
+        response.put("sonrakiImlec", sayfa.sonrakiImlec());
+        response.put("dahaVar", sayfa.dahaVar());
+        response.put("siralama", UrunSiralama.kodundan(siralama).getKod());
+        response.put("limit", sayfaBoyutu(limit));
+        response.put("toplam", urunService.aktifUrunSayisi(magazaId, kategoriId, altKategoriId));
+        return response;
+    }
+
+    private UrunSayfasi urunSayfasi(Long magazaId, Long kategoriId, Long altKategoriId, String siralama,
+            String imlec, int limit) {
+        return urunService.urunSayfasi(magazaId, kategoriId, altKategoriId, UrunSiralama.kodundan(siralama), imlec,
+                sayfaBoyutu(limit));
+    }
+
+    private static int sayfaBoyutu(int limit) {
+        return Math.max(1, Math.min(limit, 200));
+    }
+
+    /**
+     * İndeksten gelen id sırasını koruyarak ürün kartlarını katalog görüntüsünden getir
+     * (indeksler yalnızca aktif ürünleri döndürür, hepsi görüntüde bulunur)
+     */
+    private List<UrunKartiDTO> urunKartlari(List<Long> idler) {
+        if (idler.isEmpty()) {
+            return List.of();
+        }
+        return katalogOnbellegi.goruntu().urunler(idler);
     }
 }
@@ -0,0 +1,18 @@
+package com.magazaapp.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Favori listesindeki ürün satırı (favori, ürün, mağaza ve kategori tek select'te)
+ */
+public record FavoriKartiDTO(
+        Long id,
+        Long urunId,
+        String urunAd,
+        BigDecimal fiyat,
+        String resimUrl,
+        String magazaAd,
+        String kategoriAd,
+        LocalDateTime eklenmeTarihi) {
+}
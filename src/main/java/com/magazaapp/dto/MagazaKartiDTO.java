@@ -0,0 +1,35 @@
+package com.magazaapp.dto;
+
+import com.magazaapp.model.Magaza;
+
+import java.time.LocalDateTime;
+
+/**
+ * Mağaza listelerinde (mağaza dizini, arama, sahip paneli) dönen düz mağaza kartı.
+ * Sahip yalnızca id olarak tutulur; lazy sahip ilişkisine dokunulmaz.
+ */
+public record MagazaKartiDTO(
+        Long id,
+        String ad,
+        String aciklama,
+        String logoUrl,
+        Boolean aktif,
+        Long sahipId,
+        LocalDateTime olusturmaTarihi) {
+
+    public static MagazaKartiDTO from(Magaza magaza) {
+        // Lazy proxy'de getId() ilişkiyi yüklemez
+        return new MagazaKartiDTO(
+                magaza.getId(),
+                magaza.getAd(),
+                magaza.getAciklama(),
+                magaza.getLogoUrl(),
+                magaza.getAktif(),
+                magaza.getSahip() != null ? magaza.getSahip().getId() : null,
+                magaza.getOlusturmaTarihi());
+    }
+
+    public boolean aktifMi() {
+        return Boolean.TRUE.equals(aktif);
+    }
+}
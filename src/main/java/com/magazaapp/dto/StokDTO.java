@@ -0,0 +1,12 @@
+package com.magazaapp.dto;
+
+/**
+ * Ürünün bir bedenine ait stok satırı
+ */
+public record StokDTO(Long urunId, Long bedenId, String bedenAd, Integer adet, boolean stokta) {
+
+    // Repository constructor expression'ı için
+    public StokDTO(Long urunId, Long bedenId, String bedenAd, Integer adet) {
+        this(urunId, bedenId, bedenAd, adet, adet != null && adet > 0);
+    }
+}
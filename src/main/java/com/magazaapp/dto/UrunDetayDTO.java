@@ -0,0 +1,33 @@
+package com.magazaapp.dto;
+
+import com.magazaapp.model.Sezon;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Ürün kartı + beden stokları (ürün detayı ve mağaza sahibi ürün listesi için)
+ */
+public record UrunDetayDTO(
+        Long id,
+        String ad,
+        String aciklama,
+        BigDecimal fiyat,
+        String resimUrl,
+        String renk,
+        Boolean aktif,
+        Long magazaId,
+        String magazaAd,
+        Long kategoriId,
+        String kategoriAd,
+        Long altKategoriId,
+        String altKategoriAd,
+        Sezon sezon,
+        List<StokDTO> stoklar) {
+
+    public static UrunDetayDTO of(UrunKartiDTO kart, List<StokDTO> stoklar) {
+        return new UrunDetayDTO(kart.id(), kart.ad(), kart.aciklama(), kart.fiyat(), kart.resimUrl(), kart.renk(),
+                kart.aktif(), kart.magazaId(), kart.magazaAd(), kart.kategoriId(), kart.kategoriAd(),
+                kart.altKategoriId(), kart.altKategoriAd(), kart.sezon(), stoklar);
+    }
+}
@@ -0,0 +1,45 @@
+package com.magazaapp.dto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Bir sonraki sayfanın başlangıç noktası: son ürünün sıralama değeri ve id'si.
+ * İstemciye opak bir metin olarak verilir ("fiyat-artan|199.90|42" base64url).
+ */
+public record UrunImleci(UrunSiralama siralama, BigDecimal fiyat, LocalDateTime tarih, Long id) {
+
+    public static UrunImleci sonUrundan(UrunSiralama siralama, UrunKartiDTO urun) {
+        return new UrunImleci(siralama, urun.fiyat(), urun.olusturmaTarihi(), urun.id());
+    }
+
+    public String kodla() {
+        String deger = siralama == UrunSiralama.YENI ? tarih.toString() : fiyat.toPlainString();
+        String metin = siralama.getKod() + "|" + deger + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(metin.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * İmleci çöz; boşsa null (ilk sayfa). Başka bir sıralamaya ait veya bozuk imleçte hata verir.
+     */
+    public static UrunImleci coz(String imlec, UrunSiralama siralama) {
+        if (imlec == null || imlec.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parcalar = new String(Base64.getUrlDecoder().decode(imlec), StandardCharsets.UTF_8).split("\\|");
+            if (parcalar.length != 3 || !siralama.getKod().equals(parcalar[0])) {
+                throw new IllegalArgumentException("İmleç bu sıralamaya ait değil");
+            }
+            Long id = Long.valueOf(parcalar[2]);
+            return siralama == UrunSiralama.YENI
+                    ? new UrunImleci(siralama, null, LocalDateTime.parse(parcalar[1]), id)
+                    : new UrunImleci(siralama, new BigDecimal(parcalar[1]), null, id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Geçersiz imleç", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.magazaapp.dto;
+
+import com.magazaapp.model.AltKategori;
+import com.magazaapp.model.Sezon;
+import com.magazaapp.model.Urun;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ürün listelerinde dönen düz ürün kartı.
+ * Repository'deki constructor expression sorgularıyla mağaza ve kategori bilgisiyle
+ * birlikte tek JOIN'li select'te doldurulur; lazy ilişkilere dokunulmaz.
+ */
+public record UrunKartiDTO(
+        Long id,
+        String ad,
+        String aciklama,
+        BigDecimal fiyat,
+        String resimUrl,
+        String renk,
+        Boolean aktif,
+        Long magazaId,
+        String magazaAd,
+        Long kategoriId,
+        String kategoriAd,
+        Long altKategoriId,
+        String altKategoriAd,
+        Sezon sezon,
+        LocalDateTime olusturmaTarihi) {
+
+    /**
+     * İlişkileri zaten yüklenmiş (JOIN FETCH'li veya yeni kaydedilmiş) üründen kart oluştur
+     */
+    public static UrunKartiDTO from(Urun urun) {
+        AltKategori altKategori = urun.getAltKategori();
+        return new UrunKartiDTO(
+                urun.getId(),
+                urun.getAd(),
+                urun.getAciklama(),
+                urun.getFiyat(),
+                urun.getResimUrl(),
+                urun.getRenk(),
+                urun.getAktif(),
+                urun.getMagaza().getId(),
+                urun.getMagaza().getAd(),
+                altKategori.getKategori().getId(),
+                altKategori.getKategori().getAd(),
+                altKategori.getId(),
+                altKategori.getAd(),
+                altKategori.getSezon(),
+                urun.getOlusturmaTarihi());
+    }
+}
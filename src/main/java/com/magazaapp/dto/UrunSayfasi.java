@@ -0,0 +1,13 @@
+package com.magazaapp.dto;
+
+import java.util.List;
+
+/**
+ * İmleçli ürün sayfası; sonrakiImlec null ise son sayfadır
+ */
+public record UrunSayfasi(List<UrunKartiDTO> urunler, String sonrakiImlec) {
+
+    public boolean dahaVar() {
+        return sonrakiImlec != null;
+    }
+}
@@ -0,0 +1,33 @@
+package com.magazaapp.dto;
+
+/**
+ * Ürün listeleme sıralamaları. Her biri (sıralama alanı, id) ikilisi üzerinden
+ * imleçli (keyset) sayfalanır; id eşit değerli ürünlerde sırayı sabitler.
+ */
+public enum UrunSiralama {
+    YENI("yeni"),
+    FIYAT_ARTAN("fiyat-artan"),
+    FIYAT_AZALAN("fiyat-azalan");
+
+    private final String kod;
+
+    UrunSiralama(String kod) {
+        this.kod = kod;
+    }
+
+    public String getKod() {
+        return kod;
+    }
+
+    /**
+     * Sayfalardan gelen "fiyat-artan" gibi değerleri çevir, bilinmeyen/boş değerde en yeniler
+     */
+    public static UrunSiralama kodundan(String kod) {
+        for (UrunSiralama siralama : values()) {
+            if (siralama.kod.equals(kod)) {
+                return siralama;
+            }
+        }
+        return YENI;
+    }
+}
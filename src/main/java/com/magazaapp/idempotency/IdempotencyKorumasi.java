@@ -0,0 +1,232 @@
+package com.magazaapp.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key başlığıyla gelen istekleri bir kez çalıştırır.
+ *
+ * Anahtar çağıranın kapsamıyla (uç nokta + kimlik) birlikte özetlenir; aynı kullanıcı aynı anahtarla
+ * tekrar denediğinde ilk başarılı yanıt stok ve siparişe dokunmadan aynen döner. İlk istek, anahtarın
+ * satırını tabloya ekleyerek işi sahiplenir: eşzamanlı ikinci deneme birincil anahtar çakışmasıyla
+ * bunu görür ve 409 alır. Sahiplik süre sınırlıdır; süreç yarıda kalırsa kilit dolunca anahtar yeniden
+ * kullanılabilir. Her sahiplenme kendi sahip kimliğini yazar; süresi dolan kilit devralındıysa eski
+ * sahibin geç gelen tamamlama veya bırakma yazımı yeni sahibin satırına dokunmaz.
+ *
+ * Yalnızca kesin sonuçlu 2xx yanıtlar saklanır. Başarısız denemeler sipariş oluşturmadığı için anahtar
+ * serbest bırakılır ve tekrar çalıştırılabilir; 202 (ör. sıraya alınan flash-sale bileti) henüz sonuç
+ * değildir, saklanırsa tekrar denemeye hep aynı bilet döner, bu yüzden anahtar onda da bırakılır.
+ *
+ * Aynı anahtar farklı bir gövdeyle gelirse 422 döner. Tamamlanan kayıtlar bellekte sınırlı bir LRU
+ * önbellekte de tutulur; süresi dolan satırlar periyodik olarak silinir.
+ */
+@Component
+public class IdempotencyKorumasi {
+
+    public static final String BASLIK = "Idempotency-Key";
+
+    private static final String EKLE_SQL = "INSERT INTO idempotency_kaydi "
+            + "(anahtar, parmak_izi, sahip, tamamlandi, durum_kodu, yanit, son_gecerlilik) "
+            + "VALUES (?, ?, ?, false, NULL, NULL, ?)";
+
+    private static final String OKU_SQL =
+            "SELECT parmak_izi, tamamlandi, durum_kodu, yanit, son_gecerlilik FROM idempotency_kaydi WHERE anahtar = ?";
+
+    private static final String DEVRAL_SQL = "UPDATE idempotency_kaydi SET parmak_izi = ?, sahip = ?, "
+            + "tamamlandi = false, durum_kodu = NULL, yanit = NULL, son_gecerlilik = ? "
+            + "WHERE anahtar = ? AND son_gecerlilik < ?";
+
+    private static final String TAMAMLA_SQL = "UPDATE idempotency_kaydi SET tamamlandi = true, durum_kodu = ?, "
+            + "yanit = ?, son_gecerlilik = ? WHERE anahtar = ? AND sahip = ? AND tamamlandi = false";
+
+    private static final String BIRAK_SQL =
+            "DELETE FROM idempotency_kaydi WHERE anahtar = ? AND sahip = ? AND tamamlandi = false";
+
+    private static final String TEMIZLE_SQL = "DELETE FROM idempotency_kaydi WHERE son_gecerlilik < ?";
+
+    private static final int MAKS_ANAHTAR_UZUNLUGU = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration saklamaSuresi;
+    private final Duration islemSuresi;
+
+    // Tamamlanan kayıtlar; erişim sırasına göre en eskisi atılır
+    private final Map<String, Kayit> onbellek;
+
+    public IdempotencyKorumasi(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+            @Value("${idempotency.saklama-saat:24}") long saklamaSaat,
+            @Value("${idempotency.islem-zaman-asimi-sn:120}") long islemSn,
+            @Value("${idempotency.onbellek-boyutu:10000}") int onbellekBoyutu) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.saklamaSuresi = Duration.ofHours(saklamaSaat);
+        this.islemSuresi = Duration.ofSeconds(islemSn);
+        this.onbellek = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Kayit> eldest) {
+                return size() > onbellekBoyutu;
+            }
+        });
+    }
+
+    private record Kayit(String parmakIzi, boolean tamamlandi, int durumKodu, String yanit,
+            LocalDateTime sonGecerlilik) {
+    }
+
+    /**
+     * İsteği anahtar başına bir kez çalıştır. Anahtar yoksa iş doğrudan çalışır.
+     *
+     * @param kapsam anahtarın geçerli olduğu alan: uç nokta ve çağıranın kimliği
+     * @param istek  parmak izi alınacak istek gövdesi (null olabilir)
+     */
+    public ResponseEntity<?> calistir(String anahtar, String kapsam, Object istek, Supplier<ResponseEntity<?>> is) {
+        if (anahtar == null || anahtar.isBlank()) {
+            return is.get();
+        }
+        if (anahtar.length() > MAKS_ANAHTAR_UZUNLUGU) {
+            return ResponseEntity.badRequest().body(Map.of("error", BASLIK + " en fazla "
+                    + MAKS_ANAHTAR_UZUNLUGU + " karakter olabilir"));
+        }
+
+        String kayitAnahtari = ozet(kapsam + "\n" + anahtar);
+        String parmakIzi = ozet(json(istek));
+        LocalDateTime simdi = LocalDateTime.now();
+
+        Kayit onbellekte = onbellek.get(kayitAnahtari);
+        if (onbellekte != null && onbellekte.sonGecerlilik().isAfter(simdi)) {
+            return tekrarYanit(onbellekte, parmakIzi);
+        }
+
+        String sahip = UUID.randomUUID().toString();
+        if (!sahiplen(kayitAnahtari, parmakIzi, sahip, simdi)) {
+            Kayit mevcut = oku(kayitAnahtari).orElse(null);
+            if (mevcut != null && mevcut.tamamlandi() && mevcut.sonGecerlilik().isAfter(simdi)) {
+                onbellek.put(kayitAnahtari, mevcut);
+                return tekrarYanit(mevcut, parmakIzi);
+            }
+            // Satır bu arada silindiyse veya süresi dolduysa bir kez daha sahiplenmeyi dene
+            if (mevcut == null ? !sahiplen(kayitAnahtari, parmakIzi, sahip, simdi)
+                    : jdbcTemplate.update(DEVRAL_SQL, parmakIzi, sahip, Timestamp.valueOf(simdi.plus(islemSuresi)),
+                            kayitAnahtari, Timestamp.valueOf(simdi)) == 0) {
+                return ResponseEntity.status(409).body(Map.of("error",
+                        "Aynı " + BASLIK + " ile gönderilen istek hâlâ işleniyor, lütfen biraz sonra tekrar deneyin"));
+            }
+        }
+
+        ResponseEntity<?> yanit;
+        try {
+            yanit = is.get();
+        } catch (RuntimeException e) {
+            birak(kayitAnahtari, sahip);
+            throw e;
+        }
+
+        if (!yanit.getStatusCode().is2xxSuccessful() || yanit.getStatusCode().value() == 202) {
+            birak(kayitAnahtari, sahip);
+            return yanit;
+        }
+        try {
+            String govde = objectMapper.writeValueAsString(yanit.getBody());
+            LocalDateTime bitis = LocalDateTime.now().plus(saklamaSuresi);
+            int guncellenen = jdbcTemplate.update(TAMAMLA_SQL, yanit.getStatusCode().value(), govde,
+                    Timestamp.valueOf(bitis), kayitAnahtari, sahip);
+            // Kilit bu arada süresi dolup devralındıysa kayıt artık yeni sahibindir
+            if (guncellenen == 1) {
+                onbellek.put(kayitAnahtari, new Kayit(parmakIzi, true, yanit.getStatusCode().value(), govde, bitis));
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Yanıt saklanamazsa anahtar serbest kalır; işin sonucu yine de çağırana döner
+            System.err.println(">>> Idempotency yanıtı saklanamadı: " + e.getMessage());
+            birak(kayitAnahtari, sahip);
+        }
+        return yanit;
+    }
+
+    /**
+     * Süresi dolan kayıtları sil
+     */
+    @Scheduled(fixedDelayString = "${idempotency.temizlik-ms:600000}")
+    public void suresiDolanlariSil() {
+        LocalDateTime simdi = LocalDateTime.now();
+        int silinen = jdbcTemplate.update(TEMIZLE_SQL, Timestamp.valueOf(simdi));
+        synchronized (onbellek) {
+            onbellek.values().removeIf(kayit -> !kayit.sonGecerlilik().isAfter(simdi));
+        }
+        if (silinen > 0) {
+            System.out.println(">>> Süresi dolan " + silinen + " idempotency kaydı silindi");
+        }
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private boolean sahiplen(String kayitAnahtari, String parmakIzi, String sahip, LocalDateTime simdi) {
+        try {
+            jdbcTemplate.update(EKLE_SQL, kayitAnahtari, parmakIzi, sahip, Timestamp.valueOf(simdi.plus(islemSuresi)));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void birak(String kayitAnahtari, String sahip) {
+        try {
+            jdbcTemplate.update(BIRAK_SQL, kayitAnahtari, sahip);
+        } catch (RuntimeException e) {
+            // Silinemeyen kilit süresi dolunca devralınır
+            System.err.println(">>> Idempotency kilidi bırakılamadı: " + e.getMessage());
+        }
+    }
+
+    private Optional<Kayit> oku(String kayitAnahtari) {
+        return jdbcTemplate.query(OKU_SQL, (rs, satir) -> new Kayit(rs.getString(1), rs.getBoolean(2),
+                        rs.getInt(3), rs.getString(4), rs.getTimestamp(5).toLocalDateTime()), kayitAnahtari)
+                .stream().findFirst();
+    }
+
+    private ResponseEntity<?> tekrarYanit(Kayit kayit, String parmakIzi) {
+        if (!kayit.parmakIzi().equals(parmakIzi)) {
+            return ResponseEntity.unprocessableEntity().body(Map.of("error",
+                    "Bu " + BASLIK + " farklı bir istek için kullanılmış"));
+        }
+        try {
+            return ResponseEntity.status(kayit.durumKodu())
+                    .header("Idempotent-Replayed", "true")
+                    .body(objectMapper.readTree(kayit.yanit()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Saklanan yanıt okunamadı", e);
+        }
+    }
+
+    private String json(Object istek) {
+        try {
+            return objectMapper.writeValueAsString(istek);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("İstek gövdesi okunamadı", e);
+        }
+    }
+
+    private static String ozet(String metin) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(metin.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 public class AiOneri {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ai_oneri_id")
+    @TableGenerator(name = "ai_oneri_id", table = "kimlik_havuzu", pkColumnName = "tablo",
+            valueColumnName = "sonraki_deger", pkColumnValue = "ai_oneri", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
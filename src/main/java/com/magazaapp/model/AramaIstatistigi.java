@@ -0,0 +1,72 @@
+package com.magazaapp.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Bir dönemde (varsayılan bir dakika) normalize edilmiş bir arama sorgusunun kaç kez yapıldığı
+ * ve kaçında sonuç bulunamadığı
+ */
+@Entity
+@Table(name = "arama_istatistigi", indexes = {
+        @Index(name = "idx_arama_istatistigi_donem", columnList = "donem_bitis, sorgu")
+})
+public class AramaIstatistigi {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 200)
+    private String sorgu;
+
+    @Column(name = "arama_sayisi", nullable = false)
+    private Long aramaSayisi;
+
+    @Column(name = "sifir_sonuc_sayisi", nullable = false)
+    private Long sifirSonucSayisi;
+
+    @Column(name = "donem_baslangic", nullable = false)
+    private LocalDateTime donemBaslangic;
+
+    @Column(name = "donem_bitis", nullable = false)
+    private LocalDateTime donemBitis;
+
+    // Constructors
+    public AramaIstatistigi() {
+    }
+
+    public AramaIstatistigi(String sorgu, long aramaSayisi, long sifirSonucSayisi,
+            LocalDateTime donemBaslangic, LocalDateTime donemBitis) {
+        this.sorgu = sorgu;
+        this.aramaSayisi = aramaSayisi;
+        this.sifirSonucSayisi = sifirSonucSayisi;
+        this.donemBaslangic = donemBaslangic;
+        this.donemBitis = donemBitis;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public String getSorgu() {
+        return sorgu;
+    }
+
+    public Long getAramaSayisi() {
+        return aramaSayisi;
+    }
+
+    public Long getSifirSonucSayisi() {
+        return sifirSonucSayisi;
+    }
+
+    public LocalDateTime getDonemBaslangic() {
+        return donemBaslangic;
+    }
+
+    public LocalDateTime getDonemBitis() {
+        return donemBitis;
+    }
+}
@@ -10,7 +10,9 @@ import java.time.LocalDateTime;
 public class Favori {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "favoriler_id")
+    @TableGenerator(name = "favoriler_id", table = "kimlik_havuzu", pkColumnName = "tablo",
+            valueColumnName = "sonraki_deger", pkColumnValue = "favoriler", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,175 @@
+package com.magazaapp.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Giden olay kutusu (transactional outbox) satırı. Olay, tetikleyen değişiklikle aynı
+ * transaction'da eklenir; OlayAktarici commit edilmiş satırları okuyup abonelere iletir.
+ * Okuma/yazma JDBC ile yapılır; entity tablonun şemasını tanımlar.
+ *
+ * Id bilerek IDENTITY'dir: aynı kümenin (ör. bir siparişin) olayları id sırasıyla iletilir,
+ * havuzlu üreticinin düğüm başına ayrılan blokları bu sırayı bozardı.
+ */
+@Entity
+@Table(name = "giden_olay", indexes = {
+        @Index(name = "idx_giden_olay_bekleyen", columnList = "islenme_tarihi, id"),
+        @Index(name = "idx_giden_olay_hazir", columnList = "islenme_tarihi, sonraki_deneme"),
+        @Index(name = "idx_giden_olay_kume", columnList = "kume_turu, kume_id, islenme_tarihi, id")
+})
+public class GidenOlay {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Ör. SIPARIS_OLUSTURULDU
+    @Column(nullable = false, length = 50)
+    private String tur;
+
+    // Sıralamanın korunduğu küme: tür + id (ör. SIPARIS / 42)
+    @Column(name = "kume_turu", nullable = false, length = 50)
+    private String kumeTuru;
+
+    @Column(name = "kume_id", nullable = false)
+    private Long kumeId;
+
+    // JSON
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String veri;
+
+    @Column(nullable = false)
+    private LocalDateTime olusturma;
+
+    // Tüm abonelere iletildiği (veya kalıcı hatayla bırakıldığı) an; null ise bekliyor
+    @Column(name = "islenme_tarihi")
+    private LocalDateTime islenmeTarihi;
+
+    @Column(nullable = false)
+    private Boolean basarisiz = false;
+
+    @Column(nullable = false)
+    private Integer deneme = 0;
+
+    @Column(name = "sonraki_deneme", nullable = false)
+    private LocalDateTime sonrakiDeneme;
+
+    @Column(name = "son_hata", length = 500)
+    private String sonHata;
+
+    // Olayı iletmek üzere sahiplenen aktarıcı ve sahipliğin bitişi
+    @Column(name = "kilit_sahibi", length = 36)
+    private String kilitSahibi;
+
+    @Column(name = "kilit_bitis")
+    private LocalDateTime kilitBitis;
+
+    // Constructors
+    public GidenOlay() {
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTur() {
+        return tur;
+    }
+
+    public void setTur(String tur) {
+        this.tur = tur;
+    }
+
+    public String getKumeTuru() {
+        return kumeTuru;
+    }
+
+    public void setKumeTuru(String kumeTuru) {
+        this.kumeTuru = kumeTuru;
+    }
+
+    public Long getKumeId() {
+        return kumeId;
+    }
+
+    public void setKumeId(Long kumeId) {
+        this.kumeId = kumeId;
+    }
+
+    public String getVeri() {
+        return veri;
+    }
+
+    public void setVeri(String veri) {
+        this.veri = veri;
+    }
+
+    public LocalDateTime getOlusturma() {
+        return olusturma;
+    }
+
+    public void setOlusturma(LocalDateTime olusturma) {
+        this.olusturma = olusturma;
+    }
+
+    public LocalDateTime getIslenmeTarihi() {
+        return islenmeTarihi;
+    }
+
+    public void setIslenmeTarihi(LocalDateTime islenmeTarihi) {
+        this.islenmeTarihi = islenmeTarihi;
+    }
+
+    public Boolean getBasarisiz() {
+        return basarisiz;
+    }
+
+    public void setBasarisiz(Boolean basarisiz) {
+        this.basarisiz = basarisiz;
+    }
+
+    public Integer getDeneme() {
+        return deneme;
+    }
+
+    public void setDeneme(Integer deneme) {
+        this.deneme = deneme;
+    }
+
+    public LocalDateTime getSonrakiDeneme() {
+        return sonrakiDeneme;
+    }
+
+    public void setSonrakiDeneme(LocalDateTime sonrakiDeneme) {
+        this.sonrakiDeneme = sonrakiDeneme;
+    }
+
+    public String getSonHata() {
+        return sonHata;
+    }
+
+    public void setSonHata(String sonHata) {
+        this.sonHata = sonHata;
+    }
+
+    public String getKilitSahibi() {
+        return kilitSahibi;
+    }
+
+    public void setKilitSahibi(String kilitSahibi) {
+        this.kilitSahibi = kilitSahibi;
+    }
+
+    public LocalDateTime getKilitBitis() {
+        return kilitBitis;
+    }
+
+    public void setKilitBitis(LocalDateTime kilitBitis) {
+        this.kilitBitis = kilitBitis;
+    }
+}
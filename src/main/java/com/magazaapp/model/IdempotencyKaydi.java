@@ -0,0 +1,103 @@
+package com.magazaapp.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key ile gelen bir isteğin kaydı. Anahtar ve istek gövdesi SHA-256 özeti olarak
+ * saklanır; tamamlanan isteğin yanıtı tekrar denemelere aynen dönülür. Okuma/yazma
+ * IdempotencyKorumasi'nda JDBC ile yapılır; entity tablonun şemasını tanımlar.
+ */
+@Entity
+@Table(name = "idempotency_kaydi", indexes = {
+        @Index(name = "idx_idempotency_son_gecerlilik", columnList = "son_gecerlilik")
+})
+public class IdempotencyKaydi {
+
+    // SHA-256(kapsam + anahtar), hex
+    @Id
+    @Column(length = 64)
+    private String anahtar;
+
+    // SHA-256(istek gövdesi), hex
+    @Column(name = "parmak_izi", nullable = false, length = 64)
+    private String parmakIzi;
+
+    // İşi sahiplenen denemenin kimliği; tamamlama/bırakma yalnızca kendi sahipliğine yazar
+    @Column(nullable = false, length = 36)
+    private String sahip;
+
+    @Column(nullable = false)
+    private Boolean tamamlandi = false;
+
+    @Column(name = "durum_kodu")
+    private Integer durumKodu;
+
+    @Column(columnDefinition = "TEXT")
+    private String yanit;
+
+    // İşlenirken kilidin, tamamlandıktan sonra kaydın bitiş zamanı
+    @Column(name = "son_gecerlilik", nullable = false)
+    private LocalDateTime sonGecerlilik;
+
+    // Constructors
+    public IdempotencyKaydi() {
+    }
+
+    // Getters and Setters
+    public String getAnahtar() {
+        return anahtar;
+    }
+
+    public void setAnahtar(String anahtar) {
+        this.anahtar = anahtar;
+    }
+
+    public String getParmakIzi() {
+        return parmakIzi;
+    }
+
+    public void setParmakIzi(String parmakIzi) {
+        this.parmakIzi = parmakIzi;
+    }
+
+    public String getSahip() {
+        return sahip;
+    }
+
+    public void setSahip(String sahip) {
+        this.sahip = sahip;
+    }
+
+    public Boolean getTamamlandi() {
+        return tamamlandi;
+    }
+
+    public void setTamamlandi(Boolean tamamlandi) {
+        this.tamamlandi = tamamlandi;
+    }
+
+    public Integer getDurumKodu() {
+        return durumKodu;
+    }
+
+    public void setDurumKodu(Integer durumKodu) {
+        this.durumKodu = durumKodu;
+    }
+
+    public String getYanit() {
+        return yanit;
+    }
+
+    public void setYanit(String yanit) {
+        this.yanit = yanit;
+    }
+
+    public LocalDateTime getSonGecerlilik() {
+        return sonGecerlilik;
+    }
+
+    public void setSonGecerlilik(LocalDateTime sonGecerlilik) {
+        this.sonGecerlilik = sonGecerlilik;
+    }
+}
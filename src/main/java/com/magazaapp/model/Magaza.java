@@ -1,9 +1,11 @@
 package com.magazaapp.model;
 
+import com.magazaapp.search.MagazaDinleyicisi;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(MagazaDinleyicisi.class)
 @Table(name = "magaza")
 public class Magaza {
 
@@ -30,6 +32,10 @@ public class Magaza {
     @Column(name = "olusturma_tarihi")
     private LocalDateTime olusturmaTarihi = LocalDateTime.now();
 
+    // Bir bedenin stoğu bu değerin altına inince sahibine düşük stok uyarısı gider
+    @Column(name = "dusuk_stok_esigi", nullable = false)
+    private Integer dusukStokEsigi = 5;
+
     // Constructors
     public Magaza() {
     }
@@ -95,4 +101,12 @@ public class Magaza {
     public void setOlusturmaTarihi(LocalDateTime olusturmaTarihi) {
         this.olusturmaTarihi = olusturmaTarihi;
     }
+
+    public Integer getDusukStokEsigi() {
+        return dusukStokEsigi;
+    }
+
+    public void setDusukStokEsigi(Integer dusukStokEsigi) {
+        this.dusukStokEsigi = dusukStokEsigi;
+    }
 }
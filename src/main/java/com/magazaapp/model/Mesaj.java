@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 public class Mesaj {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "mesaj_id")
+    @TableGenerator(name = "mesaj_id", table = "kimlik_havuzu", pkColumnName = "tablo",
+            valueColumnName = "sonraki_deger", pkColumnValue = "mesaj", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
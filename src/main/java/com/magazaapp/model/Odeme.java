@@ -16,7 +16,9 @@ import java.time.LocalDateTime;
 public class Odeme {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "odeme_id")
+    @TableGenerator(name = "odeme_id", table = "kimlik_havuzu", pkColumnName = "tablo",
+            valueColumnName = "sonraki_deger", pkColumnValue = "odeme", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -10,7 +10,9 @@ import java.time.LocalDateTime;
 public class Sepet {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "sepet_id")
+    @TableGenerator(name = "sepet_id", table = "kimlik_havuzu", pkColumnName = "tablo",
+            valueColumnName = "sonraki_deger", pkColumnValue = "sepet", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
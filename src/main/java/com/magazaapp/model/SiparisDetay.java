@@ -8,7 +8,9 @@ import java.math.BigDecimal;
 public class SiparisDetay {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "siparis_detay_id")
+    @TableGenerator(name = "siparis_detay_id", table = "kimlik_havuzu", pkColumnName = "tablo",
+            valueColumnName = "sonraki_deger", pkColumnValue = "siparis_detay", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -6,5 +6,14 @@ public enum SiparisDurum {
     HAZIRLANIYOR,
     KARGODA,
     TESLIM_EDILDI,
-    IPTAL
+    IPTAL;
+
+    /**
+     * Toplu durum güncellemesinde izin verilen geçiş: sipariş yalnızca ileri taşınır (ara adımlar
+     * atlanabilir), teslim edilen ve iptal edilen sipariş değişmez. İptal stok iadesi gerektirdiği
+     * için toplu yapılmaz.
+     */
+    public boolean ilerleyebilir(SiparisDurum hedef) {
+        return this != IPTAL && hedef != IPTAL && hedef.ordinal() > ordinal();
+    }
 }
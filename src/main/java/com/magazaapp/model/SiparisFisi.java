@@ -11,8 +11,12 @@ import java.time.LocalDateTime;
 })
 public class SiparisFisi {
 
+    // IDENTITY Hibernate'in insert batching'ini kapatır; id'ler kimlik_havuzu tablosundan düğüm başına
+    // 50'lik bloklar hâlinde ayrılır (pooled), blok içindeki id'ler veritabanına gitmeden verilir
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "siparis_fisi_id")
+    @TableGenerator(name = "siparis_fisi_id", table = "kimlik_havuzu", pkColumnName = "tablo",
+            valueColumnName = "sonraki_deger", pkColumnValue = "siparis_fisi", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -39,6 +43,11 @@ public class SiparisFisi {
     @Column(name = "guncelleme_tarihi")
     private LocalDateTime guncellemeTarihi = LocalDateTime.now();
 
+    // İyimser kilit; eşzamanlı içerik/durum düzenlemeleri birbirinin üzerine yazamaz
+    @Version
+    @Column(nullable = false)
+    private Long versiyon = 0L;
+
     // Constructors
     public SiparisFisi() {
     }
@@ -115,6 +124,10 @@ public class SiparisFisi {
         this.guncellemeTarihi = guncellemeTarihi;
     }
 
+    public Long getVersiyon() {
+        return versiyon;
+    }
+
     @PreUpdate
     public void preUpdate() {
         this.guncellemeTarihi = LocalDateTime.now();
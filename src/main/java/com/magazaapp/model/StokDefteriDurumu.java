@@ -0,0 +1,42 @@
+package com.magazaapp.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Sıcak stok defterinin veritabanına uygulanmış son günlük dosyası. Farklarla aynı transaction'da
+ * güncellenir; açılışta bu sıraya kadarki dosyalar yeniden uygulanmaz. Okuma/yazma SicakStokDefteri'nde
+ * JDBC ile yapılır; entity tablonun şemasını tanımlar.
+ */
+@Entity
+@Table(name = "stok_defteri_durumu")
+public class StokDefteriDurumu {
+
+    // Günlük dizininin mutlak yolu; her düğümün kendi defteri vardır
+    @Id
+    @Column(length = 255)
+    private String defter;
+
+    @Column(name = "son_dosya", nullable = false)
+    private Long sonDosya = 0L;
+
+    // Constructors
+    public StokDefteriDurumu() {
+    }
+
+    // Getters and Setters
+    public String getDefter() {
+        return defter;
+    }
+
+    public void setDefter(String defter) {
+        this.defter = defter;
+    }
+
+    public Long getSonDosya() {
+        return sonDosya;
+    }
+
+    public void setSonDosya(Long sonDosya) {
+        this.sonDosya = sonDosya;
+    }
+}
@@ -0,0 +1,75 @@
+package com.magazaapp.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Bekleyen bir ödeme için ayrılmış stok: ödeme başlatılırken sepetteki her (ürün, beden) satırı için
+ * bir kayıt. Ayrılan adet urun_stok.adet'ten düşülmüştür; ödeme başarılı olunca kayıt silinir (düşüm
+ * kalıcı olur), başarısız olunca veya süresi dolunca adet stoğa geri eklenip kayıt silinir.
+ */
+@Entity
+@Table(name = "stok_rezervasyonu", indexes = {
+        @Index(name = "idx_rezervasyon_token", columnList = "odeme_token"),
+        @Index(name = "idx_rezervasyon_son_gecerlilik", columnList = "son_gecerlilik")
+})
+public class StokRezervasyonu {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "odeme_token", nullable = false, length = 100)
+    private String odemeToken;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "urun_id", nullable = false)
+    private Urun urun;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "beden_id", nullable = false)
+    private Beden beden;
+
+    @Column(nullable = false)
+    private Integer adet;
+
+    @Column(name = "son_gecerlilik", nullable = false)
+    private LocalDateTime sonGecerlilik;
+
+    // Constructors
+    public StokRezervasyonu() {
+    }
+
+    public StokRezervasyonu(String odemeToken, Urun urun, Beden beden, Integer adet, LocalDateTime sonGecerlilik) {
+        this.odemeToken = odemeToken;
+        this.urun = urun;
+        this.beden = beden;
+        this.adet = adet;
+        this.sonGecerlilik = sonGecerlilik;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getOdemeToken() {
+        return odemeToken;
+    }
+
+    public Urun getUrun() {
+        return urun;
+    }
+
+    public Beden getBeden() {
+        return beden;
+    }
+
+    public Integer getAdet() {
+        return adet;
+    }
+
+    public LocalDateTime getSonGecerlilik() {
+        return sonGecerlilik;
+    }
+}
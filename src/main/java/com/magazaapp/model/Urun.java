@@ -7,7 +7,14 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "urun", indexes = {
         @Index(name = "idx_magaza", columnList = "magaza_id"),
-        @Index(name = "idx_kategori", columnList = "alt_kategori_id")
+        @Index(name = "idx_kategori", columnList = "alt_kategori_id"),
+        // İmleçli listeleme: (sıralama alanı, id) sırasıyla tarama
+        @Index(name = "idx_urun_aktif_fiyat", columnList = "aktif, fiyat, id"),
+        @Index(name = "idx_urun_aktif_tarih", columnList = "aktif, olusturma_tarihi, id"),
+        @Index(name = "idx_urun_magaza_fiyat", columnList = "magaza_id, aktif, fiyat, id"),
+        @Index(name = "idx_urun_magaza_tarih", columnList = "magaza_id, aktif, olusturma_tarihi, id"),
+        // Arama indeksi segmentinden açılışta: filigrandan sonra değişen ürünler
+        @Index(name = "idx_urun_guncelleme", columnList = "guncelleme_tarihi")
 })
 public class Urun {
 
@@ -45,9 +52,12 @@ public class Urun {
     @Column(nullable = false)
     private Boolean aktif = true;
 
-    @Column(name = "olusturma_tarihi")
+    @Column(name = "olusturma_tarihi", nullable = false)
     private LocalDateTime olusturmaTarihi = LocalDateTime.now();
 
+    @Column(name = "guncelleme_tarihi", nullable = false)
+    private LocalDateTime guncellemeTarihi = LocalDateTime.now();
+
     // Constructors
     public Urun() {
     }
@@ -147,4 +157,14 @@ public class Urun {
     public void setOlusturmaTarihi(LocalDateTime olusturmaTarihi) {
         this.olusturmaTarihi = olusturmaTarihi;
     }
+
+    public LocalDateTime getGuncellemeTarihi() {
+        return guncellemeTarihi;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void guncellemeTarihiniYenile() {
+        this.guncellemeTarihi = LocalDateTime.now();
+    }
 }
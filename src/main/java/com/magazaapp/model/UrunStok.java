@@ -1,15 +1,21 @@
 package com.magazaapp.model;
 
+import com.magazaapp.catalog.UrunStokDinleyicisi;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(UrunStokDinleyicisi.class)
 @Table(name = "urun_stok", uniqueConstraints = {
         @UniqueConstraint(columnNames = { "urun_id", "beden_id" })
+}, indexes = {
+        @Index(name = "idx_urun_stok_adet", columnList = "adet")
 })
 public class UrunStok {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "urun_stok_id")
+    @TableGenerator(name = "urun_stok_id", table = "kimlik_havuzu", pkColumnName = "tablo",
+            valueColumnName = "sonraki_deger", pkColumnValue = "urun_stok", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -23,6 +29,11 @@ public class UrunStok {
     @Column(nullable = false)
     private Integer adet = 0;
 
+    // İyimser kilit; urun_stok'u JDBC ile güncelleyen yerler de artırır
+    @Version
+    @Column(nullable = false)
+    private Long versiyon = 0L;
+
     // Constructors
     public UrunStok() {
     }
@@ -65,4 +76,8 @@ public class UrunStok {
     public void setAdet(Integer adet) {
         this.adet = adet;
     }
+
+    public Long getVersiyon() {
+        return versiyon;
+    }
 }
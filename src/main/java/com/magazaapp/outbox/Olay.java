@@ -0,0 +1,13 @@
+package com.magazaapp.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * Abonelere iletilen olay. {@code deneme} daha önce kaç kez iletilmeye çalışıldığını gösterir;
+ * 0'dan büyükse abone olayı daha önce (kısmen) işlemiş olabilir.
+ *
+ * @param veri olayın JSON gövdesi
+ */
+public record Olay(Long id, String tur, String kumeTuru, Long kumeId, String veri, LocalDateTime olusturma,
+        int deneme) {
+}
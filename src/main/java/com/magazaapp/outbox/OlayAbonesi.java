@@ -0,0 +1,25 @@
+package com.magazaapp.outbox;
+
+import java.util.Set;
+
+/**
+ * Giden olay kutusundaki olayları işleyen bileşen. Spring bean'i olarak tanımlanan her abone
+ * {@link OlayAktarici} tarafından otomatik bulunur.
+ *
+ * Teslim en az bir keredir: aynı olay (ör. iletildikten sonra süreç çökerse veya başka bir abone
+ * hata verirse) tekrar gelebilir, abone bunu tolere etmelidir. Aynı kümenin olayları oluşturulma
+ * sırasıyla ve tek tek gelir; farklı kümelerin olayları paralel işlenir.
+ */
+public interface OlayAbonesi {
+
+    /**
+     * İlgilenilen olay türleri
+     */
+    Set<String> turler();
+
+    /**
+     * Olayı işle. Hata fırlatılırsa olay beklemeyle yeniden denenir; aynı kümenin sonraki
+     * olayları bu olay iletilene kadar bekler.
+     */
+    void isle(Olay olay) throws Exception;
+}
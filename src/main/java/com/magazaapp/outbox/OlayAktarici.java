@@ -0,0 +1,394 @@
+package com.magazaapp.outbox;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Giden olay kutusunu abonelere ileten arka plan aktarıcısı.
+ *
+ * Tek bir aktarıcı thread'i bekleyen olayları id sırasıyla partiler hâlinde okur, kiraladığı olayları
+ * kümelerine (ör. sipariş id'si) göre gruplar ve her kümeyi sınırlı bir işçi havuzunda tek görev olarak
+ * çalıştırır. Bir kümenin olayları böylece hep sırayla ve tek tek işlenir; farklı kümeler paralel
+ * ilerler. Bir küme hâlâ işlenirken, beklemedeyken (yeniden deneme zamanı gelmemiş) veya başka bir
+ * düğümde kiralıyken o kümenin sonraki olayları alınmaz.
+ *
+ * Teslim en az bir keredir: olay yalnızca tüm ilgili aboneler başarıyla döndükten sonra işlendi
+ * olarak işaretlenir. Hata alan olay üstel beklemeyle yeniden denenir; deneme sınırı aşılırsa
+ * başarısız olarak bırakılır ve kümenin kalan olayları devam eder. Kiralama süre sınırlıdır; düğüm
+ * çökerse olaylar süre dolunca başka bir aktarıcı tarafından tekrar iletilir.
+ */
+@Component
+public class OlayAktarici {
+
+    // Yalnızca şimdi iletilebilecek olaylar: zamanı gelmiş, kirada değil ve kümesinde kendinden önce
+    // bekleyen (yeniden deneme zamanı gelmemiş veya kirada) olay yok. Bekleyen kümeler partiyi doldurup
+    // diğer kümelerin yeni olaylarını aç bırakamaz.
+    private static final String BEKLEYEN_SQL = "SELECT o.id, o.tur, o.kume_turu, o.kume_id, o.veri, o.olusturma, "
+            + "o.deneme, o.sonraki_deneme, o.kilit_bitis FROM giden_olay o WHERE o.islenme_tarihi IS NULL "
+            + "AND o.sonraki_deneme <= ? AND (o.kilit_bitis IS NULL OR o.kilit_bitis < ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM giden_olay e WHERE e.kume_turu = o.kume_turu AND e.kume_id = o.kume_id "
+            + "AND e.islenme_tarihi IS NULL AND e.id < o.id AND (e.sonraki_deneme > ? OR e.kilit_bitis >= ?)) "
+            + "ORDER BY o.id LIMIT ?";
+
+    private static final String KIRALA_SQL = "UPDATE giden_olay SET kilit_sahibi = ?, kilit_bitis = ? "
+            + "WHERE id IN (%s) AND islenme_tarihi IS NULL AND (kilit_bitis IS NULL OR kilit_bitis < ?)";
+
+    private static final String KIRALANAN_SQL = "SELECT id FROM giden_olay WHERE id IN (%s) AND kilit_sahibi = ?";
+
+    private static final String BIRAK_SQL = "UPDATE giden_olay SET kilit_sahibi = NULL, kilit_bitis = NULL "
+            + "WHERE id IN (%s) AND kilit_sahibi = ?";
+
+    private static final String ISLENDI_SQL = "UPDATE giden_olay SET islenme_tarihi = ?, kilit_sahibi = NULL, "
+            + "kilit_bitis = NULL WHERE id IN (%s) AND kilit_sahibi = ?";
+
+    private static final String HATA_SQL = "UPDATE giden_olay SET deneme = ?, son_hata = ?, sonraki_deneme = ?, "
+            + "basarisiz = ?, islenme_tarihi = ?, kilit_sahibi = NULL, kilit_bitis = NULL WHERE id = ? AND kilit_sahibi = ?";
+
+    private static final String GECIKME_SQL =
+            "SELECT COUNT(*), MIN(olusturma) FROM giden_olay WHERE islenme_tarihi IS NULL";
+
+    private static final String TEMIZLE_SQL = "DELETE FROM giden_olay WHERE islenme_tarihi < ? AND basarisiz = false";
+
+    private static final long MAKS_BEKLEME_MS = 300_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<OlayAbonesi> aboneSaglayici;
+    private final boolean etkin;
+    private final long aralikMs;
+    private final int partiBoyutu;
+    private final int maksDeneme;
+    private final long yenidenDenemeMs;
+    private final Duration kiraSuresi;
+    private final Duration saklamaSuresi;
+
+    private final ThreadPoolExecutor havuz;
+    private final Thread aktarici;
+    private volatile boolean calisiyor;
+    private final Object uyandirma = new Object();
+    private boolean uyandirildi;
+    private List<OlayAbonesi> aboneler = List.of();
+
+    // İşçi havuzunda işlenen kümeler ("SIPARIS:42")
+    private final Set<String> mesgulKumeler = ConcurrentHashMap.newKeySet();
+
+    // Gecikme ölçümleri (bu düğüm, uygulama açıldığından beri)
+    private final LongAdder iletilen = new LongAdder();
+    private final LongAdder basarisizDeneme = new LongAdder();
+    private final LongAdder kaliciHata = new LongAdder();
+    private final LongAdder toplamGecikmeMs = new LongAdder();
+    private final AtomicLong sonGecikmeMs = new AtomicLong();
+    private final AtomicLong maksGecikmeMs = new AtomicLong();
+
+    public OlayAktarici(JdbcTemplate jdbcTemplate, ObjectProvider<OlayAbonesi> aboneSaglayici,
+            @Value("${outbox.etkin:true}") boolean etkin,
+            @Value("${outbox.aralik-ms:500}") long aralikMs,
+            @Value("${outbox.parti:200}") int partiBoyutu,
+            @Value("${outbox.isci:4}") int isciSayisi,
+            @Value("${outbox.maks-deneme:10}") int maksDeneme,
+            @Value("${outbox.yeniden-deneme-ms:1000}") long yenidenDenemeMs,
+            @Value("${outbox.kira-sn:60}") long kiraSn,
+            @Value("${outbox.saklama-saat:72}") long saklamaSaat) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.aboneSaglayici = aboneSaglayici;
+        this.etkin = etkin;
+        this.aralikMs = aralikMs;
+        this.partiBoyutu = partiBoyutu;
+        this.maksDeneme = maksDeneme;
+        this.yenidenDenemeMs = yenidenDenemeMs;
+        this.kiraSuresi = Duration.ofSeconds(kiraSn);
+        this.saklamaSuresi = Duration.ofHours(saklamaSaat);
+
+        // Kuyruk bir partinin tüm kümelerini alabilecek kadar; dolarsa küme bir sonraki taramaya kalır
+        AtomicInteger sira = new AtomicInteger();
+        this.havuz = new ThreadPoolExecutor(isciSayisi, isciSayisi, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(partiBoyutu), gorev -> {
+                    Thread t = new Thread(gorev, "olay-isci-" + sira.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.aktarici = new Thread(this::calis, "olay-aktarici");
+        this.aktarici.setDaemon(true);
+    }
+
+    private record Bekleyen(Olay olay, LocalDateTime sonrakiDeneme, LocalDateTime kilitBitis) {
+    }
+
+    /**
+     * Aktarıcının ve bu düğümdeki iletimin anlık durumu
+     *
+     * @param bekleyen          iletilmeyi bekleyen olay sayısı (tüm düğümler)
+     * @param enEskiBekleyenMs  en eski bekleyen olayın yaşı; aktarımın ne kadar geride olduğu
+     */
+    public record Durum(boolean etkin, long bekleyen, long enEskiBekleyenMs, long iletilen, long basarisizDeneme,
+            long kaliciHata, long sonGecikmeMs, long ortalamaGecikmeMs, long maksGecikmeMs, int isleniyor,
+            int kuyrukta) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void baslat() {
+        if (!etkin || calisiyor) {
+            return;
+        }
+        aboneler = aboneSaglayici.orderedStream().toList();
+        calisiyor = true;
+        aktarici.start();
+        System.out.println(">>> Olay aktarıcısı başladı (" + aboneler.size() + " abone)");
+    }
+
+    /**
+     * Yeni olay commit edildi; beklemeyi kes
+     */
+    public void uyandir() {
+        synchronized (uyandirma) {
+            uyandirildi = true;
+            uyandirma.notifyAll();
+        }
+    }
+
+    @PreDestroy
+    public void kapat() throws InterruptedException {
+        if (!calisiyor) {
+            return;
+        }
+        calisiyor = false;
+        aktarici.interrupt();
+        aktarici.join(5000);
+        // Bitmeyen kümelerin kiraları süre dolunca başka bir düğüme (veya yeniden açılışa) geçer
+        havuz.shutdown();
+        havuz.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public Durum durum() {
+        LocalDateTime simdi = LocalDateTime.now();
+        long[] gecikme = jdbcTemplate.queryForObject(GECIKME_SQL, (rs, i) -> new long[] { rs.getLong(1),
+                rs.getTimestamp(2) == null ? 0
+                        : Math.max(0, Duration.between(rs.getTimestamp(2).toLocalDateTime(), simdi).toMillis()) });
+        long adet = iletilen.sum();
+        return new Durum(etkin, gecikme[0], gecikme[1], adet, basarisizDeneme.sum(), kaliciHata.sum(),
+                sonGecikmeMs.get(), adet == 0 ? 0 : toplamGecikmeMs.sum() / adet, maksGecikmeMs.get(),
+                mesgulKumeler.size(), havuz.getQueue().size());
+    }
+
+    /**
+     * İletilmiş olayları saklama süresi dolunca sil; kalıcı hatalılar incelenmek üzere kalır
+     */
+    @Scheduled(fixedDelayString = "${outbox.temizlik-ms:3600000}")
+    public void eskiOlaylariSil() {
+        int silinen = jdbcTemplate.update(TEMIZLE_SQL, Timestamp.valueOf(LocalDateTime.now().minus(saklamaSuresi)));
+        if (silinen > 0) {
+            System.out.println(">>> İletilmiş " + silinen + " olay silindi");
+        }
+    }
+
+    // =============== AKTARIM ===============
+
+    private void calis() {
+        while (calisiyor) {
+            int dagitilan = 0;
+            try {
+                dagitilan = tara();
+            } catch (RuntimeException e) {
+                System.err.println(">>> Olay kutusu taranamadı: " + e.getMessage());
+            }
+            // Parti dolu geldiyse arkası da vardır; beklemeden devam et
+            if (dagitilan < partiBoyutu) {
+                try {
+                    bekle();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void bekle() throws InterruptedException {
+        synchronized (uyandirma) {
+            if (!uyandirildi) {
+                uyandirma.wait(aralikMs);
+            }
+            uyandirildi = false;
+        }
+    }
+
+    /**
+     * Bir parti bekleyen olayı kirala ve kümelerini işçi havuzuna dağıt
+     *
+     * @return dağıtılan olay sayısı
+     */
+    int tara() {
+        LocalDateTime simdi = LocalDateTime.now();
+        Timestamp an = Timestamp.valueOf(simdi);
+        List<Bekleyen> bekleyenler = jdbcTemplate.query(BEKLEYEN_SQL, (rs, i) -> new Bekleyen(
+                new Olay(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4), rs.getString(5),
+                        rs.getTimestamp(6).toLocalDateTime(), rs.getInt(7)),
+                rs.getTimestamp(8).toLocalDateTime(),
+                rs.getTimestamp(9) != null ? rs.getTimestamp(9).toLocalDateTime() : null), an, an, an, an, partiBoyutu);
+
+        // Kümenin ilk bekleyen olayı alınamıyorsa (bu düğümde işleniyor, ya da okumadan sonra
+        // değişti) sonrakiler de alınmaz; sıra korunur
+        Map<String, List<Olay>> adaylar = new LinkedHashMap<>();
+        Set<String> engelli = new HashSet<>();
+        for (Bekleyen bekleyen : bekleyenler) {
+            String kume = kume(bekleyen.olay());
+            if (engelli.contains(kume)) {
+                continue;
+            }
+            boolean kirada = bekleyen.kilitBitis() != null && bekleyen.kilitBitis().isAfter(simdi);
+            if (kirada || bekleyen.sonrakiDeneme().isAfter(simdi) || mesgulKumeler.contains(kume)) {
+                engelli.add(kume);
+                continue;
+            }
+            adaylar.computeIfAbsent(kume, k -> new ArrayList<>()).add(bekleyen.olay());
+        }
+        if (adaylar.isEmpty()) {
+            return 0;
+        }
+
+        String kiraci = UUID.randomUUID().toString();
+        List<Long> adayIdleri = adaylar.values().stream().flatMap(List::stream).map(Olay::id).toList();
+        jdbcTemplate.update(String.format(KIRALA_SQL, yerTutucular(adayIdleri.size())),
+                parametreler(kiraci, Timestamp.valueOf(simdi.plus(kiraSuresi)), adayIdleri,
+                        Timestamp.valueOf(simdi)));
+        Set<Long> kiralanan = new HashSet<>(jdbcTemplate.queryForList(
+                String.format(KIRALANAN_SQL, yerTutucular(adayIdleri.size())), Long.class,
+                parametreler(adayIdleri, kiraci)));
+
+        // Bu arada başka bir aktarıcı kümenin önceki bir olayını kiraladıysa sonrakileri geri bırak
+        List<Long> geriBirakilan = new ArrayList<>();
+        int dagitilan = 0;
+        for (Map.Entry<String, List<Olay>> giris : adaylar.entrySet()) {
+            List<Olay> alinan = new ArrayList<>();
+            for (Olay olay : giris.getValue()) {
+                if (!kiralanan.contains(olay.id())) {
+                    break;
+                }
+                alinan.add(olay);
+            }
+            giris.getValue().stream().skip(alinan.size()).map(Olay::id)
+                    .filter(kiralanan::contains).forEach(geriBirakilan::add);
+            if (alinan.isEmpty()) {
+                continue;
+            }
+
+            String kume = giris.getKey();
+            mesgulKumeler.add(kume);
+            try {
+                havuz.execute(() -> kumeyiIsle(kume, alinan, kiraci));
+                dagitilan += alinan.size();
+            } catch (RejectedExecutionException e) {
+                mesgulKumeler.remove(kume);
+                alinan.stream().map(Olay::id).forEach(geriBirakilan::add);
+            }
+        }
+        birak(geriBirakilan, kiraci);
+        return dagitilan;
+    }
+
+    /**
+     * Kümenin olaylarını sırayla ilet; hata alan olaydan sonrakiler bir sonraki taramaya kalır
+     */
+    private void kumeyiIsle(String kume, List<Olay> olaylar, String kiraci) {
+        List<Long> islenen = new ArrayList<>(olaylar.size());
+        try {
+            for (int i = 0; i < olaylar.size(); i++) {
+                Olay olay = olaylar.get(i);
+                try {
+                    ilet(olay);
+                } catch (Exception e) {
+                    hataKaydet(olay, e, kiraci);
+                    birak(olaylar.subList(i + 1, olaylar.size()).stream().map(Olay::id).toList(), kiraci);
+                    break;
+                }
+                islenen.add(olay.id());
+                gecikmeKaydet(olay);
+            }
+            if (!islenen.isEmpty()) {
+                jdbcTemplate.update(String.format(ISLENDI_SQL, yerTutucular(islenen.size())),
+                        parametreler(Timestamp.valueOf(LocalDateTime.now()), islenen, kiraci));
+            }
+        } catch (RuntimeException e) {
+            // İşaretlenemeyen olaylar kira dolunca tekrar iletilir
+            System.err.println(">>> Olay durumu yazılamadı (" + kume + "): " + e.getMessage());
+        } finally {
+            mesgulKumeler.remove(kume);
+        }
+    }
+
+    private void ilet(Olay olay) throws Exception {
+        for (OlayAbonesi abone : aboneler) {
+            if (abone.turler().contains(olay.tur())) {
+                abone.isle(olay);
+            }
+        }
+    }
+
+    private void hataKaydet(Olay olay, Exception hata, String kiraci) {
+        basarisizDeneme.increment();
+        int deneme = olay.deneme() + 1;
+        LocalDateTime simdi = LocalDateTime.now();
+        boolean kalici = deneme >= maksDeneme;
+        long bekleme = Math.min(MAKS_BEKLEME_MS, yenidenDenemeMs << Math.min(deneme - 1, 20));
+        String mesaj = String.valueOf(hata.getMessage());
+        jdbcTemplate.update(HATA_SQL, deneme, mesaj.length() > 500 ? mesaj.substring(0, 500) : mesaj,
+                Timestamp.valueOf(simdi.plus(Duration.ofMillis(bekleme))), kalici,
+                kalici ? Timestamp.valueOf(simdi) : null, olay.id(), kiraci);
+        if (kalici) {
+            kaliciHata.increment();
+            System.err.println(">>> Olay #" + olay.id() + " (" + olay.tur() + ") " + deneme
+                    + " denemeden sonra iletilemedi: " + mesaj);
+        }
+    }
+
+    private void gecikmeKaydet(Olay olay) {
+        long gecikme = Math.max(0, Duration.between(olay.olusturma(), LocalDateTime.now()).toMillis());
+        iletilen.increment();
+        toplamGecikmeMs.add(gecikme);
+        sonGecikmeMs.set(gecikme);
+        maksGecikmeMs.accumulateAndGet(gecikme, Math::max);
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private void birak(List<Long> idler, String kiraci) {
+        if (!idler.isEmpty()) {
+            jdbcTemplate.update(String.format(BIRAK_SQL, yerTutucular(idler.size())), parametreler(idler, kiraci));
+        }
+    }
+
+    private static String kume(Olay olay) {
+        return olay.kumeTuru() + ":" + olay.kumeId();
+    }
+
+    private static String yerTutucular(int adet) {
+        return String.join(", ", Collections.nCopies(adet, "?"));
+    }
+
+    // Sırayla tek değerleri ve listelerin elemanlarını düz parametre dizisine aç
+    private static Object[] parametreler(Object... degerler) {
+        List<Object> sonuc = new ArrayList<>();
+        for (Object deger : degerler) {
+            if (deger instanceof Collection<?> liste) {
+                sonuc.addAll(liste);
+            } else {
+                sonuc.add(deger);
+            }
+        }
+        return sonuc.toArray();
+    }
+}
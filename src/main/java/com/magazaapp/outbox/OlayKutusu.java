@@ -0,0 +1,71 @@
+package com.magazaapp.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Giden olay kutusuna yazma. Olay, çağıranın transaction'ında tek INSERT ile eklenir: değişiklik
+ * commit edilirse olay da kalıcıdır, rollback olursa hiç yayınlanmaz. Asıl iş (bildirim, sayaçlar,
+ * indeksler) {@link OlayAktarici} tarafından istek thread'inin dışında yapılır; commit sonrası
+ * aktarıcı uyandırılır, böylece olay bir sonraki taramayı beklemeden iletilir.
+ */
+@Component
+public class OlayKutusu {
+
+    private static final String EKLE_SQL = "INSERT INTO giden_olay (tur, kume_turu, kume_id, veri, olusturma, "
+            + "basarisiz, deneme, sonraki_deneme) VALUES (?, ?, ?, ?, ?, false, 0, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OlayAktarici olayAktarici;
+
+    public OlayKutusu(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, OlayAktarici olayAktarici) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.olayAktarici = olayAktarici;
+    }
+
+    /**
+     * Olayı mevcut transaction'a ekle
+     *
+     * @param kumeTuru ve kumeId olayların sırasının korunduğu kümeyi belirler (ör. "SIPARIS", 42)
+     * @param veri     JSON'a çevrilecek olay gövdesi
+     */
+    public void ekle(String tur, String kumeTuru, Long kumeId, Object veri) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Olay bir transaction içinde eklenmelidir");
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(veri);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Olay gövdesi yazılamadı: " + tur, e);
+        }
+        Timestamp simdi = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(EKLE_SQL, tur, kumeTuru, kumeId, json, simdi, simdi);
+
+        commitSonrasi(olayAktarici::uyandir);
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private static void commitSonrasi(Runnable islem) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    islem.run();
+                }
+            });
+        } else {
+            islem.run();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.magazaapp.repository;
 import com.magazaapp.model.AltKategori;
 import com.magazaapp.model.Sezon;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +16,8 @@ public interface AltKategoriRepository extends JpaRepository<AltKategori, Long>
     List<AltKategori> findBySezon(Sezon sezon);
 
     List<AltKategori> findByKategoriIdAndSezon(Long kategoriId, Sezon sezon);
+
+    // [altKategoriId, altKategoriAd, kategoriId, kategoriAd, sezon]
+    @Query("SELECT ak.id, ak.ad, k.id, k.ad, ak.sezon FROM AltKategori ak JOIN ak.kategori k")
+    List<Object[]> altKategoriBilgileri();
 }
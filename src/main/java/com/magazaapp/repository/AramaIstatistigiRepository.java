@@ -0,0 +1,26 @@
+package com.magazaapp.repository;
+
+import com.magazaapp.model.AramaIstatistigi;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AramaIstatistigiRepository extends JpaRepository<AramaIstatistigi, Long> {
+
+    // [sorgu, aramaSayisi, sifirSonucSayisi] - verilen tarihten beri en çok aranan sorgular
+    @Query("SELECT a.sorgu, SUM(a.aramaSayisi), SUM(a.sifirSonucSayisi) FROM AramaIstatistigi a " +
+            "WHERE a.donemBitis >= :baslangic GROUP BY a.sorgu ORDER BY SUM(a.aramaSayisi) DESC")
+    List<Object[]> enCokArananlar(@Param("baslangic") LocalDateTime baslangic, Pageable pageable);
+
+    // [sorgu, sifirSonucSayisi] - verilen tarihten beri en sık sonuçsuz kalan sorgular
+    @Query("SELECT a.sorgu, SUM(a.sifirSonucSayisi) FROM AramaIstatistigi a " +
+            "WHERE a.donemBitis >= :baslangic AND a.sifirSonucSayisi > 0 " +
+            "GROUP BY a.sorgu ORDER BY SUM(a.sifirSonucSayisi) DESC")
+    List<Object[]> enCokSonucsuzKalanlar(@Param("baslangic") LocalDateTime baslangic, Pageable pageable);
+}
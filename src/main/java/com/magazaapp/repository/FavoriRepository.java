@@ -1,5 +1,6 @@
 package com.magazaapp.repository;
 
+import com.magazaapp.dto.FavoriKartiDTO;
 import com.magazaapp.model.Favori;
 import com.magazaapp.model.Kullanici;
 import com.magazaapp.model.Urun;
@@ -17,6 +18,12 @@ public interface FavoriRepository extends JpaRepository<Favori, Long> {
     // Kullanıcının tüm favorilerini getir
     List<Favori> findByKullaniciOrderByEklenmeTarihiDesc(Kullanici kullanici);
 
+    // Kullanıcının favorileri ürün, mağaza ve kategori bilgisiyle tek sorguda
+    @Query("SELECT new com.magazaapp.dto.FavoriKartiDTO(f.id, u.id, u.ad, u.fiyat, u.resimUrl, m.ad, k.ad, " +
+            "f.eklenmeTarihi) FROM Favori f JOIN f.urun u LEFT JOIN u.magaza m LEFT JOIN u.altKategori ak " +
+            "LEFT JOIN ak.kategori k WHERE f.kullanici = :kullanici ORDER BY f.eklenmeTarihi DESC")
+    List<FavoriKartiDTO> findKartlarByKullanici(Kullanici kullanici);
+
     // Kullanıcının belirli bir ürünü favorilerde mi kontrol et
     Optional<Favori> findByKullaniciAndUrun(Kullanici kullanici, Urun urun);
 
@@ -30,11 +37,15 @@ public interface FavoriRepository extends JpaRepository<Favori, Long> {
     // Ürünü favorilerden sil
     @Modifying
     @Query("DELETE FROM Favori f WHERE f.kullanici = :kullanici AND f.urun = :urun")
-    void deleteByKullaniciAndUrun(Kullanici kullanici, Urun urun);
+    int deleteByKullaniciAndUrun(Kullanici kullanici, Urun urun);
 
     // Bir ürünün kaç kişi tarafından favorilere eklendiği
     long countByUrun(Urun urun);
 
+    // Ürün bazında favori sayıları: [urunId, sayi]
+    @Query("SELECT f.urun.id, COUNT(f) FROM Favori f GROUP BY f.urun.id")
+    List<Object[]> urunFavoriSayilari();
+
     // ========== ID-BASED METHODS (Service Layer için) ==========
 
     // Kullanıcı ID'sine göre favorileri getir
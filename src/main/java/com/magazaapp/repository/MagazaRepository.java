@@ -1,7 +1,9 @@
 package com.magazaapp.repository;
 
+import com.magazaapp.dto.MagazaKartiDTO;
 import com.magazaapp.model.Magaza;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +15,13 @@ public interface MagazaRepository extends JpaRepository<Magaza, Long> {
     List<Magaza> findByAktifTrue();
 
     List<Magaza> findBySahipId(Long sahipId);
+
+    // [magazaId, ad]
+    @Query("SELECT m.id, m.ad FROM Magaza m")
+    List<Object[]> magazaAdlari();
+
+    // Mağaza indeksinin kurulumu için tüm mağazalar, sahip JOIN'i olmadan
+    @Query("SELECT new com.magazaapp.dto.MagazaKartiDTO(m.id, m.ad, m.aciklama, m.logoUrl, m.aktif, " +
+            "m.sahip.id, m.olusturmaTarihi) FROM Magaza m")
+    List<MagazaKartiDTO> findMagazaKartlari();
 }
@@ -2,7 +2,12 @@ package com.magazaapp.repository;
 
 import com.magazaapp.model.Odeme;
 import com.magazaapp.model.OdemeDurum;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,6 +19,18 @@ public interface OdemeRepository extends JpaRepository<Odeme, Long> {
     // Token ile ödeme bul
     Optional<Odeme> findByIyzicoToken(String token);
 
+    // Ödemeyi tamamlarken: süre dolumu taramasıyla aynı anda işlenmesin
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Odeme o WHERE o.iyzicoToken = :token")
+    Optional<Odeme> findByIyzicoTokenKilitli(@Param("token") String token);
+
+    // Hâlâ bekleyen ödemeyi iptal et; ödeme bu arada işlendiyse 0 döner
+    @Modifying
+    @Query("UPDATE Odeme o SET o.durum = com.magazaapp.model.OdemeDurum.IPTAL, o.hataMesaji = :mesaj, " +
+            "o.tamamlanmaTarihi = CURRENT_TIMESTAMP WHERE o.iyzicoToken = :token " +
+            "AND o.durum = com.magazaapp.model.OdemeDurum.BEKLEMEDE")
+    int bekleyenOdemeyiIptalEt(@Param("token") String token, @Param("mesaj") String mesaj);
+
     // ConversationId ile ödeme bul
     Optional<Odeme> findByConversationId(String conversationId);
 
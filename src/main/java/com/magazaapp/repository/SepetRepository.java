@@ -2,6 +2,9 @@ package com.magazaapp.repository;
 
 import com.magazaapp.model.Sepet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,7 +15,15 @@ public interface SepetRepository extends JpaRepository<Sepet, Long> {
 
     List<Sepet> findByKullaniciId(Long kullaniciId);
 
+    // Sipariş oluştururken: ürün, mağaza ve beden satır başına ayrı sorgu olmadan
+    @Query("SELECT s FROM Sepet s JOIN FETCH s.urun u JOIN FETCH u.magaza JOIN FETCH s.beden "
+            + "WHERE s.kullanici.id = :kullaniciId ORDER BY s.id")
+    List<Sepet> findSiparisIcinByKullaniciId(@Param("kullaniciId") Long kullaniciId);
+
     Optional<Sepet> findByKullaniciIdAndUrunIdAndBedenId(Long kullaniciId, Long urunId, Long bedenId);
 
-    void deleteByKullaniciId(Long kullaniciId);
+    // Satırları tek tek yükleyip silmek yerine tek DELETE
+    @Modifying
+    @Query("DELETE FROM Sepet s WHERE s.kullanici.id = :kullaniciId")
+    void deleteByKullaniciId(@Param("kullaniciId") Long kullaniciId);
 }
@@ -2,6 +2,7 @@ package com.magazaapp.repository;
 
 import com.magazaapp.model.SiparisDetay;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +11,9 @@ import java.util.List;
 public interface SiparisDetayRepository extends JpaRepository<SiparisDetay, Long> {
 
     List<SiparisDetay> findBySiparisFisiId(Long siparisFisiId);
+
+    // Ürün bazında satılan toplam adet (iptal edilen siparişler hariç): [urunId, adet]
+    @Query("SELECT d.urun.id, SUM(d.adet) FROM SiparisDetay d " +
+            "WHERE d.siparisFisi.durum <> com.magazaapp.model.SiparisDurum.IPTAL GROUP BY d.urun.id")
+    List<Object[]> urunSatisAdetleri();
 }
@@ -2,19 +2,44 @@ package com.magazaapp.repository;
 
 import com.magazaapp.model.SiparisFisi;
 import com.magazaapp.model.SiparisDurum;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SiparisFisiRepository extends JpaRepository<SiparisFisi, Long> {
 
         List<SiparisFisi> findByKullaniciId(Long kullaniciId);
 
+        // İçerik düzenleme: yalnızca detaylar değişse bile fişin versiyonu artar, eşzamanlı düzenleme çakışır
+        @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+        @Query("SELECT s FROM SiparisFisi s WHERE s.id = :id")
+        Optional<SiparisFisi> findByIdVersiyonArtirarak(@Param("id") Long id);
+
+        // Toplu durum güncellemesi: [id, durum, mağaza id'si]. Satırlar id sırasıyla kilitlenir; okunan durum
+        // transaction boyunca geçerlidir, mağaza tablosu join'lenmediği için kilitlenmez
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("SELECT s.id, s.durum, s.magaza.id FROM SiparisFisi s WHERE s.id IN :ids ORDER BY s.id")
+        List<Object[]> findDurumVeMagazaByIdInKilitli(@Param("ids") Collection<Long> ids);
+
+        // Durumu hâlâ kaynaklardan biri olan siparişleri tek UPDATE ile taşı; versiyon artar, böylece
+        // aynı anda açık içerik düzenlemeleri iyimser kilitle çakışır
+        @Modifying
+        @Query("UPDATE SiparisFisi s SET s.durum = :hedef, s.guncellemeTarihi = CURRENT_TIMESTAMP, " +
+                        "s.versiyon = s.versiyon + 1 WHERE s.id IN :ids AND s.durum IN :kaynaklar")
+        int topluDurumGuncelle(@Param("ids") Collection<Long> ids,
+                        @Param("kaynaklar") Collection<SiparisDurum> kaynaklar,
+                        @Param("hedef") SiparisDurum hedef);
+
         List<SiparisFisi> findByMagazaId(Long magazaId);
 
         List<SiparisFisi> findByMagazaIdOrderBySiparisTarihiDesc(Long magazaId);
@@ -0,0 +1,33 @@
+package com.magazaapp.repository;
+
+import com.magazaapp.model.StokRezervasyonu;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StokRezervasyonuRepository extends JpaRepository<StokRezervasyonu, Long> {
+
+    // Dönüştürme/serbest bırakma aynı token için yarışırsa ikincisi ilkini bekler ve boş liste görür
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StokRezervasyonu r WHERE r.odemeToken = :token ORDER BY r.urun.id, r.beden.id")
+    List<StokRezervasyonu> findByOdemeTokenKilitli(@Param("token") String token);
+
+    // Süresi dolmuş rezervasyonların token'ları (son_gecerlilik indeksinden, sayfa sayfa)
+    @Query("SELECT DISTINCT r.odemeToken FROM StokRezervasyonu r WHERE r.sonGecerlilik < :simdi")
+    List<String> suresiDolanTokenlar(@Param("simdi") LocalDateTime simdi, Pageable pageable);
+
+    // Aynı tarama içinde atlanan (işlenemeyen) token'lar sonraki sayfalarda tekrar gelmesin
+    @Query("SELECT DISTINCT r.odemeToken FROM StokRezervasyonu r WHERE r.sonGecerlilik < :simdi " +
+            "AND r.odemeToken NOT IN :haric")
+    List<String> suresiDolanTokenlar(@Param("simdi") LocalDateTime simdi, @Param("haric") Collection<String> haric,
+            Pageable pageable);
+}
@@ -1,12 +1,18 @@
 package com.magazaapp.repository;
 
+import com.magazaapp.dto.UrunKartiDTO;
 import com.magazaapp.model.Urun;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface UrunRepository extends JpaRepository<Urun, Long> {
@@ -25,4 +31,90 @@ public interface UrunRepository extends JpaRepository<Urun, Long> {
 
         @Query("SELECT u FROM Urun u WHERE u.magaza.id = :magazaId")
         List<Urun> findByMagazaId(@Param("magazaId") Long magazaId);
+
+        long countByMagazaId(Long magazaId);
+
+        // Arama indeksi kurulumu için: mağaza ve kategoriler tek sorguda
+        @Query("SELECT u FROM Urun u JOIN FETCH u.magaza JOIN FETCH u.altKategori ak JOIN FETCH ak.kategori " +
+                        "WHERE u.aktif = true")
+        List<Urun> findAktifUrunlerDetayli();
+
+        // Arama indeksi segmentinden açılışta: yalnızca filigrandan sonra değişen aktif ürünler
+        @Query("SELECT u FROM Urun u JOIN FETCH u.magaza JOIN FETCH u.altKategori ak JOIN FETCH ak.kategori " +
+                        "WHERE u.aktif = true AND u.guncellemeTarihi > :esik")
+        List<Urun> findAktifUrunlerDetayliGuncellenen(@Param("esik") LocalDateTime esik);
+
+        // Segmentteki dokümanların hâlâ aktif olup olmadığını kontrol için (yalnızca id, indeksten okunur)
+        @Query("SELECT u.id FROM Urun u WHERE u.aktif = true")
+        List<Long> findAktifUrunIdleri();
+
+        // Arama sonuçlarını id listesinden tek sorguda yükle (lazy proxy yüklemesi olmadan)
+        @Query("SELECT u FROM Urun u JOIN FETCH u.magaza JOIN FETCH u.altKategori ak JOIN FETCH ak.kategori " +
+                        "WHERE u.id IN :idler ORDER BY u.id")
+        List<Urun> findDetayliByIdIn(@Param("idler") Collection<Long> idler);
+
+        // =============== ÜRÜN KARTI PROJEKSİYONLARI ===============
+        // Mağaza ve kategori bilgisi tek JOIN'li select'te okunur; satır sayısından bağımsız sorgu sayısı
+
+        String URUN_KARTI = "SELECT new com.magazaapp.dto.UrunKartiDTO(u.id, u.ad, u.aciklama, u.fiyat, " +
+                        "u.resimUrl, u.renk, u.aktif, m.id, m.ad, k.id, k.ad, ak.id, ak.ad, ak.sezon, u.olusturmaTarihi) " +
+                        "FROM Urun u JOIN u.magaza m JOIN u.altKategori ak JOIN ak.kategori k ";
+
+        @Query(URUN_KARTI + "WHERE u.id = :id")
+        Optional<UrunKartiDTO> findKartById(@Param("id") Long id);
+
+        @Query(URUN_KARTI + "WHERE u.id IN :idler")
+        List<UrunKartiDTO> findKartlarByIdIn(@Param("idler") Collection<Long> idler);
+
+        @Query(URUN_KARTI + "WHERE m.id = :magazaId ORDER BY u.id")
+        List<UrunKartiDTO> findKartlarByMagazaId(@Param("magazaId") Long magazaId);
+
+        // =============== İMLEÇLİ (KEYSET) SAYFALAMA ===============
+        // Sıralama (alan, id) bileşik indeksleri üzerinden yürür; OFFSET yerine son görülen
+        // değerden devam edildiği için sayfa maliyeti kataloğun büyüklüğünden bağımsızdır.
+
+        @Query("SELECT u FROM Urun u JOIN FETCH u.magaza JOIN FETCH u.altKategori ak JOIN FETCH ak.kategori " +
+                        "WHERE u.aktif = true " +
+                        "AND (:magazaId IS NULL OR u.magaza.id = :magazaId) " +
+                        "AND (:kategoriId IS NULL OR ak.kategori.id = :kategoriId) " +
+                        "AND (:altKategoriId IS NULL OR ak.id = :altKategoriId) " +
+                        "AND (:sonTarih IS NULL OR u.olusturmaTarihi < :sonTarih " +
+                        "     OR (u.olusturmaTarihi = :sonTarih AND u.id < :sonId)) " +
+                        "ORDER BY u.olusturmaTarihi DESC, u.id DESC")
+        List<Urun> findSayfaEnYeni(@Param("magazaId") Long magazaId,
+                        @Param("kategoriId") Long kategoriId,
+                        @Param("altKategoriId") Long altKategoriId,
+                        @Param("sonTarih") LocalDateTime sonTarih,
+                        @Param("sonId") Long sonId,
+                        Pageable pageable);
+
+        @Query("SELECT u FROM Urun u JOIN FETCH u.magaza JOIN FETCH u.altKategori ak JOIN FETCH ak.kategori " +
+                        "WHERE u.aktif = true " +
+                        "AND (:magazaId IS NULL OR u.magaza.id = :magazaId) " +
+                        "AND (:kategoriId IS NULL OR ak.kategori.id = :kategoriId) " +
+                        "AND (:altKategoriId IS NULL OR ak.id = :altKategoriId) " +
+                        "AND (:sonFiyat IS NULL OR u.fiyat > :sonFiyat " +
+                        "     OR (u.fiyat = :sonFiyat AND u.id > :sonId)) " +
+                        "ORDER BY u.fiyat ASC, u.id ASC")
+        List<Urun> findSayfaFiyatArtan(@Param("magazaId") Long magazaId,
+                        @Param("kategoriId") Long kategoriId,
+                        @Param("altKategoriId") Long altKategoriId,
+                        @Param("sonFiyat") BigDecimal sonFiyat,
+                        @Param("sonId") Long sonId,
+                        Pageable pageable);
+
+        @Query("SELECT u FROM Urun u JOIN FETCH u.magaza JOIN FETCH u.altKategori ak JOIN FETCH ak.kategori " +
+                        "WHERE u.aktif = true " +
+                        "AND (:magazaId IS NULL OR u.magaza.id = :magazaId) " +
+                        "AND (:kategoriId IS NULL OR ak.kategori.id = :kategoriId) " +
+                        "AND (:altKategoriId IS NULL OR ak.id = :altKategoriId) " +
+                        "AND (:sonFiyat IS NULL OR u.fiyat < :sonFiyat " +
+                        "     OR (u.fiyat = :sonFiyat AND u.id < :sonId)) " +
+                        "ORDER BY u.fiyat DESC, u.id DESC")
+        List<Urun> findSayfaFiyatAzalan(@Param("magazaId") Long magazaId,
+                        @Param("kategoriId") Long kategoriId,
+                        @Param("altKategoriId") Long altKategoriId,
+                        @Param("sonFiyat") BigDecimal sonFiyat,
+                        @Param("sonId") Long sonId,
+                        Pageable pageable);
 }
@@ -1,9 +1,11 @@
 package com.magazaapp.repository;
 
+import com.magazaapp.dto.StokDTO;
 import com.magazaapp.model.UrunStok;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,7 +15,37 @@ public interface UrunStokRepository extends JpaRepository<UrunStok, Long> {
     @org.springframework.data.jpa.repository.Query("SELECT s FROM UrunStok s LEFT JOIN FETCH s.beden WHERE s.urun.id = :urunId")
     List<UrunStok> findByUrunId(@org.springframework.data.repository.query.Param("urunId") Long urunId);
 
+    // Birden fazla ürünün stokları tek sorguda (ürün listelerinde ürün başına sorgu atmamak için)
+    @org.springframework.data.jpa.repository.Query("SELECT new com.magazaapp.dto.StokDTO(s.urun.id, b.id, b.ad, s.adet) "
+            + "FROM UrunStok s JOIN s.beden b WHERE s.urun.id IN :urunIdleri ORDER BY s.urun.id, b.id")
+    List<StokDTO> findStoklarByUrunIdIn(
+            @org.springframework.data.repository.query.Param("urunIdleri") Collection<Long> urunIdleri);
+
+    // Katalog görüntüsünün ilk kurulumu için tüm stoklar
+    @org.springframework.data.jpa.repository.Query("SELECT new com.magazaapp.dto.StokDTO(s.urun.id, b.id, b.ad, s.adet) "
+            + "FROM UrunStok s JOIN s.beden b ORDER BY s.urun.id, b.id")
+    List<StokDTO> findTumStoklar();
+
     Optional<UrunStok> findByUrunIdAndBedenId(Long urunId, Long bedenId);
 
+    // Stok özetleri idx_urun_stok_adet üzerinden; satırlar ürün ve bedenle birlikte tek sorguda
+    @org.springframework.data.jpa.repository.Query("SELECT COALESCE(SUM(s.adet), 0) FROM UrunStok s")
+    long sumAdet();
+
+    @org.springframework.data.jpa.repository.Query("SELECT s FROM UrunStok s JOIN FETCH s.urun JOIN FETCH s.beden "
+            + "WHERE s.adet = 0 ORDER BY s.urun.id, s.beden.id")
+    List<UrunStok> findTukenenler();
+
+    @org.springframework.data.jpa.repository.Query("SELECT s FROM UrunStok s JOIN FETCH s.urun JOIN FETCH s.beden "
+            + "WHERE s.adet > 0 AND s.adet < :esik ORDER BY s.adet, s.urun.id, s.beden.id")
+    List<UrunStok> findDusukler(@org.springframework.data.repository.query.Param("esik") int esik);
+
+    // Mağazanın kendi eşiğinin altındaki stokları (tükenenler dahil), panelin ilk yüklemesi için
+    @org.springframework.data.jpa.repository.Query("SELECT new com.magazaapp.dto.StokDTO(s.urun.id, b.id, b.ad, s.adet) "
+            + "FROM UrunStok s JOIN s.beden b JOIN s.urun u JOIN u.magaza m "
+            + "WHERE m.id = :magazaId AND s.adet < m.dusukStokEsigi ORDER BY s.adet, u.id, b.id")
+    List<StokDTO> findDusukStoklarByMagazaId(
+            @org.springframework.data.repository.query.Param("magazaId") Long magazaId);
+
     void deleteByUrunId(Long urunId);
 }
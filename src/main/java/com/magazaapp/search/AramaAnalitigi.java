@@ -0,0 +1,188 @@
+package com.magazaapp.search;
+
+import com.magazaapp.model.AramaIstatistigi;
+import com.magazaapp.repository.AramaIstatistigiRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Arama sorgusu analitiği: hangi aramalar yükü oluşturuyor, hangileri sonuçsuz kalıyor.
+ *
+ * Arama yolunda yalnızca kilitsiz işlemler yapılır: o dönemin sayaç tablosuna (ConcurrentHashMap +
+ * LongAdder) ekleme ve sonuçsuz aramalar için halka tampona yazma. Dönem tablosu sınırlıdır; dolunca
+ * yeni sorgular "diğer" sayacına düşer. Dönem sonunda tablo tek seferde yenisiyle değiştirilir,
+ * eski tablo arka planda space-saving sayaçlarına (uygulama açıldığından beri en çok aranan /
+ * en çok sonuçsuz kalan sorgular) işlenir ve arama_istatistigi tablosuna yazılır. Tablo değişirken
+ * eski tabloya yazan birkaç kayıt o dönemin satırına yansımayabilir; toplam sayaçlar etkilenmez.
+ */
+@Component
+public class AramaAnalitigi {
+
+    static final int DONEM_MAKS_SORGU = 10_000;
+    static final int SIK_GECEN_KAPASITESI = 500;
+    static final int SONUCSUZ_GUNLUK_BOYUTU = 256;
+    static final int MAKS_SORGU_UZUNLUGU = 200;
+
+    private final AramaIstatistigiRepository aramaIstatistigiRepository;
+
+    private final AtomicReference<Donem> donem = new AtomicReference<>(new Donem());
+    private final LongAdder toplamArama = new LongAdder();
+    private final LongAdder toplamSonucsuz = new LongAdder();
+
+    // Son sonuçsuz aramalar (en eskisi üzerine yazılır)
+    private final AtomicReferenceArray<SonucsuzArama> sonucsuzGunluk = new AtomicReferenceArray<>(SONUCSUZ_GUNLUK_BOYUTU);
+    private final AtomicLong sonucsuzSira = new AtomicLong();
+
+    // Yalnızca aktarım (tek yazar) tarafından güncellenir, okumalar bu nesne üzerinde senkronize
+    private final SikGecenlerSayaci enCokArananlar = new SikGecenlerSayaci(SIK_GECEN_KAPASITESI);
+    private final SikGecenlerSayaci enCokSonucsuzlar = new SikGecenlerSayaci(SIK_GECEN_KAPASITESI);
+
+    public AramaAnalitigi(AramaIstatistigiRepository aramaIstatistigiRepository) {
+        this.aramaIstatistigiRepository = aramaIstatistigiRepository;
+    }
+
+    // =============== KAYIT (arama yolu) ===============
+
+    /**
+     * Bir aramayı kaydet. Aynı sorgunun sonraki sayfaları ayrı arama sayılmamalıdır.
+     */
+    public void kaydet(String sorgu, int toplamSonuc) {
+        String anahtar = anahtar(sorgu);
+        if (anahtar.isEmpty()) {
+            return;
+        }
+        boolean sonucsuz = toplamSonuc == 0;
+        toplamArama.increment();
+        if (sonucsuz) {
+            toplamSonucsuz.increment();
+            long sira = sonucsuzSira.getAndIncrement();
+            sonucsuzGunluk.set((int) (sira % SONUCSUZ_GUNLUK_BOYUTU), new SonucsuzArama(anahtar, LocalDateTime.now()));
+        }
+
+        Donem d = donem.get();
+        SorguSayaci sayac = d.sayaclar.get(anahtar);
+        if (sayac == null) {
+            sayac = d.sayaclar.size() < DONEM_MAKS_SORGU
+                    ? d.sayaclar.computeIfAbsent(anahtar, a -> new SorguSayaci())
+                    : d.diger;
+        }
+        sayac.arama.increment();
+        if (sonucsuz) {
+            sayac.sonucsuz.increment();
+        }
+    }
+
+    // =============== DÖNEM AKTARIMI ===============
+
+    /**
+     * Dönem tablosunu yenisiyle değiştir; eskisini sık geçen sayaçlarına işle ve veritabanına yaz
+     */
+    @Scheduled(initialDelayString = "${arama.analitik.aralik-ms:60000}",
+            fixedDelayString = "${arama.analitik.aralik-ms:60000}")
+    public synchronized void aktar() {
+        Donem biten = donem.getAndSet(new Donem());
+        LocalDateTime bitis = LocalDateTime.now();
+        if (biten.sayaclar.isEmpty() && biten.diger.arama.sum() == 0) {
+            return;
+        }
+
+        List<AramaIstatistigi> satirlar = new ArrayList<>(biten.sayaclar.size() + 1);
+        synchronized (enCokArananlar) {
+            for (Map.Entry<String, SorguSayaci> giris : biten.sayaclar.entrySet()) {
+                long arama = giris.getValue().arama.sum();
+                long sonucsuz = giris.getValue().sonucsuz.sum();
+                enCokArananlar.ekle(giris.getKey(), arama);
+                enCokSonucsuzlar.ekle(giris.getKey(), sonucsuz);
+                satirlar.add(new AramaIstatistigi(giris.getKey(), arama, sonucsuz, biten.baslangic, bitis));
+            }
+        }
+        long digerArama = biten.diger.arama.sum();
+        if (digerArama > 0) {
+            satirlar.add(new AramaIstatistigi("(diğer)", digerArama, biten.diger.sonucsuz.sum(),
+                    biten.baslangic, bitis));
+        }
+
+        try {
+            aramaIstatistigiRepository.saveAll(satirlar);
+        } catch (RuntimeException e) {
+            // Analitik yazılamadı diye uygulama etkilenmesin; bellek içi sayaçlar korunur
+            System.err.println(">>> Arama istatistikleri yazılamadı: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void kapanirken() {
+        aktar();
+    }
+
+    // =============== OKUMA ===============
+
+    public List<SikGecenlerSayaci.SikGecen> enCokArananlar(int n) {
+        synchronized (enCokArananlar) {
+            return enCokArananlar.enCok(n);
+        }
+    }
+
+    public List<SikGecenlerSayaci.SikGecen> enCokSonucsuzKalanlar(int n) {
+        synchronized (enCokArananlar) {
+            return enCokSonucsuzlar.enCok(n);
+        }
+    }
+
+    /**
+     * Son sonuçsuz aramalar, en yeniden eskiye
+     */
+    public List<SonucsuzArama> sonSonucsuzAramalar(int n) {
+        long son = sonucsuzSira.get();
+        int adet = (int) Math.min(Math.min(n, SONUCSUZ_GUNLUK_BOYUTU), son);
+        List<SonucsuzArama> sonuc = new ArrayList<>(adet);
+        for (long sira = son - 1; sira >= son - adet; sira--) {
+            SonucsuzArama kayit = sonucsuzGunluk.get((int) (sira % SONUCSUZ_GUNLUK_BOYUTU));
+            if (kayit != null) {
+                sonuc.add(kayit);
+            }
+        }
+        return sonuc;
+    }
+
+    public long toplamArama() {
+        return toplamArama.sum();
+    }
+
+    public long toplamSonucsuz() {
+        return toplamSonucsuz.sum();
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    /**
+     * Aynı aramanın farklı yazımları tek sorgu sayılsın ("Elbise ", "elbise")
+     */
+    private static String anahtar(String sorgu) {
+        String anahtar = String.join(" ", MetinAnalizci.analizEt(sorgu));
+        return anahtar.length() > MAKS_SORGU_UZUNLUGU ? anahtar.substring(0, MAKS_SORGU_UZUNLUGU) : anahtar;
+    }
+
+    private static final class Donem {
+        final LocalDateTime baslangic = LocalDateTime.now();
+        final ConcurrentHashMap<String, SorguSayaci> sayaclar = new ConcurrentHashMap<>();
+        final SorguSayaci diger = new SorguSayaci();
+    }
+
+    private static final class SorguSayaci {
+        final LongAdder arama = new LongAdder();
+        final LongAdder sonucsuz = new LongAdder();
+    }
+
+    public record SonucsuzArama(String sorgu, LocalDateTime tarih) {
+    }
+}
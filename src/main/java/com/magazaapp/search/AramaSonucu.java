@@ -0,0 +1,14 @@
+package com.magazaapp.search;
+
+import java.util.List;
+
+/**
+ * Alaka puanına göre sıralanmış arama sayfası
+ *
+ * @param urunIdleri istenen sayfadaki ürün id'leri (en alakalıdan başlayarak)
+ * @param toplam     sorguya uyan toplam ürün sayısı
+ */
+public record AramaSonucu(List<Long> urunIdleri, int toplam) {
+
+    public static final AramaSonucu BOS = new AramaSonucu(List.of(), 0);
+}
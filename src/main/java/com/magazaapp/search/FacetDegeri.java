@@ -0,0 +1,7 @@
+package com.magazaapp.search;
+
+/**
+ * Bir facet değeri ve mevcut filtrelerle eşleşen ürün sayısı, ör. ("2", "Kadın", 1240)
+ */
+public record FacetDegeri(String deger, String etiket, int adet) {
+}
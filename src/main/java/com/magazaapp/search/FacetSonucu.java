@@ -0,0 +1,12 @@
+package com.magazaapp.search;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facet sorgusunun sonucu: istenen sayfadaki ürün id'leri, toplam eşleşme ve facet sayımları.
+ * Facet sayımları her facet için o facet'in kendi filtresi hariç tutularak hesaplanır,
+ * böylece seçili "Kadın" filtresi varken "Erkek" seçeneğinin sayısı da gösterilebilir.
+ */
+public record FacetSonucu(List<Long> urunIdleri, int toplam, Map<String, List<FacetDegeri>> facetler) {
+}
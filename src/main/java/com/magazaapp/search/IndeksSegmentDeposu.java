@@ -0,0 +1,125 @@
+package com.magazaapp.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Arama indeksi segmentlerinin tutulduğu dizin.
+ *
+ * Segmentler "urun-indeks-<sıra>.seg" adıyla numaralanır ve bir kez yazıldıktan sonra değişmez.
+ * Yeni segment önce geçici dosyaya yazılıp diske zorlanır, ardından atomik olarak yeniden
+ * adlandırılır ve dizin de diske zorlanır; yarım kalmış bir yazma hiçbir zaman okunacak segment
+ * olarak görünmez, yayınlanan ad da çökmeden sonra kaybolmaz.
+ * Yayından sonra en yeni {@code saklanan} segment dışındakiler silinir; en yenisi okunamazsa
+ * bir öncekine dönülebilsin diye varsayılan olarak bir önceki segment de tutulur.
+ */
+@Component
+public class IndeksSegmentDeposu {
+
+    private static final Pattern SEGMENT_ADI = Pattern.compile("urun-indeks-(\\d+)\\.seg");
+
+    private final Path dizin;
+    private final boolean etkin;
+    private final int saklanan;
+
+    public IndeksSegmentDeposu(@Value("${arama.indeks.dizin:indeks}") String dizin,
+            @Value("${arama.indeks.segment.etkin:true}") boolean etkin,
+            @Value("${arama.indeks.segment.saklanan:2}") int saklanan) {
+        this.dizin = Path.of(dizin);
+        this.etkin = etkin;
+        this.saklanan = Math.max(saklanan, 1);
+    }
+
+    public boolean etkinMi() {
+        return etkin;
+    }
+
+    /**
+     * En yeni okunabilir segment; hiç yoksa veya hepsi bozuksa boş
+     */
+    public Optional<IndeksSegmenti> enSonSegment() {
+        if (!etkin) {
+            return Optional.empty();
+        }
+        for (Path dosya : segmentler().descendingMap().values()) {
+            try {
+                return Optional.of(IndeksSegmenti.oku(dosya));
+            } catch (IOException | RuntimeException e) {
+                System.err.println(">>> Arama indeksi segmenti okunamadı (" + dosya.getFileName() + "): "
+                        + e.getMessage());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Yeni segment yaz ve yayınla; en yeni {@code saklanan} segmentten eskiler silinir
+     */
+    public void yaz(LocalDateTime filigran, Collection<UrunDokumani> dokumanlar) throws IOException {
+        if (!etkin) {
+            return;
+        }
+        Files.createDirectories(dizin);
+        NavigableMap<Long, Path> mevcut = segmentler();
+        long sira = mevcut.isEmpty() ? 1 : mevcut.lastKey() + 1;
+
+        Path hedef = dizin.resolve("urun-indeks-" + sira + ".seg");
+        Path gecici = dizin.resolve("urun-indeks-" + sira + ".seg.tmp");
+        Files.deleteIfExists(gecici);
+        try {
+            IndeksSegmenti.yaz(gecici, filigran, dokumanlar);
+            Files.move(gecici, hedef, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(gecici);
+        }
+        diziniZorla();
+
+        // Yeni segmentle birlikte en yeni saklanan kadar segment kalır
+        int silinecek = mevcut.size() - (saklanan - 1);
+        for (Path eski : mevcut.values()) {
+            if (silinecek-- <= 0) {
+                break;
+            }
+            Files.deleteIfExists(eski);
+        }
+    }
+
+    /**
+     * Yeniden adlandırma dizin girdisini değiştirir; dizin diske zorlanmazsa çökme sonrası
+     * segment eski adıyla (veya hiç) görünebilir. Dizin açılamayan platformlarda atlanır.
+     */
+    private void diziniZorla() {
+        try (FileChannel kanal = FileChannel.open(dizin, StandardOpenOption.READ)) {
+            kanal.force(true);
+        } catch (IOException e) {
+            System.err.println(">>> Arama indeksi dizini diske zorlanamadı: " + e.getMessage());
+        }
+    }
+
+    private NavigableMap<Long, Path> segmentler() {
+        NavigableMap<Long, Path> sonuc = new TreeMap<>();
+        if (!Files.isDirectory(dizin)) {
+            return sonuc;
+        }
+        try (Stream<Path> dosyalar = Files.list(dizin)) {
+            dosyalar.forEach(dosya -> {
+                Matcher m = SEGMENT_ADI.matcher(dosya.getFileName().toString());
+                if (m.matches()) {
+                    sonuc.put(Long.parseLong(m.group(1)), dosya);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println(">>> Arama indeksi dizini okunamadı: " + e.getMessage());
+        }
+        return sonuc;
+    }
+}
@@ -0,0 +1,190 @@
+package com.magazaapp.search;
+
+import com.magazaapp.model.Sezon;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Arama indeksinin diske yazılmış değişmez bir segmenti: filigran anındaki tüm aktif ürün dokümanları.
+ *
+ * Dosya düzeni (big-endian):
+ * [sihirli sayı][sürüm][filigran: epoch saniye + nano][doküman sayısı][dokümanlar...][CRC32]
+ * Dokümanlar sabit alan sırasıyla yazılır; metinler uzunluk önekli UTF-8, null değerler -1 ile işaretlenir.
+ * Okuma dosyayı belleğe eşleyerek (FileChannel.map) yapılır; bozuk veya yarım dosya CRC ile yakalanır.
+ *
+ * @param filigran bu andan önce commit olmuş ürün değişiklikleri segmentte vardır
+ */
+public record IndeksSegmenti(LocalDateTime filigran, List<UrunDokumani> dokumanlar) {
+
+    private static final int SIHIRLI_SAYI = 0x4D475A49; // "MGZI"
+    private static final int SURUM = 1;
+    private static final Sezon[] SEZONLAR = Sezon.values();
+
+    // =============== YAZMA ===============
+
+    static void yaz(Path dosya, LocalDateTime filigran, Collection<UrunDokumani> dokumanlar) throws IOException {
+        try (FileChannel kanal = FileChannel.open(dosya, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream cikis = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(kanal), 64 * 1024), crc));
+            cikis.writeInt(SIHIRLI_SAYI);
+            cikis.writeInt(SURUM);
+            tarihYaz(cikis, filigran);
+            cikis.writeInt(dokumanlar.size());
+            for (UrunDokumani d : dokumanlar) {
+                cikis.writeLong(d.id());
+                metinYaz(cikis, d.ad());
+                metinYaz(cikis, d.aciklama());
+                metinYaz(cikis, d.renk());
+                fiyatYaz(cikis, d.fiyat());
+                metinYaz(cikis, d.resimUrl());
+                idYaz(cikis, d.magazaId());
+                metinYaz(cikis, d.magazaAd());
+                idYaz(cikis, d.kategoriId());
+                metinYaz(cikis, d.kategoriAd());
+                idYaz(cikis, d.altKategoriId());
+                metinYaz(cikis, d.altKategoriAd());
+                cikis.writeByte(d.sezon() != null ? d.sezon().ordinal() : -1);
+                tarihYaz(cikis, d.olusturmaTarihi());
+            }
+            cikis.flush();
+            // CRC kendisi hariç tüm içeriği kapsar
+            cikis.writeInt((int) crc.getValue());
+            cikis.flush();
+            kanal.force(true);
+            // cikis kapatılmaz; kanal try-with-resources ile kapanır
+        }
+    }
+
+    // =============== OKUMA ===============
+
+    static IndeksSegmenti oku(Path dosya) throws IOException {
+        try (FileChannel kanal = FileChannel.open(dosya, StandardOpenOption.READ)) {
+            long boyut = kanal.size();
+            if (boyut < 24 || boyut > Integer.MAX_VALUE) {
+                throw new IOException("Geçersiz segment boyutu: " + boyut);
+            }
+            MappedByteBuffer tampon = kanal.map(FileChannel.MapMode.READ_ONLY, 0, boyut);
+
+            int icerikBoyutu = (int) boyut - Integer.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(tampon.slice(0, icerikBoyutu));
+            if ((int) crc.getValue() != tampon.getInt(icerikBoyutu)) {
+                throw new IOException("Segment sağlama toplamı tutmuyor: " + dosya.getFileName());
+            }
+
+            if (tampon.getInt() != SIHIRLI_SAYI || tampon.getInt() != SURUM) {
+                throw new IOException("Tanınmayan segment biçimi: " + dosya.getFileName());
+            }
+            LocalDateTime filigran = tarihOku(tampon);
+            int adet = tampon.getInt();
+            List<UrunDokumani> dokumanlar = new ArrayList<>(adet);
+            for (int i = 0; i < adet; i++) {
+                long id = tampon.getLong();
+                String ad = metinOku(tampon);
+                String aciklama = metinOku(tampon);
+                String renk = metinOku(tampon);
+                BigDecimal fiyat = fiyatOku(tampon);
+                String resimUrl = metinOku(tampon);
+                Long magazaId = idOku(tampon);
+                String magazaAd = metinOku(tampon);
+                Long kategoriId = idOku(tampon);
+                String kategoriAd = metinOku(tampon);
+                Long altKategoriId = idOku(tampon);
+                String altKategoriAd = metinOku(tampon);
+                byte sezon = tampon.get();
+                LocalDateTime olusturma = tarihOku(tampon);
+                dokumanlar.add(new UrunDokumani(id, ad, aciklama, renk, fiyat, resimUrl, magazaId, magazaAd,
+                        kategoriId, kategoriAd, altKategoriId, altKategoriAd,
+                        sezon >= 0 && sezon < SEZONLAR.length ? SEZONLAR[sezon] : null, olusturma));
+            }
+            return new IndeksSegmenti(filigran, dokumanlar);
+        }
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private static void metinYaz(DataOutputStream cikis, String metin) throws IOException {
+        if (metin == null) {
+            cikis.writeInt(-1);
+            return;
+        }
+        byte[] baytlar = metin.getBytes(StandardCharsets.UTF_8);
+        cikis.writeInt(baytlar.length);
+        cikis.write(baytlar);
+    }
+
+    private static String metinOku(ByteBuffer tampon) {
+        int uzunluk = tampon.getInt();
+        if (uzunluk < 0) {
+            return null;
+        }
+        byte[] baytlar = new byte[uzunluk];
+        tampon.get(baytlar);
+        return new String(baytlar, StandardCharsets.UTF_8);
+    }
+
+    private static void idYaz(DataOutputStream cikis, Long id) throws IOException {
+        cikis.writeLong(id != null ? id : -1L);
+    }
+
+    private static Long idOku(ByteBuffer tampon) {
+        long id = tampon.getLong();
+        return id >= 0 ? id : null;
+    }
+
+    private static void fiyatYaz(DataOutputStream cikis, BigDecimal fiyat) throws IOException {
+        if (fiyat == null) {
+            cikis.writeInt(-1);
+            return;
+        }
+        byte[] olceksiz = fiyat.unscaledValue().toByteArray();
+        cikis.writeInt(olceksiz.length);
+        cikis.write(olceksiz);
+        cikis.writeInt(fiyat.scale());
+    }
+
+    private static BigDecimal fiyatOku(ByteBuffer tampon) {
+        int uzunluk = tampon.getInt();
+        if (uzunluk < 0) {
+            return null;
+        }
+        byte[] olceksiz = new byte[uzunluk];
+        tampon.get(olceksiz);
+        return new BigDecimal(new BigInteger(olceksiz), tampon.getInt());
+    }
+
+    private static void tarihYaz(DataOutputStream cikis, LocalDateTime tarih) throws IOException {
+        if (tarih == null) {
+            cikis.writeLong(Long.MIN_VALUE);
+            cikis.writeInt(0);
+            return;
+        }
+        cikis.writeLong(tarih.toEpochSecond(ZoneOffset.UTC));
+        cikis.writeInt(tarih.getNano());
+    }
+
+    private static LocalDateTime tarihOku(ByteBuffer tampon) {
+        long saniye = tampon.getLong();
+        int nano = tampon.getInt();
+        return saniye == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(saniye, nano, ZoneOffset.UTC);
+    }
+}
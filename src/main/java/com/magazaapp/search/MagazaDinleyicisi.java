@@ -0,0 +1,37 @@
+package com.magazaapp.search;
+
+import com.magazaapp.dto.MagazaKartiDTO;
+import com.magazaapp.model.Magaza;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Magaza JPA entity listener'ı: mağaza eklendiğinde, güncellendiğinde veya silindiğinde
+ * {@link MagazaIndeksi}'ne haber verir (indeks değişikliği commit sonrasında uygular).
+ *
+ * Hibernate, Spring'in bean container'ı üzerinden oluşturur; indeks bean'i döngüsel bağımlılık
+ * olmaması için ilk olayda çözülür.
+ */
+public class MagazaDinleyicisi {
+
+    private final ObjectProvider<MagazaIndeksi> magazaIndeksi;
+
+    public MagazaDinleyicisi(ObjectProvider<MagazaIndeksi> magazaIndeksi) {
+        this.magazaIndeksi = magazaIndeksi;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void magazaKaydedildi(Magaza magaza) {
+        MagazaKartiDTO kart = MagazaKartiDTO.from(magaza);
+        magazaIndeksi.ifAvailable(indeks -> indeks.kaydedildi(kart));
+    }
+
+    @PostRemove
+    public void magazaSilindi(Magaza magaza) {
+        Long magazaId = magaza.getId();
+        magazaIndeksi.ifAvailable(indeks -> indeks.silindi(magazaId));
+    }
+}
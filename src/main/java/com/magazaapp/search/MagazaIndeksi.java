@@ -0,0 +1,274 @@
+package com.magazaapp.search;
+
+import com.magazaapp.dto.MagazaKartiDTO;
+import com.magazaapp.repository.MagazaRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mağaza dizini için bellek içi indeks: mağaza kartları ve üç arama yolu.
+ *
+ * - Ad indeksi: {@link MetinAnalizci} ile normalize edilmiş ad terimleri sıralı tutulur; sorgu terimi
+ *   önek olarak eşleşen terimlerin mağazalarına genişletilir, önek eşleşmesi yoksa trigram indeksinden
+ *   yazım hatası toleranslı adaylar aranır (ürün aramasıyla aynı kurallar)
+ * - Sahip indeksi: sahip id -> mağaza id'leri
+ * - Aktiflik indeksi: aktif mağazalar id sırasıyla; dizin listesi değişiklikten sonraki ilk okumada
+ *   bir kez oluşturulup sonraki okumalarda aynen döner
+ *
+ * Mağaza kayıtları {@link MagazaDinleyicisi} üzerinden commit sonrasında uygulanır, böylece mağaza
+ * yazan her yer (admin, sahip paneli, DataSeeder) ayrıca bağlanmak zorunda kalmaz. İlk kurulumdan
+ * önce okuma yapan çağıranlar {@link #hazir()} ile veritabanına dönmelidir.
+ */
+@Component
+public class MagazaIndeksi {
+
+    private final MagazaRepository magazaRepository;
+
+    private final ReentrantReadWriteLock kilit = new ReentrantReadWriteLock();
+    private final Map<Long, MagazaKartiDTO> magazalar = new HashMap<>();
+    private final TreeMap<String, Set<Long>> adTerimleri = new TreeMap<>();
+    private final TrigramIndeksi trigramIndeksi = new TrigramIndeksi();
+    private final Map<Long, TreeSet<Long>> sahipMagazalari = new HashMap<>();
+    private final TreeSet<Long> aktifIdler = new TreeSet<>();
+
+    private volatile boolean hazir;
+    // Yazmalarda sıfırlanır, ilk okumada yeniden oluşturulur
+    private volatile List<MagazaKartiDTO> aktifListe;
+
+    public MagazaIndeksi(MagazaRepository magazaRepository) {
+        this.magazaRepository = magazaRepository;
+    }
+
+    // =============== İNDEKS KURULUMU ===============
+
+    /**
+     * Tüm mağazaları tek sorguda oku. Yazma kilidi sorgu boyunca tutulur: kurulumdan önce commit
+     * olan kayıtlar sorguda görülür, sonra commit olanlar kurulumu bekleyip üzerine uygulanır.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void yenidenOlustur() {
+        long baslangic = System.currentTimeMillis();
+        kilit.writeLock().lock();
+        try {
+            magazalar.clear();
+            adTerimleri.clear();
+            trigramIndeksi.temizle();
+            sahipMagazalari.clear();
+            aktifIdler.clear();
+            for (MagazaKartiDTO magaza : magazaRepository.findMagazaKartlari()) {
+                ekle(magaza);
+            }
+            aktifListe = null;
+            hazir = true;
+        } finally {
+            kilit.writeLock().unlock();
+        }
+        System.out.println(">>> Mağaza indeksi kuruldu: " + magazalar.size() + " mağaza, "
+                + adTerimleri.size() + " terim (" + (System.currentTimeMillis() - baslangic) + " ms)");
+    }
+
+    public boolean hazir() {
+        return hazir;
+    }
+
+    // =============== ARTIMLI GÜNCELLEME ===============
+
+    /**
+     * Mağaza eklendi/güncellendi; transaction varsa commit sonrasında uygulanır
+     */
+    public void kaydedildi(MagazaKartiDTO magaza) {
+        if (magaza.id() == null) {
+            return;
+        }
+        commitSonrasi(() -> yaz(() -> {
+            MagazaKartiDTO eski = magazalar.get(magaza.id());
+            if (eski != null) {
+                cikar(eski);
+            }
+            ekle(magaza);
+        }));
+    }
+
+    public void silindi(Long magazaId) {
+        if (magazaId == null) {
+            return;
+        }
+        commitSonrasi(() -> yaz(() -> {
+            MagazaKartiDTO eski = magazalar.get(magazaId);
+            if (eski != null) {
+                cikar(eski);
+            }
+        }));
+    }
+
+    // =============== OKUMA ===============
+
+    public Optional<MagazaKartiDTO> magaza(Long magazaId) {
+        kilit.readLock().lock();
+        try {
+            return Optional.ofNullable(magazalar.get(magazaId));
+        } finally {
+            kilit.readLock().unlock();
+        }
+    }
+
+    /**
+     * Aktif mağazalar id sırasıyla; dönen liste değiştirilemez
+     */
+    public List<MagazaKartiDTO> aktifMagazalar() {
+        List<MagazaKartiDTO> liste = aktifListe;
+        if (liste != null) {
+            return liste;
+        }
+        kilit.readLock().lock();
+        try {
+            liste = aktifIdler.stream().map(magazalar::get).toList();
+            aktifListe = liste;
+            return liste;
+        } finally {
+            kilit.readLock().unlock();
+        }
+    }
+
+    public List<MagazaKartiDTO> sahibinMagazalari(Long sahipId) {
+        kilit.readLock().lock();
+        try {
+            TreeSet<Long> idler = sahipMagazalari.get(sahipId);
+            return idler == null ? List.of() : idler.stream().map(magazalar::get).toList();
+        } finally {
+            kilit.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adında sorgunun tüm terimleri (önek veya yazım hatası toleransıyla) geçen mağazalar, id sırasıyla
+     */
+    public List<MagazaKartiDTO> ara(String sorgu, boolean sadeceAktif) {
+        List<String> sorguTerimleri = MetinAnalizci.analizEt(sorgu);
+        if (sorguTerimleri.isEmpty()) {
+            return List.of();
+        }
+        kilit.readLock().lock();
+        try {
+            Set<Long> sonuc = null;
+            for (String sorguTerimi : sorguTerimleri) {
+                Set<Long> eslesenler = eslesenMagazalar(sorguTerimi);
+                if (sonuc == null) {
+                    sonuc = eslesenler;
+                } else {
+                    sonuc.retainAll(eslesenler);
+                }
+                if (sonuc.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return sonuc.stream()
+                    .filter(id -> !sadeceAktif || aktifIdler.contains(id))
+                    .map(magazalar::get)
+                    .toList();
+        } finally {
+            kilit.readLock().unlock();
+        }
+    }
+
+    public int magazaSayisi() {
+        kilit.readLock().lock();
+        try {
+            return magazalar.size();
+        } finally {
+            kilit.readLock().unlock();
+        }
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private Set<Long> eslesenMagazalar(String sorguTerimi) {
+        Set<Long> sonuc = new TreeSet<>();
+        for (Set<Long> idler : adTerimleri.subMap(sorguTerimi, true, sorguTerimi + Character.MAX_VALUE, true)
+                .values()) {
+            sonuc.addAll(idler);
+        }
+        if (sonuc.isEmpty()) {
+            for (String benzer : trigramIndeksi.benzerTerimler(sorguTerimi)) {
+                sonuc.addAll(adTerimleri.get(benzer));
+            }
+        }
+        return sonuc;
+    }
+
+    private void ekle(MagazaKartiDTO magaza) {
+        magazalar.put(magaza.id(), magaza);
+        for (String terim : new HashSet<>(MetinAnalizci.analizEt(magaza.ad()))) {
+            Set<Long> idler = adTerimleri.get(terim);
+            if (idler == null) {
+                idler = new HashSet<>();
+                adTerimleri.put(terim, idler);
+                trigramIndeksi.ekle(terim);
+            }
+            idler.add(magaza.id());
+        }
+        if (magaza.sahipId() != null) {
+            sahipMagazalari.computeIfAbsent(magaza.sahipId(), s -> new TreeSet<>()).add(magaza.id());
+        }
+        if (magaza.aktifMi()) {
+            aktifIdler.add(magaza.id());
+        }
+    }
+
+    private void cikar(MagazaKartiDTO magaza) {
+        magazalar.remove(magaza.id());
+        for (String terim : new HashSet<>(MetinAnalizci.analizEt(magaza.ad()))) {
+            Set<Long> idler = adTerimleri.get(terim);
+            if (idler != null) {
+                idler.remove(magaza.id());
+                if (idler.isEmpty()) {
+                    adTerimleri.remove(terim);
+                    trigramIndeksi.sil(terim);
+                }
+            }
+        }
+        TreeSet<Long> sahibinkiler = sahipMagazalari.get(magaza.sahipId());
+        if (sahibinkiler != null) {
+            sahibinkiler.remove(magaza.id());
+            if (sahibinkiler.isEmpty()) {
+                sahipMagazalari.remove(magaza.sahipId());
+            }
+        }
+        aktifIdler.remove(magaza.id());
+    }
+
+    /**
+     * Kurulumdan önceki değişiklikler atlanır; kurulum sorgusu onları zaten görür
+     */
+    private void yaz(Runnable islem) {
+        kilit.writeLock().lock();
+        try {
+            if (!hazir) {
+                return;
+            }
+            islem.run();
+            aktifListe = null;
+        } finally {
+            kilit.writeLock().unlock();
+        }
+    }
+
+    private static void commitSonrasi(Runnable islem) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    islem.run();
+                }
+            });
+        } else {
+            islem.run();
+        }
+    }
+}
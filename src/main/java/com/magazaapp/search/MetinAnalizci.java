@@ -0,0 +1,177 @@
+package com.magazaapp.search;
+
+import java.util.*;
+
+/**
+ * Ürün ve mağaza araması için metin analiz adımları.
+ *
+ * - Türkçe locale ile küçük harfe çevirme (I -> ı, İ -> i)
+ * - Aksan katlama: ı/i, ş/s, ğ/g, ü/u, ö/o, ç/c (ve â, î, û) aynı harfe indirgenir,
+ *   böylece "GÖMLEK", "gomlek" ve "gömlek" aynı terime düşer
+ * - Harf/rakam dışı karakterlerden bölme ve durak kelimelerin atılması
+ * - Yazım hatası toleransı için karakter trigramları ve sınırlı düzenleme mesafesi
+ */
+public final class MetinAnalizci {
+
+    private static final Locale TR = Locale.forLanguageTag("tr");
+
+    /** Trigram adayı sayılması için gereken en düşük Dice benzerliği */
+    private static final double MIN_TRIGRAM_BENZERLIGI = 0.4;
+
+    /** Bulanık eşleşme denenecek en kısa terim uzunluğu */
+    public static final int MIN_BULANIK_UZUNLUK = 3;
+
+    // Katlanmış (aksansız) halleriyle tutulur
+    private static final Set<String> DURAK_KELIMELER = Set.of(
+            "ve", "ile", "veya", "ya", "da", "de", "ki", "mi", "mu",
+            "bir", "bu", "su", "o", "icin", "gibi", "cok", "en", "daha",
+            "her", "ama", "olan", "olarak", "tum", "hem", "ne", "the", "and");
+
+    private MetinAnalizci() {
+    }
+
+    /**
+     * Küçük harf + aksan katlama uygulanmış metni döndür (bölme yapmaz)
+     */
+    public static String normalizeEt(String metin) {
+        if (metin == null) {
+            return "";
+        }
+        String kucuk = metin.toLowerCase(TR);
+        StringBuilder sb = new StringBuilder(kucuk.length());
+        for (int i = 0; i < kucuk.length(); i++) {
+            sb.append(katla(kucuk.charAt(i)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Metni indekslenecek / sorgulanacak terimlere ayır
+     */
+    public static List<String> analizEt(String metin) {
+        if (metin == null || metin.isBlank()) {
+            return List.of();
+        }
+        List<String> terimler = new ArrayList<>();
+        for (String parca : normalizeEt(metin).split("[^\\p{L}\\p{N}]+")) {
+            if (!parca.isEmpty() && !DURAK_KELIMELER.contains(parca)) {
+                terimler.add(parca);
+            }
+        }
+        return terimler;
+    }
+
+    /**
+     * Terimin sınır işaretli karakter trigramları: "kazak" -> ^ka, kaz, aza, zak, ak$
+     */
+    public static Set<String> trigramlar(String terim) {
+        String dolgulu = "^" + terim + "$";
+        Set<String> sonuc = new HashSet<>();
+        for (int i = 0; i + 3 <= dolgulu.length(); i++) {
+            sonuc.add(dolgulu.substring(i, i + 3));
+        }
+        return sonuc;
+    }
+
+    /**
+     * Ortak trigram sayısından Dice benzerliği: 2|A∩B| / (|A|+|B|)
+     */
+    public static boolean trigramAdayiMi(int ortakTrigram, int trigramA, int trigramB) {
+        return 2.0 * ortakTrigram / (trigramA + trigramB) >= MIN_TRIGRAM_BENZERLIGI;
+    }
+
+    /**
+     * Sorgu terimi ile aday terim yazım hatası sınırında mı?
+     * Kısa terimlerde 1, uzunlarda 2 düzenleme (ekleme, silme, değiştirme, yer değiştirme) kabul edilir.
+     */
+    public static boolean yazimHatasiSinirinda(String sorgu, String aday) {
+        if (sorgu.length() < MIN_BULANIK_UZUNLUK) {
+            return false;
+        }
+        int sinir = sorgu.length() <= 5 ? 1 : 2;
+        if (Math.abs(sorgu.length() - aday.length()) > sinir) {
+            return false;
+        }
+        return duzenlemeMesafesi(sorgu, aday, sinir) <= sinir;
+    }
+
+    /**
+     * Sorgu terimi adayla önek veya yazım hatası toleransıyla eşleşiyor mu?
+     * (Küçük kümelerde, ör. mağaza adlarında, doğrudan karşılaştırma için)
+     */
+    public static boolean eslesirMi(String sorguTerimi, String aday) {
+        if (aday.startsWith(sorguTerimi)) {
+            return true;
+        }
+        if (sorguTerimi.length() < MIN_BULANIK_UZUNLUK) {
+            return false;
+        }
+        if (yazimHatasiSinirinda(sorguTerimi, aday)) {
+            return true;
+        }
+        // Eksik yazılmış önek: "gmlk" -> "gomlek" gibi, adayın aynı uzunluktaki başıyla karşılaştır
+        int onekUzunlugu = Math.min(aday.length(), sorguTerimi.length() + 1);
+        return onekUzunlugu < aday.length()
+                && yazimHatasiSinirinda(sorguTerimi, aday.substring(0, onekUzunlugu));
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private static char katla(char c) {
+        switch (c) {
+            case 'ı':
+            case 'î':
+                return 'i';
+            case 'ş':
+                return 's';
+            case 'ğ':
+                return 'g';
+            case 'ü':
+            case 'û':
+                return 'u';
+            case 'ö':
+                return 'o';
+            case 'ç':
+                return 'c';
+            case 'â':
+                return 'a';
+            default:
+                return c;
+        }
+    }
+
+    /**
+     * Komşu harf yer değiştirmesini de tek adım sayan (OSA) düzenleme mesafesi.
+     * Satırın en küçük değeri sınırı aşınca erken çıkar.
+     */
+    private static int duzenlemeMesafesi(String a, String b, int sinir) {
+        int n = a.length(), m = b.length();
+        int[] ikiOnceki = new int[m + 1];
+        int[] onceki = new int[m + 1];
+        int[] simdiki = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            onceki[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            simdiki[0] = i;
+            int satirMin = simdiki[0];
+            for (int j = 1; j <= m; j++) {
+                int maliyet = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int deger = Math.min(Math.min(onceki[j] + 1, simdiki[j - 1] + 1), onceki[j - 1] + maliyet);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    deger = Math.min(deger, ikiOnceki[j - 2] + 1);
+                }
+                simdiki[j] = deger;
+                satirMin = Math.min(satirMin, deger);
+            }
+            if (satirMin > sinir) {
+                return sinir + 1;
+            }
+            int[] gecici = ikiOnceki;
+            ikiOnceki = onceki;
+            onceki = simdiki;
+            simdiki = gecici;
+        }
+        return onceki[m];
+    }
+}
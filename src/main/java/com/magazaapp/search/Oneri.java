@@ -0,0 +1,11 @@
+package com.magazaapp.search;
+
+/**
+ * Otomatik tamamlama önerisi.
+ *
+ * @param tur    urun, magaza, kategori veya altKategori
+ * @param id     önerinin işaret ettiği kayıt (aynı adlı birden fazla ürün varsa null)
+ * @param agirlik popülerlik ağırlığı (sipariş + favori)
+ */
+public record Oneri(String metin, String tur, Long id, long agirlik) {
+}
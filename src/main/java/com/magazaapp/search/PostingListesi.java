@@ -0,0 +1,141 @@
+package com.magazaapp.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bir terimi içeren ürün id'lerinin sıralı listesi.
+ * Kutulama yapmamak için long[] üzerinde tutulur; ekleme/silme ikili arama ile yapılır,
+ * kesişim sıralı birleştirme (merge) ile doğrusal zamanda, çok listeli birleşim k-yollu merge ile hesaplanır.
+ */
+final class PostingListesi {
+
+    private static final long[] BOS = new long[0];
+
+    private long[] idler = new long[4];
+    private int boyut;
+
+    boolean ekle(long id) {
+        int konum = Arrays.binarySearch(idler, 0, boyut, id);
+        if (konum >= 0) {
+            return false;
+        }
+        int eklemeNoktasi = -konum - 1;
+        if (boyut == idler.length) {
+            idler = Arrays.copyOf(idler, boyut * 2);
+        }
+        System.arraycopy(idler, eklemeNoktasi, idler, eklemeNoktasi + 1, boyut - eklemeNoktasi);
+        idler[eklemeNoktasi] = id;
+        boyut++;
+        return true;
+    }
+
+    boolean sil(long id) {
+        int konum = Arrays.binarySearch(idler, 0, boyut, id);
+        if (konum < 0) {
+            return false;
+        }
+        System.arraycopy(idler, konum + 1, idler, konum, boyut - konum - 1);
+        boyut--;
+        return true;
+    }
+
+    boolean bosMu() {
+        return boyut == 0;
+    }
+
+    int boyut() {
+        return boyut;
+    }
+
+    long[] diziyeCevir() {
+        return boyut == 0 ? BOS : Arrays.copyOf(idler, boyut);
+    }
+
+    // =============== SIRALI KÜME İŞLEMLERİ ===============
+
+    static long[] kesisim(long[] a, long[] b) {
+        long[] sonuc = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                sonuc[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return k == sonuc.length ? sonuc : Arrays.copyOf(sonuc, k);
+    }
+
+    /**
+     * Listelerin birleşimi tek geçişte: her listenin sıradaki id'si küçükten büyüğe bir yığında
+     * tutulur (k-yollu merge), toplam N id için O(N log k). Listeleri ikişer ikişer birleştirmek
+     * birikmiş sonucu her adımda yeniden kopyaladığı için önek genişlemelerinde karesel büyürdü.
+     */
+    static long[] birlesim(List<PostingListesi> listeler) {
+        if (listeler.size() == 1) {
+            return listeler.get(0).diziyeCevir();
+        }
+        int toplam = 0;
+        int[] yigin = new int[listeler.size()];
+        int yiginBoyutu = 0;
+        for (int l = 0; l < listeler.size(); l++) {
+            toplam += listeler.get(l).boyut;
+            if (listeler.get(l).boyut > 0) {
+                yigin[yiginBoyutu++] = l;
+            }
+        }
+        if (toplam == 0) {
+            return BOS;
+        }
+
+        int[] konumlar = new int[listeler.size()];
+        for (int i = yiginBoyutu / 2 - 1; i >= 0; i--) {
+            asagiIt(yigin, yiginBoyutu, i, listeler, konumlar);
+        }
+        long[] sonuc = new long[toplam];
+        int k = 0;
+        while (yiginBoyutu > 0) {
+            int l = yigin[0];
+            PostingListesi liste = listeler.get(l);
+            long id = liste.idler[konumlar[l]];
+            if (k == 0 || sonuc[k - 1] != id) {
+                sonuc[k++] = id;
+            }
+            if (++konumlar[l] == liste.boyut) {
+                yigin[0] = yigin[--yiginBoyutu];
+            }
+            asagiIt(yigin, yiginBoyutu, 0, listeler, konumlar);
+        }
+        return k == sonuc.length ? sonuc : Arrays.copyOf(sonuc, k);
+    }
+
+    private static void asagiIt(int[] yigin, int boyut, int i, List<PostingListesi> listeler, int[] konumlar) {
+        while (true) {
+            int enKucuk = i;
+            int sol = 2 * i + 1;
+            int sag = sol + 1;
+            if (sol < boyut && bas(yigin[sol], listeler, konumlar) < bas(yigin[enKucuk], listeler, konumlar)) {
+                enKucuk = sol;
+            }
+            if (sag < boyut && bas(yigin[sag], listeler, konumlar) < bas(yigin[enKucuk], listeler, konumlar)) {
+                enKucuk = sag;
+            }
+            if (enKucuk == i) {
+                return;
+            }
+            int gecici = yigin[i];
+            yigin[i] = yigin[enKucuk];
+            yigin[enKucuk] = gecici;
+            i = enKucuk;
+        }
+    }
+
+    private static long bas(int l, List<PostingListesi> listeler, int[] konumlar) {
+        return listeler.get(l).idler[konumlar[l]];
+    }
+}
@@ -0,0 +1,78 @@
+package com.magazaapp.search;
+
+import java.util.*;
+
+/**
+ * Space-saving algoritmasıyla en sık görülen anahtarlar (heavy hitters): sabit sayıda sayaç tutulur,
+ * sayaçlar dolunca en küçük sayaç yeni anahtara devredilir. Gerçek sayısı kapasiteye göre yeterince
+ * büyük olan her anahtar listede bulunur; tahmin gerçek sayıyı en fazla {@code hata} kadar aşar.
+ *
+ * Thread-safe değildir; çağıran senkronize etmelidir (bkz. {@link AramaAnalitigi}).
+ */
+public final class SikGecenlerSayaci {
+
+    private final int kapasite;
+    private final Map<String, Sayac> sayaclar = new HashMap<>();
+    // (tahmin, anahtar) sıralı: ilk eleman en küçük sayaç
+    private final TreeSet<Sayac> sirali = new TreeSet<>(
+            Comparator.comparingLong((Sayac s) -> s.tahmin).thenComparing(s -> s.anahtar));
+
+    SikGecenlerSayaci(int kapasite) {
+        this.kapasite = kapasite;
+    }
+
+    void ekle(String anahtar, long agirlik) {
+        if (agirlik <= 0) {
+            return;
+        }
+        Sayac sayac = sayaclar.get(anahtar);
+        if (sayac != null) {
+            sirali.remove(sayac);
+            sayac.tahmin += agirlik;
+            sirali.add(sayac);
+            return;
+        }
+        if (sayaclar.size() < kapasite) {
+            sayac = new Sayac(anahtar, agirlik, 0);
+        } else {
+            Sayac enKucuk = sirali.pollFirst();
+            sayaclar.remove(enKucuk.anahtar);
+            sayac = new Sayac(anahtar, enKucuk.tahmin + agirlik, enKucuk.tahmin);
+        }
+        sayaclar.put(anahtar, sayac);
+        sirali.add(sayac);
+    }
+
+    /**
+     * Tahmini en büyükten başlayarak ilk n anahtar
+     */
+    List<SikGecen> enCok(int n) {
+        List<SikGecen> sonuc = new ArrayList<>(Math.min(n, sirali.size()));
+        for (Sayac sayac : sirali.descendingSet()) {
+            if (sonuc.size() >= n) {
+                break;
+            }
+            sonuc.add(new SikGecen(sayac.anahtar, sayac.tahmin, sayac.hata));
+        }
+        return sonuc;
+    }
+
+    private static final class Sayac {
+        final String anahtar;
+        long tahmin;
+        final long hata;
+
+        Sayac(String anahtar, long tahmin, long hata) {
+            this.anahtar = anahtar;
+            this.tahmin = tahmin;
+            this.hata = hata;
+        }
+    }
+
+    /**
+     * @param tahmin gerçek sayının üst sınırı
+     * @param hata   tahminin en fazla bu kadar fazla olabileceği (gerçek sayı ≥ tahmin - hata)
+     */
+    public record SikGecen(String sorgu, long tahmin, long hata) {
+    }
+}
@@ -0,0 +1,490 @@
+package com.magazaapp.search;
+
+import java.util.Arrays;
+
+/**
+ * Roaring tarzı sıkıştırılmış bitmap (negatif olmayan int değerler için).
+ *
+ * Değerin üst 16 biti bir kabı (container) seçer, alt 16 bit kabın içinde tutulur.
+ * Seyrek kaplar sıralı char[] dizisi, yoğun kaplar (4096'dan fazla değer) 1024 long'luk
+ * bit dizisi olarak saklanır. Böylece hem birkaç yüz ürünlük mağaza hem de yüz binlerce
+ * ürünlük "Kadın" kategorisi az bellekle tutulur ve kesişimler kelime düzeyinde yapılır.
+ *
+ * Sınıf thread-safe değildir; eşzamanlılık sahibi olan indeks tarafından sağlanır.
+ */
+public final class SikistirilmisBitmap {
+
+    private static final int DIZI_SINIRI = 4096;
+
+    private char[] anahtarlar = new char[4];
+    private Kap[] kaplar = new Kap[4];
+    private int boyut;
+
+    // =============== TEKİL İŞLEMLER ===============
+
+    public boolean ekle(int deger) {
+        char anahtar = (char) (deger >>> 16);
+        int konum = anahtarBul(anahtar);
+        if (konum < 0) {
+            konum = -konum - 1;
+            kapEkle(konum, anahtar, new DiziKap());
+        }
+        Kap kap = kaplar[konum];
+        int onceki = kap.kardinalite();
+        kaplar[konum] = kap.ekle((char) deger);
+        return kaplar[konum].kardinalite() > onceki;
+    }
+
+    public boolean sil(int deger) {
+        int konum = anahtarBul((char) (deger >>> 16));
+        if (konum < 0) {
+            return false;
+        }
+        Kap kap = kaplar[konum];
+        int onceki = kap.kardinalite();
+        Kap yeni = kap.sil((char) deger);
+        if (yeni.kardinalite() == 0) {
+            kapSil(konum);
+        } else {
+            kaplar[konum] = yeni;
+        }
+        return yeni.kardinalite() < onceki;
+    }
+
+    public boolean icerir(int deger) {
+        int konum = anahtarBul((char) (deger >>> 16));
+        return konum >= 0 && kaplar[konum].icerir((char) deger);
+    }
+
+    public int kardinalite() {
+        int toplam = 0;
+        for (int i = 0; i < boyut; i++) {
+            toplam += kaplar[i].kardinalite();
+        }
+        return toplam;
+    }
+
+    public boolean bosMu() {
+        return boyut == 0;
+    }
+
+    // =============== KÜME İŞLEMLERİ ===============
+
+    public SikistirilmisBitmap ve(SikistirilmisBitmap diger) {
+        SikistirilmisBitmap sonuc = new SikistirilmisBitmap();
+        int i = 0, j = 0;
+        while (i < boyut && j < diger.boyut) {
+            char a = anahtarlar[i], b = diger.anahtarlar[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                Kap kesisim = kaplar[i].ve(diger.kaplar[j]);
+                if (kesisim.kardinalite() > 0) {
+                    sonuc.kapEkle(sonuc.boyut, a, kesisim);
+                }
+                i++;
+                j++;
+            }
+        }
+        return sonuc;
+    }
+
+    /**
+     * Kesişimi oluşturmadan yalnızca eleman sayısını hesapla (facet sayımları için)
+     */
+    public int veKardinalitesi(SikistirilmisBitmap diger) {
+        int toplam = 0;
+        int i = 0, j = 0;
+        while (i < boyut && j < diger.boyut) {
+            char a = anahtarlar[i], b = diger.anahtarlar[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                toplam += kaplar[i].veKardinalitesi(diger.kaplar[j]);
+                i++;
+                j++;
+            }
+        }
+        return toplam;
+    }
+
+    public SikistirilmisBitmap veya(SikistirilmisBitmap diger) {
+        SikistirilmisBitmap sonuc = new SikistirilmisBitmap();
+        int i = 0, j = 0;
+        while (i < boyut || j < diger.boyut) {
+            if (j >= diger.boyut || (i < boyut && anahtarlar[i] < diger.anahtarlar[j])) {
+                sonuc.kapEkle(sonuc.boyut, anahtarlar[i], kaplar[i].kopya());
+                i++;
+            } else if (i >= boyut || anahtarlar[i] > diger.anahtarlar[j]) {
+                sonuc.kapEkle(sonuc.boyut, diger.anahtarlar[j], diger.kaplar[j].kopya());
+                j++;
+            } else {
+                sonuc.kapEkle(sonuc.boyut, anahtarlar[i], kaplar[i].veya(diger.kaplar[j]));
+                i++;
+                j++;
+            }
+        }
+        return sonuc;
+    }
+
+    public SikistirilmisBitmap kopya() {
+        SikistirilmisBitmap sonuc = new SikistirilmisBitmap();
+        sonuc.anahtarlar = Arrays.copyOf(anahtarlar, Math.max(boyut, 4));
+        sonuc.kaplar = new Kap[sonuc.anahtarlar.length];
+        for (int i = 0; i < boyut; i++) {
+            sonuc.kaplar[i] = kaplar[i].kopya();
+        }
+        sonuc.boyut = boyut;
+        return sonuc;
+    }
+
+    /**
+     * Değerleri artan sırada döndür
+     */
+    public int[] diziyeCevir() {
+        int[] sonuc = new int[kardinalite()];
+        int k = 0;
+        for (int i = 0; i < boyut; i++) {
+            k = kaplar[i].yaz(anahtarlar[i] << 16, sonuc, k);
+        }
+        return sonuc;
+    }
+
+    // =============== KAP DİZİSİ YÖNETİMİ ===============
+
+    private int anahtarBul(char anahtar) {
+        int alt = 0, ust = boyut - 1;
+        while (alt <= ust) {
+            int orta = (alt + ust) >>> 1;
+            if (anahtarlar[orta] < anahtar) {
+                alt = orta + 1;
+            } else if (anahtarlar[orta] > anahtar) {
+                ust = orta - 1;
+            } else {
+                return orta;
+            }
+        }
+        return -(alt + 1);
+    }
+
+    private void kapEkle(int konum, char anahtar, Kap kap) {
+        if (boyut == anahtarlar.length) {
+            anahtarlar = Arrays.copyOf(anahtarlar, boyut * 2);
+            kaplar = Arrays.copyOf(kaplar, boyut * 2);
+        }
+        System.arraycopy(anahtarlar, konum, anahtarlar, konum + 1, boyut - konum);
+        System.arraycopy(kaplar, konum, kaplar, konum + 1, boyut - konum);
+        anahtarlar[konum] = anahtar;
+        kaplar[konum] = kap;
+        boyut++;
+    }
+
+    private void kapSil(int konum) {
+        System.arraycopy(anahtarlar, konum + 1, anahtarlar, konum, boyut - konum - 1);
+        System.arraycopy(kaplar, konum + 1, kaplar, konum, boyut - konum - 1);
+        boyut--;
+        kaplar[boyut] = null;
+    }
+
+    // =============== KAPLAR ===============
+
+    private abstract static class Kap {
+        abstract int kardinalite();
+
+        abstract boolean icerir(char deger);
+
+        abstract Kap ekle(char deger);
+
+        abstract Kap sil(char deger);
+
+        abstract Kap ve(Kap diger);
+
+        abstract int veKardinalitesi(Kap diger);
+
+        abstract Kap veya(Kap diger);
+
+        abstract Kap kopya();
+
+        abstract int yaz(int ust, int[] hedef, int konum);
+    }
+
+    /** Seyrek kap: sıralı char dizisi */
+    private static final class DiziKap extends Kap {
+        private char[] degerler;
+        private int kard;
+
+        DiziKap() {
+            this(new char[4], 0);
+        }
+
+        DiziKap(char[] degerler, int kard) {
+            this.degerler = degerler;
+            this.kard = kard;
+        }
+
+        @Override
+        int kardinalite() {
+            return kard;
+        }
+
+        @Override
+        boolean icerir(char deger) {
+            return Arrays.binarySearch(degerler, 0, kard, deger) >= 0;
+        }
+
+        @Override
+        Kap ekle(char deger) {
+            int konum = Arrays.binarySearch(degerler, 0, kard, deger);
+            if (konum >= 0) {
+                return this;
+            }
+            if (kard >= DIZI_SINIRI) {
+                return bitKapaCevir().ekle(deger);
+            }
+            konum = -konum - 1;
+            if (kard == degerler.length) {
+                degerler = Arrays.copyOf(degerler, Math.max(4, Math.min(kard * 2, DIZI_SINIRI)));
+            }
+            System.arraycopy(degerler, konum, degerler, konum + 1, kard - konum);
+            degerler[konum] = deger;
+            kard++;
+            return this;
+        }
+
+        @Override
+        Kap sil(char deger) {
+            int konum = Arrays.binarySearch(degerler, 0, kard, deger);
+            if (konum >= 0) {
+                System.arraycopy(degerler, konum + 1, degerler, konum, kard - konum - 1);
+                kard--;
+            }
+            return this;
+        }
+
+        @Override
+        Kap ve(Kap diger) {
+            char[] sonuc = new char[Math.min(kard, diger.kardinalite())];
+            int k = 0;
+            if (diger instanceof DiziKap d) {
+                int i = 0, j = 0;
+                while (i < kard && j < d.kard) {
+                    if (degerler[i] < d.degerler[j]) {
+                        i++;
+                    } else if (degerler[i] > d.degerler[j]) {
+                        j++;
+                    } else {
+                        sonuc[k++] = degerler[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < kard; i++) {
+                    if (diger.icerir(degerler[i])) {
+                        sonuc[k++] = degerler[i];
+                    }
+                }
+            }
+            return new DiziKap(sonuc, k);
+        }
+
+        @Override
+        int veKardinalitesi(Kap diger) {
+            int k = 0;
+            if (diger instanceof DiziKap d) {
+                int i = 0, j = 0;
+                while (i < kard && j < d.kard) {
+                    if (degerler[i] < d.degerler[j]) {
+                        i++;
+                    } else if (degerler[i] > d.degerler[j]) {
+                        j++;
+                    } else {
+                        k++;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < kard; i++) {
+                    if (diger.icerir(degerler[i])) {
+                        k++;
+                    }
+                }
+            }
+            return k;
+        }
+
+        @Override
+        Kap veya(Kap diger) {
+            if (diger instanceof BitKap) {
+                return diger.veya(this);
+            }
+            DiziKap d = (DiziKap) diger;
+            char[] sonuc = new char[kard + d.kard];
+            int i = 0, j = 0, k = 0;
+            while (i < kard || j < d.kard) {
+                if (j >= d.kard || (i < kard && degerler[i] < d.degerler[j])) {
+                    sonuc[k++] = degerler[i++];
+                } else if (i >= kard || degerler[i] > d.degerler[j]) {
+                    sonuc[k++] = d.degerler[j++];
+                } else {
+                    sonuc[k++] = degerler[i];
+                    i++;
+                    j++;
+                }
+            }
+            DiziKap birlesim = new DiziKap(sonuc, k);
+            return k > DIZI_SINIRI ? birlesim.bitKapaCevir() : birlesim;
+        }
+
+        @Override
+        Kap kopya() {
+            return new DiziKap(Arrays.copyOf(degerler, Math.max(kard, 4)), kard);
+        }
+
+        @Override
+        int yaz(int ust, int[] hedef, int konum) {
+            for (int i = 0; i < kard; i++) {
+                hedef[konum++] = ust | degerler[i];
+            }
+            return konum;
+        }
+
+        BitKap bitKapaCevir() {
+            BitKap bitKap = new BitKap();
+            for (int i = 0; i < kard; i++) {
+                bitKap.ekle(degerler[i]);
+            }
+            return bitKap;
+        }
+    }
+
+    /** Yoğun kap: 65536 bitlik dizi */
+    private static final class BitKap extends Kap {
+        private final long[] kelimeler;
+        private int kard;
+
+        BitKap() {
+            this(new long[1024], 0);
+        }
+
+        BitKap(long[] kelimeler, int kard) {
+            this.kelimeler = kelimeler;
+            this.kard = kard;
+        }
+
+        @Override
+        int kardinalite() {
+            return kard;
+        }
+
+        @Override
+        boolean icerir(char deger) {
+            return (kelimeler[deger >>> 6] & (1L << deger)) != 0;
+        }
+
+        @Override
+        Kap ekle(char deger) {
+            long onceki = kelimeler[deger >>> 6];
+            long yeni = onceki | (1L << deger);
+            if (yeni != onceki) {
+                kelimeler[deger >>> 6] = yeni;
+                kard++;
+            }
+            return this;
+        }
+
+        @Override
+        Kap sil(char deger) {
+            long onceki = kelimeler[deger >>> 6];
+            long yeni = onceki & ~(1L << deger);
+            if (yeni != onceki) {
+                kelimeler[deger >>> 6] = yeni;
+                kard--;
+            }
+            return kard <= DIZI_SINIRI ? diziKapaCevir() : this;
+        }
+
+        @Override
+        Kap ve(Kap diger) {
+            if (diger instanceof DiziKap) {
+                return diger.ve(this);
+            }
+            long[] sonuc = new long[1024];
+            long[] digerKelimeler = ((BitKap) diger).kelimeler;
+            int k = 0;
+            for (int i = 0; i < 1024; i++) {
+                sonuc[i] = kelimeler[i] & digerKelimeler[i];
+                k += Long.bitCount(sonuc[i]);
+            }
+            BitKap kesisim = new BitKap(sonuc, k);
+            return k <= DIZI_SINIRI ? kesisim.diziKapaCevir() : kesisim;
+        }
+
+        @Override
+        int veKardinalitesi(Kap diger) {
+            if (diger instanceof DiziKap) {
+                return diger.veKardinalitesi(this);
+            }
+            long[] digerKelimeler = ((BitKap) diger).kelimeler;
+            int k = 0;
+            for (int i = 0; i < 1024; i++) {
+                k += Long.bitCount(kelimeler[i] & digerKelimeler[i]);
+            }
+            return k;
+        }
+
+        @Override
+        Kap veya(Kap diger) {
+            BitKap sonuc = (BitKap) kopya();
+            if (diger instanceof DiziKap d) {
+                for (int i = 0; i < d.kard; i++) {
+                    sonuc.ekle(d.degerler[i]);
+                }
+                return sonuc;
+            }
+            long[] digerKelimeler = ((BitKap) diger).kelimeler;
+            int k = 0;
+            for (int i = 0; i < 1024; i++) {
+                sonuc.kelimeler[i] |= digerKelimeler[i];
+                k += Long.bitCount(sonuc.kelimeler[i]);
+            }
+            sonuc.kard = k;
+            return sonuc;
+        }
+
+        @Override
+        Kap kopya() {
+            return new BitKap(kelimeler.clone(), kard);
+        }
+
+        @Override
+        int yaz(int ust, int[] hedef, int konum) {
+            for (int i = 0; i < 1024; i++) {
+                long kelime = kelimeler[i];
+                while (kelime != 0) {
+                    hedef[konum++] = ust | (i << 6) | Long.numberOfTrailingZeros(kelime);
+                    kelime &= kelime - 1;
+                }
+            }
+            return konum;
+        }
+
+        DiziKap diziKapaCevir() {
+            char[] degerler = new char[kard];
+            int k = 0;
+            for (int i = 0; i < 1024; i++) {
+                long kelime = kelimeler[i];
+                while (kelime != 0) {
+                    degerler[k++] = (char) ((i << 6) | Long.numberOfTrailingZeros(kelime));
+                    kelime &= kelime - 1;
+                }
+            }
+            return new DiziKap(degerler, kard);
+        }
+    }
+}
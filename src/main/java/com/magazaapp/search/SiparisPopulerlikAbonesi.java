@@ -0,0 +1,40 @@
+package com.magazaapp.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.magazaapp.checkout.SiparisOlusturuldu;
+import com.magazaapp.outbox.Olay;
+import com.magazaapp.outbox.OlayAbonesi;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Verilen siparişlerin ürünlerini öneri (autocomplete) sıralamasında yukarı taşır.
+ *
+ * Sayaçlar yaklaşıktır: tekrar iletilen bir olay aynı satışı iki kez sayabilir. İndeks yeniden
+ * kurulduğunda popülerlik zaten veritabanındaki satış adetlerinden baştan hesaplanır.
+ */
+@Component
+public class SiparisPopulerlikAbonesi implements OlayAbonesi {
+
+    private final UrunOneriIndeksi urunOneriIndeksi;
+    private final ObjectMapper objectMapper;
+
+    public SiparisPopulerlikAbonesi(UrunOneriIndeksi urunOneriIndeksi, ObjectMapper objectMapper) {
+        this.urunOneriIndeksi = urunOneriIndeksi;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Set<String> turler() {
+        return Set.of(SiparisOlusturuldu.TUR);
+    }
+
+    @Override
+    public void isle(Olay olay) throws Exception {
+        SiparisOlusturuldu siparis = objectMapper.readValue(olay.veri(), SiparisOlusturuldu.class);
+        for (SiparisOlusturuldu.Satir satir : siparis.satirlar()) {
+            urunOneriIndeksi.satisEklendi(satir.urunId(), satir.adet());
+        }
+    }
+}
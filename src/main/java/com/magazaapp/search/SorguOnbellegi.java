@@ -0,0 +1,270 @@
+package com.magazaapp.search;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Arama ve facet filtre sonuçları için sınırlı sorgu sonucu önbelleği.
+ *
+ * Anahtar, normalize edilmiş sorgu terimleri (veya normalize edilmiş filtre) ile offset/limit'tir;
+ * "Elbise " ve "elbise" aynı kaydı kullanır. Kayıtlar en son kullanılma sırasıyla tutulur ve
+ * hem kayıt sayısı hem toplam ağırlık (sonuçtaki id + facet değeri sayısı) sınırını aşınca en eskiler
+ * atılır; her kaydın ayrıca bir yaşam süresi vardır.
+ *
+ * Geçersizleştirme {@link UrunAramaIndeksi} üzerinden gelir, dolayısıyla ürünü kaydeden/aktif-pasif
+ * yapan her yer (servis, sahip ve admin API'leri) kapsanır. Değişen ürünün eski ve yeni hali için
+ * yalnızca etkilenebilecek kayıtlar silinir:
+ * - arama: sorgu terimlerinden biri ürünün bir terimiyle (önek/yazım hatası toleransıyla) eşleşiyorsa
+ * - filtre: ürün filtre kriterlerinden en fazla birine uymuyorsa (facet sayımları o kriter
+ *   hariç tutularak hesaplandığı için tek kriteri tutmayan ürün de sayımları değiştirir)
+ * Sorguyla hiç eşleşmeyen ürünlerin BM25 istatistiklerine (ortalama alan uzunluğu) küçük etkisi
+ * yaşam süresiyle sınırlıdır.
+ */
+@Component
+public class SorguOnbellegi implements UrunIndeksDinleyicisi {
+
+    static final int MAKS_KAYIT = 2_000;
+    static final long MAKS_AGIRLIK = 500_000;
+    static final long YASAM_SURESI_NS = 5L * 60 * 1_000_000_000;
+
+    private final LinkedHashMap<Anahtar, Kayit> kayitlar = new LinkedHashMap<>(256, 0.75f, true);
+    private long toplamAgirlik;
+
+    /**
+     * Her ürün değişikliğinin başında ve sonunda artar; hesaplama sürerken değişiklik olduysa sonuç
+     * saklanmaz. Sonda da artması, diğer dinleyiciler (ör. facet indeksi) henüz güncellenmeden
+     * başlamış bir hesaplamanın eski sonucu önbelleğe yazmasını engeller.
+     */
+    private long nesil;
+
+    private final LongAdder isabet = new LongAdder();
+    private final LongAdder iskalama = new LongAdder();
+    private final LongAdder tahliye = new LongAdder();
+    private final LongAdder suresiDolan = new LongAdder();
+    private final LongAdder gecersizlestirme = new LongAdder();
+
+    // =============== OKUMA ===============
+
+    public AramaSonucu arama(String sorgu, int offset, int limit, Supplier<AramaSonucu> hesapla) {
+        List<String> terimler = MetinAnalizci.analizEt(sorgu);
+        Anahtar anahtar = new Anahtar(String.join(" ", terimler), null, offset, limit);
+        return getir(anahtar, terimler, hesapla, sonuc -> 1 + sonuc.urunIdleri().size());
+    }
+
+    public FacetSonucu filtre(UrunFiltresi filtre, int offset, int limit, Supplier<FacetSonucu> hesapla) {
+        Anahtar anahtar = new Anahtar(null, normalizeEt(filtre), offset, limit);
+        return getir(anahtar, List.of(), hesapla, sonuc -> 1 + sonuc.urunIdleri().size()
+                + sonuc.facetler().values().stream().mapToInt(List::size).sum());
+    }
+
+    private <T> T getir(Anahtar anahtar, List<String> terimler, Supplier<T> hesapla,
+            ToIntFunction<T> agirlikHesabi) {
+        long baslangicNesli;
+        synchronized (this) {
+            Kayit kayit = kayitlar.get(anahtar);
+            if (kayit != null) {
+                if (System.nanoTime() - kayit.olusturma() < YASAM_SURESI_NS) {
+                    isabet.increment();
+                    @SuppressWarnings("unchecked")
+                    T deger = (T) kayit.deger();
+                    return deger;
+                }
+                kaydiSil(anahtar);
+                suresiDolan.increment();
+            }
+            baslangicNesli = nesil;
+        }
+        iskalama.increment();
+
+        // Hesaplama kilit dışında (indeksin okuma kilidiyle) yapılır
+        T deger = hesapla.get();
+        int agirlik = agirlikHesabi.applyAsInt(deger);
+        if (agirlik > MAKS_AGIRLIK / 10) {
+            return deger;
+        }
+        synchronized (this) {
+            if (nesil == baslangicNesli) {
+                Kayit eski = kayitlar.put(anahtar, new Kayit(deger, agirlik, System.nanoTime(), terimler));
+                if (eski != null) {
+                    toplamAgirlik -= eski.agirlik();
+                }
+                toplamAgirlik += agirlik;
+                sinirlariUygula();
+            }
+        }
+        return deger;
+    }
+
+    public Istatistik istatistik() {
+        int kayitSayisi;
+        long agirlik;
+        synchronized (this) {
+            kayitSayisi = kayitlar.size();
+            agirlik = toplamAgirlik;
+        }
+        return new Istatistik(isabet.sum(), iskalama.sum(), tahliye.sum(), suresiDolan.sum(),
+                gecersizlestirme.sum(), kayitSayisi, agirlik);
+    }
+
+    // =============== GEÇERSİZLEŞTİRME (arama indeksinden) ===============
+
+    @Override
+    public void dokumanEklendi(UrunDokumani dokuman) {
+        gecersizlestir(dokuman);
+    }
+
+    @Override
+    public void dokumanSilindi(UrunDokumani dokuman) {
+        gecersizlestir(dokuman);
+    }
+
+    @Override
+    public synchronized void degisiklikUygulandi() {
+        nesil++;
+    }
+
+    @Override
+    public synchronized void indeksTemizlendi() {
+        nesil++;
+        gecersizlestirme.add(kayitlar.size());
+        kayitlar.clear();
+        toplamAgirlik = 0;
+    }
+
+    /**
+     * Toplu değişiklikte önbellek bir kez taranır; terimler tüm dokümanlardan birleştirilir
+     */
+    @Override
+    public void dokumanlarDegisti(List<UrunDokumani> eskiler, List<UrunDokumani> yeniler) {
+        List<UrunDokumani> tumu = new ArrayList<>(eskiler.size() + yeniler.size());
+        tumu.addAll(eskiler);
+        tumu.addAll(yeniler);
+        gecersizlestir(tumu);
+    }
+
+    private void gecersizlestir(UrunDokumani dokuman) {
+        gecersizlestir(List.of(dokuman));
+    }
+
+    private synchronized void gecersizlestir(List<UrunDokumani> dokumanlar) {
+        nesil++;
+        if (kayitlar.isEmpty()) {
+            return;
+        }
+        Set<String> dokumanTerimleri = new HashSet<>();
+        for (UrunDokumani dokuman : dokumanlar) {
+            for (String alan : dokuman.metinAlanlari()) {
+                dokumanTerimleri.addAll(MetinAnalizci.analizEt(alan));
+            }
+        }
+        Iterator<Map.Entry<Anahtar, Kayit>> it = kayitlar.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Anahtar, Kayit> giris = it.next();
+            UrunFiltresi filtre = giris.getKey().filtre();
+            boolean etkilenir = filtre != null
+                    ? dokumanlar.stream().anyMatch(dokuman -> uymayanKriterSayisi(filtre, dokuman) <= 1)
+                    : terimEslesir(giris.getValue().terimler(), dokumanTerimleri);
+            if (etkilenir) {
+                toplamAgirlik -= giris.getValue().agirlik();
+                it.remove();
+                gecersizlestirme.increment();
+            }
+        }
+    }
+
+    private static boolean terimEslesir(List<String> sorguTerimleri, Set<String> dokumanTerimleri) {
+        for (String sorguTerimi : sorguTerimleri) {
+            for (String terim : dokumanTerimleri) {
+                if (MetinAnalizci.eslesirMi(sorguTerimi, terim)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int uymayanKriterSayisi(UrunFiltresi filtre, UrunDokumani dokuman) {
+        int uymayan = 0;
+        if (filtre.magazaId() != null && !filtre.magazaId().equals(dokuman.magazaId())) {
+            uymayan++;
+        }
+        if (filtre.kategoriId() != null && !filtre.kategoriId().equals(dokuman.kategoriId())) {
+            uymayan++;
+        }
+        if (filtre.altKategoriId() != null && !filtre.altKategoriId().equals(dokuman.altKategoriId())) {
+            uymayan++;
+        }
+        if (filtre.sezon() != null && filtre.sezon() != dokuman.sezon()) {
+            uymayan++;
+        }
+        if (filtre.renk() != null && (dokuman.renk() == null
+                || !filtre.renk().equals(MetinAnalizci.normalizeEt(dokuman.renk()).trim()))) {
+            uymayan++;
+        }
+        if (filtre.minFiyat() != null || filtre.maxFiyat() != null) {
+            BigDecimal fiyat = dokuman.fiyat();
+            if (fiyat == null
+                    || (filtre.minFiyat() != null && fiyat.compareTo(filtre.minFiyat()) < 0)
+                    || (filtre.maxFiyat() != null && fiyat.compareTo(filtre.maxFiyat()) > 0)) {
+                uymayan++;
+            }
+        }
+        return uymayan;
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private void sinirlariUygula() {
+        Iterator<Map.Entry<Anahtar, Kayit>> it = kayitlar.entrySet().iterator();
+        while ((kayitlar.size() > MAKS_KAYIT || toplamAgirlik > MAKS_AGIRLIK) && it.hasNext()) {
+            toplamAgirlik -= it.next().getValue().agirlik();
+            it.remove();
+            tahliye.increment();
+        }
+    }
+
+    private void kaydiSil(Anahtar anahtar) {
+        Kayit kayit = kayitlar.remove(anahtar);
+        if (kayit != null) {
+            toplamAgirlik -= kayit.agirlik();
+        }
+    }
+
+    /**
+     * Aynı filtrenin farklı yazımları tek anahtara düşsün: renk normalize edilir, fiyatlardaki
+     * gereksiz sıfırlar atılır ("100.00" = "100")
+     */
+    private static UrunFiltresi normalizeEt(UrunFiltresi filtre) {
+        String renk = filtre.renk() == null || filtre.renk().isBlank()
+                ? null : MetinAnalizci.normalizeEt(filtre.renk()).trim();
+        return new UrunFiltresi(filtre.magazaId(), filtre.kategoriId(), filtre.altKategoriId(), filtre.sezon(),
+                renk, fiyat(filtre.minFiyat()), fiyat(filtre.maxFiyat()));
+    }
+
+    private static BigDecimal fiyat(BigDecimal fiyat) {
+        return fiyat == null ? null : fiyat.stripTrailingZeros();
+    }
+
+    private record Anahtar(String sorgu, UrunFiltresi filtre, int offset, int limit) {
+    }
+
+    private record Kayit(Object deger, int agirlik, long olusturma, List<String> terimler) {
+    }
+
+    /**
+     * Önbellek sayaçları (uygulama açıldığından beri)
+     */
+    public record Istatistik(long isabet, long iskalama, long tahliye, long suresiDolan,
+            long gecersizlestirme, int kayitSayisi, long toplamAgirlik) {
+
+        public double isabetOrani() {
+            long toplam = isabet + iskalama;
+            return toplam == 0 ? 0 : (double) isabet / toplam;
+        }
+    }
+}
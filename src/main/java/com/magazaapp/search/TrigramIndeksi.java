@@ -0,0 +1,64 @@
+package com.magazaapp.search;
+
+import java.util.*;
+
+/**
+ * Terim sözlüğü üzerinde trigram -> terim indeksi.
+ * Yazım hatalı bir sorgu terimine yakın terimleri, tüm sözlüğü taramadan
+ * yalnızca ortak trigramı olan terimler arasından bulur.
+ */
+final class TrigramIndeksi {
+
+    private final Map<String, Set<String>> trigramTerimleri = new HashMap<>();
+
+    void ekle(String terim) {
+        for (String trigram : MetinAnalizci.trigramlar(terim)) {
+            trigramTerimleri.computeIfAbsent(trigram, t -> new HashSet<>()).add(terim);
+        }
+    }
+
+    void sil(String terim) {
+        for (String trigram : MetinAnalizci.trigramlar(terim)) {
+            Set<String> terimler = trigramTerimleri.get(trigram);
+            if (terimler != null) {
+                terimler.remove(terim);
+                if (terimler.isEmpty()) {
+                    trigramTerimleri.remove(trigram);
+                }
+            }
+        }
+    }
+
+    void temizle() {
+        trigramTerimleri.clear();
+    }
+
+    /**
+     * Sorgu terimine yazım hatası sınırında yakın olan sözlük terimleri
+     */
+    List<String> benzerTerimler(String sorguTerimi) {
+        if (sorguTerimi.length() < MetinAnalizci.MIN_BULANIK_UZUNLUK) {
+            return List.of();
+        }
+        Set<String> sorguTrigramlari = MetinAnalizci.trigramlar(sorguTerimi);
+        Map<String, Integer> ortakSayilari = new HashMap<>();
+        for (String trigram : sorguTrigramlari) {
+            Set<String> terimler = trigramTerimleri.get(trigram);
+            if (terimler != null) {
+                for (String terim : terimler) {
+                    ortakSayilari.merge(terim, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<String> sonuc = new ArrayList<>();
+        ortakSayilari.forEach((terim, ortak) -> {
+            // n harfli terimin sınır işaretli n trigramı vardır
+            if (MetinAnalizci.trigramAdayiMi(ortak, sorguTrigramlari.size(), terim.length())
+                    && MetinAnalizci.eslesirMi(sorguTerimi, terim)) {
+                sonuc.add(terim);
+            }
+        });
+        return sonuc;
+    }
+}
@@ -0,0 +1,563 @@
+package com.magazaapp.search;
+
+import com.magazaapp.model.Sezon;
+import com.magazaapp.model.Urun;
+import com.magazaapp.repository.AltKategoriRepository;
+import com.magazaapp.repository.MagazaRepository;
+import com.magazaapp.repository.UrunRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Aktif ürünler için bellek içi ters indeks (terim -> ürün id listesi).
+ *
+ * Ürün adı, açıklama, renk, mağaza adı, kategori ve alt kategori adları {@link MetinAnalizci}
+ * ile terimlere ayrılır. Arama her sorguda tüm kataloğu yüklemek yerine terim sözlüğünden
+ * yapılır; sözlük sıralı tutulduğu için son harfleri eksik yazılmış terimler de (önek) eşleşir.
+ * Önek olarak hiçbir terimle eşleşmeyen sorgu terimleri için trigram indeksinden yazım hatası
+ * toleranslı adaylar aranır ("elbse" -> "elbise").
+ *
+ * Sonuçlar BM25F ile puanlanır: terim frekansı alan bazında ağırlıklandırılır (ad > alt kategori >
+ * kategori/mağaza > renk > açıklama) ve alan uzunluğuna göre normalize edilir. Önek ve yazım hatası
+ * eşleşmeleri tam eşleşmeden daha düşük puan alır. Sayfa için gereken ilk offset+limit sonuç sınırlı
+ * bir heap ile seçilir; eşleşen kümenin tamamı hiçbir zaman sıralanmaz.
+ *
+ * İndeks sonrasında ürün kaydedildikçe / silindikçe artımlı olarak güncellenir. Transaction içindeki
+ * değişiklikler commit sonrasında uygulanır, böylece rollback olan bir kayıt indekse sızmaz. Uygulanan
+ * doküman çağrı anındaki nesneden değil commit sonrası yeniden okunan satırdan kurulur; okumalar sıra
+ * numarası alır ve bir ürüne daha yeni bir okuma uygulanmışsa geç kalan eski okuma atlanır.
+ *
+ * Açılışta tüm ürün tablosu taranmaz: dokümanlar arka planda periyodik olarak diske yazılan
+ * {@link IndeksSegmenti}'nden okunur, yalnızca segment filigranından sonra güncellenen ürünler
+ * veritabanından yeniden okunur. Segment yoksa veya okunamazsa indeks veritabanından kurulur.
+ */
+@Component
+public class UrunAramaIndeksi {
+
+    // UrunDokumani.metinAlanlari() sırasıyla: ad, aciklama, renk, magazaAd, kategoriAd, altKategoriAd
+    private static final double[] ALAN_AGIRLIKLARI = { 3.0, 1.0, 1.2, 1.5, 1.5, 2.0 };
+    private static final int ALAN_SAYISI = ALAN_AGIRLIKLARI.length;
+
+    // BM25 parametreleri
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Genişletilmiş terim eşleşmelerinin tam eşleşmeye göre ağırlığı
+    private static final double ONEK_CARPANI = 0.7;
+    private static final double BULANIK_CARPANI = 0.5;
+
+    // Filigrandan önce flush edilip sonra commit olan (afterCommit'i segmente yetişmemiş) değişiklikler için pay
+    private static final Duration FILIGRAN_GUVENLIK_PAYI = Duration.ofMinutes(5);
+
+    private final UrunRepository urunRepository;
+    private final MagazaRepository magazaRepository;
+    private final AltKategoriRepository altKategoriRepository;
+    private final IndeksSegmentDeposu segmentDeposu;
+    private final List<UrunIndeksDinleyicisi> dinleyiciler;
+
+    private final ReentrantReadWriteLock kilit = new ReentrantReadWriteLock();
+    private final TreeMap<String, PostingListesi> terimler = new TreeMap<>();
+    private final TrigramIndeksi trigramIndeksi = new TrigramIndeksi();
+    private final Map<Long, UrunDokumani> dokumanlar = new HashMap<>();
+    private final Map<Long, DokumanIstatistigi> dokumanIstatistikleri = new HashMap<>();
+    private final long[] toplamAlanUzunlugu = new long[ALAN_SAYISI];
+
+    // Yazma kilidi altında artar; segment yazıcısı son yazdığı değerle karşılaştırır
+    private long degisiklikSayaci;
+    private volatile long yazilanDegisiklik;
+
+    // Okumadan önce alınır: daha büyük sıralı okuma, sırası alınmadan önce commit olan her şeyi görür
+    private final AtomicLong okumaSirasi = new AtomicLong();
+    // Yazma kilidi altında: ürün -> indekse uygulanmış son okumanın sırası (kurulumdan sonrakiler)
+    private final Map<Long, Long> uygulananSira = new HashMap<>();
+    private long kurulumSirasi;
+
+    public UrunAramaIndeksi(UrunRepository urunRepository, MagazaRepository magazaRepository,
+            AltKategoriRepository altKategoriRepository, IndeksSegmentDeposu segmentDeposu,
+            List<UrunIndeksDinleyicisi> dinleyiciler) {
+        this.urunRepository = urunRepository;
+        this.magazaRepository = magazaRepository;
+        this.altKategoriRepository = altKategoriRepository;
+        this.segmentDeposu = segmentDeposu;
+        this.dinleyiciler = dinleyiciler;
+    }
+
+    // =============== İNDEKS KURULUMU ===============
+
+    /**
+     * Uygulama hazır olduğunda (DataSeeder çalıştıktan sonra) indeksi kur: mümkünse diskteki
+     * segmentten, değilse veritabanından
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void baslat() {
+        Optional<IndeksSegmenti> segment = segmentDeposu.enSonSegment();
+        if (segment.isPresent()) {
+            segmenttenOlustur(segment.get());
+        } else {
+            yenidenOlustur();
+        }
+    }
+
+    /**
+     * İndeksi veritabanındaki tüm aktif ürünlerden sıfırdan kur
+     */
+    public void yenidenOlustur() {
+        long baslangic = System.currentTimeMillis();
+        long sira = okumaSirasi.incrementAndGet();
+        List<UrunDokumani> yeniDokumanlar = urunRepository.findAktifUrunlerDetayli().stream()
+                .map(UrunDokumani::from)
+                .toList();
+        kur(yeniDokumanlar, sira);
+        System.out.println(">>> Ürün arama indeksi kuruldu: " + yeniDokumanlar.size() + " ürün, "
+                + terimler.size() + " terim (" + (System.currentTimeMillis() - baslangic) + " ms)");
+    }
+
+    /**
+     * Segmentteki dokümanları güncelle ve indeksi bunlardan kur. Ürün tablosundan yalnızca aktif id'ler
+     * (indeksten) ve filigrandan sonra güncellenen ürünler okunur; mağaza/kategori adları küçük
+     * sözlük tablolarından tazelenir, çünkü ad değişiklikleri ürün satırına yansımaz.
+     */
+    private void segmenttenOlustur(IndeksSegmenti segment) {
+        long baslangic = System.currentTimeMillis();
+        long sira = okumaSirasi.incrementAndGet();
+        Map<Long, UrunDokumani> guncel = new LinkedHashMap<>();
+        for (UrunDokumani dokuman : segment.dokumanlar()) {
+            guncel.put(dokuman.id(), dokuman);
+        }
+
+        Set<Long> aktifIdler = new HashSet<>(urunRepository.findAktifUrunIdleri());
+        guncel.keySet().retainAll(aktifIdler);
+        adlariTazele(guncel);
+
+        LocalDateTime esik = segment.filigran().minus(FILIGRAN_GUVENLIK_PAYI);
+        List<Urun> degisenler = new ArrayList<>(urunRepository.findAktifUrunlerDetayliGuncellenen(esik));
+        Set<Long> eksikler = new HashSet<>(aktifIdler);
+        eksikler.removeAll(guncel.keySet());
+        degisenler.forEach(urun -> eksikler.remove(urun.getId()));
+        if (!eksikler.isEmpty()) {
+            degisenler.addAll(urunRepository.findDetayliByIdIn(eksikler));
+        }
+        for (Urun urun : degisenler) {
+            if (Boolean.TRUE.equals(urun.getAktif())) {
+                guncel.put(urun.getId(), UrunDokumani.from(urun));
+            }
+        }
+
+        kur(new ArrayList<>(guncel.values()), sira);
+        System.out.println(">>> Ürün arama indeksi segmentten açıldı: " + guncel.size() + " ürün ("
+                + degisenler.size() + " değişiklik yeniden oynatıldı, "
+                + (System.currentTimeMillis() - baslangic) + " ms)");
+    }
+
+    private void adlariTazele(Map<Long, UrunDokumani> dokumanlar) {
+        Map<Long, String> magazaAdlari = new HashMap<>();
+        for (Object[] satir : magazaRepository.magazaAdlari()) {
+            magazaAdlari.put((Long) satir[0], (String) satir[1]);
+        }
+        Map<Long, Object[]> altKategoriler = new HashMap<>();
+        for (Object[] satir : altKategoriRepository.altKategoriBilgileri()) {
+            altKategoriler.put((Long) satir[0], satir);
+        }
+        dokumanlar.replaceAll((id, d) -> {
+            Object[] ak = altKategoriler.get(d.altKategoriId());
+            String magazaAd = magazaAdlari.getOrDefault(d.magazaId(), d.magazaAd());
+            Long kategoriId = ak != null ? (Long) ak[2] : d.kategoriId();
+            String kategoriAd = ak != null ? (String) ak[3] : d.kategoriAd();
+            String altKategoriAd = ak != null ? (String) ak[1] : d.altKategoriAd();
+            Sezon sezon = ak != null ? (Sezon) ak[4] : d.sezon();
+            boolean ayni = Objects.equals(magazaAd, d.magazaAd()) && Objects.equals(kategoriId, d.kategoriId())
+                    && Objects.equals(kategoriAd, d.kategoriAd()) && Objects.equals(altKategoriAd, d.altKategoriAd())
+                    && sezon == d.sezon();
+            return ayni ? d : d.withAdlar(magazaAd, kategoriId, kategoriAd, altKategoriAd, sezon);
+        });
+    }
+
+    /**
+     * Kurulum okumasından (sira) sonra uygulanmış artımlı okumalar toplu okumadan yenidir; o ürünlerin
+     * indeksteki hali korunur
+     */
+    private void kur(List<UrunDokumani> okunanlar, long sira) {
+        dinleyiciler.forEach(UrunIndeksDinleyicisi::kurulumaHazirlan);
+        kilit.writeLock().lock();
+        try {
+            Map<Long, UrunDokumani> yeniler = new LinkedHashMap<>();
+            okunanlar.forEach(dokuman -> yeniler.put(dokuman.id(), dokuman));
+            uygulananSira.values().removeIf(uygulanan -> uygulanan <= sira);
+            for (Long urunId : uygulananSira.keySet()) {
+                UrunDokumani mevcut = dokumanlar.get(urunId);
+                if (mevcut != null) {
+                    yeniler.put(urunId, mevcut);
+                } else {
+                    yeniler.remove(urunId);
+                }
+            }
+            List<UrunDokumani> yeniDokumanlar = new ArrayList<>(yeniler.values());
+            kurulumSirasi = Math.max(kurulumSirasi, sira);
+
+            terimler.clear();
+            trigramIndeksi.temizle();
+            dokumanlar.clear();
+            dokumanIstatistikleri.clear();
+            Arrays.fill(toplamAlanUzunlugu, 0);
+            dinleyiciler.forEach(UrunIndeksDinleyicisi::indeksTemizlendi);
+            yeniDokumanlar.forEach(this::dokumanEkle);
+            dinleyiciler.forEach(UrunIndeksDinleyicisi::indeksKuruldu);
+            degisiklikSayaci++;
+        } finally {
+            kilit.writeLock().unlock();
+        }
+    }
+
+    // =============== SEGMENT YAZMA ===============
+
+    /**
+     * Son yazımdan beri değişiklik olduysa tüm dokümanları yeni bir segment olarak diske yaz.
+     * Doküman listesi okuma kilidi altında kopyalanır, dosya yazımı kilit dışında yapılır.
+     */
+    @Scheduled(initialDelayString = "${arama.indeks.segment.aralik-ms:60000}",
+            fixedDelayString = "${arama.indeks.segment.aralik-ms:60000}")
+    public synchronized void segmentYaz() {
+        if (!segmentDeposu.etkinMi()) {
+            return;
+        }
+        LocalDateTime filigran;
+        List<UrunDokumani> kopya;
+        long sayac;
+        kilit.readLock().lock();
+        try {
+            if (degisiklikSayaci == yazilanDegisiklik) {
+                return;
+            }
+            sayac = degisiklikSayaci;
+            filigran = LocalDateTime.now();
+            kopya = new ArrayList<>(dokumanlar.values());
+        } finally {
+            kilit.readLock().unlock();
+        }
+        try {
+            segmentDeposu.yaz(filigran, kopya);
+            yazilanDegisiklik = sayac;
+        } catch (IOException e) {
+            System.err.println(">>> Arama indeksi segmenti yazılamadı: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Kapanırken son değişiklikleri de segmente yaz; bir sonraki açılışta yeniden oynatılacak iş azalır
+     */
+    @PreDestroy
+    public void kapanirken() {
+        segmentYaz();
+    }
+
+    // =============== ARTIMLI GÜNCELLEME ===============
+
+    /**
+     * Ürünü indekse ekle veya güncelle. Pasif ürünler indeksten çıkarılır.
+     * Doküman commit sonrası ürün satırı yeniden okunarak oluşturulur.
+     */
+    public void indeksle(Urun urun) {
+        if (urun == null || urun.getId() == null) {
+            return;
+        }
+        commitSonrasi(() -> yenidenOku(urun.getId()));
+    }
+
+    /**
+     * Ürünü indeksten çıkar (silme veya pasife alma); commit sonrası okumada ürün aktif
+     * görünmüyorsa çıkarılır
+     */
+    public void kaldir(Long urunId) {
+        if (urunId == null) {
+            return;
+        }
+        commitSonrasi(() -> yenidenOku(urunId));
+    }
+
+    /**
+     * Sorgu yazma kilidi dışında çalışır; sonuç kilit altında, o ürüne uygulanmış okumalardan
+     * daha yeniyse uygulanır. Kart sorgusu constructor expression olduğundan persistence
+     * context'teki (commit anındaki) varlık değil güncel satır okunur.
+     */
+    private void yenidenOku(Long urunId) {
+        long sira = okumaSirasi.incrementAndGet();
+        UrunDokumani dokuman = urunRepository.findKartById(urunId)
+                .filter(kart -> Boolean.TRUE.equals(kart.aktif()))
+                .map(UrunDokumani::from)
+                .orElse(null);
+        kilit.writeLock().lock();
+        try {
+            if (sira <= kurulumSirasi || sira <= uygulananSira.getOrDefault(urunId, 0L)) {
+                return;
+            }
+            uygulananSira.put(urunId, sira);
+            dokumanSil(urunId);
+            if (dokuman != null) {
+                dokumanEkle(dokuman);
+            }
+            degisiklikSayaci++;
+            dinleyiciler.forEach(UrunIndeksDinleyicisi::degisiklikUygulandi);
+        } finally {
+            kilit.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Mağaza adı değiştiğinde o mağazanın ürünlerini yeni adla yeniden indeksle
+     */
+    public void magazaAdiDegisti(Long magazaId, String yeniAd) {
+        if (magazaId == null) {
+            return;
+        }
+        commitSonrasi(() -> {
+            kilit.writeLock().lock();
+            try {
+                List<UrunDokumani> etkilenenler = dokumanlar.values().stream()
+                        .filter(d -> magazaId.equals(d.magazaId()))
+                        .toList();
+                if (etkilenenler.isEmpty()) {
+                    return;
+                }
+                // Dinleyicilere doküman başına değil, tek toplu bildirim gider
+                List<UrunDokumani> yeniler = new ArrayList<>(etkilenenler.size());
+                for (UrunDokumani eski : etkilenenler) {
+                    UrunDokumani yeni = eski.withMagazaAd(yeniAd);
+                    dokumanSil(eski.id(), false);
+                    dokumanEkle(yeni, false);
+                    yeniler.add(yeni);
+                }
+                dinleyiciler.forEach(d -> d.dokumanlarDegisti(etkilenenler, yeniler));
+                degisiklikSayaci++;
+                dinleyiciler.forEach(UrunIndeksDinleyicisi::degisiklikUygulandi);
+            } finally {
+                kilit.writeLock().unlock();
+            }
+        });
+    }
+
+    // =============== SORGU ===============
+
+    /**
+     * Sorgudaki tüm terimleri (önek veya yazım hatası toleransıyla) içeren aktif ürünleri alaka
+     * puanına göre sırala; offset/limit ile istenen sayfanın id'lerini ve toplam eşleşme sayısını döndür
+     */
+    public AramaSonucu ara(String sorgu, int offset, int limit) {
+        List<String> sorguTerimleri = MetinAnalizci.analizEt(sorgu);
+        if (sorguTerimleri.isEmpty()) {
+            return AramaSonucu.BOS;
+        }
+
+        kilit.readLock().lock();
+        try {
+            long[] adaylar = null;
+            List<Map<String, Double>> genislemeler = new ArrayList<>(sorguTerimleri.size());
+            for (String terim : sorguTerimleri) {
+                Map<String, Double> genisleme = terimGenislemesi(terim);
+                List<PostingListesi> listeler = new ArrayList<>(genisleme.size());
+                for (String eslesen : genisleme.keySet()) {
+                    listeler.add(terimler.get(eslesen));
+                }
+                long[] eslesenler = PostingListesi.birlesim(listeler);
+                adaylar = adaylar == null ? eslesenler : PostingListesi.kesisim(adaylar, eslesenler);
+                if (adaylar.length == 0) {
+                    return AramaSonucu.BOS;
+                }
+                genislemeler.add(genisleme);
+            }
+
+            int baslangic = Math.max(offset, 0);
+            int k = (int) Math.min((long) baslangic + Math.max(limit, 0), adaylar.length);
+            if (baslangic >= k) {
+                return new AramaSonucu(List.of(), adaylar.length);
+            }
+            return new AramaSonucu(enIyiler(adaylar, genislemeler, k).subList(baslangic, k), adaylar.length);
+        } finally {
+            kilit.readLock().unlock();
+        }
+    }
+
+    public int dokumanSayisi() {
+        kilit.readLock().lock();
+        try {
+            return dokumanlar.size();
+        } finally {
+            kilit.readLock().unlock();
+        }
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    /**
+     * Sorgu terimini indeksteki terimlere genişlet: terim -> idf * eşleşme çarpanı.
+     * Önek eşleşmesi yoksa yazım hatası toleranslı adaylara bakılır.
+     */
+    private Map<String, Double> terimGenislemesi(String terim) {
+        Map<String, Double> genisleme = new HashMap<>();
+        for (Map.Entry<String, PostingListesi> giris : terimler.subMap(terim, true, terim + Character.MAX_VALUE, true)
+                .entrySet()) {
+            double carpan = giris.getKey().equals(terim) ? 1.0 : ONEK_CARPANI;
+            genisleme.put(giris.getKey(), idf(giris.getValue().boyut()) * carpan);
+        }
+        if (genisleme.isEmpty()) {
+            for (String benzer : trigramIndeksi.benzerTerimler(terim)) {
+                genisleme.put(benzer, idf(terimler.get(benzer).boyut()) * BULANIK_CARPANI);
+            }
+        }
+        return genisleme;
+    }
+
+    private double idf(int dokumanFrekansi) {
+        int n = dokumanlar.size();
+        return Math.log(1 + (n - dokumanFrekansi + 0.5) / (dokumanFrekansi + 0.5));
+    }
+
+    /**
+     * Adayları puanlayıp en yüksek k tanesini (puan azalan, eşitlikte id artan) döndür.
+     * Heap'in tepesinde o ana kadarki k sonucun en kötüsü durur.
+     */
+    private List<Long> enIyiler(long[] adaylar, List<Map<String, Double>> genislemeler, int k) {
+        double[] ortalamaUzunluk = new double[ALAN_SAYISI];
+        for (int f = 0; f < ALAN_SAYISI; f++) {
+            ortalamaUzunluk[f] = Math.max(1.0, (double) toplamAlanUzunlugu[f] / Math.max(1, dokumanlar.size()));
+        }
+
+        Comparator<PuanliUrun> kotudenIyiye = Comparator.comparingDouble(PuanliUrun::puan)
+                .thenComparing(Comparator.comparingLong(PuanliUrun::id).reversed());
+        PriorityQueue<PuanliUrun> heap = new PriorityQueue<>(k, kotudenIyiye);
+        for (long id : adaylar) {
+            PuanliUrun aday = new PuanliUrun(id, puanla(dokumanIstatistikleri.get(id), genislemeler, ortalamaUzunluk));
+            if (heap.size() < k) {
+                heap.add(aday);
+            } else if (kotudenIyiye.compare(aday, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(aday);
+            }
+        }
+
+        Long[] sirali = new Long[heap.size()];
+        for (int i = sirali.length - 1; i >= 0; i--) {
+            sirali[i] = heap.poll().id();
+        }
+        return Arrays.asList(sirali);
+    }
+
+    /**
+     * BM25F: her sorgu terimi için dokümandaki en iyi eşleşen terimin puanı toplanır
+     */
+    private static double puanla(DokumanIstatistigi istatistik, List<Map<String, Double>> genislemeler,
+            double[] ortalamaUzunluk) {
+        double toplam = 0;
+        for (Map<String, Double> genisleme : genislemeler) {
+            double enIyi = 0;
+            for (Map.Entry<String, int[]> giris : istatistik.frekanslar.entrySet()) {
+                Double agirlik = genisleme.get(giris.getKey());
+                if (agirlik == null) {
+                    continue;
+                }
+                double tf = 0;
+                int[] frekanslar = giris.getValue();
+                for (int f = 0; f < ALAN_SAYISI; f++) {
+                    if (frekanslar[f] > 0) {
+                        double normalizasyon = 1 - B + B * istatistik.uzunluklar[f] / ortalamaUzunluk[f];
+                        tf += ALAN_AGIRLIKLARI[f] * frekanslar[f] / normalizasyon;
+                    }
+                }
+                enIyi = Math.max(enIyi, agirlik * tf / (K1 + tf));
+            }
+            toplam += enIyi;
+        }
+        return toplam;
+    }
+
+    private void dokumanEkle(UrunDokumani dokuman) {
+        dokumanEkle(dokuman, true);
+    }
+
+    private void dokumanEkle(UrunDokumani dokuman, boolean bildir) {
+        DokumanIstatistigi istatistik = new DokumanIstatistigi();
+        String[] alanlar = dokuman.metinAlanlari();
+        for (int f = 0; f < ALAN_SAYISI; f++) {
+            List<String> alanTerimleri = MetinAnalizci.analizEt(alanlar[f]);
+            istatistik.uzunluklar[f] = alanTerimleri.size();
+            toplamAlanUzunlugu[f] += alanTerimleri.size();
+            for (String terim : alanTerimleri) {
+                istatistik.frekanslar.computeIfAbsent(terim, t -> new int[ALAN_SAYISI])[f]++;
+            }
+        }
+        for (String terim : istatistik.frekanslar.keySet()) {
+            terimler.computeIfAbsent(terim, t -> {
+                trigramIndeksi.ekle(t);
+                return new PostingListesi();
+            }).ekle(dokuman.id());
+        }
+        dokumanlar.put(dokuman.id(), dokuman);
+        dokumanIstatistikleri.put(dokuman.id(), istatistik);
+        if (bildir) {
+            dinleyiciler.forEach(d -> d.dokumanEklendi(dokuman));
+        }
+    }
+
+    private void dokumanSil(Long urunId) {
+        dokumanSil(urunId, true);
+    }
+
+    private void dokumanSil(Long urunId, boolean bildir) {
+        DokumanIstatistigi eskiIstatistik = dokumanIstatistikleri.remove(urunId);
+        UrunDokumani eskiDokuman = dokumanlar.remove(urunId);
+        if (eskiIstatistik == null) {
+            return;
+        }
+        if (bildir) {
+            dinleyiciler.forEach(d -> d.dokumanSilindi(eskiDokuman));
+        }
+        for (int f = 0; f < ALAN_SAYISI; f++) {
+            toplamAlanUzunlugu[f] -= eskiIstatistik.uzunluklar[f];
+        }
+        for (String terim : eskiIstatistik.frekanslar.keySet()) {
+            PostingListesi liste = terimler.get(terim);
+            if (liste != null) {
+                liste.sil(urunId);
+                if (liste.bosMu()) {
+                    terimler.remove(terim);
+                    trigramIndeksi.sil(terim);
+                }
+            }
+        }
+    }
+
+    private static void commitSonrasi(Runnable islem) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    islem.run();
+                }
+            });
+        } else {
+            islem.run();
+        }
+    }
+
+    /**
+     * Dokümandaki terimlerin alan bazında frekansları ve alan uzunlukları (terim sayısı)
+     */
+    private static final class DokumanIstatistigi {
+        final Map<String, int[]> frekanslar = new HashMap<>();
+        final int[] uzunluklar = new int[ALAN_SAYISI];
+    }
+
+    private record PuanliUrun(long id, double puan) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.magazaapp.search;
+
+import com.magazaapp.dto.UrunKartiDTO;
+import com.magazaapp.model.AltKategori;
+import com.magazaapp.model.Magaza;
+import com.magazaapp.model.Sezon;
+import com.magazaapp.model.Urun;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Arama indeksine giren ürünün değişmez kopyası.
+ * Lazy ilişkiler (mağaza, kategori) oluşturma anında okunur, indeks sonrasında
+ * veritabanına hiç dokunmaz.
+ */
+public record UrunDokumani(
+        Long id,
+        String ad,
+        String aciklama,
+        String renk,
+        BigDecimal fiyat,
+        String resimUrl,
+        Long magazaId,
+        String magazaAd,
+        Long kategoriId,
+        String kategoriAd,
+        Long altKategoriId,
+        String altKategoriAd,
+        Sezon sezon,
+        LocalDateTime olusturmaTarihi) {
+
+    public static UrunDokumani from(Urun urun) {
+        Magaza magaza = urun.getMagaza();
+        AltKategori altKategori = urun.getAltKategori();
+        return new UrunDokumani(
+                urun.getId(),
+                urun.getAd(),
+                urun.getAciklama(),
+                urun.getRenk(),
+                urun.getFiyat(),
+                urun.getResimUrl(),
+                magaza != null ? magaza.getId() : null,
+                magaza != null ? magaza.getAd() : null,
+                altKategori != null && altKategori.getKategori() != null ? altKategori.getKategori().getId() : null,
+                altKategori != null && altKategori.getKategori() != null ? altKategori.getKategori().getAd() : null,
+                altKategori != null ? altKategori.getId() : null,
+                altKategori != null ? altKategori.getAd() : null,
+                altKategori != null ? altKategori.getSezon() : null,
+                urun.getOlusturmaTarihi());
+    }
+
+    /**
+     * Constructor expression sorgusuyla okunmuş karttan (persistence context'e uğramadan, güncel satırdan)
+     */
+    public static UrunDokumani from(UrunKartiDTO kart) {
+        return new UrunDokumani(kart.id(), kart.ad(), kart.aciklama(), kart.renk(), kart.fiyat(), kart.resimUrl(),
+                kart.magazaId(), kart.magazaAd(), kart.kategoriId(), kart.kategoriAd(), kart.altKategoriId(),
+                kart.altKategoriAd(), kart.sezon(), kart.olusturmaTarihi());
+    }
+
+    /**
+     * Mağaza adı değiştiğinde aynı dokümanın yeni adla kopyası
+     */
+    public UrunDokumani withMagazaAd(String yeniMagazaAd) {
+        return new UrunDokumani(id, ad, aciklama, renk, fiyat, resimUrl, magazaId, yeniMagazaAd,
+                kategoriId, kategoriAd, altKategoriId, altKategoriAd, sezon, olusturmaTarihi);
+    }
+
+    /**
+     * Mağaza/kategori bilgileri güncel sözlükten yeniden okunduğunda aynı dokümanın kopyası
+     */
+    public UrunDokumani withAdlar(String yeniMagazaAd, Long yeniKategoriId, String yeniKategoriAd,
+            String yeniAltKategoriAd, Sezon yeniSezon) {
+        return new UrunDokumani(id, ad, aciklama, renk, fiyat, resimUrl, magazaId, yeniMagazaAd,
+                yeniKategoriId, yeniKategoriAd, altKategoriId, yeniAltKategoriAd, yeniSezon, olusturmaTarihi);
+    }
+
+    /**
+     * İndekslenen tüm metin alanları
+     */
+    public String[] metinAlanlari() {
+        return new String[] { ad, aciklama, renk, magazaAd, kategoriAd, altKategoriAd };
+    }
+}
@@ -0,0 +1,279 @@
+package com.magazaapp.search;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Aktif ürünler için facet (mağaza, kategori, alt kategori, sezon, renk, fiyat aralığı) indeksi.
+ *
+ * Her facet değeri için o değere sahip ürün id'lerinin sıkıştırılmış bitmap'i tutulur.
+ * Filtre kombinasyonları bitmap kesişimi, facet sayımları ise kesişim kardinalitesi olarak
+ * hesaplanır; ayrı COUNT sorgusu gerekmez. İndeks {@link UrunAramaIndeksi} üzerinden beslenir.
+ */
+@Component
+public class UrunFacetIndeksi implements UrunIndeksDinleyicisi {
+
+    public static final String MAGAZA = "magaza";
+    public static final String KATEGORI = "kategori";
+    public static final String ALT_KATEGORI = "altKategori";
+    public static final String SEZON = "sezon";
+    public static final String RENK = "renk";
+    public static final String FIYAT = "fiyat";
+
+    private static final List<String> FACETLER = List.of(MAGAZA, KATEGORI, ALT_KATEGORI, SEZON, RENK, FIYAT);
+
+    // Fiyat aralıkları (kuruş): [0-250), [250-500), [500-1000), [1000-2000), [2000+)
+    private static final long[] FIYAT_SINIRLARI = { 0, 25_000, 50_000, 100_000, 200_000, Long.MAX_VALUE };
+    private static final String[] FIYAT_ETIKETLERI = { "0-250", "250-500", "500-1000", "1000-2000", "2000+" };
+
+    private final ReentrantReadWriteLock kilit = new ReentrantReadWriteLock();
+    private SikistirilmisBitmap tumu = new SikistirilmisBitmap();
+    private final Map<String, Map<String, SikistirilmisBitmap>> bitmapler = new HashMap<>();
+    private final Map<String, Map<String, String>> etiketler = new HashMap<>();
+    private final Map<Integer, Long> fiyatKurus = new HashMap<>();
+
+    public UrunFacetIndeksi() {
+        for (String facet : FACETLER) {
+            bitmapler.put(facet, new HashMap<>());
+            etiketler.put(facet, new HashMap<>());
+        }
+    }
+
+    // =============== İNDEKS GÜNCELLEME ===============
+
+    @Override
+    public void dokumanEklendi(UrunDokumani dokuman) {
+        int id = Math.toIntExact(dokuman.id());
+        kilit.writeLock().lock();
+        try {
+            tumu.ekle(id);
+            degerleriniIsle(dokuman, (facet, deger, etiket) -> {
+                bitmapler.get(facet).computeIfAbsent(deger, d -> new SikistirilmisBitmap()).ekle(id);
+                etiketler.get(facet).put(deger, etiket);
+            });
+            if (dokuman.fiyat() != null) {
+                fiyatKurus.put(id, kurus(dokuman.fiyat()));
+            }
+        } finally {
+            kilit.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void dokumanSilindi(UrunDokumani dokuman) {
+        int id = Math.toIntExact(dokuman.id());
+        kilit.writeLock().lock();
+        try {
+            tumu.sil(id);
+            degerleriniIsle(dokuman, (facet, deger, etiket) -> {
+                SikistirilmisBitmap bitmap = bitmapler.get(facet).get(deger);
+                if (bitmap != null) {
+                    bitmap.sil(id);
+                    if (bitmap.bosMu()) {
+                        bitmapler.get(facet).remove(deger);
+                        etiketler.get(facet).remove(deger);
+                    }
+                }
+            });
+            fiyatKurus.remove(id);
+        } finally {
+            kilit.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void indeksTemizlendi() {
+        kilit.writeLock().lock();
+        try {
+            tumu = new SikistirilmisBitmap();
+            bitmapler.values().forEach(Map::clear);
+            etiketler.values().forEach(Map::clear);
+            fiyatKurus.clear();
+        } finally {
+            kilit.writeLock().unlock();
+        }
+    }
+
+    // =============== SORGU ===============
+
+    /**
+     * Filtrelere uyan ürünlerin id'lerini (artan sırada, offset/limit ile) ve facet sayımlarını döndür
+     */
+    public FacetSonucu filtrele(UrunFiltresi filtre, int offset, int limit) {
+        kilit.readLock().lock();
+        try {
+            Map<String, SikistirilmisBitmap> kriterler = kriterBitmapleri(filtre);
+
+            SikistirilmisBitmap sonuc = tumu;
+            for (SikistirilmisBitmap kriter : kriterler.values()) {
+                sonuc = sonuc.ve(kriter);
+            }
+
+            Map<String, List<FacetDegeri>> facetler = new LinkedHashMap<>();
+            for (String facet : FACETLER) {
+                facetler.put(facet, facetSayimlari(facet, kriterler));
+            }
+
+            int[] idler = sonuc.diziyeCevir();
+            int baslangic = Math.min(Math.max(offset, 0), idler.length);
+            int bitis = (int) Math.min((long) baslangic + Math.max(limit, 0), idler.length);
+            List<Long> sayfa = new ArrayList<>(bitis - baslangic);
+            for (int i = baslangic; i < bitis; i++) {
+                sayfa.add((long) idler[i]);
+            }
+            return new FacetSonucu(sayfa, idler.length, facetler);
+        } finally {
+            kilit.readLock().unlock();
+        }
+    }
+
+    /**
+     * Filtrelere uyan ürün sayısı: facet sayımları ve id dizisi oluşturulmadan,
+     * son kesişim de kurulmadan yalnızca kardinalitesi hesaplanır
+     */
+    public int say(UrunFiltresi filtre) {
+        kilit.readLock().lock();
+        try {
+            SikistirilmisBitmap sonuc = tumu;
+            SikistirilmisBitmap son = null;
+            for (SikistirilmisBitmap kriter : kriterBitmapleri(filtre).values()) {
+                if (son != null) {
+                    sonuc = sonuc.ve(son);
+                }
+                son = kriter;
+            }
+            return son != null ? sonuc.veKardinalitesi(son) : sonuc.kardinalite();
+        } finally {
+            kilit.readLock().unlock();
+        }
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private Map<String, SikistirilmisBitmap> kriterBitmapleri(UrunFiltresi filtre) {
+        Map<String, SikistirilmisBitmap> kriterler = new HashMap<>();
+        if (filtre.magazaId() != null) {
+            kriterler.put(MAGAZA, degerBitmapi(MAGAZA, filtre.magazaId().toString()));
+        }
+        if (filtre.kategoriId() != null) {
+            kriterler.put(KATEGORI, degerBitmapi(KATEGORI, filtre.kategoriId().toString()));
+        }
+        if (filtre.altKategoriId() != null) {
+            kriterler.put(ALT_KATEGORI, degerBitmapi(ALT_KATEGORI, filtre.altKategoriId().toString()));
+        }
+        if (filtre.sezon() != null) {
+            kriterler.put(SEZON, degerBitmapi(SEZON, filtre.sezon().name()));
+        }
+        if (filtre.renk() != null && !filtre.renk().isBlank()) {
+            kriterler.put(RENK, degerBitmapi(RENK, MetinAnalizci.normalizeEt(filtre.renk()).trim()));
+        }
+        if (filtre.minFiyat() != null || filtre.maxFiyat() != null) {
+            kriterler.put(FIYAT, fiyatBitmapi(
+                    filtre.minFiyat() != null ? kurus(filtre.minFiyat()) : 0,
+                    filtre.maxFiyat() != null ? kurus(filtre.maxFiyat()) : Long.MAX_VALUE));
+        }
+        return kriterler;
+    }
+
+    private SikistirilmisBitmap degerBitmapi(String facet, String deger) {
+        SikistirilmisBitmap bitmap = bitmapler.get(facet).get(deger);
+        return bitmap != null ? bitmap : new SikistirilmisBitmap();
+    }
+
+    /**
+     * Tamamen aralık içinde kalan fiyat dilimleri doğrudan birleştirilir,
+     * sınırdaki dilimlerde yalnızca o dilimin ürünlerinin fiyatına bakılır.
+     */
+    private SikistirilmisBitmap fiyatBitmapi(long min, long max) {
+        SikistirilmisBitmap sonuc = new SikistirilmisBitmap();
+        for (int i = 0; i < FIYAT_ETIKETLERI.length; i++) {
+            long dilimAlt = FIYAT_SINIRLARI[i];
+            long dilimUst = FIYAT_SINIRLARI[i + 1]; // hariç
+            if (dilimUst <= min || dilimAlt > max) {
+                continue;
+            }
+            SikistirilmisBitmap dilim = bitmapler.get(FIYAT).get(FIYAT_ETIKETLERI[i]);
+            if (dilim == null) {
+                continue;
+            }
+            if (dilimAlt >= min && (dilimUst == Long.MAX_VALUE ? max == Long.MAX_VALUE : dilimUst - 1 <= max)) {
+                sonuc = sonuc.veya(dilim);
+            } else {
+                for (int id : dilim.diziyeCevir()) {
+                    long fiyat = fiyatKurus.getOrDefault(id, -1L);
+                    if (fiyat >= min && fiyat <= max) {
+                        sonuc.ekle(id);
+                    }
+                }
+            }
+        }
+        return sonuc;
+    }
+
+    private List<FacetDegeri> facetSayimlari(String facet, Map<String, SikistirilmisBitmap> kriterler) {
+        // Facet'in kendi filtresi hariç diğer tüm filtrelerin kesişimi
+        SikistirilmisBitmap taban = tumu;
+        for (Map.Entry<String, SikistirilmisBitmap> kriter : kriterler.entrySet()) {
+            if (!kriter.getKey().equals(facet)) {
+                taban = taban.ve(kriter.getValue());
+            }
+        }
+
+        List<FacetDegeri> degerler = new ArrayList<>();
+        for (Map.Entry<String, SikistirilmisBitmap> giris : bitmapler.get(facet).entrySet()) {
+            int adet = taban.veKardinalitesi(giris.getValue());
+            if (adet > 0) {
+                degerler.add(new FacetDegeri(giris.getKey(), etiketler.get(facet).get(giris.getKey()), adet));
+            }
+        }
+        if (FIYAT.equals(facet)) {
+            List<String> sira = List.of(FIYAT_ETIKETLERI);
+            degerler.sort(Comparator.comparingInt(d -> sira.indexOf(d.deger())));
+        } else {
+            degerler.sort(Comparator.comparingInt(FacetDegeri::adet).reversed()
+                    .thenComparing(FacetDegeri::etiket, Comparator.nullsLast(Comparator.naturalOrder())));
+        }
+        return degerler;
+    }
+
+    private interface DegerIsleyici {
+        void isle(String facet, String deger, String etiket);
+    }
+
+    private static void degerleriniIsle(UrunDokumani dokuman, DegerIsleyici isleyici) {
+        if (dokuman.magazaId() != null) {
+            isleyici.isle(MAGAZA, dokuman.magazaId().toString(), dokuman.magazaAd());
+        }
+        if (dokuman.kategoriId() != null) {
+            isleyici.isle(KATEGORI, dokuman.kategoriId().toString(), dokuman.kategoriAd());
+        }
+        if (dokuman.altKategoriId() != null) {
+            isleyici.isle(ALT_KATEGORI, dokuman.altKategoriId().toString(), dokuman.altKategoriAd());
+        }
+        if (dokuman.sezon() != null) {
+            isleyici.isle(SEZON, dokuman.sezon().name(), dokuman.sezon().name());
+        }
+        if (dokuman.renk() != null && !dokuman.renk().isBlank()) {
+            isleyici.isle(RENK, MetinAnalizci.normalizeEt(dokuman.renk()).trim(), dokuman.renk().trim());
+        }
+        if (dokuman.fiyat() != null) {
+            isleyici.isle(FIYAT, fiyatDilimi(kurus(dokuman.fiyat())), fiyatDilimi(kurus(dokuman.fiyat())));
+        }
+    }
+
+    private static String fiyatDilimi(long kurus) {
+        for (int i = FIYAT_ETIKETLERI.length - 1; i >= 0; i--) {
+            if (kurus >= FIYAT_SINIRLARI[i]) {
+                return FIYAT_ETIKETLERI[i];
+            }
+        }
+        return FIYAT_ETIKETLERI[0];
+    }
+
+    private static long kurus(BigDecimal tutar) {
+        return tutar.movePointRight(2).longValue();
+    }
+}
@@ -0,0 +1,22 @@
+package com.magazaapp.search;
+
+import com.magazaapp.model.Sezon;
+
+import java.math.BigDecimal;
+
+/**
+ * Facet aramasında kullanılan filtreler; null alanlar filtrelenmez.
+ */
+public record UrunFiltresi(
+        Long magazaId,
+        Long kategoriId,
+        Long altKategoriId,
+        Sezon sezon,
+        String renk,
+        BigDecimal minFiyat,
+        BigDecimal maxFiyat) {
+
+    public static UrunFiltresi of(Long magazaId, Long kategoriId, Long altKategoriId) {
+        return new UrunFiltresi(magazaId, kategoriId, altKategoriId, null, null, null, null);
+    }
+}
@@ -0,0 +1,53 @@
+package com.magazaapp.search;
+
+import java.util.List;
+
+/**
+ * Ürün arama indeksindeki değişiklikleri takip eden yardımcı indeksler için.
+ *
+ * {@link UrunAramaIndeksi} tek yazma noktasıdır: ürün kaydedildiğinde/silindiğinde
+ * commit sonrasında önce kendini günceller, ardından aynı dokümanı tüm dinleyicilere iletir.
+ * Böylece facet, öneri gibi indeksler servis/controller katmanına ayrıca bağlanmaz.
+ * Çağrılar (kurulumaHazirlan hariç) indeksin yazma kilidi altında yapılır; dinleyiciler indekse
+ * geri çağrı yapmamalı ve veritabanına gitmemelidir.
+ */
+public interface UrunIndeksDinleyicisi {
+
+    void dokumanEklendi(UrunDokumani dokuman);
+
+    void dokumanSilindi(UrunDokumani dokuman);
+
+    /**
+     * Aynı anda değişen birden çok doküman (ör. mağaza adı değişikliği); eskiler indeksten çıkarılmış,
+     * yeniler eklenmiştir. Varsayılan tek tek iletir; pahalı iş yapan dinleyiciler tek seferde işler.
+     */
+    default void dokumanlarDegisti(List<UrunDokumani> eskiler, List<UrunDokumani> yeniler) {
+        eskiler.forEach(this::dokumanSilindi);
+        yeniler.forEach(this::dokumanEklendi);
+    }
+
+    /**
+     * Sıfırdan kurulumdan önce, indeksin yazma kilidi alınmadan çağrılır. Kurulum için gereken
+     * veritabanı okumaları burada yapılır; kilit altında sorgu çalıştırılmaz.
+     */
+    default void kurulumaHazirlan() {
+    }
+
+    /**
+     * İndeks sıfırdan kurulmadan önce çağrılır
+     */
+    void indeksTemizlendi();
+
+    /**
+     * Sıfırdan kurulum bittikten sonra (tüm dokümanlar eklendiğinde) çağrılır
+     */
+    default void indeksKuruldu() {
+    }
+
+    /**
+     * Artımlı bir değişikliğin (ekleme/güncelleme/silme) tüm dinleyicilere iletilmesi bittiğinde,
+     * hâlâ yazma kilidi altındayken çağrılır
+     */
+    default void degisiklikUygulandi() {
+    }
+}
@@ -0,0 +1,451 @@
+package com.magazaapp.search;
+
+import com.magazaapp.repository.FavoriRepository;
+import com.magazaapp.repository.SiparisDetayRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Arama kutusu için otomatik tamamlama indeksi.
+ *
+ * Ürün, mağaza, kategori ve alt kategori adları normalize edilip bir prefix ağacına (trie)
+ * yerleştirilir; her kelime başından da anahtar üretilir ("Siyah Gömlek" hem "siyah" hem "gomlek"
+ * ile bulunur). Her düğüm kendi alt ağacındaki en ağır {@value #ONBELLEK_K} öneriyi önbellekte tutar,
+ * böylece sorgu maliyeti yalnızca prefix uzunluğu kadardır. Ağırlık, ürünün sipariş adedi ve favori
+ * sayısından gelir; mağaza/kategori önerileri altındaki ürünlerin ağırlıklarının toplamını taşır.
+ * Kurulumda ikisi de veritabanından sayılır; sonrasında satışlar sipariş olayıyla, favori ekleme ve
+ * çıkarmalar commit sonrasında artımlı yansır.
+ *
+ * Güncellemeler yalnızca değişen anahtarların yolunu kirli işaretler, önbellek ilk sorguda
+ * yeniden hesaplanır. İndeks {@link UrunAramaIndeksi} üzerinden beslenir.
+ */
+@Component
+public class UrunOneriIndeksi implements UrunIndeksDinleyicisi {
+
+    public static final String URUN = "urun";
+    public static final String MAGAZA = "magaza";
+    public static final String KATEGORI = "kategori";
+    public static final String ALT_KATEGORI = "altKategori";
+
+    static final int ONBELLEK_K = 10;
+    private static final int MAKS_ANAHTAR_UZUNLUGU = 32;
+    private static final int SATIS_CARPANI = 1;
+    private static final int FAVORI_CARPANI = 2;
+
+    private static final Comparator<Kayit> SIRALAMA = Comparator.comparingLong((Kayit k) -> k.agirlik).reversed()
+            .thenComparing(k -> k.metin);
+
+    private final SiparisDetayRepository siparisDetayRepository;
+    private final FavoriRepository favoriRepository;
+
+    private final Object kilit = new Object();
+    private Dugum kok = new Dugum();
+    private final Map<String, Kayit> kayitlar = new HashMap<>();
+    private final Map<Long, UrunKatkisi> urunKatkilari = new HashMap<>();
+    private final Map<Long, Long> populerlik = new HashMap<>();
+    private Map<Long, Long> kurulumPopulerligi;
+
+    public UrunOneriIndeksi(SiparisDetayRepository siparisDetayRepository, FavoriRepository favoriRepository) {
+        this.siparisDetayRepository = siparisDetayRepository;
+        this.favoriRepository = favoriRepository;
+    }
+
+    // =============== İNDEKS GÜNCELLEME ===============
+
+    @Override
+    public void dokumanEklendi(UrunDokumani dokuman) {
+        synchronized (kilit) {
+            long agirlik = 1 + populerlik.getOrDefault(dokuman.id(), 0L);
+            List<Kayit> katkilar = new ArrayList<>(4);
+            katkiEkle(katkilar, URUN, null, dokuman.ad(), dokuman.id(), agirlik);
+            katkiEkle(katkilar, MAGAZA, dokuman.magazaId(), dokuman.magazaAd(), dokuman.id(), agirlik);
+            katkiEkle(katkilar, KATEGORI, dokuman.kategoriId(), dokuman.kategoriAd(), dokuman.id(), agirlik);
+            if (dokuman.altKategoriAd() != null) {
+                String altKategoriMetni = dokuman.kategoriAd() != null
+                        ? dokuman.kategoriAd() + " " + dokuman.altKategoriAd()
+                        : dokuman.altKategoriAd();
+                katkiEkle(katkilar, ALT_KATEGORI, dokuman.altKategoriId(), altKategoriMetni, dokuman.id(), agirlik);
+            }
+            urunKatkilari.put(dokuman.id(), new UrunKatkisi(agirlik, katkilar));
+        }
+    }
+
+    @Override
+    public void dokumanSilindi(UrunDokumani dokuman) {
+        synchronized (kilit) {
+            UrunKatkisi katki = urunKatkilari.remove(dokuman.id());
+            if (katki == null) {
+                return;
+            }
+            for (Kayit kayit : katki.kayitlar) {
+                katkiCikar(kayit, dokuman.id(), katki.agirlik);
+            }
+        }
+    }
+
+    /**
+     * Popülerlik sayaçları indeks kurulumundan hemen önce, arama indeksinin kilidi alınmadan okunur
+     */
+    @Override
+    public void kurulumaHazirlan() {
+        Map<Long, Long> yeniPopulerlik = new HashMap<>();
+        for (Object[] satir : siparisDetayRepository.urunSatisAdetleri()) {
+            yeniPopulerlik.merge((Long) satir[0], ((Number) satir[1]).longValue() * SATIS_CARPANI, Long::sum);
+        }
+        for (Object[] satir : favoriRepository.urunFavoriSayilari()) {
+            yeniPopulerlik.merge((Long) satir[0], ((Number) satir[1]).longValue() * FAVORI_CARPANI, Long::sum);
+        }
+        synchronized (kilit) {
+            kurulumPopulerligi = yeniPopulerlik;
+        }
+    }
+
+    @Override
+    public void indeksTemizlendi() {
+        synchronized (kilit) {
+            kok = new Dugum();
+            kayitlar.clear();
+            urunKatkilari.clear();
+            populerlik.clear();
+            if (kurulumPopulerligi != null) {
+                populerlik.putAll(kurulumPopulerligi);
+                kurulumPopulerligi = null;
+            }
+        }
+    }
+
+    /**
+     * Toplu kurulumdan sonra tüm önbellekleri bir kerede hesapla; ilk sorgu beklemesin
+     */
+    @Override
+    public void indeksKuruldu() {
+        synchronized (kilit) {
+            enIyiler(kok);
+        }
+    }
+
+    /**
+     * Sipariş edilen adet kadar ürünün popülerliğini artır
+     */
+    public void satisEklendi(Long urunId, int adet) {
+        populerlikArtir(urunId, (long) adet * SATIS_CARPANI);
+    }
+
+    /**
+     * Ürün favorilere eklendi veya çıkarıldı; transaction varsa commit sonrasında yansır
+     */
+    public void favoriDegisti(Long urunId, boolean eklendi) {
+        commitSonrasi(() -> populerlikArtir(urunId, eklendi ? FAVORI_CARPANI : -FAVORI_CARPANI));
+    }
+
+    /**
+     * Ürünün popülerliğini değiştir (sipariş verildi, favoriye eklendi vb.)
+     */
+    public void populerlikArtir(Long urunId, long fark) {
+        if (urunId == null || fark == 0) {
+            return;
+        }
+        synchronized (kilit) {
+            populerlik.merge(urunId, fark, Long::sum);
+            UrunKatkisi katki = urunKatkilari.get(urunId);
+            if (katki == null) {
+                return;
+            }
+            katki.agirlik += fark;
+            for (Kayit kayit : katki.kayitlar) {
+                kayit.agirlik += fark;
+                kirlet(kayit);
+            }
+        }
+    }
+
+    // =============== SORGU ===============
+
+    /**
+     * Verilen prefix ile başlayan en popüler önerileri döndür (en fazla {@value #ONBELLEK_K})
+     */
+    public List<Oneri> oner(String sorgu, int limit) {
+        String anahtar = anahtar(sorgu);
+        if (anahtar.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (anahtar.length() > MAKS_ANAHTAR_UZUNLUGU) {
+            anahtar = anahtar.substring(0, MAKS_ANAHTAR_UZUNLUGU);
+        }
+
+        synchronized (kilit) {
+            Dugum dugum = kok;
+            for (int i = 0; i < anahtar.length() && dugum != null; i++) {
+                dugum = dugum.cocuk(anahtar.charAt(i));
+            }
+            if (dugum == null) {
+                return List.of();
+            }
+            Kayit[] enIyiler = enIyiler(dugum);
+            int adet = Math.min(Math.min(limit, ONBELLEK_K), enIyiler.length);
+            List<Oneri> sonuc = new ArrayList<>(adet);
+            for (int i = 0; i < adet; i++) {
+                sonuc.add(enIyiler[i].oneri());
+            }
+            return sonuc;
+        }
+    }
+
+    // =============== TRIE ===============
+
+    private void katkiEkle(List<Kayit> katkilar, String tur, Long varlikId, String metin, Long urunId, long agirlik) {
+        if (metin == null || metin.isBlank()) {
+            return;
+        }
+        String anahtar = anahtar(metin);
+        if (anahtar.isEmpty()) {
+            return;
+        }
+        Kayit kayit = kayitlar.computeIfAbsent(tur + ":" + varlikId + ":" + anahtar, k -> {
+            Kayit yeni = new Kayit(k, metin.trim(), tur, varlikId, kelimeBaslari(anahtar));
+            for (String a : yeni.anahtarlar) {
+                dugumOlustur(a).kayitEkle(yeni);
+            }
+            return yeni;
+        });
+        kayit.agirlik += agirlik;
+        kayit.adet++;
+        if (URUN.equals(tur)) {
+            kayit.urunIdleri.add(urunId);
+        }
+        kirlet(kayit);
+        katkilar.add(kayit);
+    }
+
+    private void katkiCikar(Kayit kayit, Long urunId, long agirlik) {
+        kayit.agirlik -= agirlik;
+        kayit.adet--;
+        kayit.urunIdleri.remove(urunId);
+        kirlet(kayit);
+        if (kayit.adet > 0) {
+            return;
+        }
+        kayitlar.remove(kayit.kimlik);
+        for (String a : kayit.anahtarlar) {
+            anahtarSil(a, kayit);
+        }
+    }
+
+    private Dugum dugumOlustur(String anahtar) {
+        Dugum dugum = kok;
+        for (int i = 0; i < anahtar.length(); i++) {
+            dugum = dugum.cocukOlustur(anahtar.charAt(i));
+        }
+        return dugum;
+    }
+
+    private void anahtarSil(String anahtar, Kayit kayit) {
+        Dugum[] yol = new Dugum[anahtar.length() + 1];
+        yol[0] = kok;
+        for (int i = 0; i < anahtar.length(); i++) {
+            yol[i + 1] = yol[i].cocuk(anahtar.charAt(i));
+            if (yol[i + 1] == null) {
+                return;
+            }
+        }
+        yol[anahtar.length()].kayitSil(kayit);
+        // Boş kalan yaprakları yukarı doğru buda
+        for (int i = anahtar.length(); i > 0 && yol[i].bosMu(); i--) {
+            yol[i - 1].cocukSil(anahtar.charAt(i - 1));
+        }
+    }
+
+    private void kirlet(Kayit kayit) {
+        for (String a : kayit.anahtarlar) {
+            Dugum dugum = kok;
+            dugum.kirli = true;
+            for (int i = 0; i < a.length() && dugum != null; i++) {
+                dugum = dugum.cocuk(a.charAt(i));
+                if (dugum != null) {
+                    dugum.kirli = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Düğümün önbelleğini gerekiyorsa alt düğümlerin önbelleklerinden yeniden hesapla
+     */
+    private Kayit[] enIyiler(Dugum dugum) {
+        if (!dugum.kirli) {
+            return dugum.enIyiler;
+        }
+        List<Kayit> adaylar = new ArrayList<>();
+        if (dugum.kayitlar != null) {
+            adaylar.addAll(dugum.kayitlar);
+        }
+        for (int i = 0; i < dugum.cocukSayisi; i++) {
+            Collections.addAll(adaylar, enIyiler(dugum.cocuklar[i]));
+        }
+        adaylar.sort(SIRALAMA);
+
+        // Aynı kayıt farklı kelime başlarından gelebilir
+        Kayit[] secilen = new Kayit[Math.min(ONBELLEK_K, adaylar.size())];
+        int adet = 0;
+        Set<Kayit> gorulen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Kayit aday : adaylar) {
+            if (adet == secilen.length) {
+                break;
+            }
+            if (gorulen.add(aday)) {
+                secilen[adet++] = aday;
+            }
+        }
+        dugum.enIyiler = adet == secilen.length ? secilen : Arrays.copyOf(secilen, adet);
+        dugum.kirli = false;
+        return dugum.enIyiler;
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private static String anahtar(String metin) {
+        if (metin == null) {
+            return "";
+        }
+        return MetinAnalizci.normalizeEt(metin).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    /**
+     * "siyah uzun gomlek" → ["siyah uzun gomlek", "uzun gomlek", "gomlek"] (uzunluk sınırıyla)
+     */
+    private static List<String> kelimeBaslari(String anahtar) {
+        List<String> sonuc = new ArrayList<>();
+        for (int i = 0; i < anahtar.length(); i++) {
+            if (i == 0 || anahtar.charAt(i - 1) == ' ') {
+                String parca = anahtar.substring(i);
+                sonuc.add(parca.length() > MAKS_ANAHTAR_UZUNLUGU ? parca.substring(0, MAKS_ANAHTAR_UZUNLUGU) : parca);
+            }
+        }
+        return sonuc;
+    }
+
+    private static void commitSonrasi(Runnable islem) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    islem.run();
+                }
+            });
+        } else {
+            islem.run();
+        }
+    }
+
+    private static final class Kayit {
+        final String kimlik;
+        final String metin;
+        final String tur;
+        final Long varlikId;
+        final List<String> anahtarlar;
+        final Set<Long> urunIdleri = new HashSet<>(2);
+        long agirlik;
+        int adet;
+
+        Kayit(String kimlik, String metin, String tur, Long varlikId, List<String> anahtarlar) {
+            this.kimlik = kimlik;
+            this.metin = metin;
+            this.tur = tur;
+            this.varlikId = varlikId;
+            this.anahtarlar = anahtarlar;
+        }
+
+        Oneri oneri() {
+            Long id = varlikId;
+            if (id == null && urunIdleri.size() == 1) {
+                id = urunIdleri.iterator().next();
+            }
+            return new Oneri(metin, tur, id, agirlik);
+        }
+    }
+
+    private static final class UrunKatkisi {
+        long agirlik;
+        final List<Kayit> kayitlar;
+
+        UrunKatkisi(long agirlik, List<Kayit> kayitlar) {
+            this.agirlik = agirlik;
+            this.kayitlar = kayitlar;
+        }
+    }
+
+    /**
+     * Çocuklar sıralı char dizisinde tutulur (HashMap'e göre düğüm başına çok daha az bellek)
+     */
+    private static final class Dugum {
+        private static final Kayit[] BOS = new Kayit[0];
+
+        char[] karakterler = new char[0];
+        Dugum[] cocuklar = new Dugum[0];
+        int cocukSayisi;
+        List<Kayit> kayitlar;
+        Kayit[] enIyiler = BOS;
+        boolean kirli = true;
+
+        Dugum cocuk(char c) {
+            int i = Arrays.binarySearch(karakterler, 0, cocukSayisi, c);
+            return i >= 0 ? cocuklar[i] : null;
+        }
+
+        Dugum cocukOlustur(char c) {
+            int i = Arrays.binarySearch(karakterler, 0, cocukSayisi, c);
+            if (i >= 0) {
+                return cocuklar[i];
+            }
+            int yer = -i - 1;
+            if (cocukSayisi == karakterler.length) {
+                int yeniBoyut = Math.max(2, cocukSayisi * 2);
+                karakterler = Arrays.copyOf(karakterler, yeniBoyut);
+                cocuklar = Arrays.copyOf(cocuklar, yeniBoyut);
+            }
+            System.arraycopy(karakterler, yer, karakterler, yer + 1, cocukSayisi - yer);
+            System.arraycopy(cocuklar, yer, cocuklar, yer + 1, cocukSayisi - yer);
+            Dugum yeni = new Dugum();
+            karakterler[yer] = c;
+            cocuklar[yer] = yeni;
+            cocukSayisi++;
+            kirli = true;
+            return yeni;
+        }
+
+        void cocukSil(char c) {
+            int i = Arrays.binarySearch(karakterler, 0, cocukSayisi, c);
+            if (i < 0) {
+                return;
+            }
+            System.arraycopy(karakterler, i + 1, karakterler, i, cocukSayisi - i - 1);
+            System.arraycopy(cocuklar, i + 1, cocuklar, i, cocukSayisi - i - 1);
+            cocukSayisi--;
+            cocuklar[cocukSayisi] = null;
+            kirli = true;
+        }
+
+        void kayitEkle(Kayit kayit) {
+            if (kayitlar == null) {
+                kayitlar = new ArrayList<>(1);
+            }
+            kayitlar.add(kayit);
+        }
+
+        void kayitSil(Kayit kayit) {
+            if (kayitlar != null) {
+                kayitlar.remove(kayit);
+                if (kayitlar.isEmpty()) {
+                    kayitlar = null;
+                }
+            }
+        }
+
+        boolean bosMu() {
+            return cocukSayisi == 0 && kayitlar == null;
+        }
+    }
+}
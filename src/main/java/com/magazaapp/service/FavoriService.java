@@ -6,6 +6,7 @@ import com.magazaapp.model.Urun;
 import com.magazaapp.repository.FavoriRepository;
 import com.magazaapp.repository.KullaniciRepository;
 import com.magazaapp.repository.UrunRepository;
+import com.magazaapp.search.UrunOneriIndeksi;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,13 +19,16 @@ public class FavoriService {
     private final FavoriRepository favoriRepository;
     private final KullaniciRepository kullaniciRepository;
     private final UrunRepository urunRepository;
+    private final UrunOneriIndeksi urunOneriIndeksi;
 
     public FavoriService(FavoriRepository favoriRepository,
             KullaniciRepository kullaniciRepository,
-            UrunRepository urunRepository) {
+            UrunRepository urunRepository,
+            UrunOneriIndeksi urunOneriIndeksi) {
         this.favoriRepository = favoriRepository;
         this.kullaniciRepository = kullaniciRepository;
         this.urunRepository = urunRepository;
+        this.urunOneriIndeksi = urunOneriIndeksi;
     }
 
     /**
@@ -47,6 +51,7 @@ public class FavoriService {
         favori.setKullanici(kullanici);
         favori.setUrun(urun);
         favoriRepository.save(favori);
+        urunOneriIndeksi.favoriDegisti(urunId, true);
     }
 
     /**
@@ -57,6 +62,7 @@ public class FavoriService {
         Favori favori = favoriRepository.findByKullaniciIdAndUrunId(kullaniciId, urunId)
                 .orElseThrow(() -> new RuntimeException("Favori bulunamadı"));
         favoriRepository.delete(favori);
+        urunOneriIndeksi.favoriDegisti(urunId, false);
     }
 
     /**
@@ -1,9 +1,13 @@
 package com.magazaapp.service;
 
+import com.magazaapp.dto.MagazaKartiDTO;
 import com.magazaapp.model.Magaza;
 import com.magazaapp.model.Urun;
 import com.magazaapp.repository.MagazaRepository;
 import com.magazaapp.repository.UrunRepository;
+import com.magazaapp.search.MagazaIndeksi;
+import com.magazaapp.search.MetinAnalizci;
+import com.magazaapp.search.UrunAramaIndeksi;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,10 +18,15 @@ public class MagazaService {
 
     private final MagazaRepository magazaRepository;
     private final UrunRepository urunRepository;
+    private final UrunAramaIndeksi urunAramaIndeksi;
+    private final MagazaIndeksi magazaIndeksi;
 
-    public MagazaService(MagazaRepository magazaRepository, UrunRepository urunRepository) {
+    public MagazaService(MagazaRepository magazaRepository, UrunRepository urunRepository,
+            UrunAramaIndeksi urunAramaIndeksi, MagazaIndeksi magazaIndeksi) {
         this.magazaRepository = magazaRepository;
         this.urunRepository = urunRepository;
+        this.urunAramaIndeksi = urunAramaIndeksi;
+        this.magazaIndeksi = magazaIndeksi;
     }
 
     /**
@@ -27,6 +36,20 @@ public class MagazaService {
         return magazaRepository.findAll();
     }
 
+    /**
+     * Mağaza dizini: aktif mağazalar (indeks kurulana kadar veritabanından)
+     */
+    public List<MagazaKartiDTO> getAktifMagazalar() {
+        if (magazaIndeksi.hazir()) {
+            return magazaIndeksi.aktifMagazalar();
+        }
+        return magazaRepository.findByAktifTrue().stream().map(MagazaKartiDTO::from).toList();
+    }
+
+    public long magazaSayisi() {
+        return magazaIndeksi.hazir() ? magazaIndeksi.magazaSayisi() : magazaRepository.count();
+    }
+
     /**
      * Mağaza sahibine göre mağazayı getir
      */
@@ -51,7 +74,9 @@ public class MagazaService {
      */
     @Transactional
     public Magaza saveMagaza(Magaza magaza) {
-        return magazaRepository.save(magaza);
+        Magaza kaydedilen = magazaRepository.save(magaza);
+        urunAramaIndeksi.magazaAdiDegisti(kaydedilen.getId(), kaydedilen.getAd());
+        return kaydedilen;
     }
 
     /**
@@ -62,15 +87,23 @@ public class MagazaService {
     }
 
     /**
-     * Mağaza adıyla ara
+     * Mağaza adıyla ara - Türkçe harf/aksan katlamalı, önek ve yazım hatası toleranslı
      */
-    public List<Magaza> magazaAra(String aramaKelimesi) {
-        if (aramaKelimesi == null || aramaKelimesi.trim().isEmpty()) {
+    public List<MagazaKartiDTO> magazaAra(String aramaKelimesi, boolean sadeceAktif) {
+        if (magazaIndeksi.hazir()) {
+            return magazaIndeksi.ara(aramaKelimesi, sadeceAktif);
+        }
+        List<String> sorguTerimleri = MetinAnalizci.analizEt(aramaKelimesi);
+        if (sorguTerimleri.isEmpty()) {
             return List.of();
         }
-        // Basit arama - repository'de query method tanımlanabilir
-        return magazaRepository.findAll().stream()
-                .filter(m -> m.getAd().toLowerCase().contains(aramaKelimesi.toLowerCase()))
+        return (sadeceAktif ? magazaRepository.findByAktifTrue() : magazaRepository.findAll()).stream()
+                .filter(m -> {
+                    List<String> adTerimleri = MetinAnalizci.analizEt(m.getAd());
+                    return sorguTerimleri.stream().allMatch(sorguTerimi -> adTerimleri.stream()
+                            .anyMatch(adTerimi -> MetinAnalizci.eslesirMi(sorguTerimi, adTerimi)));
+                })
+                .map(MagazaKartiDTO::from)
                 .toList();
     }
 
@@ -81,12 +114,24 @@ public class MagazaService {
         return magazaRepository.findBySahipId(sahipId);
     }
 
+    /**
+     * Sahibin mağaza kartları (panel özetleri için, indeksten)
+     */
+    public List<MagazaKartiDTO> getMagazaKartlariBySahip(Long sahipId) {
+        if (magazaIndeksi.hazir()) {
+            return magazaIndeksi.sahibinMagazalari(sahipId);
+        }
+        return magazaRepository.findBySahipId(sahipId).stream().map(MagazaKartiDTO::from).toList();
+    }
+
     /**
      * Mağaza kaydet (alias for save)
      */
     @Transactional
     public Magaza kaydet(Magaza magaza) {
-        return magazaRepository.save(magaza);
+        Magaza kaydedilen = magazaRepository.save(magaza);
+        urunAramaIndeksi.magazaAdiDegisti(kaydedilen.getId(), kaydedilen.getAd());
+        return kaydedilen;
     }
 
     /**
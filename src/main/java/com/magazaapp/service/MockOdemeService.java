@@ -2,13 +2,19 @@ package com.magazaapp.service;
 
 import com.magazaapp.model.*;
 import com.magazaapp.repository.OdemeRepository;
+import com.magazaapp.stock.StokDusumSonucu;
+import com.magazaapp.stock.StokRezervasyonlari;
+import com.magazaapp.stock.StokSatiri;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * MOCK Ödeme Servisi
@@ -20,19 +26,23 @@ public class MockOdemeService {
 
     private final OdemeRepository odemeRepository;
     private final SepetService sepetService;
+    private final StokRezervasyonlari stokRezervasyonlari;
 
     // Test kart numaraları
     private static final String TEST_CARD_SUCCESS = "4111111111111111"; // Visa test
     private static final String TEST_CARD_SUCCESS_2 = "5528790000000008"; // MC test
     private static final String TEST_CARD_FAIL = "4000000000000002"; // Her zaman başarısız
 
-    public MockOdemeService(OdemeRepository odemeRepository, SepetService sepetService) {
+    public MockOdemeService(OdemeRepository odemeRepository, SepetService sepetService,
+            StokRezervasyonlari stokRezervasyonlari) {
         this.odemeRepository = odemeRepository;
         this.sepetService = sepetService;
+        this.stokRezervasyonlari = stokRezervasyonlari;
     }
 
     /**
-     * Ödeme başlat - Mock token oluştur
+     * Ödeme başlat - Mock token oluştur ve sepetteki ürünlerin stoğunu ödeme süresince ayır.
+     * Kullanıcının önceki bekleyen ödemeleri iptal edilir, ayırdıkları stok iade edilir.
      */
     @Transactional
     public OdemeBaslatSonuc odemeBaslat(Kullanici kullanici) {
@@ -53,11 +63,27 @@ public class MockOdemeService {
         odeme.setDurum(OdemeDurum.BEKLEMEDE);
         odemeRepository.save(odeme);
 
+        for (Odeme bekleyen : odemeRepository.findByKullaniciIdAndDurum(kullanici.getId(), OdemeDurum.BEKLEMEDE)) {
+            if (!bekleyen.getId().equals(odeme.getId())
+                    && odemeRepository.bekleyenOdemeyiIptalEt(bekleyen.getIyzicoToken(), "Yeni ödeme başlatıldı") > 0) {
+                stokRezervasyonlari.serbestBirak(bekleyen.getIyzicoToken());
+            }
+        }
+
+        // Stok ayır: yetmeyen satır varsa exception ile tüm işlem (ödeme kaydı dahil) geri alınır
+        StokDusumSonucu rezervasyon = stokRezervasyonlari.ayir(token, sepetListesi.stream()
+                .map(s -> new StokSatiri(s.getUrun().getId(), s.getBeden().getId(), s.getAdet()))
+                .toList());
+        if (!rezervasyon.basarili()) {
+            throw new RuntimeException(yetersizStokMesaji(rezervasyon, sepetListesi));
+        }
+
         OdemeBaslatSonuc sonuc = new OdemeBaslatSonuc();
         sonuc.setSuccess(true);
         sonuc.setToken(token);
         sonuc.setOdemeId(odeme.getId());
         sonuc.setTutar(toplamTutar);
+        sonuc.setRezervasyonBitis(LocalDateTime.now().plus(stokRezervasyonlari.sure()));
 
         return sonuc;
     }
@@ -67,9 +93,13 @@ public class MockOdemeService {
      */
     @Transactional
     public OdemeSonuc odemeTamamla(String token, String kartNo, String sonKullanma, String cvv, String kartSahibi) {
-        Odeme odeme = odemeRepository.findByIyzicoToken(token)
+        // Süre dolumu taramasıyla aynı anda işlenmesin diye ödeme satırı kilitlenir
+        Odeme odeme = odemeRepository.findByIyzicoTokenKilitli(token)
                 .orElseThrow(() -> new RuntimeException("Ödeme bulunamadı!"));
 
+        if (odeme.getDurum() == OdemeDurum.IPTAL) {
+            throw new RuntimeException("Ödeme süresi doldu veya iptal edildi, lütfen tekrar deneyin.");
+        }
         if (odeme.getDurum() != OdemeDurum.BEKLEMEDE) {
             throw new RuntimeException("Bu ödeme zaten işlenmiş!");
         }
@@ -110,6 +140,11 @@ public class MockOdemeService {
             sonuc.setMesaj("Geçersiz kart numarası!");
         }
 
+        // Başarılı ödemede rezervasyon siparişte dönüştürülür; başarısızda stok hemen iade edilir
+        if (!sonuc.isBasarili()) {
+            stokRezervasyonlari.serbestBirak(token);
+        }
+
         odemeRepository.save(odeme);
         return sonuc;
     }
@@ -138,6 +173,17 @@ public class MockOdemeService {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
+    private String yetersizStokMesaji(StokDusumSonucu sonuc, List<Sepet> sepetListesi) {
+        Map<Long, String> urunAdlari = new HashMap<>();
+        for (Sepet s : sepetListesi) {
+            urunAdlari.put(s.getUrun().getId(), s.getUrun().getAd());
+        }
+        return "Yetersiz stok! " + sonuc.eksikler().stream()
+                .map(eksik -> "'" + urunAdlari.get(eksik.urunId()) + "' ürününden "
+                        + (eksik.mevcut() != null ? eksik.mevcut() : 0) + " adet kaldı.")
+                .collect(Collectors.joining(" "));
+    }
+
     private String getKartTipi(String kartNo) {
         if (kartNo.startsWith("4"))
             return "VISA";
@@ -155,6 +201,7 @@ public class MockOdemeService {
         private String token;
         private Long odemeId;
         private BigDecimal tutar;
+        private LocalDateTime rezervasyonBitis;
 
         public boolean isSuccess() {
             return success;
@@ -187,6 +234,14 @@ public class MockOdemeService {
         public void setTutar(BigDecimal tutar) {
             this.tutar = tutar;
         }
+
+        public LocalDateTime getRezervasyonBitis() {
+            return rezervasyonBitis;
+        }
+
+        public void setRezervasyonBitis(LocalDateTime rezervasyonBitis) {
+            this.rezervasyonBitis = rezervasyonBitis;
+        }
     }
 
     public static class OdemeSonuc {
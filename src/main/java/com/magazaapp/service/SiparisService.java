@@ -1,32 +1,41 @@
 package com.magazaapp.service;
 
+import com.magazaapp.checkout.SiparisHatti;
 import com.magazaapp.model.*;
 import com.magazaapp.repository.*;
+import com.magazaapp.stock.StokDusumSonucu;
+import com.magazaapp.stock.StokMotoru;
+import com.magazaapp.stock.StokSatiri;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class SiparisService {
 
     private final SiparisFisiRepository siparisFisiRepository;
     private final SiparisDetayRepository siparisDetayRepository;
-    private final SepetRepository sepetRepository;
-    private final UrunStokRepository urunStokRepository;
     private final KullaniciRepository kullaniciRepository;
+    private final MagazaRepository magazaRepository;
+    private final StokMotoru stokMotoru;
+    private final SiparisHatti siparisHatti;
 
     public SiparisService(SiparisFisiRepository siparisFisiRepository,
             SiparisDetayRepository siparisDetayRepository,
-            SepetRepository sepetRepository,
-            UrunStokRepository urunStokRepository,
-            KullaniciRepository kullaniciRepository) {
+            KullaniciRepository kullaniciRepository,
+            MagazaRepository magazaRepository,
+            StokMotoru stokMotoru,
+            SiparisHatti siparisHatti) {
         this.siparisFisiRepository = siparisFisiRepository;
         this.siparisDetayRepository = siparisDetayRepository;
-        this.sepetRepository = sepetRepository;
-        this.urunStokRepository = urunStokRepository;
         this.kullaniciRepository = kullaniciRepository;
+        this.magazaRepository = magazaRepository;
+        this.stokMotoru = stokMotoru;
+        this.siparisHatti = siparisHatti;
     }
 
     /**
@@ -34,80 +43,29 @@ public class SiparisService {
      */
     @Transactional
     public SiparisResult siparisOlustur(Kullanici kullanici) {
-        List<Sepet> sepetListesi = sepetRepository.findByKullaniciId(kullanici.getId());
-
-        if (sepetListesi.isEmpty()) {
-            return SiparisResult.hata("Sepetiniz boş!");
-        }
-
-        // Mağaza ID'sini al (sepetteki ilk ürünün mağazası)
-        Magaza magaza = sepetListesi.get(0).getUrun().getMagaza();
-
-        // Farklı mağaza kontrolü - tüm ürünler aynı mağazadan olmalı
-        for (Sepet sepetItem : sepetListesi) {
-            if (!sepetItem.getUrun().getMagaza().getId().equals(magaza.getId())) {
-                return SiparisResult.hata(
-                        "Sipariş oluşturulamadı: Sepetinizde farklı mağazalardan ürünler var. " +
-                                "Lütfen tek mağazadan sipariş verin.");
-            }
-        }
-
-        // ÖNCELİKLİ STOK KONTROLÜ - Sipariş vermeden önce tüm stokları kontrol et
-        for (Sepet sepetItem : sepetListesi) {
-            UrunStok stok = urunStokRepository.findByUrunIdAndBedenId(
-                    sepetItem.getUrun().getId(), sepetItem.getBeden().getId())
-                    .orElseThrow(() -> new RuntimeException("Stok bulunamadı: " + sepetItem.getUrun().getAd()));
+        return siparisOlustur(kullanici, null);
+    }
 
-            if (stok.getAdet() < sepetItem.getAdet()) {
-                return SiparisResult.hata(
-                        "Yetersiz stok! '" + sepetItem.getUrun().getAd() + "' ürününden " +
-                                stok.getAdet() + " adet kaldı, sepetinizde " + sepetItem.getAdet() + " adet var.");
-            }
-        }
+    /**
+     * Sipariş oluştur - sepetten. Ödeme token'ı verilirse ödeme başlatılırken ayrılan stok
+     * siparişe dönüştürülür, yalnızca ayrılandan fazlası düşülür.
+     */
+    @Transactional
+    public SiparisResult siparisOlustur(Kullanici kullanici, String odemeToken) {
+        return siparisOlustur(kullanici, odemeToken, null);
+    }
 
-        // Toplam tutarı hesapla
-        BigDecimal toplamTutar = sepetListesi.stream()
-                .map(item -> item.getUrun().getFiyat().multiply(BigDecimal.valueOf(item.getAdet())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Sipariş fişi oluştur
-        SiparisFisi siparisFisi = new SiparisFisi();
-        siparisFisi.setKullanici(kullanici);
-        siparisFisi.setMagaza(magaza);
-        siparisFisi.setToplamTutar(toplamTutar);
-        siparisFisi.setTeslimatAdresi(kullanici.getAdres() != null ? kullanici.getAdres() : "Adres yok");
-        siparisFisi.setDurum(SiparisDurum.BEKLEMEDE);
-        siparisFisi = siparisFisiRepository.save(siparisFisi);
-
-        // Sipariş detaylarını oluştur ve stokları düş
-        for (Sepet sepetItem : sepetListesi) {
-            SiparisDetay detay = new SiparisDetay();
-            detay.setSiparisFisi(siparisFisi);
-            detay.setUrun(sepetItem.getUrun());
-            detay.setBeden(sepetItem.getBeden());
-            detay.setAdet(sepetItem.getAdet());
-            detay.setBirimFiyat(sepetItem.getUrun().getFiyat());
-            detay.setToplamFiyat(sepetItem.getUrun().getFiyat().multiply(BigDecimal.valueOf(sepetItem.getAdet())));
-            siparisDetayRepository.save(detay);
-
-            // Stok düş (güvenli - yukarıda kontrol edildi)
-            UrunStok stok = urunStokRepository.findByUrunIdAndBedenId(
-                    sepetItem.getUrun().getId(), sepetItem.getBeden().getId())
-                    .orElseThrow(() -> new RuntimeException("Stok bulunamadı"));
-
-            int yeniStok = stok.getAdet() - sepetItem.getAdet();
-            if (yeniStok < 0) {
-                throw new RuntimeException("Stok hatası: Negatif stok oluşamaz!");
-            }
-            stok.setAdet(yeniStok);
-            urunStokRepository.save(stok);
+    /**
+     * Sipariş oluştur - sepetten; teslimat adresi verilmezse kullanıcının kayıtlı adresi kullanılır.
+     * Başarısız sonuçta transaction geri alınır (ör. rezervasyon dönüşümünün silme ve iadeleri).
+     */
+    @Transactional
+    public SiparisResult siparisOlustur(Kullanici kullanici, String odemeToken, String teslimatAdresi) {
+        SiparisResult sonuc = siparisHatti.calistir(kullanici, odemeToken, teslimatAdresi);
+        if (!sonuc.isSuccess()) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
         }
-
-        // Sepeti boşalt
-        sepetRepository.deleteByKullaniciId(kullanici.getId());
-
-        return SiparisResult.basarili("Siparişiniz başarıyla oluşturuldu! Sipariş No: #" + siparisFisi.getId(),
-                siparisFisi.getId());
+        return sonuc;
     }
 
     /**
@@ -142,6 +100,159 @@ public class SiparisService {
         siparisFisiRepository.save(siparis);
     }
 
+    /**
+     * Mağaza sahibinin siparişlerini toplu olarak yeni duruma taşı. Mevcut durum ve mağaza tek kilitli
+     * sorguda okunur, geçişi uygun olanlar tek UPDATE ile güncellenir; sonuç her id için ayrı döner
+     * (istek sırasıyla, tekrar eden id'ler bir kez). Satırlar transaction sonuna kadar kilitli kaldığı
+     * için okunan durum UPDATE anında da geçerlidir: bulunamayan sipariş hata, kalanların sonucu kesindir.
+     */
+    @Transactional
+    public List<TopluDurumSonucu> topluDurumGuncelle(Long sahipId, Collection<Long> siparisIds,
+            SiparisDurum hedef) {
+        Set<Long> idler = siparisIds.stream().filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (idler.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> magazalar = magazaRepository.findBySahipId(sahipId).stream()
+                .map(Magaza::getId)
+                .collect(Collectors.toSet());
+        Map<Long, SiparisDurum> durumlar = new HashMap<>();
+        Map<Long, Long> siparisMagazalari = new HashMap<>();
+        for (Object[] satir : siparisFisiRepository.findDurumVeMagazaByIdInKilitli(idler)) {
+            durumlar.put((Long) satir[0], (SiparisDurum) satir[1]);
+            siparisMagazalari.put((Long) satir[0], (Long) satir[2]);
+        }
+
+        Map<Long, TopluDurumSonucu> sonuclar = new HashMap<>();
+        List<Long> guncellenecek = new ArrayList<>();
+        for (Long id : idler) {
+            SiparisDurum mevcut = durumlar.get(id);
+            if (mevcut == null) {
+                sonuclar.put(id, TopluDurumSonucu.hata(id, null, "Sipariş bulunamadı"));
+            } else if (!magazalar.contains(siparisMagazalari.get(id))) {
+                sonuclar.put(id, TopluDurumSonucu.hata(id, null, "Bu sipariş size ait bir mağazada değil"));
+            } else if (mevcut == hedef) {
+                sonuclar.put(id, new TopluDurumSonucu(id, true, hedef, "Sipariş zaten bu durumda"));
+            } else if (!mevcut.ilerleyebilir(hedef)) {
+                sonuclar.put(id, TopluDurumSonucu.hata(id, mevcut, mevcut + " durumundaki sipariş " + hedef
+                        + " durumuna alınamaz"));
+            } else {
+                guncellenecek.add(id);
+            }
+        }
+
+        if (!guncellenecek.isEmpty()) {
+            Set<SiparisDurum> kaynaklar = EnumSet.noneOf(SiparisDurum.class);
+            for (SiparisDurum durum : SiparisDurum.values()) {
+                if (durum.ilerleyebilir(hedef)) {
+                    kaynaklar.add(durum);
+                }
+            }
+            int guncellenen = siparisFisiRepository.topluDurumGuncelle(guncellenecek, kaynaklar, hedef);
+            // Satırlar kilitliyken koşul hepsini tutmalı; tutmadıysa kısmi sonuç commit edilmez
+            if (guncellenen != guncellenecek.size()) {
+                throw new IllegalStateException("Toplu durum güncellemesi " + guncellenecek.size()
+                        + " siparişten " + guncellenen + " tanesini güncelledi");
+            }
+            for (Long id : guncellenecek) {
+                sonuclar.put(id, new TopluDurumSonucu(id, true, hedef, "Sipariş durumu güncellendi"));
+            }
+        }
+
+        return idler.stream().map(sonuclar::get).toList();
+    }
+
+    /**
+     * Sipariş içeriğini düzenle: adet değişiklikleri ve silinen satırlar stoğa tek seferde yansıtılır
+     * (artışlar koşullu düşülür, azalışlar iade edilir; biri yetmezse hiçbir şey değişmez). Tüm detaylar
+     * silinirse sipariş iptal edilir.
+     *
+     * İstek önce doğrulanır; fiş yalnızca geçerli bir düzenleme için okunur ve okunurken versiyonu zorla
+     * artırılır, böylece eşzamanlı iki düzenleme (veya düzenleme ile durum değişikliği) commit'te iyimser
+     * kilit hatasıyla çakışır; çağıran YenidenDenemeYurutucusu ile sarmalamalıdır. beklenenVersiyon verilir ve fiş artık o versiyonda değilse kullanıcı eski bir
+     * görünümü düzenliyordur: hiçbir şey değişmez, sonuç çakışma olarak döner.
+     */
+    @Transactional
+    public SiparisResult icerikGuncelle(Long siparisId, List<Long> detayIds, List<Integer> adetler,
+            List<Long> silinecekIds, Long beklenenVersiyon) {
+        // İstek fiş kilitlenmeden doğrulanır; geçersiz istek versiyonu artırmaz
+        if (detayIds == null || adetler == null || detayIds.size() != adetler.size()) {
+            return SiparisResult.hata("Detay ID'leri ve adetler eşleşmiyor");
+        }
+        Set<Long> silinecekler = silinecekIds != null ? new HashSet<>(silinecekIds) : Set.of();
+        Map<Long, Integer> yeniAdetler = new LinkedHashMap<>();
+        for (int i = 0; i < detayIds.size(); i++) {
+            if (silinecekler.contains(detayIds.get(i))) {
+                continue;
+            }
+            Integer yeniAdet = adetler.get(i);
+            if (yeniAdet == null || yeniAdet < 1) {
+                return SiparisResult.hata("Adet 1'den küçük olamaz!");
+            }
+            yeniAdetler.put(detayIds.get(i), yeniAdet);
+        }
+
+        SiparisFisi siparis = siparisFisiRepository.findByIdVersiyonArtirarak(siparisId)
+                .orElseThrow(() -> new RuntimeException("Sipariş bulunamadı"));
+        if (beklenenVersiyon != null && !beklenenVersiyon.equals(siparis.getVersiyon())) {
+            // Zorla artırma commit'te yazılır; hiçbir şey değişmediği için transaction geri alınır
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return SiparisResult.cakisma("Sipariş siz düzenlerken değişti, güncel hâlini yükleyip tekrar deneyin");
+        }
+
+        // Başka siparişin detayları yok sayılır
+        Map<Long, SiparisDetay> detaylar = siparisDetayRepository.findBySiparisFisiId(siparisId).stream()
+                .collect(Collectors.toMap(SiparisDetay::getId, d -> d));
+        List<StokSatiri> dusulecekler = new ArrayList<>();
+        List<StokSatiri> iadeler = new ArrayList<>();
+        List<SiparisDetay> kalanlar = new ArrayList<>();
+        for (SiparisDetay detay : detaylar.values()) {
+            if (silinecekler.contains(detay.getId())) {
+                stokSatiriEkle(iadeler, detay, detay.getAdet());
+                siparisDetayRepository.delete(detay);
+                continue;
+            }
+            Integer yeniAdet = yeniAdetler.get(detay.getId());
+            if (yeniAdet != null && !yeniAdet.equals(detay.getAdet())) {
+                int fark = yeniAdet - detay.getAdet();
+                stokSatiriEkle(fark > 0 ? dusulecekler : iadeler, detay, Math.abs(fark));
+                detay.setAdet(yeniAdet);
+                detay.setToplamFiyat(detay.getBirimFiyat().multiply(BigDecimal.valueOf(yeniAdet)));
+            }
+            kalanlar.add(detay);
+        }
+
+        stokMotoru.iadeEt(iadeler);
+        StokDusumSonucu stokSonucu = stokMotoru.dus(dusulecekler);
+        if (!stokSonucu.basarili()) {
+            // Yapılan iadeler ve detay değişiklikleri de geri alınsın
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return SiparisResult.hata("Yetersiz stok! Ürün: " + stokSonucu.eksikler().stream()
+                    .map(eksik -> detaylar.values().stream()
+                            .filter(d -> d.getUrun().getId().equals(eksik.urunId()))
+                            .findFirst().map(d -> d.getUrun().getAd()).orElse("#" + eksik.urunId()))
+                    .distinct()
+                    .collect(Collectors.joining(", ")));
+        }
+
+        if (kalanlar.isEmpty()) {
+            siparis.setToplamTutar(BigDecimal.ZERO);
+            siparis.setDurum(SiparisDurum.IPTAL);
+        } else {
+            siparis.setToplamTutar(kalanlar.stream()
+                    .map(SiparisDetay::getToplamFiyat)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+        }
+        return SiparisResult.basarili("Sipariş içeriği güncellendi", siparisId);
+    }
+
+    private static void stokSatiriEkle(List<StokSatiri> satirlar, SiparisDetay detay, int adet) {
+        if (detay.getBeden() != null && adet > 0) {
+            satirlar.add(new StokSatiri(detay.getUrun().getId(), detay.getBeden().getId(), adet));
+        }
+    }
+
     /**
      * Sipariş detaylarını getir
      */
@@ -163,11 +274,25 @@ public class SiparisService {
         return siparisFisiRepository.findAllByOrderBySiparisTarihiDesc();
     }
 
+    /**
+     * Toplu durum güncellemesinde bir siparişin sonucu; durum siparişin işlem sonrası durumudur
+     * (bulunamayan veya başka mağazanın siparişi için null)
+     */
+    public record TopluDurumSonucu(Long siparisId, boolean basarili, SiparisDurum durum, String mesaj) {
+
+        static TopluDurumSonucu hata(Long siparisId, SiparisDurum durum, String mesaj) {
+            return new TopluDurumSonucu(siparisId, false, durum, mesaj);
+        }
+    }
+
     // Inner class - Sipariş sonucu
     public static class SiparisResult {
         private boolean success;
+        private boolean cakisma;
         private String mesaj;
         private Long siparisId;
+        private BigDecimal toplamTutar;
+        private List<StokDusumSonucu.Satir> eksikler = List.of();
 
         public static SiparisResult basarili(String mesaj, Long siparisId) {
             SiparisResult result = new SiparisResult();
@@ -177,6 +302,12 @@ public class SiparisService {
             return result;
         }
 
+        public static SiparisResult basarili(String mesaj, Long siparisId, BigDecimal toplamTutar) {
+            SiparisResult result = basarili(mesaj, siparisId);
+            result.toplamTutar = toplamTutar;
+            return result;
+        }
+
         public static SiparisResult hata(String mesaj) {
             SiparisResult result = new SiparisResult();
             result.success = false;
@@ -184,10 +315,32 @@ public class SiparisService {
             return result;
         }
 
+        /**
+         * Sipariş kullanıcının gördüğü versiyondan sonra değişti
+         */
+        public static SiparisResult cakisma(String mesaj) {
+            SiparisResult result = hata(mesaj);
+            result.cakisma = true;
+            return result;
+        }
+
+        /**
+         * Stoğu yetmeyen satırlarla birlikte hata
+         */
+        public static SiparisResult yetersizStok(String mesaj, List<StokDusumSonucu.Satir> eksikler) {
+            SiparisResult result = hata(mesaj);
+            result.eksikler = eksikler;
+            return result;
+        }
+
         public boolean isSuccess() {
             return success;
         }
 
+        public boolean isCakisma() {
+            return cakisma;
+        }
+
         public String getMesaj() {
             return mesaj;
         }
@@ -195,6 +348,14 @@ public class SiparisService {
         public Long getSiparisId() {
             return siparisId;
         }
+
+        public BigDecimal getToplamTutar() {
+            return toplamTutar;
+        }
+
+        public List<StokDusumSonucu.Satir> getEksikler() {
+            return eksikler;
+        }
     }
 
     /**
@@ -202,15 +363,24 @@ public class SiparisService {
      */
     @Transactional
     public SiparisFisi sepettenSiparisOlustur(Long kullaniciId) {
+        return sepettenSiparisOlustur(kullaniciId, null);
+    }
+
+    /**
+     * Ödemesi tamamlanan sepetten sipariş oluştur (ödeme için ayrılan stok kullanılır)
+     */
+    @Transactional
+    public SiparisFisi sepettenSiparisOlustur(Long kullaniciId, String odemeToken) {
         Kullanici kullanici = kullaniciRepository.findById(kullaniciId)
                 .orElseThrow(() -> new RuntimeException("Kullanıcı bulunamadı"));
 
-        SiparisResult result = siparisOlustur(kullanici);
+        SiparisResult result = siparisOlustur(kullanici, odemeToken);
 
         if (!result.isSuccess()) {
             throw new RuntimeException(result.getMesaj());
         }
 
-        return getSiparisById(result.getSiparisId());
+        // Fiş JDBC ile yazıldı; çağıranlar yalnızca id'yi ve ilişkiyi kullandığı için tekrar okunmaz
+        return siparisFisiRepository.getReferenceById(result.getSiparisId());
     }
 }
@@ -1,13 +1,37 @@
 package com.magazaapp.service;
 
+import com.magazaapp.catalog.KatalogGoruntusu;
+import com.magazaapp.catalog.KatalogOnbellegi;
+import com.magazaapp.dto.StokDTO;
+import com.magazaapp.dto.UrunDetayDTO;
+import com.magazaapp.dto.UrunImleci;
+import com.magazaapp.dto.UrunKartiDTO;
+import com.magazaapp.dto.UrunSayfasi;
+import com.magazaapp.dto.UrunSiralama;
 import com.magazaapp.model.Urun;
 import com.magazaapp.model.UrunStok;
 import com.magazaapp.repository.UrunRepository;
 import com.magazaapp.repository.UrunStokRepository;
+import com.magazaapp.search.AramaAnalitigi;
+import com.magazaapp.search.AramaSonucu;
+import com.magazaapp.search.FacetSonucu;
+import com.magazaapp.search.SorguOnbellegi;
+import com.magazaapp.search.UrunAramaIndeksi;
+import com.magazaapp.search.UrunFacetIndeksi;
+import com.magazaapp.search.UrunFiltresi;
+import com.magazaapp.stock.StokMotoru;
+import com.magazaapp.stock.StokSatiri;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -15,46 +39,43 @@ public class UrunService {
 
     private final UrunRepository urunRepository;
     private final UrunStokRepository urunStokRepository;
+    private final UrunAramaIndeksi urunAramaIndeksi;
+    private final UrunFacetIndeksi urunFacetIndeksi;
+    private final KatalogOnbellegi katalogOnbellegi;
+    private final SorguOnbellegi sorguOnbellegi;
+    private final AramaAnalitigi aramaAnalitigi;
+    private final StokMotoru stokMotoru;
 
-    public UrunService(UrunRepository urunRepository, UrunStokRepository urunStokRepository) {
+    public UrunService(UrunRepository urunRepository, UrunStokRepository urunStokRepository,
+            UrunAramaIndeksi urunAramaIndeksi, UrunFacetIndeksi urunFacetIndeksi,
+            KatalogOnbellegi katalogOnbellegi, SorguOnbellegi sorguOnbellegi, AramaAnalitigi aramaAnalitigi,
+            StokMotoru stokMotoru) {
         this.urunRepository = urunRepository;
         this.urunStokRepository = urunStokRepository;
+        this.urunAramaIndeksi = urunAramaIndeksi;
+        this.urunFacetIndeksi = urunFacetIndeksi;
+        this.katalogOnbellegi = katalogOnbellegi;
+        this.sorguOnbellegi = sorguOnbellegi;
+        this.aramaAnalitigi = aramaAnalitigi;
+        this.stokMotoru = stokMotoru;
     }
 
     /**
-     * Ürün arama - ad, açıklama, mağaza, kategori, renk ile arama
+     * Ürün arama - ad, açıklama, mağaza, kategori, renk ile arama (bellek içi indeksten).
+     * Sonuçlar alaka puanına göre sıralıdır; ürünler için {@link #getUrunlerByIdler(List)} kullanılır.
+     * Sık tekrarlanan aramalar sorgu önbelleğinden karşılanır; her arama analitik için kaydedilir.
      */
-    public List<Urun> araUrun(String aramaKelimesi) {
+    public AramaSonucu araUrun(String aramaKelimesi, int offset, int limit) {
         if (aramaKelimesi == null || aramaKelimesi.trim().length() < 2) {
-            return List.of();
+            return AramaSonucu.BOS;
         }
-
-        String arananKelime = aramaKelimesi.trim().toLowerCase();
-        List<Urun> tumUrunler = urunRepository.findByAktifTrue();
-
-        return tumUrunler.stream()
-                .filter(urun -> {
-                    String ad = urun.getAd() != null ? urun.getAd().toLowerCase() : "";
-                    String aciklama = urun.getAciklama() != null ? urun.getAciklama().toLowerCase() : "";
-                    String magazaAd = urun.getMagaza() != null && urun.getMagaza().getAd() != null
-                            ? urun.getMagaza().getAd().toLowerCase()
-                            : "";
-                    String kategori = urun.getAltKategori() != null && urun.getAltKategori().getKategori() != null
-                            ? urun.getAltKategori().getKategori().getAd().toLowerCase()
-                            : "";
-                    String altKategori = urun.getAltKategori() != null
-                            ? urun.getAltKategori().getAd().toLowerCase()
-                            : "";
-                    String renk = urun.getRenk() != null ? urun.getRenk().toLowerCase() : "";
-
-                    return ad.contains(arananKelime) ||
-                            aciklama.contains(arananKelime) ||
-                            magazaAd.contains(arananKelime) ||
-                            kategori.contains(arananKelime) ||
-                            altKategori.contains(arananKelime) ||
-                            renk.contains(arananKelime);
-                })
-                .collect(Collectors.toList());
+        String sorgu = aramaKelimesi.trim();
+        AramaSonucu sonuc = sorguOnbellegi.arama(sorgu, offset, limit, () -> urunAramaIndeksi.ara(sorgu, offset, limit));
+        if (offset <= 0) {
+            // Sonraki sayfalar aynı aramanın devamı, ayrıca sayılmaz
+            aramaAnalitigi.kaydet(sorgu, sonuc.toplam());
+        }
+        return sonuc;
     }
 
     /**
@@ -104,12 +125,94 @@ public class UrunService {
         return urunRepository.findByFiltre(magazaId, kategoriId, altKategoriId);
     }
 
+    /**
+     * Facet'li filtreleme - bitmap indeksinden (sorgu önbelleği üzerinden), facet sayımlarıyla birlikte
+     */
+    public FacetSonucu facetliFiltrele(UrunFiltresi filtre, int offset, int limit) {
+        return sorguOnbellegi.filtre(filtre, offset, limit, () -> urunFacetIndeksi.filtrele(filtre, offset, limit));
+    }
+
+    /**
+     * Id listesindeki ürünleri (mağaza ve kategorileriyle) verilen sırada getir
+     */
+    public List<Urun> getUrunlerByIdler(List<Long> idler) {
+        if (idler.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Urun> urunMap = new HashMap<>();
+        for (Urun urun : urunRepository.findDetayliByIdIn(idler)) {
+            urunMap.put(urun.getId(), urun);
+        }
+        List<Urun> sirali = new ArrayList<>(idler.size());
+        for (Long id : idler) {
+            Urun urun = urunMap.get(id);
+            if (urun != null) {
+                sirali.add(urun);
+            }
+        }
+        return sirali;
+    }
+
+    /**
+     * Aktif ürünlerin kartlarını verilen sırada bellek içi katalog görüntüsünden getir
+     */
+    public List<UrunKartiDTO> getUrunKartlari(List<Long> idler) {
+        if (idler.isEmpty()) {
+            return List.of();
+        }
+        return katalogOnbellegi.goruntu().urunler(idler);
+    }
+
+    /**
+     * Birden fazla ürünün detayı (kart + beden stokları) istek sırasıyla; tekrar eden id'ler bir kez,
+     * bulunamayanlar atlanır. Aktif ürünler katalog görüntüsünden gelir; görüntüde olmayanlar
+     * (pasif ürünler veya kurulum öncesi) id sayısından bağımsız olarak iki IN sorgusuyla okunur.
+     */
+    public List<UrunDetayDTO> getUrunDetaylari(List<Long> idler) {
+        Set<Long> istenen = new LinkedHashSet<>(idler);
+        istenen.remove(null);
+        if (istenen.isEmpty()) {
+            return List.of();
+        }
+
+        KatalogGoruntusu katalog = katalogOnbellegi.goruntu();
+        Map<Long, UrunDetayDTO> detaylar = new HashMap<>();
+        List<Long> eksikler = new ArrayList<>();
+        for (Long id : istenen) {
+            katalog.urun(id).ifPresentOrElse(
+                    kart -> detaylar.put(id, UrunDetayDTO.of(kart, katalog.stoklar(id))),
+                    () -> eksikler.add(id));
+        }
+        if (!eksikler.isEmpty()) {
+            List<UrunKartiDTO> kartlar = urunRepository.findKartlarByIdIn(eksikler);
+            if (!kartlar.isEmpty()) {
+                Map<Long, List<StokDTO>> stoklar = urunStokRepository
+                        .findStoklarByUrunIdIn(kartlar.stream().map(UrunKartiDTO::id).toList()).stream()
+                        .collect(Collectors.groupingBy(StokDTO::urunId));
+                for (UrunKartiDTO kart : kartlar) {
+                    detaylar.put(kart.id(), UrunDetayDTO.of(kart, stoklar.getOrDefault(kart.id(), List.of())));
+                }
+            }
+        }
+
+        List<UrunDetayDTO> sirali = new ArrayList<>(detaylar.size());
+        for (Long id : istenen) {
+            UrunDetayDTO detay = detaylar.get(id);
+            if (detay != null) {
+                sirali.add(detay);
+            }
+        }
+        return sirali;
+    }
+
     /**
      * Ürün kaydet
      */
     @Transactional
     public Urun saveUrun(Urun urun) {
-        return urunRepository.save(urun);
+        Urun kaydedilen = urunRepository.save(urun);
+        urunAramaIndeksi.indeksle(kaydedilen);
+        return kaydedilen;
     }
 
     /**
@@ -120,6 +223,7 @@ public class UrunService {
         Urun urun = getUrunById(id);
         urun.setAktif(false);
         urunRepository.save(urun);
+        urunAramaIndeksi.kaldir(id);
     }
 
     /**
@@ -149,17 +253,30 @@ public class UrunService {
         urunStokRepository.save(stok);
     }
 
+    /**
+     * Sahibin formda gördüğü versiyona koşullu stok güncellemesi. Stok bu arada değiştiyse (ör. satıştan
+     * düşüldüyse) hiçbir şey yazılmaz ve false döner; mutlak değer eşzamanlı düşümü ezmez.
+     * Versiyon verilmezse (stok satırı formda yoksa) koşulsuz güncellenir.
+     */
+    @Transactional
+    public boolean updateStok(Long urunId, Long bedenId, int yeniMiktar, Long gorulenVersiyon) {
+        UrunStok stok = getStok(urunId, bedenId);
+        if (gorulenVersiyon != null && !gorulenVersiyon.equals(stok.getVersiyon())) {
+            return false;
+        }
+        stok.setAdet(yeniMiktar);
+        urunStokRepository.save(stok);
+        return true;
+    }
+
     /**
      * Stok düş (satış sonrası)
      */
     @Transactional
     public void stokDus(Long urunId, Long bedenId, int miktar) {
-        UrunStok stok = getStok(urunId, bedenId);
-        if (stok.getAdet() < miktar) {
+        if (!stokMotoru.dus(List.of(new StokSatiri(urunId, bedenId, miktar))).basarili()) {
             throw new RuntimeException("Yetersiz stok");
         }
-        stok.setAdet(stok.getAdet() - miktar);
-        urunStokRepository.save(stok);
     }
 
     /**
@@ -184,14 +301,56 @@ public class UrunService {
     }
 
     /**
-     * Ürünleri sırala (fiyata göre)
+     * Aktif ürünleri imleçle sayfalayarak getir. Katalog hazırsa filtre ve sıralama bellek içi
+     * sütunlarda yapılır; ilk kurulumdan önce veritabanındaki keyset sorgularına düşülür.
+     * Her iki yolda da bir fazla satır okunarak sonraki sayfanın olup olmadığı anlaşılır.
+     */
+    public UrunSayfasi urunSayfasi(Long magazaId, Long kategoriId, Long altKategoriId,
+            UrunSiralama siralama, String imlec, int limit) {
+        UrunImleci baslangic = UrunImleci.coz(imlec, siralama);
+
+        List<UrunKartiDTO> urunler = katalogOnbellegi.hazir()
+                ? katalogOnbellegi.sutunlar().sayfa(UrunFiltresi.of(magazaId, kategoriId, altKategoriId),
+                        siralama, baslangic, limit)
+                : veritabanindanSayfa(magazaId, kategoriId, altKategoriId, siralama, baslangic, limit);
+
+        if (urunler.size() <= limit) {
+            return new UrunSayfasi(urunler, null);
+        }
+        List<UrunKartiDTO> sayfa = urunler.subList(0, limit);
+        return new UrunSayfasi(sayfa, UrunImleci.sonUrundan(siralama, sayfa.get(limit - 1)).kodla());
+    }
+
+    private List<UrunKartiDTO> veritabanindanSayfa(Long magazaId, Long kategoriId, Long altKategoriId,
+            UrunSiralama siralama, UrunImleci baslangic, int limit) {
+        Pageable ilkN = PageRequest.of(0, limit + 1);
+        List<Urun> urunler = switch (siralama) {
+            case FIYAT_ARTAN -> urunRepository.findSayfaFiyatArtan(magazaId, kategoriId, altKategoriId,
+                    baslangic != null ? baslangic.fiyat() : null, baslangic != null ? baslangic.id() : null, ilkN);
+            case FIYAT_AZALAN -> urunRepository.findSayfaFiyatAzalan(magazaId, kategoriId, altKategoriId,
+                    baslangic != null ? baslangic.fiyat() : null, baslangic != null ? baslangic.id() : null, ilkN);
+            case YENI -> urunRepository.findSayfaEnYeni(magazaId, kategoriId, altKategoriId,
+                    baslangic != null ? baslangic.tarih() : null, baslangic != null ? baslangic.id() : null, ilkN);
+        };
+        return urunler.stream().map(UrunKartiDTO::from).toList();
+    }
+
+    /**
+     * Filtreye uyan aktif ürün sayısı (facet bitmap kesişiminin kardinalitesi; COUNT sorgusu ve facet sayımı yok)
+     */
+    public int aktifUrunSayisi(Long magazaId, Long kategoriId, Long altKategoriId) {
+        return urunFacetIndeksi.say(UrunFiltresi.of(magazaId, kategoriId, altKategoriId));
+    }
+
+    /**
+     * Ürün id'lerini fiyata göre sırala (bellek içi sütunlarda); fiyat sıralaması istenmemişse
+     * veya katalog henüz hazır değilse sıra korunur
      */
-    public List<Urun> siralaUrunler(List<Urun> urunler, String siralama) {
-        if ("fiyat-artan".equals(siralama)) {
-            urunler.sort((a, b) -> a.getFiyat().compareTo(b.getFiyat()));
-        } else if ("fiyat-azalan".equals(siralama)) {
-            urunler.sort((a, b) -> b.getFiyat().compareTo(a.getFiyat()));
+    public List<Long> siralaUrunIdleri(List<Long> urunIdleri, String siralama) {
+        UrunSiralama urunSiralama = UrunSiralama.kodundan(siralama);
+        if (urunSiralama == UrunSiralama.YENI || !katalogOnbellegi.hazir()) {
+            return urunIdleri;
         }
-        return urunler;
+        return katalogOnbellegi.sutunlar().sirala(urunIdleri, urunSiralama);
     }
 }
@@ -4,6 +4,9 @@ import com.magazaapp.model.Beden;
 import com.magazaapp.model.Urun;
 import com.magazaapp.model.UrunStok;
 import com.magazaapp.repository.UrunStokRepository;
+import com.magazaapp.stock.StokDusumSonucu;
+import com.magazaapp.stock.StokMotoru;
+import com.magazaapp.stock.StokSatiri;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,9 +16,11 @@ import java.util.List;
 public class UrunStokService {
 
     private final UrunStokRepository urunStokRepository;
+    private final StokMotoru stokMotoru;
 
-    public UrunStokService(UrunStokRepository urunStokRepository) {
+    public UrunStokService(UrunStokRepository urunStokRepository, StokMotoru stokMotoru) {
         this.urunStokRepository = urunStokRepository;
+        this.stokMotoru = stokMotoru;
     }
 
     /**
@@ -80,14 +85,15 @@ public class UrunStokService {
      */
     @Transactional
     public UrunStok stokDus(Long urunId, Long bedenId, int miktar) {
-        UrunStok stok = getStokByUrunAndBeden(urunId, bedenId);
-
-        if (stok.getAdet() < miktar) {
-            throw new RuntimeException("Yetersiz stok! Mevcut: " + stok.getAdet() + ", İstenen: " + miktar);
+        StokDusumSonucu sonuc = stokMotoru.dus(List.of(new StokSatiri(urunId, bedenId, miktar)));
+        if (!sonuc.basarili()) {
+            Integer mevcut = sonuc.eksikler().get(0).mevcut();
+            if (mevcut == null) {
+                throw new RuntimeException("Stok bulunamadı");
+            }
+            throw new RuntimeException("Yetersiz stok! Mevcut: " + mevcut + ", İstenen: " + miktar);
         }
-
-        stok.setAdet(stok.getAdet() - miktar);
-        return urunStokRepository.save(stok);
+        return getStokByUrunAndBeden(urunId, bedenId);
     }
 
     /**
@@ -95,9 +101,10 @@ public class UrunStokService {
      */
     @Transactional
     public UrunStok stokArtir(Long urunId, Long bedenId, int miktar) {
-        UrunStok stok = getStokByUrunAndBeden(urunId, bedenId);
-        stok.setAdet(stok.getAdet() + miktar);
-        return urunStokRepository.save(stok);
+        // Oku-değiştir-yaz yerine artırımlı UPDATE: eşzamanlı düşümlerle çakışmaz, versiyonu da artırır.
+        // Stok kaydı yoksa aşağıdaki okuma hata verir ve transaction geri alınır.
+        stokMotoru.iadeEt(List.of(new StokSatiri(urunId, bedenId, miktar)));
+        return getStokByUrunAndBeden(urunId, bedenId);
     }
 
     /**
@@ -124,9 +131,7 @@ public class UrunStokService {
      * Toplam stok sayısı (tüm ürünler)
      */
     public long getToplamStokAdedi() {
-        return urunStokRepository.findAll().stream()
-                .mapToLong(UrunStok::getAdet)
-                .sum();
+        return urunStokRepository.sumAdet();
     }
 
     /**
@@ -142,17 +147,13 @@ public class UrunStokService {
      * Stokta olmayan ürünleri getir (adet = 0)
      */
     public List<UrunStok> getTukenenStoklar() {
-        return urunStokRepository.findAll().stream()
-                .filter(stok -> stok.getAdet() == 0)
-                .toList();
+        return urunStokRepository.findTukenenler();
     }
 
     /**
      * Düşük stokta olan ürünleri getir (adet < eşik)
      */
     public List<UrunStok> getDusukStoklar(int esikDeger) {
-        return urunStokRepository.findAll().stream()
-                .filter(stok -> stok.getAdet() > 0 && stok.getAdet() < esikDeger)
-                .toList();
+        return urunStokRepository.findDusukler(esikDeger);
     }
 }
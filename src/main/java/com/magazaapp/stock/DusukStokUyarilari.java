@@ -0,0 +1,256 @@
+package com.magazaapp.stock;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Mağaza sahipleri için düşük stok uyarı akışı.
+ *
+ * {@link StokMotoru} her başarılı düşümden sonra satırların düşüm sonrası adetlerini buraya verir.
+ * Adet mağazanın eşiğinin altına bu düşümle indiyse (önceki değer eşikte veya üstündeydi) bir uyarı
+ * üretilir ve commit sonrasında mağazanın akışına eklenir; stok eşiğin altında kaldıkça sonraki
+ * düşümler yeni uyarı üretmez. Panel, uyarıları sıra numarasıyla artımlı çeker ya da SSE ile dinler;
+ * kimsenin stok tablosunu periyodik taraması gerekmez. Commit sonrası iş yalnızca belleğe eklemektir;
+ * SSE gönderimleri tek bir arka plan thread'ine bırakılır, sipariş thread'i yavaş abonelerde beklemez.
+ * Gönderim kuyruğu dolarsa o olay SSE'ye gitmez, panel sıra numarasıyla çekerek yakalar.
+ *
+ * Ürün başına mağaza ve eşik bellekte tutulur; eşik değişince o mağazanın kayıtları commit sonrasında
+ * düşer ve ilk düşümde yeniden okunur. Uyarılar bellekte, mağaza başına son N kayıt olarak saklanır.
+ */
+@Component
+public class DusukStokUyarilari {
+
+    private static final String ESIK_SQL = "SELECT u.id, u.magaza_id, m.dusuk_stok_esigi FROM urun u "
+            + "JOIN magaza m ON m.id = u.magaza_id WHERE u.id IN (%s)";
+
+    private static final String URUN_AD_SQL = "SELECT id, ad FROM urun WHERE id IN (%s)";
+
+    private static final String BEDEN_AD_SQL = "SELECT id, ad FROM beden WHERE id IN (%s)";
+
+    private static final int GONDERIM_KUYRUGU = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean etkin;
+    private final int saklama;
+    private final long akisZamanAsimiMs;
+
+    // Ürün -> (mağaza, eşik)
+    private final Map<Long, UrunEsigi> esikler = new ConcurrentHashMap<>();
+    private final Map<Long, Deque<Uyari>> uyarilar = new ConcurrentHashMap<>();
+    private final Map<Long, List<SseEmitter>> aboneler = new ConcurrentHashMap<>();
+    private final AtomicLong sonSira = new AtomicLong();
+    private final ThreadPoolExecutor gonderici;
+
+    public DusukStokUyarilari(JdbcTemplate jdbcTemplate,
+            @Value("${stok.uyari.etkin:true}") boolean etkin,
+            @Value("${stok.uyari.saklama:100}") int saklama,
+            @Value("${stok.uyari.akis-zaman-asimi-ms:1800000}") long akisZamanAsimiMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.etkin = etkin;
+        this.saklama = saklama;
+        this.akisZamanAsimiMs = akisZamanAsimiMs;
+        // Tek thread: aynı mağazanın uyarıları sıra numarası sırasıyla gönderilir
+        this.gonderici = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(GONDERIM_KUYRUGU), gorev -> {
+                    Thread t = new Thread(gorev, "dusuk-stok-sse");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public record Uyari(long sira, Long magazaId, Long urunId, String urunAd, Long bedenId, String bedenAd,
+            int adet, int esik, LocalDateTime zaman) {
+    }
+
+    private record UrunEsigi(Long magazaId, int esik) {
+    }
+
+    public boolean etkinMi() {
+        return etkin;
+    }
+
+    // =============== DÜŞÜM KONTROLÜ (çağıranın transaction'ında) ===============
+
+    /**
+     * Başarılı düşüm satırlarından eşiği geçenler için commit sonrasında uyarı yayınla.
+     * Satırların {@code mevcut} alanı düşüm sonrası adet olmalıdır.
+     */
+    void dusumleriIsle(List<StokDusumSonucu.Satir> satirlar) {
+        if (!etkin) {
+            return;
+        }
+        List<StokDusumSonucu.Satir> adaylar = satirlar.stream()
+                .filter(s -> s.basarili() && s.mevcut() != null)
+                .toList();
+        if (adaylar.isEmpty()) {
+            return;
+        }
+
+        Map<Long, UrunEsigi> urunEsikleri = esikleriGetir(adaylar.stream().map(StokDusumSonucu.Satir::urunId)
+                .collect(Collectors.toSet()));
+        List<StokDusumSonucu.Satir> gecenler = adaylar.stream()
+                .filter(s -> {
+                    UrunEsigi e = urunEsikleri.get(s.urunId());
+                    return e != null && s.mevcut() < e.esik() && s.mevcut() + s.istenen() >= e.esik();
+                })
+                .toList();
+        if (gecenler.isEmpty()) {
+            return;
+        }
+
+        // Eşik geçişi seyrek; adlar yalnızca uyarı üretildiğinde okunur
+        Map<Long, String> urunAdlari = new HashMap<>();
+        Map<Long, String> bedenAdlari = new HashMap<>();
+        Set<Long> urunIdleri = gecenler.stream().map(StokDusumSonucu.Satir::urunId).collect(Collectors.toSet());
+        Set<Long> bedenIdleri = gecenler.stream().map(StokDusumSonucu.Satir::bedenId).collect(Collectors.toSet());
+        jdbcTemplate.query(String.format(URUN_AD_SQL, yerTutucular(urunIdleri.size())),
+                rs -> {
+                    urunAdlari.put(rs.getLong(1), rs.getString(2));
+                }, urunIdleri.toArray());
+        jdbcTemplate.query(String.format(BEDEN_AD_SQL, yerTutucular(bedenIdleri.size())),
+                rs -> {
+                    bedenAdlari.put(rs.getLong(1), rs.getString(2));
+                }, bedenIdleri.toArray());
+
+        LocalDateTime zaman = LocalDateTime.now();
+        List<Uyari> yeni = gecenler.stream()
+                .map(s -> {
+                    UrunEsigi e = urunEsikleri.get(s.urunId());
+                    return new Uyari(0, e.magazaId(), s.urunId(), urunAdlari.get(s.urunId()), s.bedenId(),
+                            bedenAdlari.get(s.bedenId()), s.mevcut(), e.esik(), zaman);
+                })
+                .toList();
+        commitSonrasi(() -> yeni.forEach(this::yayinla));
+    }
+
+    /**
+     * Mağazanın eşiği değişti; commit sonrasında ürün eşikleri yeniden okunur
+     */
+    public void esikDegisti(Long magazaId) {
+        commitSonrasi(() -> esikler.values().removeIf(e -> e.magazaId().equals(magazaId)));
+    }
+
+    // =============== PANEL ===============
+
+    /**
+     * Mağazanın verilen sıradan sonraki uyarıları (eskiden yeniye)
+     */
+    public List<Uyari> uyarilar(Long magazaId, long sonra) {
+        Deque<Uyari> kuyruk = uyarilar.get(magazaId);
+        if (kuyruk == null) {
+            return List.of();
+        }
+        synchronized (kuyruk) {
+            return kuyruk.stream().filter(u -> u.sira() > sonra).toList();
+        }
+    }
+
+    public long sonSira() {
+        return sonSira.get();
+    }
+
+    /**
+     * Mağazanın uyarılarını SSE ile dinle
+     */
+    public SseEmitter abone(Long magazaId) {
+        SseEmitter emitter = new SseEmitter(akisZamanAsimiMs);
+        List<SseEmitter> liste = aboneler.computeIfAbsent(magazaId, id -> new CopyOnWriteArrayList<>());
+        liste.add(emitter);
+        emitter.onCompletion(() -> liste.remove(emitter));
+        emitter.onTimeout(() -> liste.remove(emitter));
+        emitter.onError(e -> liste.remove(emitter));
+        return emitter;
+    }
+
+    @PreDestroy
+    public void kapat() throws InterruptedException {
+        gonderici.shutdown();
+        gonderici.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private void yayinla(Uyari taslak) {
+        Uyari uyari = new Uyari(sonSira.incrementAndGet(), taslak.magazaId(), taslak.urunId(), taslak.urunAd(),
+                taslak.bedenId(), taslak.bedenAd(), taslak.adet(), taslak.esik(), taslak.zaman());
+        Deque<Uyari> kuyruk = uyarilar.computeIfAbsent(uyari.magazaId(), id -> new ArrayDeque<>());
+        synchronized (kuyruk) {
+            kuyruk.addLast(uyari);
+            while (kuyruk.size() > saklama) {
+                kuyruk.removeFirst();
+            }
+        }
+        System.out.println(">>> Düşük stok: mağaza " + uyari.magazaId() + ", ürün " + uyari.urunId()
+                + " beden " + uyari.bedenAd() + " -> " + uyari.adet() + " adet (eşik " + uyari.esik() + ")");
+
+        List<SseEmitter> liste = aboneler.getOrDefault(uyari.magazaId(), List.of());
+        if (liste.isEmpty()) {
+            return;
+        }
+        try {
+            gonderici.execute(() -> gonder(liste, uyari));
+        } catch (RejectedExecutionException e) {
+            System.err.println(">>> Düşük stok uyarısı SSE kuyruğu dolu, uyarı " + uyari.sira() + " gönderilmedi");
+        }
+    }
+
+    private static void gonder(List<SseEmitter> liste, Uyari uyari) {
+        for (SseEmitter emitter : liste) {
+            try {
+                emitter.send(SseEmitter.event().name("dusuk-stok").id(String.valueOf(uyari.sira())).data(uyari));
+            } catch (IOException | IllegalStateException e) {
+                liste.remove(emitter);
+            }
+        }
+    }
+
+    private Map<Long, UrunEsigi> esikleriGetir(Set<Long> urunIdleri) {
+        Map<Long, UrunEsigi> sonuc = new HashMap<>();
+        List<Long> eksikler = new ArrayList<>();
+        for (Long urunId : urunIdleri) {
+            UrunEsigi e = esikler.get(urunId);
+            if (e != null) {
+                sonuc.put(urunId, e);
+            } else {
+                eksikler.add(urunId);
+            }
+        }
+        if (!eksikler.isEmpty()) {
+            jdbcTemplate.query(String.format(ESIK_SQL, yerTutucular(eksikler.size())), rs -> {
+                UrunEsigi e = new UrunEsigi(rs.getLong(2), rs.getInt(3));
+                esikler.put(rs.getLong(1), e);
+                sonuc.put(rs.getLong(1), e);
+            }, eksikler.toArray());
+        }
+        return sonuc;
+    }
+
+    private static String yerTutucular(int adet) {
+        return String.join(", ", Collections.nCopies(adet, "?"));
+    }
+
+    private static void commitSonrasi(Runnable islem) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    islem.run();
+                }
+            });
+        } else {
+            islem.run();
+        }
+    }
+}
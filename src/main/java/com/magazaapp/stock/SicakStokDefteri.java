@@ -0,0 +1,652 @@
+package com.magazaapp.stock;
+
+import com.magazaapp.catalog.KatalogOnbellegi;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Kampanya ürünleri gibi çok yoğun satılan ürünler için bellek içi stok defteri.
+ *
+ * İşaretlenen ürünlerin (tüm bedenleriyle) stok sayacı bellekte tutulur ve bu ürünlerin düşümleri
+ * urun_stok satır kilidine hiç gitmez: her (ürün, beden) sayacı şeritli kilitlerden birine düşer,
+ * bir sepetin şeritleri sıralı alınır, tüm satırlar yetiyorsa birlikte düşülür. Her değişiklik önce
+ * {@link StokGunlugu}'ne eklenip diske zorlanır; aynı anda gelen değişiklikler tek fsync'i paylaşır
+ * (grup commit), böylece farklı şeritlerdeki ürünler birbirinin fsync'ini beklemez. Veritabanına
+ * yazma periyodik olarak toplu farklarla
+ * yapılır (write-behind). Her yazma, uyguladığı son günlük dosyasının sırasını farklarla aynı
+ * transaction'da stok_defteri_durumu tablosuna kaydeder. Çökme sonrası açılışta yalnızca bu sıradan
+ * sonraki dosyalar uygulanır; commit ile dosyaların silinmesi arasında kalan bir çökme farkları iki
+ * kez uygulatmaz.
+ *
+ * Düşüm çağıranın transaction'ıyla birlikte geçerlidir: transaction rollback olursa düşülen adet
+ * sayaca ve günlüğe geri eklenir. Çökme, rollback telafisi günlüğe yazılmadan olursa stok eksik
+ * görünür, hiçbir zaman fazla görünmez.
+ *
+ * İşaretleme, yolda veritabanı düşümü yokken yapılır: {@link StokMotoru} bir sepeti sınıflandırıp
+ * sıcak olmayan satırlarını veritabanında düşene kadar {@link #isaretlemeDegismeden} ile okuma kilidini
+ * tutar, {@link #ekle} yazma kilidi altında satırları NOWAIT ile kilitleyerek okur. Satırlar commit
+ * edilmemiş bir düşümün kilidindeyse yazma kilidi bırakılıp tekrar denenir; böylece sayaca yüklenen
+ * değer ürünün sıcak olmadığı dönemden kalan tüm düşümleri içerir ve sayaç fazla stok göstermez.
+ *
+ * Her yazmada sayaçlar veritabanındaki güncel değer + henüz yazılmamış farklar olarak yeniden
+ * hesaplanır. Sahip/admin panelinden yapılan mutlak stok düzeltmeleri defterden geçmez: işaretli bir
+ * üründe düzeltme ancak sonraki yazmada sayaca yansır, o ana kadar sayaç eski değerle satar (düzeltme
+ * stoğu azalttıysa bu aralıkta fazla satış olabilir). Düzeltmeden önce ürünü defterden çıkarın.
+ * Katalog görüntüsü de yazma sonrası yenilenir, yani işaretli ürünlerde en fazla bir yazma aralığı
+ * geriden gelir.
+ *
+ * Varsayılan olarak kapalıdır ({@code stok.defter.etkin}); kapalıyken {@link StokMotoru} tüm satırları
+ * veritabanında düşer.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SicakStokDefteri {
+
+    static final int SERIT_SAYISI = 64;
+
+    // İşaretlemede satır kilidi alınamazsa bu aralıkla, bu süre boyunca yeniden denenir
+    private static final long ISARETLEME_BEKLEME_MS = 20;
+    private static final long ISARETLEME_ZAMAN_ASIMI_MS = 10_000;
+
+    private static final String ISARETLEME_SQL = "SELECT beden_id, adet FROM urun_stok WHERE urun_id = ? FOR UPDATE NOWAIT";
+
+    private static final String FARK_SQL =
+            "UPDATE urun_stok SET adet = adet + ?, versiyon = versiyon + 1 WHERE urun_id = ? AND beden_id = ?";
+
+    private static final String SON_DOSYA_SQL = "SELECT son_dosya FROM stok_defteri_durumu WHERE defter = ?";
+
+    private static final String DURUM_EKLE_SQL = "INSERT INTO stok_defteri_durumu (defter, son_dosya) VALUES (?, 0)";
+
+    private static final String SON_DOSYA_KAYDET_SQL =
+            "UPDATE stok_defteri_durumu SET son_dosya = ? WHERE defter = ? AND son_dosya < ?";
+
+    private static final Comparator<Sku> SIRA = Comparator.comparingLong(Sku::urunId)
+            .thenComparingLong(Sku::bedenId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final KatalogOnbellegi katalogOnbellegi;
+    private final TransactionTemplate transactionTemplate;
+    private final StokGunlugu gunluk;
+    private final String defterAdi;
+    private final boolean etkin;
+    private final String baslangicUrunleri;
+
+    // Okuma kilidi: düşüm/iade + günlük kaydı; yazma kilidi: günlük döndürme ve işaretleme değişiklikleri
+    private final ReentrantReadWriteLock donusKilidi = new ReentrantReadWriteLock();
+    private final ReentrantLock[] seritler = new ReentrantLock[SERIT_SAYISI];
+    private final Map<Sku, Sayac> sayaclar = new ConcurrentHashMap<>();
+    private final Set<Long> sicakUrunler = ConcurrentHashMap.newKeySet();
+    // Yazması başarısız olmuş, farkları sayaçlara geri eklenmiş dosyalar; sonraki başarılı yazmada silinir
+    private final List<Long> bekleyenDosyalar = new ArrayList<>();
+
+    public SicakStokDefteri(JdbcTemplate jdbcTemplate, KatalogOnbellegi katalogOnbellegi,
+            PlatformTransactionManager transactionManager,
+            @Value("${stok.defter.etkin:false}") boolean etkin,
+            @Value("${stok.defter.dizin:stok-defteri}") String dizin,
+            @Value("${stok.defter.fsync:true}") boolean fsync,
+            @Value("${stok.defter.urunler:}") String baslangicUrunleri) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.katalogOnbellegi = katalogOnbellegi;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.gunluk = new StokGunlugu(Path.of(dizin), fsync);
+        this.defterAdi = Path.of(dizin).toAbsolutePath().normalize().toString();
+        this.etkin = etkin;
+        this.baslangicUrunleri = baslangicUrunleri;
+        for (int i = 0; i < SERIT_SAYISI; i++) {
+            seritler[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Sayaçlarla düşülen satırların sonucu ve defterde olmayan, veritabanında düşülecek satırlar
+     */
+    public record Dusum(List<StokDusumSonucu.Satir> sonuclar, List<StokSatiri> kalanlar) {
+
+        public boolean basarili() {
+            return sonuclar.stream().allMatch(StokDusumSonucu.Satir::basarili);
+        }
+    }
+
+    /**
+     * Defterdeki bir sayacın görüntüsü
+     */
+    public record SayacDurumu(Long urunId, Long bedenId, int adet, int yazilmamisFark) {
+    }
+
+    // =============== AÇILIŞ / KAPANIŞ ===============
+
+    /**
+     * Önceki çalışmadan kalan, veritabanına henüz uygulanmamış günlük dosyalarını uygula, sonra yeni
+     * günlüğü aç. Son uygulanan sıraya kadarki dosyalar commit edilmiş ama silinememiş dosyalardır,
+     * yalnızca silinir. Web sunucusu açılmadan çalışır; ilk sipariş geldiğinde urun_stok güncel olur.
+     */
+    @PostConstruct
+    public void kurtar() throws IOException {
+        NavigableMap<Long, Path> kalanlar = gunluk.dosyalar();
+        if (kalanlar.isEmpty() && !etkin) {
+            return;
+        }
+        long sonUygulanan = sonUygulananDosya();
+        NavigableMap<Long, Path> uygulanacaklar = kalanlar.tailMap(sonUygulanan, false);
+        if (!uygulanacaklar.isEmpty()) {
+            Map<Sku, Integer> farklar = new HashMap<>();
+            for (Path dosya : uygulanacaklar.values()) {
+                StokGunlugu.oku(dosya).forEach((anahtar, fark) ->
+                        farklar.merge(new Sku(anahtar.get(0), anahtar.get(1)), fark, Integer::sum));
+            }
+            long son = uygulanacaklar.lastKey();
+            transactionTemplate.executeWithoutResult(durum -> {
+                farklariUygula(farklar);
+                sonDosyayiKaydet(son);
+            });
+            sonUygulanan = son;
+            System.out.println(">>> Stok defteri günlüğünden " + farklar.size() + " stok farkı veritabanına uygulandı ("
+                    + uygulanacaklar.size() + " dosya)");
+        }
+        if (kalanlar.size() > uygulanacaklar.size()) {
+            System.out.println(">>> Stok defteri: zaten uygulanmış " + (kalanlar.size() - uygulanacaklar.size())
+                    + " günlük dosyası atlandı");
+        }
+        for (long sira : kalanlar.keySet()) {
+            gunluk.sil(sira);
+        }
+        if (etkin) {
+            gunluk.ac(sonUygulanan);
+        }
+    }
+
+    /**
+     * Yapılandırmadaki ürünleri işaretle (seed verisinden sonra)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void baslangicUrunleriniEkle() {
+        if (!etkin || baslangicUrunleri.isBlank()) {
+            return;
+        }
+        for (String id : baslangicUrunleri.split(",")) {
+            if (!id.isBlank()) {
+                ekle(Long.valueOf(id.trim()));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void kapat() throws IOException {
+        if (!etkin) {
+            return;
+        }
+        yaz();
+        donusKilidi.writeLock().lock();
+        try {
+            gunluk.kapat();
+        } finally {
+            donusKilidi.writeLock().unlock();
+        }
+    }
+
+    public boolean etkinMi() {
+        return etkin;
+    }
+
+    // =============== DÜŞÜM / İADE (çağıranın transaction'ında) ===============
+
+    /**
+     * İşaretli ürünlerin satırlarını sayaçlardan düş. Satırlar birleştirilmiş ve sıralı gelmelidir.
+     * Yetmeyen satır varsa hiçbir sayaç değişmez; yetiyorsa transaction rollback olduğunda düşüm
+     * geri eklenir.
+     */
+    public Dusum dus(List<StokSatiri> satirlar) {
+        if (!etkin || sicakUrunler.isEmpty()) {
+            return new Dusum(List.of(), satirlar);
+        }
+        donusKilidi.readLock().lock();
+        try {
+            List<StokSatiri> sicaklar = new ArrayList<>();
+            List<StokSatiri> kalanlar = new ArrayList<>();
+            for (StokSatiri satir : satirlar) {
+                (sicakUrunler.contains(satir.urunId()) ? sicaklar : kalanlar).add(satir);
+            }
+            if (sicaklar.isEmpty()) {
+                return new Dusum(List.of(), kalanlar);
+            }
+
+            List<ReentrantLock> kilitler = kilitle(sicaklar);
+            List<StokDusumSonucu.Satir> sonuclar = new ArrayList<>(sicaklar.size());
+            try {
+                boolean yeterli = true;
+                for (StokSatiri satir : sicaklar) {
+                    Sayac sayac = sayaclar.get(new Sku(satir.urunId(), satir.bedenId()));
+                    boolean yetiyor = sayac != null && sayac.adet >= satir.adet();
+                    sonuclar.add(new StokDusumSonucu.Satir(satir.urunId(), satir.bedenId(), satir.adet(), yetiyor,
+                            yetiyor || sayac == null ? null : sayac.adet));
+                    yeterli &= yetiyor;
+                }
+                if (!yeterli) {
+                    return new Dusum(sonuclar, kalanlar);
+                }
+                uygula(sicaklar, -1);
+                // Başarılı satırlar düşüm sonrası adetle (düşük stok uyarıları için)
+                sonuclar.clear();
+                for (StokSatiri satir : sicaklar) {
+                    sonuclar.add(new StokDusumSonucu.Satir(satir.urunId(), satir.bedenId(), satir.adet(), true,
+                            sayaclar.get(new Sku(satir.urunId(), satir.bedenId())).adet));
+                }
+            } finally {
+                kilitler.forEach(ReentrantLock::unlock);
+            }
+            rollbackTelafisi(sicaklar, 1);
+            return new Dusum(sonuclar, kalanlar);
+        } finally {
+            donusKilidi.readLock().unlock();
+        }
+    }
+
+    /**
+     * İşaretli ürünlerin satırlarını sayaçlara geri ekle; defterde olmayan satırları döner
+     */
+    public List<StokSatiri> iadeEt(List<StokSatiri> satirlar) {
+        if (!etkin || sicakUrunler.isEmpty()) {
+            return satirlar;
+        }
+        donusKilidi.readLock().lock();
+        try {
+            List<StokSatiri> sicaklar = new ArrayList<>();
+            List<StokSatiri> kalanlar = new ArrayList<>();
+            for (StokSatiri satir : satirlar) {
+                (sicakUrunler.contains(satir.urunId()) ? sicaklar : kalanlar).add(satir);
+            }
+            if (!sicaklar.isEmpty()) {
+                List<ReentrantLock> kilitler = kilitle(sicaklar);
+                try {
+                    uygula(sicaklar, 1);
+                } finally {
+                    kilitler.forEach(ReentrantLock::unlock);
+                }
+                rollbackTelafisi(sicaklar, -1);
+            }
+            return kalanlar;
+        } finally {
+            donusKilidi.readLock().unlock();
+        }
+    }
+
+    // =============== İŞARETLEME ===============
+
+    /**
+     * Ürünü deftere al: bedenlerin güncel stoğu yazma kilidi altında, satır kilidiyle okunup sayaçlara
+     * yüklenir. Satırlar commit edilmemiş bir düşümün kilidindeyse o transaction bitene kadar (yazma
+     * kilidi bırakılarak) yeniden denenir.
+     */
+    public void ekle(Long urunId) {
+        if (!etkin) {
+            throw new IllegalStateException("Stok defteri kapalı (stok.defter.etkin=false)");
+        }
+        long sonDeneme = System.currentTimeMillis() + ISARETLEME_ZAMAN_ASIMI_MS;
+        while (true) {
+            donusKilidi.writeLock().lock();
+            try {
+                if (sicakUrunler.contains(urunId)) {
+                    return;
+                }
+                List<Map<String, Object>> satirlar = transactionTemplate.execute(
+                        durum -> jdbcTemplate.queryForList(ISARETLEME_SQL, urunId));
+                if (satirlar == null || satirlar.isEmpty()) {
+                    throw new IllegalArgumentException("Ürünün stok kaydı yok: " + urunId);
+                }
+                for (Map<String, Object> satir : satirlar) {
+                    Sku sku = new Sku(urunId, ((Number) satir.get("beden_id")).longValue());
+                    sayaclar.put(sku, new Sayac(((Number) satir.get("adet")).intValue()));
+                }
+                sicakUrunler.add(urunId);
+                break;
+            } catch (PessimisticLockingFailureException e) {
+                // Kilidi tutan transaction defterin okuma kilidini yeniden isteyebilir; yazma kilidi bırakılır
+                if (System.currentTimeMillis() >= sonDeneme) {
+                    throw new IllegalStateException("Ürünün stok satırları kilitli, daha sonra tekrar deneyin: "
+                            + urunId, e);
+                }
+            } finally {
+                donusKilidi.writeLock().unlock();
+            }
+            try {
+                Thread.sleep(ISARETLEME_BEKLEME_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Stok defterine alma kesildi: " + urunId, e);
+            }
+        }
+        System.out.println(">>> Stok defterine alındı: ürün " + urunId);
+    }
+
+    /**
+     * İşlemi işaretleme değişmeden çalıştır. StokMotoru satırları sınıflandırıp sıcak olmayanları
+     * veritabanında düşerken bununla sarar; böylece sınıflandırma ile UPDATE arasında bir ürün
+     * deftere alınıp yolda kalan düşümü kaçıramaz.
+     */
+    public <T> T isaretlemeDegismeden(Supplier<T> islem) {
+        if (!etkin) {
+            return islem.get();
+        }
+        donusKilidi.readLock().lock();
+        try {
+            return islem.get();
+        } finally {
+            donusKilidi.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ürünü defterden çıkar. Yazılmamış farklar aynı yazmada veritabanına geçer ve ürün ancak commit
+     * sonrasında çıkarılır; böylece ardından gelen veritabanı düşümleri güncel satırı görür.
+     */
+    public void cikar(Long urunId) {
+        if (!sicakUrunler.contains(urunId)) {
+            return;
+        }
+        yazVeCikar(urunId);
+        System.out.println(">>> Stok defterinden çıkarıldı: ürün " + urunId);
+    }
+
+    public Set<Long> sicakUrunler() {
+        return Set.copyOf(sicakUrunler);
+    }
+
+    public List<SayacDurumu> durum() {
+        List<SayacDurumu> durum = new ArrayList<>();
+        for (Map.Entry<Sku, Sayac> giris : sayaclar.entrySet()) {
+            Sku sku = giris.getKey();
+            ReentrantLock kilit = serit(sku);
+            kilit.lock();
+            try {
+                durum.add(new SayacDurumu(sku.urunId(), sku.bedenId(), giris.getValue().adet,
+                        giris.getValue().bekleyenFark));
+            } finally {
+                kilit.unlock();
+            }
+        }
+        durum.sort(Comparator.comparing(SayacDurumu::urunId).thenComparing(SayacDurumu::bedenId));
+        return durum;
+    }
+
+    // =============== WRITE-BEHIND ===============
+
+    /**
+     * Yazılmamış farkları urun_stok'a uygula ve sayaçları veritabanıyla uzlaştır
+     */
+    @Scheduled(fixedDelayString = "${stok.defter.yazma-ms:1000}")
+    public void yaz() {
+        if (etkin && (!sicakUrunler.isEmpty() || !bekleyenDosyalar.isEmpty())) {
+            yazVeCikar(null);
+        }
+    }
+
+    /**
+     * Günlük yazma kilidi altında döndürülür ve o ana kadarki farklar alınır; böylece kapatılan dosyadaki
+     * her kayıt bu yazmanın farklarında, sonraki kayıtlar yeni dosyadadır. Ürün çıkarılıyorsa kilit
+     * commit'e kadar tutulur.
+     */
+    private synchronized void yazVeCikar(Long cikarilacak) {
+        long dosya;
+        Map<Sku, Integer> farklar = new HashMap<>();
+        donusKilidi.writeLock().lock();
+        try {
+            try {
+                dosya = gunluk.dondur();
+            } catch (IOException e) {
+                System.err.println(">>> Stok defteri günlüğü döndürülemedi: " + e.getMessage());
+                return;
+            }
+            sayaclar.forEach((sku, sayac) -> {
+                if (sayac.bekleyenFark != 0) {
+                    farklar.put(sku, sayac.bekleyenFark);
+                    sayac.bekleyenFark = 0;
+                }
+            });
+            if (cikarilacak == null) {
+                donusKilidi.writeLock().unlock();
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(durum -> {
+                    farklariUygula(farklar);
+                    sonDosyayiKaydet(dosya);
+                    uzlastir(cikarilacak);
+                });
+            } catch (RuntimeException e) {
+                System.err.println(">>> Stok defteri veritabanına yazılamadı: " + e.getMessage());
+                geriYukle(farklar);
+                bekleyenDosyalar.add(dosya);
+                return;
+            }
+
+            if (cikarilacak != null) {
+                sicakUrunler.remove(cikarilacak);
+                sayaclar.keySet().removeIf(sku -> sku.urunId() == cikarilacak);
+            }
+        } finally {
+            if (donusKilidi.writeLock().isHeldByCurrentThread()) {
+                donusKilidi.writeLock().unlock();
+            }
+        }
+
+        bekleyenDosyalar.add(dosya);
+        try {
+            for (Iterator<Long> it = bekleyenDosyalar.iterator(); it.hasNext(); ) {
+                gunluk.sil(it.next());
+                it.remove();
+            }
+        } catch (IOException e) {
+            System.err.println(">>> Stok defteri günlüğü silinemedi: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Farkları kilit sırasıyla tek batch'te uygula; katalog görüntüsü commit sonrasında yenilenir
+     */
+    private void farklariUygula(Map<Sku, Integer> farklar) {
+        if (farklar.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Sku, Integer>> sirali = farklar.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(SIRA))
+                .toList();
+        jdbcTemplate.batchUpdate(FARK_SQL, sirali, sirali.size(), (ps, giris) -> {
+            ps.setInt(1, giris.getValue());
+            ps.setLong(2, giris.getKey().urunId());
+            ps.setLong(3, giris.getKey().bedenId());
+        });
+        sirali.stream().map(giris -> giris.getKey().urunId()).distinct().forEach(katalogOnbellegi::stokDegisti);
+    }
+
+    /**
+     * Bu defterin veritabanına uygulanmış son günlük dosyası; satır yoksa 0 ile oluşturulur
+     */
+    private long sonUygulananDosya() {
+        List<Long> son = jdbcTemplate.queryForList(SON_DOSYA_SQL, Long.class, defterAdi);
+        if (!son.isEmpty()) {
+            return son.get(0);
+        }
+        try {
+            jdbcTemplate.update(DURUM_EKLE_SQL, defterAdi);
+            return 0;
+        } catch (DuplicateKeyException e) {
+            return jdbcTemplate.queryForObject(SON_DOSYA_SQL, Long.class, defterAdi);
+        }
+    }
+
+    /**
+     * Farklarla aynı transaction'da çağrılır; sıra yalnızca ileri gider
+     */
+    private void sonDosyayiKaydet(long dosya) {
+        jdbcTemplate.update(SON_DOSYA_KAYDET_SQL, dosya, defterAdi, dosya);
+    }
+
+    /**
+     * Sayaç = veritabanındaki değer + döndürmeden sonra biriken farklar. Satırlar kilitlendiği için
+     * okunan değer bu transaction commit olana kadar başka bir yazmayla değişemez.
+     */
+    private void uzlastir(Long cikarilacak) {
+        List<Long> urunler = sicakUrunler.stream().filter(id -> !id.equals(cikarilacak)).sorted().toList();
+        if (urunler.isEmpty()) {
+            return;
+        }
+        String yerTutucular = urunler.stream().map(id -> "?").collect(Collectors.joining(","));
+        Map<Sku, Integer> guncel = new HashMap<>();
+        jdbcTemplate.query("SELECT urun_id, beden_id, adet FROM urun_stok WHERE urun_id IN (" + yerTutucular
+                        + ") ORDER BY urun_id, beden_id FOR UPDATE",
+                rs -> {
+                    guncel.put(new Sku(rs.getLong("urun_id"), rs.getLong("beden_id")), rs.getInt("adet"));
+                }, urunler.toArray());
+
+        for (Map.Entry<Sku, Integer> giris : guncel.entrySet()) {
+            ReentrantLock kilit = serit(giris.getKey());
+            kilit.lock();
+            try {
+                Sayac sayac = sayaclar.computeIfAbsent(giris.getKey(), sku -> new Sayac(0));
+                sayac.adet = giris.getValue() + sayac.bekleyenFark;
+            } finally {
+                kilit.unlock();
+            }
+        }
+        // Silinen beden stokları
+        sayaclar.keySet().removeIf(sku -> urunler.contains(sku.urunId()) && !guncel.containsKey(sku));
+    }
+
+    private void geriYukle(Map<Sku, Integer> farklar) {
+        farklar.forEach((sku, fark) -> {
+            ReentrantLock kilit = serit(sku);
+            kilit.lock();
+            try {
+                Sayac sayac = sayaclar.get(sku);
+                if (sayac != null) {
+                    sayac.bekleyenFark += fark;
+                }
+            } finally {
+                kilit.unlock();
+            }
+        });
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    /**
+     * Satırları (yön * adet) kadar değiştir ve günlüğe yaz. Şerit kilitleri tutulurken çağrılır;
+     * sayaçlar ancak kayıt diske indikten sonra değişir. Günlük yazılamazsa kayıt geri alınır ve
+     * çağıranın transaction'ı hatayla biter.
+     */
+    private void uygula(List<StokSatiri> satirlar, int yon) {
+        try {
+            long yazim = gunluk.ekle(satirlar, yon);
+            try {
+                gunluk.zorla(yazim);
+            } catch (IOException e) {
+                gunluk.geriAl(satirlar, yon);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Stok defteri günlüğü yazılamadı", e);
+        }
+        for (StokSatiri satir : satirlar) {
+            Sayac sayac = sayaclar.computeIfAbsent(new Sku(satir.urunId(), satir.bedenId()), sku -> new Sayac(0));
+            sayac.adet += yon * satir.adet();
+            sayac.bekleyenFark += yon * satir.adet();
+        }
+    }
+
+    /**
+     * Transaction rollback olursa satırları ters yönde yeniden uygula
+     */
+    private void rollbackTelafisi(List<StokSatiri> satirlar, int yon) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                donusKilidi.readLock().lock();
+                try {
+                    List<StokSatiri> hala = satirlar.stream()
+                            .filter(satir -> sicakUrunler.contains(satir.urunId()))
+                            .toList();
+                    List<ReentrantLock> kilitler = kilitle(hala);
+                    try {
+                        uygula(hala, yon);
+                    } finally {
+                        kilitler.forEach(ReentrantLock::unlock);
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println(">>> Stok defteri rollback telafisi yazılamadı: " + e.getMessage());
+                } finally {
+                    donusKilidi.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Satırların şeritlerini artan sırayla kilitle (aynı şerit bir kez)
+     */
+    private List<ReentrantLock> kilitle(List<StokSatiri> satirlar) {
+        int[] siralar = satirlar.stream()
+                .mapToInt(satir -> seritSirasi(new Sku(satir.urunId(), satir.bedenId())))
+                .distinct()
+                .sorted()
+                .toArray();
+        List<ReentrantLock> kilitler = new ArrayList<>(siralar.length);
+        for (int sira : siralar) {
+            seritler[sira].lock();
+            kilitler.add(seritler[sira]);
+        }
+        return kilitler;
+    }
+
+    private ReentrantLock serit(Sku sku) {
+        return seritler[seritSirasi(sku)];
+    }
+
+    private static int seritSirasi(Sku sku) {
+        return Math.floorMod(sku.hashCode(), SERIT_SAYISI);
+    }
+
+    private record Sku(long urunId, long bedenId) {
+    }
+
+    /**
+     * Şerit kilidi altında okunur/yazılır
+     */
+    private static final class Sayac {
+        int adet;
+        // Son günlük döndürmesinden beri veritabanına yazılmamış net değişiklik
+        int bekleyenFark;
+
+        Sayac(int adet) {
+            this.adet = adet;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.magazaapp.stock;
+
+import java.util.List;
+
+/**
+ * {@link StokMotoru#dus(List)} sonucu: her (ürün, beden) satırı için düşümün yapılıp yapılmadığı.
+ * Herhangi bir satır başarısızsa hiçbir satır düşülmüş kalmaz (düşülenler aynı çağrıda geri eklenir).
+ */
+public record StokDusumSonucu(List<Satir> satirlar) {
+
+    public boolean basarili() {
+        return satirlar.stream().allMatch(Satir::basarili);
+    }
+
+    /**
+     * Stoğu yetmeyen satırlar (urun_id, beden_id sırasıyla)
+     */
+    public List<Satir> eksikler() {
+        return satirlar.stream().filter(s -> !s.basarili()).toList();
+    }
+
+    /**
+     * @param mevcut başarısız satırlarda o anki stok; stok kaydı yoksa null. Başarılı satırlarda düşümden sonraki
+     *               değer; düşük stok uyarıları kapalıysa okunmaz ve null döner.
+     */
+    public record Satir(Long urunId, Long bedenId, int istenen, boolean basarili, Integer mevcut) {
+    }
+}
@@ -0,0 +1,202 @@
+package com.magazaapp.stock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * {@link SicakStokDefteri} için yalnızca sona eklenen stok fark günlüğü.
+ *
+ * Her kayıt sabit 24 bayttır: ürün id, beden id, fark ve kaydın CRC32'si. Dosyalar
+ * "stok-defteri-<sıra>.log" adıyla numaralanır; veritabanına yazma öncesi etkin dosya kapatılıp
+ * yenisi açılır, kapatılan dosya yazma commit olunca silinir. Çökme sonrası dizinde kalan dosyalardan
+ * hangilerinin veritabanına zaten yansıdığını defter, commit ile birlikte kaydettiği son dosya
+ * sırasından bilir. Sıralar bu yüzden hiç geri gitmez. Sonda yarım kalmış veya CRC'si tutmayan kayıt
+ * okunmaz.
+ *
+ * Kalıcılık grup commit'le sağlanır: {@link #ekle} kayıtları yalnızca dosyaya yazar ve bir sıra
+ * numarası döner, {@link #zorla} o sıraya kadar yazılan her şey diske inene kadar bekler. Aynı anda
+ * bekleyenlerden biri fsync yapar; onun fsync'i kendinden önce yazılmış tüm kayıtları kapsadığından
+ * diğerleri çoğunlukla hiç fsync yapmadan döner. Çağıran, değişikliği ancak zorla döndükten sonra
+ * onaylar. Döndürme, açma ve kapatma defterin dönüş kilidi altında, yazmalarla eşzamanlı olmadan yapılır.
+ */
+final class StokGunlugu {
+
+    static final int KAYIT_BOYUTU = 24;
+
+    private static final Pattern DOSYA_ADI = Pattern.compile("stok-defteri-(\\d+)\\.log");
+
+    private final Path dizin;
+    private final boolean fsync;
+    private final CRC32 crc = new CRC32();
+    private final Object zorlamaKilidi = new Object();
+
+    private FileChannel kanal;
+    private long sira;
+    // Yazım (ekle çağrısı) sayacı; this üzerinde korunur
+    private long yazilan;
+    // Diske zorlandığı bilinen son yazım; zorlamaKilidi üzerinde korunur
+    private long zorlanan;
+
+    StokGunlugu(Path dizin, boolean fsync) {
+        this.dizin = dizin;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Mevcut dosyaların ve veritabanına uygulanmış son dosyanın ardından yeni bir dosya aç
+     */
+    synchronized void ac(long sonUygulanan) throws IOException {
+        Files.createDirectories(dizin);
+        NavigableMap<Long, Path> mevcut = dosyalar();
+        sira = Math.max(sonUygulanan, mevcut.isEmpty() ? 0 : mevcut.lastKey()) + 1;
+        kanal = FileChannel.open(dosya(sira), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Satırları (yön * adet) farkı olarak tek yazımla ekle; kalıcılık için dönen sırayla
+     * {@link #zorla} çağrılmalıdır. Yazım yarıda kalırsa tamamı yazılmış kayıtların tersi eklenir.
+     */
+    synchronized long ekle(List<StokSatiri> satirlar, int yon) throws IOException {
+        ByteBuffer tampon = kayitlar(satirlar, yon);
+        try {
+            while (tampon.hasRemaining()) {
+                kanal.write(tampon);
+            }
+        } catch (IOException e) {
+            geriAl(satirlar.subList(0, tampon.position() / KAYIT_BOYUTU), yon);
+            throw e;
+        }
+        return ++yazilan;
+    }
+
+    /**
+     * Verilen sıraya kadarki yazımlar diske inene kadar bekle. Kilidi alan thread o ana kadar yazılan
+     * her şeyi tek fsync'le zorlar; sırası bu arada kapsanmış olanlar fsync yapmadan döner.
+     */
+    void zorla(long yazim) throws IOException {
+        if (!fsync) {
+            return;
+        }
+        synchronized (zorlamaKilidi) {
+            if (zorlanan >= yazim) {
+                return;
+            }
+            long kapsanan;
+            FileChannel zorlanacak;
+            synchronized (this) {
+                kapsanan = yazilan;
+                zorlanacak = kanal;
+            }
+            zorlanacak.force(false);
+            zorlanan = kapsanan;
+        }
+    }
+
+    /**
+     * Daha önce eklenmiş satırların tersini ekle (zorlamadan). Günlük zaten yazılamıyorsa kayıt
+     * kalabilir; bu durumda stok eksik görünür, hiçbir zaman fazla değil.
+     */
+    synchronized void geriAl(List<StokSatiri> satirlar, int yon) {
+        if (satirlar.isEmpty()) {
+            return;
+        }
+        ByteBuffer tampon = kayitlar(satirlar, -yon);
+        try {
+            while (tampon.hasRemaining()) {
+                kanal.write(tampon);
+            }
+        } catch (IOException ignored) {
+            // Bkz. metod açıklaması
+        }
+    }
+
+    /**
+     * Etkin dosyayı kapat, yenisini aç; kapatılan dosyanın sırasını döner
+     */
+    synchronized long dondur() throws IOException {
+        long kapatilan = sira;
+        kanal.force(false);
+        kanal.close();
+        sira = kapatilan + 1;
+        kanal = FileChannel.open(dosya(sira), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        return kapatilan;
+    }
+
+    void sil(long dosyaSirasi) throws IOException {
+        Files.deleteIfExists(dosya(dosyaSirasi));
+    }
+
+    synchronized void kapat() throws IOException {
+        if (kanal != null) {
+            kanal.close();
+        }
+    }
+
+    /**
+     * Dizindeki günlük dosyaları sıra numarasıyla
+     */
+    NavigableMap<Long, Path> dosyalar() throws IOException {
+        NavigableMap<Long, Path> dosyalar = new TreeMap<>();
+        if (!Files.isDirectory(dizin)) {
+            return dosyalar;
+        }
+        try (Stream<Path> liste = Files.list(dizin)) {
+            liste.forEach(dosya -> {
+                Matcher eslesme = DOSYA_ADI.matcher(dosya.getFileName().toString());
+                if (eslesme.matches()) {
+                    dosyalar.put(Long.parseLong(eslesme.group(1)), dosya);
+                }
+            });
+        }
+        return dosyalar;
+    }
+
+    /**
+     * Bir dosyadaki farkları (ürün id, beden id) başına topla
+     */
+    static Map<List<Long>, Integer> oku(Path dosya) throws IOException {
+        Map<List<Long>, Integer> farklar = new HashMap<>();
+        ByteBuffer okunan = ByteBuffer.wrap(Files.readAllBytes(dosya));
+        CRC32 kontrol = new CRC32();
+        while (okunan.remaining() >= KAYIT_BOYUTU) {
+            int baslangic = okunan.position();
+            long urunId = okunan.getLong();
+            long bedenId = okunan.getLong();
+            int fark = okunan.getInt();
+            int beklenen = okunan.getInt();
+            kontrol.reset();
+            kontrol.update(okunan.array(), baslangic, KAYIT_BOYUTU - 4);
+            if ((int) kontrol.getValue() != beklenen) {
+                System.err.println(">>> Stok defteri kaydı bozuk, dosyanın kalanı atlandı: " + dosya.getFileName());
+                break;
+            }
+            farklar.merge(List.of(urunId, bedenId), fark, Integer::sum);
+        }
+        return farklar;
+    }
+
+    private ByteBuffer kayitlar(List<StokSatiri> satirlar, int yon) {
+        ByteBuffer tampon = ByteBuffer.allocate(satirlar.size() * KAYIT_BOYUTU);
+        for (StokSatiri satir : satirlar) {
+            int baslangic = tampon.position();
+            tampon.putLong(satir.urunId()).putLong(satir.bedenId()).putInt(yon * satir.adet());
+            crc.reset();
+            crc.update(tampon.array(), baslangic, KAYIT_BOYUTU - 4);
+            tampon.putInt((int) crc.getValue());
+        }
+        return tampon.flip();
+    }
+
+    private Path dosya(long dosyaSirasi) {
+        return dizin.resolve("stok-defteri-" + dosyaSirasi + ".log");
+    }
+}
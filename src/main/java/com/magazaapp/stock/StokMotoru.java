@@ -0,0 +1,241 @@
+package com.magazaapp.stock;
+
+import com.magazaapp.catalog.KatalogOnbellegi;
+import com.magazaapp.dto.StokDTO;
+import com.magazaapp.repository.UrunStokRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Sipariş stok düşümlerinin tek giriş noktası.
+ *
+ * Satırlar oku-kontrol et-yaz yerine koşullu UPDATE'lerle düşülür: "adet >= istenen" koşulu
+ * satır kilidi altında veritabanında değerlendirildiği için eşzamanlı iki sipariş aynı son ürünü
+ * satamaz ve satır başına tek round-trip yerine tüm sepet tek JDBC batch'inde gider.
+ *
+ * Aynı (ürün, beden) satırları birleştirilir ve UPDATE'ler (urun_id, beden_id) sırasıyla çalışır;
+ * böylece satır kilitleri her transaction'da aynı sırayla alınır ve çapraz sepetli siparişler
+ * birbirini kilitlenmeye (deadlock) sokamaz.
+ *
+ * Çağıranın transaction'ına katılır ama onu yönetmez (@Transactional vekili veya TransactionTemplate
+ * fark etmez). Bir satır bile yetmezse bu çağrıda düşülen satırlar aynı transaction'da geri eklenir ve
+ * başarısız sonuç döner: hiçbir stok düşülmüş kalmaz. Aynı transaction'da başka yazma yapmış çağıran,
+ * başarısız sonuçta kendi transaction'ını geri almalıdır. UPDATE'ler entity listener'ı tetiklemediği
+ * için katalog görüntüsüne ayrıca haber verilir.
+ *
+ * {@link SicakStokDefteri}'ne alınmış ürünlerin satırları veritabanına gitmeden bellek içi sayaçlardan
+ * düşülür; sonuç iki kısmın birleşimidir. Defter yetmezse veritabanı satırlarına hiç gidilmez.
+ * Sınıflandırma ile sıcak olmayan satırların UPDATE'i (ve gerekirse geri eklenmesi)
+ * {@link SicakStokDefteri#isaretlemeDegismeden} içinde yapılır, böylece arada deftere alınan bir ürünün
+ * sayacı yoldaki veritabanı düşümünü kaçırmaz.
+ *
+ * Düşük stok uyarıları açıksa başarılı satırların düşüm sonrası adetleri (satırlar hâlâ bu
+ * transaction'ın kilidi altındayken tek sorguyla) okunur ve {@link DusukStokUyarilari}'na verilir.
+ */
+@Component
+public class StokMotoru {
+
+    private static final String KOSULLU_DUSUM_SQL =
+            "UPDATE urun_stok SET adet = adet - ?, versiyon = versiyon + 1 WHERE urun_id = ? AND beden_id = ? AND adet >= ?";
+
+    private static final String IADE_SQL =
+            "UPDATE urun_stok SET adet = adet + ?, versiyon = versiyon + 1 WHERE urun_id = ? AND beden_id = ?";
+
+    private static final String KALAN_SQL =
+            "SELECT urun_id, beden_id, adet FROM urun_stok WHERE %s";
+
+    private static final Comparator<StokSatiri> KILIT_SIRASI = Comparator.comparing(StokSatiri::urunId)
+            .thenComparing(StokSatiri::bedenId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UrunStokRepository urunStokRepository;
+    private final KatalogOnbellegi katalogOnbellegi;
+    private final SicakStokDefteri sicakStokDefteri;
+    private final DusukStokUyarilari dusukStokUyarilari;
+
+    public StokMotoru(JdbcTemplate jdbcTemplate, UrunStokRepository urunStokRepository,
+            KatalogOnbellegi katalogOnbellegi, SicakStokDefteri sicakStokDefteri,
+            DusukStokUyarilari dusukStokUyarilari) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.urunStokRepository = urunStokRepository;
+        this.katalogOnbellegi = katalogOnbellegi;
+        this.sicakStokDefteri = sicakStokDefteri;
+        this.dusukStokUyarilari = dusukStokUyarilari;
+    }
+
+    /**
+     * Tüm satırları tek batch'te koşullu olarak düş. Aktif bir transaction içinde çağrılmalıdır.
+     */
+    public StokDusumSonucu dus(List<StokSatiri> satirlar) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Stok düşümü bir transaction içinde yapılmalıdır");
+        }
+        List<StokSatiri> tumu = birlestir(satirlar);
+        if (tumu.isEmpty()) {
+            return new StokDusumSonucu(List.of());
+        }
+
+        // Sınıflandırma ile veritabanı düşümü (ve geri eklenmesi) arasında hiçbir ürün deftere alınamaz
+        Dusumler dusumler = sicakStokDefteri.isaretlemeDegismeden(() -> {
+            SicakStokDefteri.Dusum dusum = sicakStokDefteri.dus(tumu);
+            if (!dusum.basarili()) {
+                return new Dusumler(dusum, List.of());
+            }
+            List<StokSatiri> kalanlar = dusum.kalanlar();
+            int[] etkilenen = veritabanindaDus(kalanlar);
+            List<StokSatiri> eksikler = new ArrayList<>();
+            List<StokSatiri> dusulenler = new ArrayList<>();
+            for (int i = 0; i < kalanlar.size(); i++) {
+                (etkilenen[i] > 0 ? dusulenler : eksikler).add(kalanlar.get(i));
+            }
+            if (!eksikler.isEmpty()) {
+                geriEkle(dusum.sonuclar(), dusulenler);
+            }
+            return new Dusumler(dusum, eksikler);
+        });
+        SicakStokDefteri.Dusum sicak = dusumler.sicak();
+        List<StokSatiri> sirali = sicak.kalanlar();
+        List<StokSatiri> eksikler = dusumler.eksikler();
+
+        if (!eksikler.isEmpty() || !sicak.basarili()) {
+            // Defter yetmediyse veritabanı satırları denenmedi: eksik sayılmaz, düşülmüş de değildir
+            Map<String, Integer> mevcutlar = eksikler.isEmpty() ? Map.of() : mevcutStoklar(eksikler);
+            List<StokDusumSonucu.Satir> sonuc = new ArrayList<>(sicak.sonuclar());
+            for (StokSatiri satir : sirali) {
+                boolean eksik = eksikler.contains(satir);
+                sonuc.add(new StokDusumSonucu.Satir(satir.urunId(), satir.bedenId(), satir.adet(), !eksik,
+                        eksik ? mevcutlar.get(anahtar(satir.urunId(), satir.bedenId())) : null));
+            }
+            return new StokDusumSonucu(sonuc);
+        }
+
+        sirali.stream().map(StokSatiri::urunId).distinct().forEach(katalogOnbellegi::stokDegisti);
+        Map<String, Integer> kalanlar = dusukStokUyarilari.etkinMi() && !sirali.isEmpty()
+                ? kalanStoklar(sirali)
+                : Map.of();
+        List<StokDusumSonucu.Satir> sonuc = new ArrayList<>(sicak.sonuclar());
+        for (StokSatiri satir : sirali) {
+            sonuc.add(new StokDusumSonucu.Satir(satir.urunId(), satir.bedenId(), satir.adet(), true,
+                    kalanlar.get(anahtar(satir.urunId(), satir.bedenId()))));
+        }
+        dusukStokUyarilari.dusumleriIsle(sonuc);
+        return new StokDusumSonucu(sonuc);
+    }
+
+    /**
+     * Satırları stoğa geri ekle (rezervasyon iadesi, iptal). Düşümle aynı kilit sırasıyla tek batch'te.
+     */
+    public void iadeEt(List<StokSatiri> satirlar) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Stok iadesi bir transaction içinde yapılmalıdır");
+        }
+        List<StokSatiri> birlesik = birlestir(satirlar);
+        List<StokSatiri> sirali = sicakStokDefteri.isaretlemeDegismeden(() -> {
+            List<StokSatiri> kalanlar = sicakStokDefteri.iadeEt(birlesik);
+            veritabanindaIadeEt(kalanlar);
+            return kalanlar;
+        });
+        if (sirali.isEmpty()) {
+            return;
+        }
+        sirali.stream().map(StokSatiri::urunId).distinct().forEach(katalogOnbellegi::stokDegisti);
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private record Dusumler(SicakStokDefteri.Dusum sicak, List<StokSatiri> eksikler) {
+    }
+
+    /**
+     * Başarısız düşümün bu çağrıda düşülen satırlarını geri ekle: defterden düşülenler deftere,
+     * veritabanında düşülenler aynı transaction'da tabloya
+     */
+    private void geriEkle(List<StokDusumSonucu.Satir> sicakSonuclar, List<StokSatiri> dusulenler) {
+        List<StokSatiri> sicaklar = sicakSonuclar.stream()
+                .map(satir -> new StokSatiri(satir.urunId(), satir.bedenId(), satir.istenen()))
+                .toList();
+        if (!sicaklar.isEmpty()) {
+            sicakStokDefteri.iadeEt(sicaklar);
+        }
+        veritabanindaIadeEt(dusulenler);
+    }
+
+    private void veritabanindaIadeEt(List<StokSatiri> sirali) {
+        if (sirali.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(IADE_SQL, sirali, sirali.size(), (ps, satir) -> {
+            ps.setInt(1, satir.adet());
+            ps.setLong(2, satir.urunId());
+            ps.setLong(3, satir.bedenId());
+        });
+    }
+
+    /**
+     * Satırları tek batch'te koşullu düş; satır başına etkilenen satır sayısı
+     */
+    private int[] veritabanindaDus(List<StokSatiri> sirali) {
+        if (sirali.isEmpty()) {
+            return new int[0];
+        }
+        int[][] sonuclar = jdbcTemplate.batchUpdate(KOSULLU_DUSUM_SQL, sirali, sirali.size(), (ps, satir) -> {
+            ps.setInt(1, satir.adet());
+            ps.setLong(2, satir.urunId());
+            ps.setLong(3, satir.bedenId());
+            ps.setInt(4, satir.adet());
+        });
+        return sonuclar.length > 0 ? sonuclar[0] : new int[0];
+    }
+
+    /**
+     * Aynı (ürün, beden) satırlarını topla ve kilit sırasına diz
+     */
+    private static List<StokSatiri> birlestir(List<StokSatiri> satirlar) {
+        Map<List<Long>, Integer> toplamlar = new HashMap<>();
+        for (StokSatiri satir : satirlar) {
+            toplamlar.merge(List.of(satir.urunId(), satir.bedenId()), satir.adet(), Integer::sum);
+        }
+        return toplamlar.entrySet().stream()
+                .map(giris -> new StokSatiri(giris.getKey().get(0), giris.getKey().get(1), giris.getValue()))
+                .sorted(KILIT_SIRASI)
+                .toList();
+    }
+
+    /**
+     * Başarısız satırların güncel stokları (ürün başına tüm bedenler tek sorguda)
+     */
+    private Map<String, Integer> mevcutStoklar(List<StokSatiri> eksikler) {
+        Set<Long> urunIdleri = eksikler.stream().map(StokSatiri::urunId).collect(Collectors.toSet());
+        Map<String, Integer> mevcutlar = new HashMap<>();
+        for (StokDTO stok : urunStokRepository.findStoklarByUrunIdIn(urunIdleri)) {
+            mevcutlar.put(anahtar(stok.urunId(), stok.bedenId()), stok.adet());
+        }
+        return mevcutlar;
+    }
+
+    /**
+     * Düşülen satırların düşüm sonrası adetleri; satırlar bu transaction'da kilitli olduğu için kesin değerdir
+     */
+    private Map<String, Integer> kalanStoklar(List<StokSatiri> satirlar) {
+        String kosul = String.join(" OR ", Collections.nCopies(satirlar.size(), "(urun_id = ? AND beden_id = ?)"));
+        Object[] parametreler = new Object[satirlar.size() * 2];
+        for (int i = 0; i < satirlar.size(); i++) {
+            parametreler[2 * i] = satirlar.get(i).urunId();
+            parametreler[2 * i + 1] = satirlar.get(i).bedenId();
+        }
+        Map<String, Integer> kalanlar = new HashMap<>();
+        jdbcTemplate.query(String.format(KALAN_SQL, kosul),
+                rs -> {
+                    kalanlar.put(anahtar(rs.getLong(1), rs.getLong(2)), rs.getInt(3));
+                }, parametreler);
+        return kalanlar;
+    }
+
+    private static String anahtar(Long urunId, Long bedenId) {
+        return urunId + ":" + bedenId;
+    }
+}
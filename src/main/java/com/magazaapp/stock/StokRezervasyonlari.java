@@ -0,0 +1,202 @@
+package com.magazaapp.stock;
+
+import com.magazaapp.model.Odeme;
+import com.magazaapp.model.OdemeDurum;
+import com.magazaapp.model.StokRezervasyonu;
+import com.magazaapp.repository.BedenRepository;
+import com.magazaapp.repository.OdemeRepository;
+import com.magazaapp.repository.StokRezervasyonuRepository;
+import com.magazaapp.repository.UrunRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Bekleyen ödemeler için süreli stok ayırma.
+ *
+ * Ödeme başlatılırken sepetteki satırlar {@link StokMotoru} ile koşullu olarak düşülür ve ödeme
+ * token'ı altında {@link StokRezervasyonu} olarak kaydedilir; böylece kart formuna ulaşan herkes
+ * aynı son ürünü "satın almış" olamaz, satılabilir stok ayrılan adet kadar azalır. Ödeme başarılı
+ * olunca rezervasyon siparişe dönüştürülür (düşüm kalıcı olur), başarısız olunca ya da süresi
+ * dolunca ayrılan adet stoğa geri eklenir.
+ *
+ * Süre dolumu rezervasyon başına zamanlayıcı kurmadan, son_gecerlilik indeksi üzerinden periyodik
+ * bir taramayla yapılır. Her token kendi transaction'ında işlenir: önce bekleyen ödeme iptal edilir,
+ * sonra rezervasyon satırları kilitlenip iade edilir. Ödeme tamamlama da önce ödeme satırını
+ * kilitlediği için ikisi aynı token'ı aynı anda işleyemez. İptal satır güncellemediyse (ödeme bu
+ * arada başarılı olduysa) stok hemen iade edilmez; rezervasyon siparişte dönüştürülür. Ödeme ile
+ * sipariş ayrı transaction'larda oluşur: sipariş oluşturma başarısız olursa rollback rezervasyonu da
+ * geri getirir. Sipariş rezervasyonu aynı transaction'da sildiğinden, ödemesi sipariş bekleme süresinden
+ * önce tamamlanmış ve rezervasyonu hâlâ duran token'ın siparişi hiç oluşmamıştır; ödeme iade edilmiş
+ * sayılır ve stok serbest bırakılır. İşlenemeyen token loglanıp atlanır, taramanın geri kalanı devam eder.
+ */
+@Component
+public class StokRezervasyonlari {
+
+    static final int TARAMA_SAYFASI = 100;
+
+    private final StokRezervasyonuRepository rezervasyonRepository;
+    private final OdemeRepository odemeRepository;
+    private final UrunRepository urunRepository;
+    private final BedenRepository bedenRepository;
+    private final StokMotoru stokMotoru;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration sure;
+    private final Duration siparisBeklemesi;
+
+    public StokRezervasyonlari(StokRezervasyonuRepository rezervasyonRepository, OdemeRepository odemeRepository,
+            UrunRepository urunRepository, BedenRepository bedenRepository, StokMotoru stokMotoru,
+            PlatformTransactionManager transactionManager,
+            @Value("${stok.rezervasyon.sure-dk:10}") long sureDakika,
+            @Value("${stok.rezervasyon.siparis-bekleme-dk:15}") long siparisBeklemeDakika) {
+        this.rezervasyonRepository = rezervasyonRepository;
+        this.odemeRepository = odemeRepository;
+        this.urunRepository = urunRepository;
+        this.bedenRepository = bedenRepository;
+        this.stokMotoru = stokMotoru;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sure = Duration.ofMinutes(sureDakika);
+        this.siparisBeklemesi = Duration.ofMinutes(siparisBeklemeDakika);
+    }
+
+    // =============== AYIRMA / DÖNÜŞTÜRME / İADE (çağıranın transaction'ında) ===============
+
+    /**
+     * Satırları ödeme token'ı için ayır. Yetmeyen satır varsa hiçbir şey ayrılmaz
+     * (bkz. {@link StokMotoru#dus(List)}).
+     */
+    public StokDusumSonucu ayir(String odemeToken, List<StokSatiri> satirlar) {
+        StokDusumSonucu sonuc = stokMotoru.dus(satirlar);
+        if (!sonuc.basarili()) {
+            return sonuc;
+        }
+        LocalDateTime sonGecerlilik = LocalDateTime.now().plus(sure);
+        List<StokRezervasyonu> rezervasyonlar = sonuc.satirlar().stream()
+                .map(satir -> new StokRezervasyonu(odemeToken, urunRepository.getReferenceById(satir.urunId()),
+                        bedenRepository.getReferenceById(satir.bedenId()), satir.istenen(), sonGecerlilik))
+                .toList();
+        rezervasyonRepository.saveAll(rezervasyonlar);
+        return sonuc;
+    }
+
+    /**
+     * Ödeme başarılı: ayrılan stok kalıcı olur. Sipariş satırları ayrılandan farklıysa (ödeme sırasında
+     * sepet değiştiyse veya rezervasyonun süresi dolduysa) eksik kalan adet koşullu düşülür, fazla
+     * ayrılan adet iade edilir. Dönen sonuç yalnızca ek düşülen satırları içerir.
+     */
+    public StokDusumSonucu donustur(String odemeToken, List<StokSatiri> siparisSatirlari) {
+        List<StokRezervasyonu> ayrilanlar = rezervasyonRepository.findByOdemeTokenKilitli(odemeToken);
+        Map<List<Long>, Integer> farklar = new HashMap<>();
+        for (StokSatiri satir : siparisSatirlari) {
+            farklar.merge(List.of(satir.urunId(), satir.bedenId()), satir.adet(), Integer::sum);
+        }
+        for (StokRezervasyonu ayrilan : ayrilanlar) {
+            farklar.merge(List.of(ayrilan.getUrun().getId(), ayrilan.getBeden().getId()), -ayrilan.getAdet(),
+                    Integer::sum);
+        }
+        rezervasyonRepository.deleteAllInBatch(ayrilanlar);
+
+        List<StokSatiri> eksikler = new ArrayList<>();
+        List<StokSatiri> fazlalar = new ArrayList<>();
+        farklar.forEach((anahtar, fark) -> {
+            if (fark > 0) {
+                eksikler.add(new StokSatiri(anahtar.get(0), anahtar.get(1), fark));
+            } else if (fark < 0) {
+                fazlalar.add(new StokSatiri(anahtar.get(0), anahtar.get(1), -fark));
+            }
+        });
+        stokMotoru.iadeEt(fazlalar);
+        return stokMotoru.dus(eksikler);
+    }
+
+    /**
+     * Ödeme başarısız / iptal: ayrılan adetleri stoğa geri ekle. Token için rezervasyon yoksa bir şey yapmaz.
+     */
+    public void serbestBirak(String odemeToken) {
+        List<StokRezervasyonu> ayrilanlar = rezervasyonRepository.findByOdemeTokenKilitli(odemeToken);
+        if (ayrilanlar.isEmpty()) {
+            return;
+        }
+        stokMotoru.iadeEt(ayrilanlar.stream()
+                .map(r -> new StokSatiri(r.getUrun().getId(), r.getBeden().getId(), r.getAdet()))
+                .toList());
+        rezervasyonRepository.deleteAllInBatch(ayrilanlar);
+    }
+
+    public Duration sure() {
+        return sure;
+    }
+
+    // =============== SÜRE DOLUMU TARAMASI ===============
+
+    /**
+     * Süresi dolan rezervasyonları indeksli taramayla bul; her token için bekleyen ödemeyi iptal edip
+     * stoğu iade et
+     */
+    @Scheduled(initialDelayString = "${stok.rezervasyon.tarama-ms:30000}",
+            fixedDelayString = "${stok.rezervasyon.tarama-ms:30000}")
+    public void suresiDolanlariSerbestBirak() {
+        int toplam = 0;
+        // İade edilmeyen token'ların satırları kalır; sonraki sayfalarda tekrar gelmemeleri için dışlanır
+        Set<String> atlananlar = new HashSet<>();
+        List<String> tokenlar;
+        do {
+            PageRequest sayfa = PageRequest.of(0, TARAMA_SAYFASI);
+            tokenlar = atlananlar.isEmpty()
+                    ? rezervasyonRepository.suresiDolanTokenlar(LocalDateTime.now(), sayfa)
+                    : rezervasyonRepository.suresiDolanTokenlar(LocalDateTime.now(), atlananlar, sayfa);
+            for (String token : tokenlar) {
+                try {
+                    Boolean iadeEdildi = transactionTemplate.execute(durum -> suresiDolaniSerbestBirak(token));
+                    if (Boolean.TRUE.equals(iadeEdildi)) {
+                        toplam++;
+                    } else {
+                        atlananlar.add(token);
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println(">>> Rezervasyon iade edilemedi (" + token + "): " + e.getMessage());
+                    atlananlar.add(token);
+                }
+            }
+        } while (tokenlar.size() == TARAMA_SAYFASI);
+
+        if (toplam > 0) {
+            System.out.println(">>> Süresi dolan " + toplam + " ödemenin stok rezervasyonu iade edildi");
+        }
+    }
+
+    /**
+     * Bekleyen ödemeyi iptal edip stoğu iade et. İptal satır güncellemediyse token için bekleyen ödeme
+     * varsa iade edilmez; başarılı ödemenin rezervasyonu sipariş bekleme süresi boyunca siparişe
+     * dönüştürülmek üzere tutulur, süre geçtiyse sipariş oluşmamıştır: ödeme iade edilir, stok bırakılır.
+     */
+    private boolean suresiDolaniSerbestBirak(String token) {
+        int iptal = odemeRepository.bekleyenOdemeyiIptalEt(token, "Ödeme süresi doldu, ayrılan stok iade edildi");
+        if (iptal != 1) {
+            Odeme odeme = odemeRepository.findByIyzicoTokenKilitli(token).orElse(null);
+            OdemeDurum durum = odeme != null ? odeme.getDurum() : null;
+            if (durum == OdemeDurum.BEKLEMEDE) {
+                return false;
+            }
+            if (durum == OdemeDurum.BASARILI) {
+                LocalDateTime tamamlanma = odeme.getTamamlanmaTarihi();
+                if (tamamlanma != null && tamamlanma.isAfter(LocalDateTime.now().minus(siparisBeklemesi))) {
+                    return false;
+                }
+                odeme.setDurum(OdemeDurum.IADE);
+                odeme.setHataMesaji("Sipariş oluşturulamadı, ödeme iade edildi");
+                System.err.println(">>> Ödemesi alınan ama siparişi oluşmayan rezervasyon iade edildi ("
+                        + token + ")");
+            }
+        }
+        serbestBirak(token);
+        return true;
+    }
+}
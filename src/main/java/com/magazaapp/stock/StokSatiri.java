@@ -0,0 +1,16 @@
+package com.magazaapp.stock;
+
+/**
+ * Stoktan düşülecek (veya ayrılacak) bir sepet/sipariş satırı: ürünün bir bedeninden adet
+ */
+public record StokSatiri(Long urunId, Long bedenId, int adet) {
+
+    public StokSatiri {
+        if (urunId == null || bedenId == null) {
+            throw new IllegalArgumentException("Stok satırında ürün ve beden zorunludur");
+        }
+        if (adet <= 0) {
+            throw new IllegalArgumentException("Stok satırında adet pozitif olmalıdır: " + adet);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.magazaapp.config;
+
+import jakarta.persistence.*;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sipariş yazma kıyaslaması: IDENTITY id'ler, havuzlu id'ler batch'siz ve havuzlu id'ler JDBC
+ * batching'le. Gerçek MySQL ister; yalnızca kiyaslama.url verildiğinde çalışır:
+ * {@code mvn test -Dtest=YazmaKiyaslamasiTest -Dkiyaslama.url=jdbc:mysql://...&rewriteBatchedStatements=true
+ * -Dkiyaslama.kullanici=... -Dkiyaslama.sifre=...}
+ *
+ * Her yöntem kendi kiyas_* tablolarına (create-drop) aynı sayıda fiş ve detay yazar. IDENTITY'de
+ * Hibernate id'yi öğrenmek için her insert'i persist anında tek tek gönderir, batch_size ayarlı olsa
+ * bile; havuzlu üretici id'yi bellekten verir ve insert'ler flush'ta toplu gider. Her tur kendi
+ * transaction'ında çalışır ve geri alınır; ilk tur ısınma içindir ve raporlanmaz.
+ */
+@EnabledIfSystemProperty(named = "kiyaslama.url", matches = ".+")
+class YazmaKiyaslamasiTest {
+
+    private static final int BATCH_BOYUTU = 50;
+
+    private static SessionFactory sessionFactory;
+    private static int satirSayisi;
+    private static int detaySayisi;
+
+    @BeforeAll
+    static void baglan() {
+        satirSayisi = Integer.getInteger("kiyaslama.satir", 2000);
+        detaySayisi = Integer.getInteger("kiyaslama.detay", 3);
+        StandardServiceRegistry kayit = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.connection.url", System.getProperty("kiyaslama.url"))
+                .applySetting("hibernate.connection.username", System.getProperty("kiyaslama.kullanici", "root"))
+                .applySetting("hibernate.connection.password", System.getProperty("kiyaslama.sifre", ""))
+                .applySetting("hibernate.hbm2ddl.auto", "create-drop")
+                .applySetting("hibernate.jdbc.batch_size", String.valueOf(BATCH_BOYUTU))
+                .applySetting("hibernate.order_inserts", "true")
+                .build();
+        sessionFactory = new MetadataSources(kayit)
+                .addAnnotatedClass(KimlikliFis.class)
+                .addAnnotatedClass(KimlikliDetay.class)
+                .addAnnotatedClass(HavuzluFis.class)
+                .addAnnotatedClass(HavuzluDetay.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @AfterAll
+    static void kapat() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @Test
+    void siparisYazmaSureleri() {
+        System.out.println(">>> Yazma kıyaslaması: " + satirSayisi + " sipariş x " + detaySayisi + " detay");
+        long identity = olc(BATCH_BOYUTU, KimlikliFis::new, KimlikliDetay::new, KimlikliDetay.class);
+        long havuzluTekTek = olc(1, HavuzluFis::new, HavuzluDetay::new, HavuzluDetay.class);
+        long havuzluToplu = olc(BATCH_BOYUTU, HavuzluFis::new, HavuzluDetay::new, HavuzluDetay.class);
+
+        int satir = satirSayisi * (1 + detaySayisi);
+        rapor("IDENTITY", identity, satir);
+        rapor("havuzlu, batch=1", havuzluTekTek, satir);
+        rapor("havuzlu, batch=" + BATCH_BOYUTU, havuzluToplu, satir);
+        System.out.printf(">>>   IDENTITY'ye göre hızlanma: %.1fx%n", (double) identity / Math.max(1, havuzluToplu));
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    /**
+     * Isınma turundan sonra ölçülen turun süresi (ms)
+     */
+    private long olc(int batch, Function<Integer, Object> fis, Function<Object, Object> detay, Class<?> detayTipi) {
+        tur(batch, fis, detay, detayTipi);
+        return tur(batch, fis, detay, detayTipi);
+    }
+
+    private long tur(int batch, Function<Integer, Object> fis, Function<Object, Object> detay, Class<?> detayTipi) {
+        try (Session session = sessionFactory.openSession()) {
+            session.setJdbcBatchSize(batch);
+            Transaction islem = session.beginTransaction();
+            try {
+                long baslangic = System.nanoTime();
+                for (int i = 0; i < satirSayisi; i++) {
+                    Object baslik = fis.apply(i);
+                    session.persist(baslik);
+                    for (int j = 0; j < detaySayisi; j++) {
+                        session.persist(detay.apply(baslik));
+                    }
+                    // Kalıcılık bağlamı büyüdükçe flush kirli kontrolü yavaşlar; tüm turlar aynı aralıkla boşaltır
+                    if ((i + 1) % 500 == 0) {
+                        session.flush();
+                        session.clear();
+                    }
+                }
+                session.flush();
+                long sure = (System.nanoTime() - baslangic) / 1_000_000;
+
+                long yazilan = session.createQuery("SELECT COUNT(d) FROM " + detayTipi.getSimpleName() + " d",
+                        Long.class).getSingleResult();
+                assertEquals((long) satirSayisi * detaySayisi, yazilan);
+                return sure;
+            } finally {
+                islem.rollback();
+            }
+        }
+    }
+
+    private void rapor(String ad, long ms, int satir) {
+        System.out.printf(">>>   %-18s %6d ms (%.0f satır/sn)%n", ad, ms, satir * 1000.0 / Math.max(1, ms));
+    }
+
+    // =============== KIYASLAMA ENTITY'LERİ (SiparisFisi / SiparisDetay kolonları) ===============
+
+    @Entity(name = "KimlikliFis")
+    @Table(name = "kiyas_kimlikli_fis")
+    static class KimlikliFis {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+
+        BigDecimal toplamTutar = BigDecimal.TEN;
+
+        String teslimatAdresi;
+
+        KimlikliFis() {
+        }
+
+        KimlikliFis(Integer sira) {
+            this.teslimatAdresi = "Kıyaslama adresi " + sira;
+        }
+    }
+
+    @Entity(name = "KimlikliDetay")
+    @Table(name = "kiyas_kimlikli_detay")
+    static class KimlikliDetay {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+
+        @ManyToOne(fetch = FetchType.LAZY)
+        @JoinColumn(name = "fis_id", nullable = false)
+        KimlikliFis fis;
+
+        Integer adet = 1;
+
+        BigDecimal birimFiyat = BigDecimal.TEN;
+
+        KimlikliDetay() {
+        }
+
+        KimlikliDetay(Object fis) {
+            this.fis = (KimlikliFis) fis;
+        }
+    }
+
+    @Entity(name = "HavuzluFis")
+    @Table(name = "kiyas_havuzlu_fis")
+    static class HavuzluFis {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.TABLE, generator = "kiyas_fis_id")
+        @TableGenerator(name = "kiyas_fis_id", table = "kiyas_kimlik_havuzu", pkColumnName = "tablo",
+                valueColumnName = "sonraki_deger", pkColumnValue = "fis", allocationSize = BATCH_BOYUTU)
+        Long id;
+
+        BigDecimal toplamTutar = BigDecimal.TEN;
+
+        String teslimatAdresi;
+
+        HavuzluFis() {
+        }
+
+        HavuzluFis(Integer sira) {
+            this.teslimatAdresi = "Kıyaslama adresi " + sira;
+        }
+    }
+
+    @Entity(name = "HavuzluDetay")
+    @Table(name = "kiyas_havuzlu_detay")
+    static class HavuzluDetay {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.TABLE, generator = "kiyas_detay_id")
+        @TableGenerator(name = "kiyas_detay_id", table = "kiyas_kimlik_havuzu", pkColumnName = "tablo",
+                valueColumnName = "sonraki_deger", pkColumnValue = "detay", allocationSize = BATCH_BOYUTU)
+        Long id;
+
+        @ManyToOne(fetch = FetchType.LAZY)
+        @JoinColumn(name = "fis_id", nullable = false)
+        HavuzluFis fis;
+
+        Integer adet = 1;
+
+        BigDecimal birimFiyat = BigDecimal.TEN;
+
+        HavuzluDetay() {
+        }
+
+        HavuzluDetay(Object fis) {
+            this.fis = (HavuzluFis) fis;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.magazaapp.outbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OlayAktariciTest {
+
+    private final SahteOlayTablosu tablo = new SahteOlayTablosu();
+    private final List<String> iletilenler = Collections.synchronizedList(new ArrayList<>());
+    // Olay verisi -> kaç kez daha hata verecek
+    private final Map<String, Integer> hatalar = new ConcurrentHashMap<>();
+    private OlayAktarici aktarici;
+
+    @AfterEach
+    void kapat() throws InterruptedException {
+        if (aktarici != null) {
+            aktarici.kapat();
+        }
+    }
+
+    @Test
+    void kumeIcindeSiraKorunurVeHataliOlayYenidenDenenir() throws Exception {
+        hatalar.put("A1", 1);
+        tablo.ekle("SIPARIS", 1, "A1");
+        tablo.ekle("SIPARIS", 1, "A2");
+        tablo.ekle("SIPARIS", 2, "B1");
+        tablo.ekle("SIPARIS", 2, "B2");
+        tablo.ekle("SIPARIS", 1, "A3");
+
+        baslat(200, 10);
+        bekle(() -> tablo.islenen() == 5);
+
+        List<String> a = iletilenler.stream().filter(veri -> veri.startsWith("A")).toList();
+        assertEquals(List.of("A1", "A2", "A3"), a);
+        assertEquals(List.of("B1", "B2"), iletilenler.stream().filter(veri -> veri.startsWith("B")).toList());
+        assertEquals(1, tablo.satir("A1").deneme);
+    }
+
+    @Test
+    void yenidenDenemeBekleyenKumeDigerKumeleriAcBirakmaz() throws Exception {
+        // Parti boyutu 2: eski sorgu her taramada yalnızca X1 ve X2'yi (ikisi de bekliyor) görürdü
+        hatalar.put("X1", Integer.MAX_VALUE);
+        tablo.ekle("SIPARIS", 1, "X1");
+        tablo.ekle("SIPARIS", 1, "X2");
+        tablo.ekle("SIPARIS", 1, "X3");
+        tablo.ekle("SIPARIS", 2, "Y1");
+
+        baslat(2, 60_000);
+        bekle(() -> iletilenler.contains("Y1"));
+
+        assertFalse(iletilenler.contains("X2"));
+        assertEquals(1, tablo.satir("X1").deneme);
+        assertNull(tablo.satir("X2").islenme);
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private void baslat(int parti, long yenidenDenemeMs) {
+        OlayAbonesi abone = new OlayAbonesi() {
+            @Override
+            public Set<String> turler() {
+                return Set.of("TEST");
+            }
+
+            @Override
+            public void isle(Olay olay) throws Exception {
+                Integer kalan = hatalar.get(olay.veri());
+                if (kalan != null && kalan > 0) {
+                    hatalar.put(olay.veri(), kalan - 1);
+                    throw new IllegalStateException("abone hatası: " + olay.veri());
+                }
+                iletilenler.add(olay.veri());
+            }
+        };
+        DefaultListableBeanFactory fabrika = new DefaultListableBeanFactory();
+        fabrika.registerSingleton("abone", abone);
+        aktarici = new OlayAktarici(tablo, fabrika.getBeanProvider(OlayAbonesi.class), true, 20, parti, 2, 10,
+                yenidenDenemeMs, 60, 72);
+        aktarici.baslat();
+    }
+
+    private static void bekle(BooleanSupplier kosul) throws InterruptedException {
+        long son = System.currentTimeMillis() + 5000;
+        while (!kosul.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < son, "koşul zamanında sağlanmadı");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * giden_olay tablosunu bellekte tutan, OlayAktarici'nin SQL'lerini yorumlayan JdbcTemplate
+     */
+    static class SahteOlayTablosu extends JdbcTemplate {
+
+        static class Satir {
+            long id;
+            String kumeTuru;
+            long kumeId;
+            String veri;
+            Timestamp olusturma;
+            Timestamp sonrakiDeneme;
+            Timestamp islenme;
+            Timestamp kilitBitis;
+            String kilitSahibi;
+            int deneme;
+            boolean basarisiz;
+        }
+
+        private final TreeMap<Long, Satir> satirlar = new TreeMap<>();
+
+        synchronized void ekle(String kumeTuru, long kumeId, String veri) {
+            Satir satir = new Satir();
+            satir.id = satirlar.size() + 1;
+            satir.kumeTuru = kumeTuru;
+            satir.kumeId = kumeId;
+            satir.veri = veri;
+            satir.olusturma = satir.sonrakiDeneme = Timestamp.valueOf(LocalDateTime.now());
+            satirlar.put(satir.id, satir);
+        }
+
+        synchronized Satir satir(String veri) {
+            return satirlar.values().stream().filter(s -> s.veri.equals(veri)).findFirst().orElseThrow();
+        }
+
+        synchronized long islenen() {
+            return satirlar.values().stream().filter(s -> s.islenme != null).count();
+        }
+
+        @Override
+        public synchronized <T> List<T> query(String sql, RowMapper<T> eslestirici, Object... p) {
+            Timestamp simdi = (Timestamp) p[0];
+            int limit = (Integer) p[4];
+            List<T> sonuc = new ArrayList<>();
+            for (Satir satir : satirlar.values()) {
+                if (sonuc.size() >= limit) {
+                    break;
+                }
+                if (satir.islenme != null || satir.sonrakiDeneme.after(simdi) || kirada(satir, simdi)) {
+                    continue;
+                }
+                boolean onundeBekleyen = satirlar.headMap(satir.id).values().stream()
+                        .anyMatch(e -> e.kumeTuru.equals(satir.kumeTuru) && e.kumeId == satir.kumeId
+                                && e.islenme == null && (e.sonrakiDeneme.after(simdi) || kirada(e, simdi)));
+                if (onundeBekleyen) {
+                    continue;
+                }
+                try {
+                    sonuc.add(eslestirici.mapRow(sonucKumesi(satir), sonuc.size()));
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return sonuc;
+        }
+
+        @Override
+        public synchronized <T> List<T> queryForList(String sql, Class<T> tip, Object... p) {
+            String kiraci = (String) p[p.length - 1];
+            List<T> sonuc = new ArrayList<>();
+            for (int i = 0; i < p.length - 1; i++) {
+                Satir satir = satirlar.get((Long) p[i]);
+                if (kiraci.equals(satir.kilitSahibi)) {
+                    sonuc.add(tip.cast(satir.id));
+                }
+            }
+            return sonuc;
+        }
+
+        @Override
+        public synchronized int update(String sql, Object... p) {
+            int adet = 0;
+            if (sql.startsWith("UPDATE giden_olay SET kilit_sahibi = ?")) {
+                Timestamp simdi = (Timestamp) p[p.length - 1];
+                for (int i = 2; i < p.length - 1; i++) {
+                    Satir satir = satirlar.get((Long) p[i]);
+                    if (satir.islenme == null && !kirada(satir, simdi)) {
+                        satir.kilitSahibi = (String) p[0];
+                        satir.kilitBitis = (Timestamp) p[1];
+                        adet++;
+                    }
+                }
+            } else if (sql.startsWith("UPDATE giden_olay SET kilit_sahibi = NULL")) {
+                for (int i = 0; i < p.length - 1; i++) {
+                    adet += kiraBitir(satirlar.get((Long) p[i]), (String) p[p.length - 1]) ? 1 : 0;
+                }
+            } else if (sql.startsWith("UPDATE giden_olay SET islenme_tarihi = ?")) {
+                for (int i = 1; i < p.length - 1; i++) {
+                    Satir satir = satirlar.get((Long) p[i]);
+                    if (kiraBitir(satir, (String) p[p.length - 1])) {
+                        satir.islenme = (Timestamp) p[0];
+                        adet++;
+                    }
+                }
+            } else if (sql.startsWith("UPDATE giden_olay SET deneme = ?")) {
+                Satir satir = satirlar.get((Long) p[5]);
+                if (kiraBitir(satir, (String) p[6])) {
+                    satir.deneme = (Integer) p[0];
+                    satir.sonrakiDeneme = (Timestamp) p[2];
+                    satir.basarisiz = (Boolean) p[3];
+                    satir.islenme = (Timestamp) p[4];
+                    adet++;
+                }
+            } else {
+                throw new UnsupportedOperationException(sql);
+            }
+            return adet;
+        }
+
+        private static boolean kirada(Satir satir, Timestamp simdi) {
+            return satir.kilitBitis != null && !satir.kilitBitis.before(simdi);
+        }
+
+        private static boolean kiraBitir(Satir satir, String kiraci) {
+            if (!kiraci.equals(satir.kilitSahibi)) {
+                return false;
+            }
+            satir.kilitSahibi = null;
+            satir.kilitBitis = null;
+            return true;
+        }
+
+        private static ResultSet sonucKumesi(Satir satir) {
+            Object[] sutunlar = { null, satir.id, "TEST", satir.kumeTuru, satir.kumeId, satir.veri, satir.olusturma,
+                    satir.deneme, satir.sonrakiDeneme, satir.kilitBitis };
+            return (ResultSet) Proxy.newProxyInstance(OlayAktariciTest.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, (vekil, metod, args) -> sutunlar[(Integer) args[0]]);
+        }
+    }
+}
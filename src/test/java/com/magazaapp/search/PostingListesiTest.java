@@ -0,0 +1,50 @@
+package com.magazaapp.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostingListesiTest {
+
+    @Test
+    void cokListeliBirlesimSiraliVeTekrarsizdir() {
+        Random rastgele = new Random(42);
+        for (int deneme = 0; deneme < 50; deneme++) {
+            List<PostingListesi> listeler = new ArrayList<>();
+            TreeSet<Long> beklenen = new TreeSet<>();
+            int listeSayisi = rastgele.nextInt(40);
+            for (int l = 0; l < listeSayisi; l++) {
+                PostingListesi liste = new PostingListesi();
+                int boyut = rastgele.nextInt(30);
+                for (int i = 0; i < boyut; i++) {
+                    long id = rastgele.nextInt(200);
+                    liste.ekle(id);
+                    beklenen.add(id);
+                }
+                listeler.add(liste);
+            }
+
+            long[] sonuc = PostingListesi.birlesim(listeler);
+
+            assertArrayEquals(beklenen.stream().mapToLong(Long::longValue).toArray(), sonuc);
+        }
+    }
+
+    @Test
+    void tekListeninBirlesimiKopyasidir() {
+        PostingListesi liste = new PostingListesi();
+        liste.ekle(3);
+        liste.ekle(1);
+
+        long[] sonuc = PostingListesi.birlesim(List.of(liste));
+        liste.ekle(2);
+
+        assertArrayEquals(new long[] { 1, 3 }, sonuc);
+        assertEquals(0, PostingListesi.birlesim(List.of()).length);
+    }
+}
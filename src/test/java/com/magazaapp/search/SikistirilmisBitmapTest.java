@@ -0,0 +1,121 @@
+package com.magazaapp.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SikistirilmisBitmapTest {
+
+    // Bir kaptaki dizi -> bit dizisi geçiş sınırı (SikistirilmisBitmap.DIZI_SINIRI)
+    private static final int SINIR = 4096;
+
+    @Test
+    void sinirCevresindeEkleSilGidisDonusuKorunur() {
+        for (int adet : new int[] { SINIR - 1, SINIR, SINIR + 1, 3 * SINIR }) {
+            SikistirilmisBitmap bitmap = new SikistirilmisBitmap();
+            TreeSet<Integer> beklenen = new TreeSet<>();
+            Random rastgele = new Random(adet);
+            // Aynı kapta (üst 16 bit 1) tekrarlı eklemeler
+            while (beklenen.size() < adet) {
+                int deger = (1 << 16) | rastgele.nextInt(1 << 16);
+                assertEquals(beklenen.add(deger), bitmap.ekle(deger));
+            }
+            esitMi(beklenen, bitmap);
+
+            // Yarısını sil: sınırın hemen üstündeki yoğun kap yeniden seyrekleşir, 3 * SINIR yoğun kalır
+            for (int deger : beklenen.stream().filter(d -> d % 2 == 0).toList()) {
+                assertTrue(bitmap.sil(deger));
+                assertFalse(bitmap.sil(deger));
+                beklenen.remove(deger);
+            }
+            esitMi(beklenen, bitmap);
+            assertFalse(bitmap.icerir((1 << 16) | 2));
+
+            beklenen.forEach(bitmap::sil);
+            assertTrue(bitmap.bosMu());
+            assertEquals(0, bitmap.diziyeCevir().length);
+        }
+    }
+
+    @Test
+    void kesisimBirlesimVeKardinaliteSeyrekVeYogunKaplardaKumeyleAyni() {
+        // Kap başına eleman sayıları: seyrek, sınırın hemen altı/üstü ve yoğun
+        int[] yogunluklar = { 10, SINIR - 1, SINIR + 1, 40_000 };
+        Random rastgele = new Random(42);
+        for (int a : yogunluklar) {
+            for (int b : yogunluklar) {
+                TreeSet<Integer> kumeA = new TreeSet<>();
+                TreeSet<Integer> kumeB = new TreeSet<>();
+                SikistirilmisBitmap bitmapA = doldur(a, rastgele, kumeA);
+                SikistirilmisBitmap bitmapB = doldur(b, rastgele, kumeB);
+
+                TreeSet<Integer> kesisim = new TreeSet<>(kumeA);
+                kesisim.retainAll(kumeB);
+                TreeSet<Integer> birlesim = new TreeSet<>(kumeA);
+                birlesim.addAll(kumeB);
+
+                esitMi(kesisim, bitmapA.ve(bitmapB));
+                assertEquals(kesisim.size(), bitmapA.veKardinalitesi(bitmapB), a + " x " + b);
+                assertEquals(kesisim.size(), bitmapB.veKardinalitesi(bitmapA), b + " x " + a);
+                esitMi(birlesim, bitmapA.veya(bitmapB));
+
+                // İşlenenler değişmez
+                esitMi(kumeA, bitmapA);
+                esitMi(kumeB, bitmapB);
+            }
+        }
+    }
+
+    @Test
+    void kopyaBagimsizdirVeBosKumeIleIslemlerBostur() {
+        TreeSet<Integer> beklenen = new TreeSet<>();
+        SikistirilmisBitmap bitmap = doldur(SINIR + 1, new Random(7), beklenen);
+        SikistirilmisBitmap kopya = bitmap.kopya();
+        kopya.ekle(Integer.MAX_VALUE);
+        kopya.sil(beklenen.first());
+
+        esitMi(beklenen, bitmap);
+        assertTrue(kopya.icerir(Integer.MAX_VALUE));
+
+        SikistirilmisBitmap bos = new SikistirilmisBitmap();
+        assertTrue(bitmap.ve(bos).bosMu());
+        assertEquals(0, bitmap.veKardinalitesi(bos));
+        esitMi(beklenen, bos.veya(bitmap));
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    /**
+     * Üst 16 biti 0-3 olan kaplara kap başına tam verilen sayıda farklı değer ekle; 2 numaralı kap
+     * yalnızca bazı bitmaplerde bulunsun diye rastgele atlanır
+     */
+    private static SikistirilmisBitmap doldur(int kapBasina, Random rastgele, TreeSet<Integer> beklenen) {
+        SikistirilmisBitmap bitmap = new SikistirilmisBitmap();
+        for (int ust : new int[] { 0, 1, 2, 3 }) {
+            if (ust == 2 && rastgele.nextBoolean()) {
+                continue;
+            }
+            int eklenen = 0;
+            while (eklenen < kapBasina) {
+                int deger = (ust << 16) | rastgele.nextInt(1 << 16);
+                if (beklenen.add(deger)) {
+                    bitmap.ekle(deger);
+                    eklenen++;
+                }
+            }
+        }
+        return bitmap;
+    }
+
+    private static void esitMi(TreeSet<Integer> beklenen, SikistirilmisBitmap bitmap) {
+        assertArrayEquals(beklenen.stream().mapToInt(Integer::intValue).toArray(), bitmap.diziyeCevir());
+        assertEquals(beklenen.size(), bitmap.kardinalite());
+        assertEquals(beklenen.isEmpty(), bitmap.bosMu());
+        for (int deger : beklenen) {
+            assertTrue(bitmap.icerir(deger));
+        }
+    }
+}
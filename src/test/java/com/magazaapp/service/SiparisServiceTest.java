@@ -0,0 +1,94 @@
+package com.magazaapp.service;
+
+import com.magazaapp.checkout.SiparisHatti;
+import com.magazaapp.model.Magaza;
+import com.magazaapp.model.SiparisDurum;
+import com.magazaapp.repository.KullaniciRepository;
+import com.magazaapp.repository.MagazaRepository;
+import com.magazaapp.repository.SiparisDetayRepository;
+import com.magazaapp.repository.SiparisFisiRepository;
+import com.magazaapp.stock.StokMotoru;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SiparisServiceTest {
+
+    private static final long SAHIP = 7L;
+    private static final long MAGAZA = 70L;
+    private static final long BASKA_MAGAZA = 80L;
+
+    private SiparisFisiRepository siparisFisiRepository;
+    private SiparisService siparisService;
+
+    @BeforeEach
+    void hazirla() {
+        siparisFisiRepository = mock(SiparisFisiRepository.class);
+        MagazaRepository magazaRepository = mock(MagazaRepository.class);
+        Magaza magaza = new Magaza();
+        magaza.setId(MAGAZA);
+        when(magazaRepository.findBySahipId(SAHIP)).thenReturn(List.of(magaza));
+        siparisService = new SiparisService(siparisFisiRepository, mock(SiparisDetayRepository.class),
+                mock(KullaniciRepository.class), magazaRepository, mock(StokMotoru.class), mock(SiparisHatti.class));
+    }
+
+    @Test
+    void kismiTopluGuncellemeHerSiparisIcinAyriSonucDoner() {
+        when(siparisFisiRepository.findDurumVeMagazaByIdInKilitli(anyCollection())).thenReturn(List.of(
+                satir(1L, SiparisDurum.BEKLEMEDE, MAGAZA),
+                satir(2L, SiparisDurum.ONAYLANDI, MAGAZA),
+                satir(3L, SiparisDurum.IPTAL, MAGAZA),
+                satir(4L, SiparisDurum.BEKLEMEDE, BASKA_MAGAZA),
+                satir(6L, SiparisDurum.KARGODA, MAGAZA)));
+        when(siparisFisiRepository.topluDurumGuncelle(anyCollection(), anyCollection(), eq(SiparisDurum.KARGODA)))
+                .thenReturn(2);
+
+        List<SiparisService.TopluDurumSonucu> sonuclar = siparisService.topluDurumGuncelle(SAHIP,
+                List.of(6L, 1L, 5L, 3L, 2L, 4L, 1L), SiparisDurum.KARGODA);
+
+        assertEquals(List.of(6L, 1L, 5L, 3L, 2L, 4L), sonuclar.stream().map(SiparisService.TopluDurumSonucu::siparisId)
+                .toList());
+        assertEquals(List.of(true, true, false, false, true, false), sonuclar.stream()
+                .map(SiparisService.TopluDurumSonucu::basarili).toList());
+        // Bu sırada silinen (kilitli okumada bulunmayan) sipariş başarılı sayılmaz
+        assertEquals("Sipariş bulunamadı", sonuclar.get(2).mesaj());
+        assertEquals(SiparisDurum.IPTAL, sonuclar.get(3).durum());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> guncellenen = ArgumentCaptor.forClass(Collection.class);
+        verify(siparisFisiRepository).topluDurumGuncelle(guncellenen.capture(), anyCollection(),
+                eq(SiparisDurum.KARGODA));
+        assertEquals(List.of(1L, 2L), List.copyOf(guncellenen.getValue()));
+    }
+
+    @Test
+    void kilitliSatirlardanEksikGuncellemeHataylaGeriAlinir() {
+        when(siparisFisiRepository.findDurumVeMagazaByIdInKilitli(anyCollection())).thenReturn(List.of(
+                satir(1L, SiparisDurum.BEKLEMEDE, MAGAZA),
+                satir(2L, SiparisDurum.BEKLEMEDE, MAGAZA)));
+        when(siparisFisiRepository.topluDurumGuncelle(anyCollection(), anyCollection(), any())).thenReturn(1);
+
+        assertThrows(IllegalStateException.class,
+                () -> siparisService.topluDurumGuncelle(SAHIP, List.of(1L, 2L), SiparisDurum.ONAYLANDI));
+    }
+
+    @Test
+    void gecersizIcerikDuzenlemesiFisiKilitlemez() {
+        assertFalse(siparisService.icerikGuncelle(1L, List.of(10L, 11L), List.of(2), null, null).isSuccess());
+        assertFalse(siparisService.icerikGuncelle(1L, List.of(10L), List.of(0), null, null).isSuccess());
+
+        // Versiyon zorla artırılarak okunmadığı için doğrulama hatası çakışma üretmez
+        verify(siparisFisiRepository, never()).findByIdVersiyonArtirarak(anyLong());
+    }
+
+    private static Object[] satir(Long id, SiparisDurum durum, Long magazaId) {
+        return new Object[] { id, durum, magazaId };
+    }
+}
@@ -0,0 +1,385 @@
+package com.magazaapp.stock;
+
+import com.magazaapp.catalog.KatalogOnbellegi;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SicakStokDefteriTest {
+
+    @TempDir
+    Path dizin;
+
+    @Test
+    void commitSonrasiSilinemeyenGunlukAcilistaYenidenUygulanmaz() throws Exception {
+        SahteVeritabani db = new SahteVeritabani();
+        db.stokEkle(1L, 10L, 10);
+        SicakStokDefteri defter = defter(db);
+        defter.kurtar();
+        defter.ekle(1L);
+
+        assertTrue(defter.dus(List.of(new StokSatiri(1L, 10L, 3))).basarili());
+        Path dosya = tekDosya();
+        byte[] icerik = Files.readAllBytes(dosya);
+
+        defter.yaz();
+        assertEquals(7, db.adet(1L, 10L));
+        assertFalse(Files.exists(dosya));
+
+        // Yazma commit edildi, dosya silinmeden çökülmüş gibi geri koy
+        Files.write(dosya, icerik);
+        defter(db).kurtar();
+
+        assertEquals(7, db.adet(1L, 10L));
+        assertFalse(Files.exists(dosya));
+    }
+
+    @Test
+    void veritabaninaYazilmamisGunlukAcilistaBirKezUygulanir() throws Exception {
+        SahteVeritabani db = new SahteVeritabani();
+        db.stokEkle(1L, 10L, 10);
+        SicakStokDefteri defter = defter(db);
+        defter.kurtar();
+        defter.ekle(1L);
+
+        assertTrue(defter.dus(List.of(new StokSatiri(1L, 10L, 4))).basarili());
+        assertTrue(defter.dus(List.of(new StokSatiri(1L, 10L, 2))).basarili());
+
+        // Yazmadan önce çökme
+        defter(db).kurtar();
+        assertEquals(4, db.adet(1L, 10L));
+
+        // İkinci açılış aynı farkları tekrar uygulamaz
+        defter(db).kurtar();
+        assertEquals(4, db.adet(1L, 10L));
+    }
+
+    @Test
+    void yeniGunlukUygulanmisSiralariYenidenKullanmaz() throws Exception {
+        SahteVeritabani db = new SahteVeritabani();
+        db.stokEkle(1L, 10L, 10);
+        SicakStokDefteri defter = defter(db);
+        defter.kurtar();
+        defter.ekle(1L);
+        assertTrue(defter.dus(List.of(new StokSatiri(1L, 10L, 1))).basarili());
+        defter.kapat();
+
+        // Tüm dosyalar silindikten sonra açılan günlük 1'den başlasaydı sonraki çökmede atlanırdı
+        SicakStokDefteri ikinci = defter(db);
+        ikinci.kurtar();
+        ikinci.ekle(1L);
+        assertTrue(ikinci.dus(List.of(new StokSatiri(1L, 10L, 2))).basarili());
+
+        defter(db).kurtar();
+        assertEquals(7, db.adet(1L, 10L));
+    }
+
+    @Test
+    void rollbackOlanDusumVeIadeGeriAlinir() throws Exception {
+        SahteVeritabani db = new SahteVeritabani();
+        db.stokEkle(1L, 10L, 10);
+        SicakStokDefteri defter = defter(db);
+        defter.kurtar();
+        defter.ekle(1L);
+        TransactionTemplate islem = new TransactionTemplate(new SahteIslemYoneticisi());
+
+        islem.executeWithoutResult(durum -> {
+            assertTrue(defter.dus(List.of(new StokSatiri(1L, 10L, 3))).basarili());
+            assertEquals(7, sayac(defter, 1L, 10L).adet());
+            durum.setRollbackOnly();
+        });
+        assertEquals(10, sayac(defter, 1L, 10L).adet());
+
+        islem.executeWithoutResult(durum -> {
+            defter.iadeEt(List.of(new StokSatiri(1L, 10L, 2)));
+            durum.setRollbackOnly();
+        });
+        assertEquals(10, sayac(defter, 1L, 10L).adet());
+        assertEquals(0, sayac(defter, 1L, 10L).yazilmamisFark());
+
+        // Commit edilen düşüm kalır
+        islem.executeWithoutResult(durum -> defter.dus(List.of(new StokSatiri(1L, 10L, 4))));
+        assertEquals(6, sayac(defter, 1L, 10L).adet());
+
+        // Telafi kayıtları da günlükte: çökme sonrası net fark yalnızca commit edilen düşüm
+        defter(db).kurtar();
+        assertEquals(6, db.adet(1L, 10L));
+    }
+
+    @Test
+    void eszamanliDusumlerStoguEksiyeDusurmez() throws Exception {
+        SahteVeritabani db = new SahteVeritabani();
+        db.stokEkle(1L, 10L, 60);
+        db.stokEkle(1L, 11L, 40);
+        db.stokEkle(2L, 20L, 50);
+        SicakStokDefteri defter = defter(db);
+        defter.kurtar();
+        defter.ekle(1L);
+        defter.ekle(2L);
+
+        List<List<StokSatiri>> sepetler = List.of(
+                List.of(new StokSatiri(1L, 10L, 1)),
+                List.of(new StokSatiri(1L, 10L, 2), new StokSatiri(1L, 11L, 1)),
+                List.of(new StokSatiri(1L, 11L, 1), new StokSatiri(2L, 20L, 3)),
+                List.of(new StokSatiri(2L, 20L, 1)));
+        int thread = 16;
+        CountDownLatch basla = new CountDownLatch(1);
+        ExecutorService havuz = Executors.newFixedThreadPool(thread);
+        List<Future<Map<List<Long>, Integer>>> gelecekler = new ArrayList<>();
+        for (int t = 0; t < thread; t++) {
+            int ilk = t;
+            gelecekler.add(havuz.submit(() -> {
+                Map<List<Long>, Integer> dusulen = new HashMap<>();
+                basla.await();
+                for (int i = 0; i < 50; i++) {
+                    List<StokSatiri> sepet = sepetler.get((ilk + i) % sepetler.size());
+                    SicakStokDefteri.Dusum dusum = defter.dus(sepet);
+                    if (dusum.basarili()) {
+                        for (StokDusumSonucu.Satir satir : dusum.sonuclar()) {
+                            assertTrue(satir.mevcut() >= 0);
+                        }
+                        sepet.forEach(satir -> dusulen.merge(List.of(satir.urunId(), satir.bedenId()),
+                                satir.adet(), Integer::sum));
+                    }
+                }
+                return dusulen;
+            }));
+        }
+        basla.countDown();
+        Map<List<Long>, Integer> toplam = new HashMap<>();
+        for (Future<Map<List<Long>, Integer>> gelecek : gelecekler) {
+            gelecek.get(30, TimeUnit.SECONDS).forEach((sku, adet) -> toplam.merge(sku, adet, Integer::sum));
+        }
+        havuz.shutdown();
+
+        Map<List<Long>, Integer> baslangic = Map.of(List.of(1L, 10L), 60, List.of(1L, 11L), 40, List.of(2L, 20L), 50);
+        baslangic.forEach((sku, adet) -> {
+            int kalan = sayac(defter, sku.get(0), sku.get(1)).adet();
+            assertTrue(kalan >= 0);
+            assertEquals(adet - toplam.getOrDefault(sku, 0), kalan);
+        });
+
+        // Günlükten kurtarılan değerler sayaçlarla aynı
+        defter(db).kurtar();
+        baslangic.keySet().forEach(sku ->
+                assertEquals(sayac(defter, sku.get(0), sku.get(1)).adet(), db.adet(sku.get(0), sku.get(1))));
+    }
+
+    @Test
+    void isaretlemeYoldakiVeritabaniDusumunuBekler() throws Exception {
+        SahteVeritabani db = new SahteVeritabani();
+        db.stokEkle(1L, 10L, 10);
+        SicakStokDefteri defter = defter(db);
+        defter.kurtar();
+
+        CountDownLatch siniflandirildi = new CountDownLatch(1);
+        CountDownLatch devam = new CountDownLatch(1);
+        ExecutorService havuz = Executors.newFixedThreadPool(2);
+        // Ürün henüz sıcak değil: satır veritabanında düşülecek, UPDATE'ten önce duraklatılır
+        Future<?> dusum = havuz.submit(() -> defter.isaretlemeDegismeden(() -> {
+            assertFalse(defter.dus(List.of(new StokSatiri(1L, 10L, 4))).kalanlar().isEmpty());
+            siniflandirildi.countDown();
+            try {
+                devam.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            db.stok.merge(List.of(1L, 10L), -4, Integer::sum);
+            return null;
+        }));
+        assertTrue(siniflandirildi.await(5, TimeUnit.SECONDS));
+        Future<?> isaretleme = havuz.submit(() -> defter.ekle(1L));
+
+        Thread.sleep(100);
+        assertFalse(isaretleme.isDone());
+        devam.countDown();
+        dusum.get(5, TimeUnit.SECONDS);
+        isaretleme.get(5, TimeUnit.SECONDS);
+        havuz.shutdown();
+
+        assertEquals(6, sayac(defter, 1L, 10L).adet());
+    }
+
+    @Test
+    void isaretlemeKilitliSatirlaraTekrarDener() throws Exception {
+        SahteVeritabani db = new SahteVeritabani();
+        db.stokEkle(1L, 10L, 10);
+        db.kilitliOkumalar.set(3);
+        SicakStokDefteri defter = defter(db);
+        defter.kurtar();
+
+        defter.ekle(1L);
+
+        assertEquals(0, db.kilitliOkumalar.get());
+        assertEquals(10, sayac(defter, 1L, 10L).adet());
+    }
+
+    // =============== YARDIMCI METODLAR ===============
+
+    private static SicakStokDefteri.SayacDurumu sayac(SicakStokDefteri defter, long urunId, long bedenId) {
+        return defter.durum().stream()
+                .filter(durum -> durum.urunId() == urunId && durum.bedenId() == bedenId)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private SicakStokDefteri defter(SahteVeritabani db) {
+        return new SicakStokDefteri(db, mock(KatalogOnbellegi.class), new SahteIslemYoneticisi(), true,
+                dizin.toString(), true, "");
+    }
+
+    private Path tekDosya() throws Exception {
+        try (Stream<Path> dosyalar = Files.list(dizin)) {
+            List<Path> dolu = dosyalar.filter(dosya -> dosya.toFile().length() > 0).toList();
+            assertEquals(1, dolu.size());
+            return dolu.get(0);
+        }
+    }
+
+    /**
+     * urun_stok ve stok_defteri_durumu tablolarını bellekte tutan JdbcTemplate
+     */
+    static class SahteVeritabani extends JdbcTemplate {
+
+        final Map<List<Long>, Integer> stok = new ConcurrentHashMap<>();
+        final Map<String, Long> sonDosya = new ConcurrentHashMap<>();
+        // İşaretleme okumasının kaç kez daha NOWAIT kilit hatası vereceği
+        final AtomicInteger kilitliOkumalar = new AtomicInteger();
+
+        void stokEkle(long urunId, long bedenId, int adet) {
+            stok.put(List.of(urunId, bedenId), adet);
+        }
+
+        int adet(long urunId, long bedenId) {
+            return stok.get(List.of(urunId, bedenId));
+        }
+
+        @Override
+        public <T> List<T> queryForList(String sql, Class<T> tip, Object... args) {
+            Long son = sonDosya.get((String) args[0]);
+            return son == null ? List.of() : List.of(tip.cast(son));
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (sql.startsWith("INSERT INTO stok_defteri_durumu")) {
+                sonDosya.put((String) args[0], 0L);
+                return 1;
+            }
+            if (sql.startsWith("UPDATE stok_defteri_durumu")) {
+                long yeni = ((Number) args[0]).longValue();
+                Long eski = sonDosya.get((String) args[1]);
+                if (eski != null && eski < yeni) {
+                    sonDosya.put((String) args[1], yeni);
+                    return 1;
+                }
+                return 0;
+            }
+            throw new UnsupportedOperationException(sql);
+        }
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> satirlar, int boyut,
+                ParameterizedPreparedStatementSetter<T> ayarlayici) {
+            for (T satir : satirlar) {
+                Map<Integer, Object> p = new HashMap<>();
+                PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[] { PreparedStatement.class }, (vekil, metod, args) -> {
+                            if (metod.getName().startsWith("set")) {
+                                p.put((Integer) args[0], args[1]);
+                            }
+                            return null;
+                        });
+                try {
+                    ayarlayici.setValues(ps, satir);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+                stok.merge(List.of((Long) p.get(2), (Long) p.get(3)), (Integer) p.get(1), Integer::sum);
+            }
+            return new int[][] { new int[satirlar.size()] };
+        }
+
+        @Override
+        public List<Map<String, Object>> queryForList(String sql, Object... args) {
+            if (kilitliOkumalar.getAndUpdate(kalan -> Math.max(kalan - 1, 0)) > 0) {
+                throw new CannotAcquireLockException("NOWAIT");
+            }
+            List<Map<String, Object>> satirlar = new ArrayList<>();
+            stok.forEach((anahtar, adet) -> {
+                if (anahtar.get(0).equals(args[0])) {
+                    satirlar.add(Map.of("beden_id", anahtar.get(1), "adet", adet));
+                }
+            });
+            return satirlar;
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler isleyici, Object... args) {
+            Set<Object> urunler = Set.of(args);
+            for (Map.Entry<List<Long>, Integer> giris : stok.entrySet()) {
+                if (!urunler.contains(giris.getKey().get(0))) {
+                    continue;
+                }
+                Map<String, Object> sutunlar = Map.of("urun_id", giris.getKey().get(0),
+                        "beden_id", giris.getKey().get(1), "adet", giris.getValue());
+                ResultSet rs = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[] { ResultSet.class }, (vekil, metod, a) -> sutunlar.get((String) a[0]));
+                try {
+                    isleyici.processRow(rs);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Senkronizasyonları çalıştıran, veritabanına dokunmayan transaction yöneticisi
+     */
+    static class SahteIslemYoneticisi extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.magazaapp.stock;
+
+import com.magazaapp.catalog.KatalogOnbellegi;
+import com.magazaapp.repository.UrunStokRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class StokMotoruTest {
+
+    @TempDir
+    Path dizin;
+
+    private DusumVeritabani db;
+    private SicakStokDefteri defter;
+    private StokMotoru motor;
+    // @Transactional vekili yok: TransactionTemplate ile açılan transaction
+    private final TransactionTemplate islem = new TransactionTemplate(new SicakStokDefteriTest.SahteIslemYoneticisi());
+
+    @BeforeEach
+    void hazirla() throws Exception {
+        db = new DusumVeritabani();
+        db.stokEkle(1L, 10L, 5);
+        db.stokEkle(2L, 20L, 5);
+        db.stokEkle(3L, 30L, 1);
+        defter = new SicakStokDefteri(db, mock(KatalogOnbellegi.class), new SicakStokDefteriTest.SahteIslemYoneticisi(),
+                true, dizin.toString(), true, "");
+        defter.kurtar();
+        defter.ekle(1L);
+        motor = new StokMotoru(db, mock(UrunStokRepository.class), mock(KatalogOnbellegi.class), defter,
+                new DusukStokUyarilari(db, false, 100, 1000));
+    }
+
+    @Test
+    void sicakSatirYetmezseVeritabaniSatirlarinaGidilmez() {
+        StokDusumSonucu sonuc = islem.execute(durum -> motor.dus(List.of(
+                new StokSatiri(1L, 10L, 6), new StokSatiri(2L, 20L, 1))));
+
+        assertFalse(sonuc.basarili());
+        assertEquals(List.of(1L), sonuc.eksikler().stream().map(StokDusumSonucu.Satir::urunId).toList());
+        assertEquals(0, db.dusumBatchleri);
+        assertEquals(5, db.adet(2L, 20L));
+        assertEquals(5, sicakAdet(1L, 10L));
+    }
+
+    @Test
+    void eksikSatirdaDusulenlerAyniTransactiondaGeriEklenir() {
+        StokDusumSonucu sonuc = islem.execute(durum -> motor.dus(List.of(
+                new StokSatiri(1L, 10L, 2), new StokSatiri(2L, 20L, 2), new StokSatiri(3L, 30L, 2))));
+
+        // Transaction commit oldu; yine de hiçbir satır düşülmüş kalmadı
+        assertFalse(sonuc.basarili());
+        assertEquals(List.of(3L), sonuc.eksikler().stream().map(StokDusumSonucu.Satir::urunId).toList());
+        assertEquals(5, db.adet(2L, 20L));
+        assertEquals(1, db.adet(3L, 30L));
+        assertEquals(5, sicakAdet(1L, 10L));
+    }
+
+    private int sicakAdet(long urunId, long bedenId) {
+        return defter.durum().stream()
+                .filter(durum -> durum.urunId() == urunId && durum.bedenId() == bedenId)
+                .findFirst()
+                .orElseThrow()
+                .adet();
+    }
+
+    /**
+     * Koşullu düşüm UPDATE'ini de yorumlayan sahte veritabanı
+     */
+    static class DusumVeritabani extends SicakStokDefteriTest.SahteVeritabani {
+
+        int dusumBatchleri;
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> satirlar, int boyut,
+                ParameterizedPreparedStatementSetter<T> ayarlayici) {
+            if (!sql.startsWith("UPDATE urun_stok SET adet = adet - ?")) {
+                return super.batchUpdate(sql, satirlar, boyut, ayarlayici);
+            }
+            dusumBatchleri++;
+            int[] etkilenen = new int[satirlar.size()];
+            int i = 0;
+            for (T satir : satirlar) {
+                Map<Integer, Object> p = parametreler(satir, ayarlayici);
+                List<Long> anahtar = List.of((Long) p.get(2), (Long) p.get(3));
+                int istenen = (Integer) p.get(1);
+                if (stok.getOrDefault(anahtar, 0) >= istenen) {
+                    stok.merge(anahtar, -istenen, Integer::sum);
+                    etkilenen[i] = 1;
+                }
+                i++;
+            }
+            return new int[][] { etkilenen };
+        }
+
+        private static <T> Map<Integer, Object> parametreler(T satir, ParameterizedPreparedStatementSetter<T> ayarlayici) {
+            Map<Integer, Object> p = new HashMap<>();
+            PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(StokMotoruTest.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, (vekil, metod, args) -> {
+                        if (metod.getName().startsWith("set")) {
+                            p.put((Integer) args[0], args[1]);
+                        }
+                        return null;
+                    });
+            try {
+                ayarlayici.setValues(ps, satir);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return p;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.magazaapp.stock;
+
+import com.magazaapp.model.Odeme;
+import com.magazaapp.model.OdemeDurum;
+import com.magazaapp.repository.BedenRepository;
+import com.magazaapp.repository.OdemeRepository;
+import com.magazaapp.repository.StokRezervasyonuRepository;
+import com.magazaapp.repository.UrunRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StokRezervasyonlariTest {
+
+    private StokRezervasyonuRepository rezervasyonRepository;
+    private OdemeRepository odemeRepository;
+    private StokRezervasyonlari rezervasyonlar;
+
+    @BeforeEach
+    void hazirla() {
+        rezervasyonRepository = mock(StokRezervasyonuRepository.class);
+        odemeRepository = mock(OdemeRepository.class);
+        rezervasyonlar = new StokRezervasyonlari(rezervasyonRepository, odemeRepository, mock(UrunRepository.class),
+                mock(BedenRepository.class), mock(StokMotoru.class), new SicakStokDefteriTest.SahteIslemYoneticisi(),
+                10, 15);
+        when(odemeRepository.bekleyenOdemeyiIptalEt(anyString(), anyString())).thenReturn(1);
+    }
+
+    @Test
+    void islenemeyenTokenTaramayiDurdurmazVeSonrakiSayfadaDislanir() {
+        List<String> ilkSayfa = IntStream.range(0, StokRezervasyonlari.TARAMA_SAYFASI)
+                .mapToObj(i -> "T" + i)
+                .toList();
+        when(rezervasyonRepository.suresiDolanTokenlar(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(ilkSayfa);
+        when(rezervasyonRepository.suresiDolanTokenlar(any(LocalDateTime.class), anyCollection(), any(Pageable.class)))
+                .thenReturn(List.of("T100"));
+        when(odemeRepository.bekleyenOdemeyiIptalEt(eq("T0"), anyString()))
+                .thenThrow(new IllegalStateException("kilit beklemesi aşıldı"));
+
+        rezervasyonlar.suresiDolanlariSerbestBirak();
+
+        // T0'dan sonraki token'lar ve ikinci sayfa da işlendi
+        verify(rezervasyonRepository).findByOdemeTokenKilitli("T99");
+        verify(rezervasyonRepository).findByOdemeTokenKilitli("T100");
+        verify(rezervasyonRepository, never()).findByOdemeTokenKilitli("T0");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> haric = ArgumentCaptor.forClass(Collection.class);
+        verify(rezervasyonRepository).suresiDolanTokenlar(any(LocalDateTime.class), haric.capture(),
+                any(Pageable.class));
+        assertEquals(List.of("T0"), List.copyOf(haric.getValue()));
+    }
+
+    @Test
+    void basariliOdemeninRezervasyonuIadeEdilmez() {
+        when(rezervasyonRepository.suresiDolanTokenlar(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of("BASARILI", "BEKLEMEDE", "BASARISIZ", "YOK"));
+        when(odemeRepository.bekleyenOdemeyiIptalEt(anyString(), anyString())).thenReturn(0);
+        Odeme yeniOdenen = odeme(OdemeDurum.BASARILI);
+        yeniOdenen.setTamamlanmaTarihi(LocalDateTime.now().minusMinutes(1));
+        when(odemeRepository.findByIyzicoTokenKilitli("BASARILI")).thenReturn(Optional.of(yeniOdenen));
+        when(odemeRepository.findByIyzicoTokenKilitli("BEKLEMEDE"))
+                .thenReturn(Optional.of(odeme(OdemeDurum.BEKLEMEDE)));
+        when(odemeRepository.findByIyzicoTokenKilitli("BASARISIZ"))
+                .thenReturn(Optional.of(odeme(OdemeDurum.BASARISIZ)));
+        when(odemeRepository.findByIyzicoTokenKilitli("YOK")).thenReturn(Optional.empty());
+
+        rezervasyonlar.suresiDolanlariSerbestBirak();
+
+        verify(rezervasyonRepository, never()).findByOdemeTokenKilitli("BASARILI");
+        verify(rezervasyonRepository, never()).findByOdemeTokenKilitli("BEKLEMEDE");
+        verify(rezervasyonRepository).findByOdemeTokenKilitli("BASARISIZ");
+        verify(rezervasyonRepository).findByOdemeTokenKilitli("YOK");
+    }
+
+    @Test
+    void odenipSiparisiOlusmayanRezervasyonBeklemeSonrasiIadeEdilir() {
+        when(rezervasyonRepository.suresiDolanTokenlar(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of("SIPARISSIZ"));
+        when(odemeRepository.bekleyenOdemeyiIptalEt(anyString(), anyString())).thenReturn(0);
+        Odeme odenen = odeme(OdemeDurum.BASARILI);
+        odenen.setTamamlanmaTarihi(LocalDateTime.now().minusMinutes(16));
+        when(odemeRepository.findByIyzicoTokenKilitli("SIPARISSIZ")).thenReturn(Optional.of(odenen));
+
+        rezervasyonlar.suresiDolanlariSerbestBirak();
+
+        // Sipariş oluşsaydı rezervasyonu aynı transaction'da silerdi; duran rezervasyon bırakılır
+        verify(rezervasyonRepository).findByOdemeTokenKilitli("SIPARISSIZ");
+        assertEquals(OdemeDurum.IADE, odenen.getDurum());
+    }
+
+    @Test
+    void iptalEdilenOdemeninStoguIadeEdilir() {
+        when(rezervasyonRepository.suresiDolanTokenlar(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of("BEKLEYEN"));
+
+        rezervasyonlar.suresiDolanlariSerbestBirak();
+
+        verify(rezervasyonRepository).findByOdemeTokenKilitli("BEKLEYEN");
+        verify(odemeRepository, never()).findByIyzicoTokenKilitli(anyString());
+    }
+
+    private static Odeme odeme(OdemeDurum durum) {
+        Odeme odeme = new Odeme();
+        odeme.setDurum(durum);
+        return odeme;
+    }
+}